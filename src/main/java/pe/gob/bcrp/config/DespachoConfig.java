@@ -0,0 +1,45 @@
+package pe.gob.bcrp.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import pe.gob.bcrp.service.impl.ColasDespacho;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+@EnableScheduling
+@EnableConfigurationProperties(SeveridadProperties.class)
+public class DespachoConfig {
+    @Value("${correo.despacho.hilos:8}")
+    private int hilos;
+    @Value("${correo.despacho.capacidad-cola:1000}")
+    private int capacidadCola;
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean hilosVirtuales;
+    @Value("${correo.despacho.hilos-virtuales:64}")
+    private int hilosVirtualesDespacho;
+
+    /**
+     * Pool acotado que envía los correos de las alertas pendientes, con una cola por clase de
+     * severidad. Si la cola de la clase se llena la tarea se rechaza y la alerta queda para el
+     * barrido periódico. En modo de hilos virtuales los trabajadores son virtuales y el pool
+     * solo acota la concurrencia.
+     */
+    @Bean(destroyMethod = "cerrar")
+    public ColasDespacho despachoExecutor(SeveridadProperties severidadProperties, MeterRegistry meterRegistry) {
+        int trabajadores = hilosVirtuales ? hilosVirtualesDespacho : hilos;
+        ThreadFactory threadFactory;
+        if (hilosVirtuales) {
+            threadFactory = Thread.ofVirtual().name("despacho-correo-v", 0).factory();
+        } else {
+            AtomicInteger numero = new AtomicInteger();
+            threadFactory = r -> new Thread(r, "despacho-correo-" + numero.incrementAndGet());
+        }
+        return new ColasDespacho(trabajadores, capacidadCola, threadFactory, severidadProperties, meterRegistry);
+    }
+}
@@ -1,14 +1,21 @@
 package pe.gob.bcrp.config;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.JavaMailSenderImpl;
+import pe.gob.bcrp.mail.EnrutadorSmtp;
+import pe.gob.bcrp.mail.LimitadorEnvio;
+import pe.gob.bcrp.mail.PooledJavaMailSender;
+import pe.gob.bcrp.mail.RelaySmtp;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Executors;
 
 @Configuration
+@EnableConfigurationProperties(RelaysSmtpProperties.class)
 public class EmailConfig {
     @Value("${spring.mail.host}")
     private String mailHost;
@@ -19,15 +26,74 @@ public class EmailConfig {
     @Value("${spring.mail.password}")
     private String mailPassword;
 
+    @Value("${correo.smtp.pool.tamano-maximo:4}")
+    private int tamanoPool;
+    @Value("${correo.smtp.pool.espera-maxima-ms:10000}")
+    private long esperaMaximaMs;
+    @Value("${correo.smtp.pool.inactividad-maxima-ms:60000}")
+    private long inactividadMaximaMs;
+    @Value("${correo.smtp.pool.validacion-ms:5000}")
+    private long validacionMs;
+    @Value("${correo.smtp.pool.envios-maximos-por-conexion:100}")
+    private int enviosMaximosPorConexion;
+    @Value("${correo.smtp.timeout-ms:10000}")
+    private long timeoutMs;
+    @Value("${correo.smtp.limite.por-minuto:0}")
+    private int limitePorMinuto;
+    @Value("${correo.smtp.limite.por-dia:0}")
+    private int limitePorDia;
+    @Value("${correo.smtp.limite.espera-maxima-ms:5000}")
+    private long limiteEsperaMaximaMs;
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean hilosVirtuales;
+
+    /**
+     * Enrutador sobre los relays configurados; sin relays en correo.smtp.relays se usa
+     * spring.mail.* como único relay
+     */
     @Bean
-    public JavaMailSender getJavaMailSender() {
-        JavaMailSenderImpl javaMailSender = new JavaMailSenderImpl();
-        javaMailSender.setHost(mailHost);
-        javaMailSender.setPort(Integer.parseInt(mailPort));
-        javaMailSender.setUsername(mailUsername);
-        javaMailSender.setPassword(mailPassword);
+    public EnrutadorSmtp getJavaMailSender(RelaysSmtpProperties properties) {
+        List<RelaysSmtpProperties.Relay> configurados = properties.getRelays();
+        if (configurados.isEmpty()) {
+            RelaysSmtpProperties.Relay principal = new RelaysSmtpProperties.Relay();
+            principal.setNombre("principal");
+            principal.setHost(mailHost);
+            principal.setPort(Integer.parseInt(mailPort));
+            principal.setUsername(mailUsername);
+            principal.setPassword(mailPassword);
+            principal.setLimitePorMinuto(limitePorMinuto);
+            principal.setLimitePorDia(limitePorDia);
+            configurados = List.of(principal);
+        }
+
+        List<RelaySmtp> relays = new ArrayList<>(configurados.size());
+        for (RelaysSmtpProperties.Relay relay : configurados) {
+            relays.add(new RelaySmtp(relay.getNombre(), crearSender(relay), relay.getPeso(),
+                    properties.getCircuito().getFallosConsecutivos(), properties.getCircuito().getAperturaMs()));
+        }
+        return new EnrutadorSmtp(relays, properties.getEstrategia());
+    }
+
+    private PooledJavaMailSender crearSender(RelaysSmtpProperties.Relay relay) {
+        PooledJavaMailSender javaMailSender = new PooledJavaMailSender(tamanoPool, esperaMaximaMs,
+                inactividadMaximaMs, validacionMs, enviosMaximosPorConexion);
+        javaMailSender.setHost(relay.getHost());
+        javaMailSender.setPort(relay.getPort());
+        javaMailSender.setUsername(relay.getUsername());
+        javaMailSender.setPassword(relay.getPassword());
         Properties props = javaMailSender.getJavaMailProperties();
         props.put("mail.smtp.starttls.enable", "true");
+        // Sin timeouts un relay colgado retiene la conexión indefinidamente y el circuito no se entera
+        props.put("mail.smtp.connectiontimeout", String.valueOf(timeoutMs));
+        props.put("mail.smtp.timeout", String.valueOf(timeoutMs));
+        if (relay.getLimitePorMinuto() > 0 || relay.getLimitePorDia() > 0) {
+            javaMailSender.setLimitador(new LimitadorEnvio(relay.getUsername(), relay.getLimitePorMinuto(),
+                    relay.getLimitePorDia(), limiteEsperaMaximaMs));
+        }
+        if (hilosVirtuales) {
+            javaMailSender.setEjecutorSmtp(Executors.newFixedThreadPool(tamanoPool,
+                    Thread.ofPlatform().name("smtp-io-" + relay.getNombre() + "-", 0).daemon(true).factory()));
+        }
         return javaMailSender;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,39 @@
+package pe.gob.bcrp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import pe.gob.bcrp.mail.EnrutadorSmtp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Relays SMTP configurados en correo.smtp.relays[n].*. Si no se configura ninguno se usa
+ * un único relay con los datos de spring.mail.* y correo.smtp.limite.*
+ */
+@Data
+@ConfigurationProperties(prefix = "correo.smtp")
+public class RelaysSmtpProperties {
+
+    private EnrutadorSmtp.Estrategia estrategia = EnrutadorSmtp.Estrategia.MENOS_PENDIENTES;
+    private List<Relay> relays = new ArrayList<>();
+    private Circuito circuito = new Circuito();
+
+    @Data
+    public static class Relay {
+        private String nombre;
+        private String host;
+        private int port = 587;
+        private String username;
+        private String password;
+        private int peso = 1;
+        private int limitePorMinuto;
+        private int limitePorDia;
+    }
+
+    @Data
+    public static class Circuito {
+        private int fallosConsecutivos = 5;
+        private long aperturaMs = 30000;
+    }
+}
@@ -0,0 +1,35 @@
+package pe.gob.bcrp.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import pe.gob.bcrp.model.entity.Severidad;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Clases de severidad del despacho en correo.despacho.severidad.*: la clase de cada tipo de
+ * error, el peso de cada clase en el reparto de los trabajadores y la espera a partir de la
+ * cual una tarea se atiende antes que las demás.
+ */
+@Data
+@ConfigurationProperties(prefix = "correo.despacho.severidad")
+public class SeveridadProperties {
+
+    /**
+     * Clase por tipo de error; ej. correo.despacho.severidad.tipos.ERROR_CONEXION=CRITICA
+     */
+    private Map<String, Severidad> tipos = new HashMap<>();
+    /**
+     * Clase de las notificaciones de éxito (sin tipo de error)
+     */
+    private Severidad exito = Severidad.BAJA;
+    /**
+     * Clase de los tipos de error no configurados
+     */
+    private Severidad porDefecto = Severidad.NORMAL;
+    private Map<Severidad, Integer> pesos = new EnumMap<>(Map.of(
+            Severidad.CRITICA, 8, Severidad.ALTA, 4, Severidad.NORMAL, 2, Severidad.BAJA, 1));
+    private long envejecimientoMs = 10000;
+}
@@ -1,19 +1,27 @@
 package pe.gob.bcrp.controller;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import pe.gob.bcrp.exception.AlertaRegistradaException;
 import pe.gob.bcrp.exception.EmailValidationException;
+import pe.gob.bcrp.exception.EnvioSaturadoException;
+import pe.gob.bcrp.model.dto.FiltroAlertasDTO;
+import pe.gob.bcrp.model.dto.PaginaAlertasDTO;
 import pe.gob.bcrp.model.dto.RequestSendEmail;
 import pe.gob.bcrp.model.dto.ResponseDTO;
+import pe.gob.bcrp.model.dto.ResultadoLoteDTO;
 import pe.gob.bcrp.model.entity.Alerta;
 import pe.gob.bcrp.model.entity.EstadoAlerta;
 import pe.gob.bcrp.model.entity.TipoEvento;
 import pe.gob.bcrp.service.impl.AlertaService;
-import pe.gob.bcrp.traceability.service.ITraceabilityService;
+import pe.gob.bcrp.service.impl.RegistroIdempotencia;
+import pe.gob.bcrp.service.ITrazabilidadService;
 
+import java.util.List;
 import java.util.UUID;
 
 @Slf4j
@@ -21,12 +29,32 @@ import java.util.UUID;
 @RequestMapping("/correo")
 @CrossOrigin(origins = "*")
 public class EmailController {
+    static final String CABECERA_IDEMPOTENCIA = "Idempotency-Key";
+    static final String CABECERA_REPETIDA = "Idempotent-Replayed";
+
     private final AlertaService alertaService;
-    private final ITraceabilityService traceabilityService;
+    private final ITrazabilidadService traceabilityService;
+    private final RegistroIdempotencia registroIdempotencia;
+
+    @Value("${correo.despacho.asincrono:true}")
+    private boolean despachoAsincrono;
+    @Value("${correo.lote.tamano-maximo:500}")
+    private int tamanoMaximoLote;
+    @Value("${correo.consulta.tamano-maximo:500}")
+    private int tamanoMaximoConsulta;
 
-    public EmailController(AlertaService alertaService, ITraceabilityService traceabilityService) {
+    public EmailController(AlertaService alertaService, ITrazabilidadService traceabilityService,
+                           RegistroIdempotencia registroIdempotencia) {
         this.alertaService = alertaService;
         this.traceabilityService = traceabilityService;
+        this.registroIdempotencia = registroIdempotencia;
+    }
+
+    /**
+     * Respuesta de POST /correo e indicador de si la alerta quedó registrada: solo entonces
+     * la respuesta se guarda para las repeticiones con la misma Idempotency-Key
+     */
+    private record Procesado(ResponseEntity<ResponseDTO> respuesta, boolean alertaRegistrada) {
     }
 
     @GetMapping
@@ -34,44 +62,170 @@ public class EmailController {
         return "Hello world!";
     }
 
+    /**
+     * Con Idempotency-Key, una repetición de la solicitud recibe la respuesta de la primera
+     * (cabecera Idempotent-Replayed) sin registrar otra alerta ni enviar otro correo
+     */
     @PostMapping
-    public ResponseEntity<ResponseDTO> createEmail(@RequestBody @Validated RequestSendEmail request) {
+    public ResponseEntity<ResponseDTO> createEmail(@RequestBody @Validated RequestSendEmail request,
+                                                   @RequestParam(defaultValue = "false") boolean incluirTrama,
+                                                   @RequestHeader(value = CABECERA_IDEMPOTENCIA, required = false)
+                                                   String claveIdempotencia) {
+        if (claveIdempotencia == null) {
+            return procesarEmail(request, incluirTrama).respuesta();
+        }
+
+        RegistroIdempotencia.Respuesta guardada = registroIdempotencia.reservar(claveIdempotencia, request);
+        if (guardada != null) {
+            log.info("Idempotency-Key {} repetida, se retorna la respuesta guardada", claveIdempotencia);
+            return ResponseEntity.status(guardada.estadoHttp())
+                    .header(CABECERA_REPETIDA, "true")
+                    .body(guardada.cuerpo());
+        }
+
+        Procesado procesado;
+        try {
+            procesado = procesarEmail(request, incluirTrama);
+        } catch (RuntimeException e) {
+            // Validación o saturación: la alerta no quedó registrada y el cliente puede reintentar
+            registroIdempotencia.liberar(claveIdempotencia);
+            throw e;
+        }
+
+        // Sin alerta registrada el cliente puede reintentar; con alerta (aun con error de envío) se repite la respuesta
+        ResponseEntity<ResponseDTO> respuesta = procesado.respuesta();
+        if (procesado.alertaRegistrada()) {
+            registroIdempotencia.completar(claveIdempotencia, respuesta.getStatusCode().value(), respuesta.getBody());
+        } else {
+            registroIdempotencia.liberar(claveIdempotencia);
+        }
+        return respuesta;
+    }
+
+    private Procesado procesarEmail(RequestSendEmail request, boolean incluirTrama) {
         String processId = UUID.randomUUID().toString(); // Mover aquí para generar un nuevo ID por cada request
 
         traceabilityService.logSuccess(TipoEvento.PROCESO_INICIO.name(), processId,
-                "Iniciando proceso con datos: " + request.toString());
+                () -> "Iniciando proceso con datos: " + request.toString());
 
         ResponseDTO responseDTO = ResponseDTO.builder().build();
+        Alerta alerta = null;
 
         try {
-            Alerta alerta = alertaService.procesarAlerta(request, processId);
+            if (despachoAsincrono) {
+                alerta = alertaService.registrarAlerta(request, processId);
+                Long idAlerta = alerta.getIdAlerta();
+
+                traceabilityService.logSuccess(TipoEvento.PROCESO_OK.name(), processId,
+                        () -> String.format("Alerta ID: %d en cola para envío", idAlerta));
+
+                responseDTO.setMessage("Alerta registrada, el correo se enviará en breve");
+                responseDTO.setData(prepararRespuesta(alerta, incluirTrama));
+                return new Procesado(new ResponseEntity<>(responseDTO, HttpStatus.ACCEPTED), true);
+            }
 
-            if(alerta.getEstado().name().equals(EstadoAlerta.ERROR_ENVIO.name())) {
+            alerta = alertaService.procesarAlerta(request, processId);
+
+            if(alerta.getEstado() == EstadoAlerta.ERROR_ENVIO || alerta.getEstado() == EstadoAlerta.DESCARTADA) {
                 traceabilityService.logSuccess(TipoEvento.PROCESO_ERROR.name(), processId,
                         "Error al enviar correo");
 
                 responseDTO.setMessage("Error al enviar correo");
-                return new ResponseEntity<>(responseDTO, HttpStatus.INTERNAL_SERVER_ERROR);
+                return new Procesado(new ResponseEntity<>(responseDTO, HttpStatus.INTERNAL_SERVER_ERROR), true);
             } else {
                 traceabilityService.logSuccess(TipoEvento.PROCESO_COMPLETADO.name(), processId,
                         "Proceso completado exitosamente");
 
                 responseDTO.setMessage("Se envió el mensaje correctamente");
-                responseDTO.setData(alerta);
-                return ResponseEntity.ok(responseDTO);
+                responseDTO.setData(prepararRespuesta(alerta, incluirTrama));
+                return new Procesado(ResponseEntity.ok(responseDTO), true);
             }
 
         } catch (EmailValidationException e) {
             traceabilityService.logError(TipoEvento.PROCESO_ERROR.name(), processId,
-                    "Error de validación de emails: " + e.getMessage());
+                    () -> "Error de validación de emails: " + e.getMessage());
             throw e; // Re-lanzar para que GlobalExceptionHandler lo maneje
 
+        } catch (EnvioSaturadoException e) {
+            traceabilityService.logError(TipoEvento.PROCESO_ERROR.name(), processId,
+                    () -> "Límite de envío alcanzado: " + e.getMessage());
+            throw e; // La alerta no se registró; el cliente debe reintentar
+
+        } catch (AlertaRegistradaException e) {
+            traceabilityService.logError(TipoEvento.PROCESO_ERROR.name(), processId,
+                    () -> String.format("Error en el proceso de la alerta ID: %d: %s", e.getIdAlerta(), e.getMessage()));
+
+            // La alerta quedó registrada y el correo pudo haberse enviado: la respuesta se repite
+            responseDTO.setMessage("Error interno del servidor: " + e.getMessage());
+            return new Procesado(new ResponseEntity<>(responseDTO, HttpStatus.INTERNAL_SERVER_ERROR), true);
+
         } catch (Exception e) {
             traceabilityService.logError(TipoEvento.PROCESO_ERROR.name(), processId,
-                    "Error en el proceso: " + e.getMessage());
+                    () -> "Error en el proceso: " + e.getMessage());
 
             responseDTO.setMessage("Error interno del servidor: " + e.getMessage());
-            return new ResponseEntity<>(responseDTO, HttpStatus.INTERNAL_SERVER_ERROR);
+            return new Procesado(new ResponseEntity<>(responseDTO, HttpStatus.INTERNAL_SERVER_ERROR), alerta != null);
+        }
+    }
+
+    /**
+     * Registra las alertas válidas del lote en una sola transacción; los elementos inválidos
+     * vuelven como RECHAZADA con el motivo. Los correos del lote se envían por una sola
+     * conexión SMTP: en el mismo request, o en el despachador con el despacho asíncrono.
+     */
+    @PostMapping("/lote")
+    public ResponseEntity<ResponseDTO> createEmails(@RequestBody List<RequestSendEmail> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("El lote de alertas está vacío");
+        }
+        if (requests.size() > tamanoMaximoLote) {
+            throw new IllegalArgumentException(
+                    String.format("El lote excede el máximo de %d alertas", tamanoMaximoLote));
+        }
+
+        String processId = UUID.randomUUID().toString();
+
+        traceabilityService.logSuccess(TipoEvento.PROCESO_INICIO.name(), processId,
+                () -> String.format("Iniciando proceso de lote con %d alertas", requests.size()));
+
+        List<ResultadoLoteDTO> resultados = alertaService.procesarLote(requests, processId, despachoAsincrono);
+
+        traceabilityService.logSuccess(TipoEvento.PROCESO_COMPLETADO.name(), processId,
+                "Proceso de lote completado");
+
+        ResponseDTO responseDTO = ResponseDTO.builder().build();
+        responseDTO.setMessage("Lote procesado");
+        responseDTO.setData(resultados);
+        return new ResponseEntity<>(responseDTO, despachoAsincrono ? HttpStatus.ACCEPTED : HttpStatus.OK);
+    }
+
+    /**
+     * Consulta alertas por estado, cámara, tipo de error y rango de FEC_REG, de la más reciente
+     * a la más antigua. Para la siguiente página se envía el cursor "siguiente" de la respuesta.
+     */
+    @GetMapping("/alertas")
+    public ResponseEntity<ResponseDTO> listarAlertas(FiltroAlertasDTO filtro,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(defaultValue = "50") int tamano) {
+        if (tamano < 1 || tamano > tamanoMaximoConsulta) {
+            throw new IllegalArgumentException(
+                    String.format("El tamaño de página debe estar entre 1 y %d", tamanoMaximoConsulta));
+        }
+
+        PaginaAlertasDTO pagina = alertaService.consultarAlertas(filtro, cursor, tamano);
+
+        ResponseDTO responseDTO = ResponseDTO.builder().build();
+        responseDTO.setData(pagina);
+        return ResponseEntity.ok(responseDTO);
+    }
+
+    /**
+     * La trama solo viaja en la respuesta si el cliente la solicita; por defecto basta el hash
+     */
+    private static Alerta prepararRespuesta(Alerta alerta, boolean incluirTrama) {
+        if (!incluirTrama) {
+            alerta.setTrama(null);
         }
+        return alerta;
     }
-}
\ No newline at end of file
+}
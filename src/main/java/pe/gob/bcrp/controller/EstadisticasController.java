@@ -0,0 +1,36 @@
+package pe.gob.bcrp.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import pe.gob.bcrp.model.dto.ResponseDTO;
+import pe.gob.bcrp.service.impl.EstadisticasAlertas;
+
+@Slf4j
+@RestController
+@RequestMapping("/correo/estadisticas")
+@CrossOrigin(origins = "*")
+public class EstadisticasController {
+    private final EstadisticasAlertas estadisticasAlertas;
+
+    public EstadisticasController(EstadisticasAlertas estadisticasAlertas) {
+        this.estadisticasAlertas = estadisticasAlertas;
+    }
+
+    /**
+     * Alertas de los últimos 5 minutos, 1 hora y 24 horas por cámara, tipo de error y
+     * estado. Se responde desde memoria, sin consultar la BD.
+     * <p>
+     * Los conteos son de esta instancia: incluyen las alertas que registró o finalizó ella
+     * más las cargadas de la BD al iniciar. Con varias réplicas detrás del balanceador cada
+     * llamada puede devolver cifras distintas; las cifras de todo el clúster se obtienen de la
+     * BD con /correo/alertas.
+     */
+    @GetMapping
+    public ResponseEntity<ResponseDTO> consultar(@RequestParam(required = false) String camaraAfectada,
+                                                 @RequestParam(required = false) String tipoError) {
+        ResponseDTO responseDTO = ResponseDTO.builder().build();
+        responseDTO.setData(estadisticasAlertas.consultar(camaraAfectada, tipoError));
+        return ResponseEntity.ok(responseDTO);
+    }
+}
@@ -0,0 +1,60 @@
+package pe.gob.bcrp.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import pe.gob.bcrp.model.dto.ListaDistribucionDTO;
+import pe.gob.bcrp.model.dto.ResponseDTO;
+import pe.gob.bcrp.model.entity.ListaDistribucion;
+import pe.gob.bcrp.service.impl.RegistroListasDistribucion;
+
+@Slf4j
+@RestController
+@RequestMapping("/correo/listas")
+@CrossOrigin(origins = "*")
+public class ListaDistribucionController {
+    private final RegistroListasDistribucion registroListas;
+
+    public ListaDistribucionController(RegistroListasDistribucion registroListas) {
+        this.registroListas = registroListas;
+    }
+
+    @PutMapping
+    public ResponseEntity<ResponseDTO> guardar(@RequestBody @Validated ListaDistribucionDTO request) {
+        ListaDistribucion lista = registroListas.guardar(request);
+
+        ResponseDTO responseDTO = ResponseDTO.builder().build();
+        responseDTO.setMessage("Lista de distribución registrada");
+        responseDTO.setData(lista);
+        return ResponseEntity.ok(responseDTO);
+    }
+
+    @GetMapping("/{codigo}")
+    public ResponseEntity<ResponseDTO> obtener(@PathVariable String codigo) {
+        ResponseDTO responseDTO = ResponseDTO.builder().build();
+        return registroListas.obtener(codigo)
+                .map(lista -> {
+                    responseDTO.setData(new ListaDistribucionDTO(lista.codigo(), lista.destinatarios(),
+                            lista.destinatariosCopia(), null));
+                    return ResponseEntity.ok(responseDTO);
+                })
+                .orElseGet(() -> {
+                    responseDTO.setMessage("No existe la lista " + codigo);
+                    return new ResponseEntity<>(responseDTO, HttpStatus.NOT_FOUND);
+                });
+    }
+
+    @DeleteMapping("/{codigo}")
+    public ResponseEntity<ResponseDTO> desactivar(@PathVariable String codigo) {
+        ResponseDTO responseDTO = ResponseDTO.builder().build();
+        if (!registroListas.desactivar(codigo)) {
+            responseDTO.setMessage("No existe la lista " + codigo);
+            return new ResponseEntity<>(responseDTO, HttpStatus.NOT_FOUND);
+        }
+
+        responseDTO.setMessage("Lista de distribución desactivada");
+        return ResponseEntity.ok(responseDTO);
+    }
+}
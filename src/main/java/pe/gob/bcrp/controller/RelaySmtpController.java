@@ -0,0 +1,66 @@
+package pe.gob.bcrp.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import pe.gob.bcrp.mail.EnrutadorSmtp;
+import pe.gob.bcrp.mail.RelaySmtp;
+import pe.gob.bcrp.model.dto.ResponseDTO;
+
+import java.util.List;
+import java.util.Map;
+
+@Slf4j
+@RestController
+@RequestMapping("/correo/relays")
+@CrossOrigin(origins = "*")
+public class RelaySmtpController {
+    private final EnrutadorSmtp enrutadorSmtp;
+
+    public RelaySmtpController(EnrutadorSmtp enrutadorSmtp) {
+        this.enrutadorSmtp = enrutadorSmtp;
+    }
+
+    @GetMapping
+    public ResponseEntity<ResponseDTO> listar() {
+        List<Map<String, Object>> relays = enrutadorSmtp.getRelays().stream()
+                .map(RelaySmtpController::describir)
+                .toList();
+
+        ResponseDTO responseDTO = ResponseDTO.builder().build();
+        responseDTO.setData(relays);
+        return ResponseEntity.ok(responseDTO);
+    }
+
+    /**
+     * Saca o devuelve un relay de la rotación sin reiniciar el servicio
+     */
+    @PutMapping("/{nombre}")
+    public ResponseEntity<ResponseDTO> habilitar(@PathVariable String nombre, @RequestParam boolean habilitado) {
+        ResponseDTO responseDTO = ResponseDTO.builder().build();
+        return enrutadorSmtp.buscarRelay(nombre)
+                .map(relay -> {
+                    relay.setHabilitado(habilitado);
+                    log.info("Relay SMTP {} {}", nombre, habilitado ? "habilitado" : "deshabilitado");
+
+                    responseDTO.setMessage(habilitado ? "Relay habilitado" : "Relay deshabilitado");
+                    responseDTO.setData(describir(relay));
+                    return ResponseEntity.ok(responseDTO);
+                })
+                .orElseGet(() -> {
+                    responseDTO.setMessage("No existe el relay " + nombre);
+                    return new ResponseEntity<>(responseDTO, HttpStatus.NOT_FOUND);
+                });
+    }
+
+    private static Map<String, Object> describir(RelaySmtp relay) {
+        return Map.of(
+                "nombre", relay.getNombre(),
+                "host", relay.getSender().getHost(),
+                "peso", relay.getPeso(),
+                "habilitado", relay.isHabilitado(),
+                "circuito", relay.getEstado().name(),
+                "pendientes", relay.getPendientes());
+    }
+}
@@ -0,0 +1,45 @@
+package pe.gob.bcrp.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import pe.gob.bcrp.model.dto.ResponseDTO;
+import pe.gob.bcrp.model.dto.SuscripcionResumenDTO;
+import pe.gob.bcrp.model.entity.SuscripcionResumen;
+import pe.gob.bcrp.service.impl.ResumenAlertasService;
+
+@Slf4j
+@RestController
+@RequestMapping("/correo/resumen/suscripciones")
+@CrossOrigin(origins = "*")
+public class ResumenController {
+    private final ResumenAlertasService resumenAlertasService;
+
+    public ResumenController(ResumenAlertasService resumenAlertasService) {
+        this.resumenAlertasService = resumenAlertasService;
+    }
+
+    @PostMapping
+    public ResponseEntity<ResponseDTO> suscribir(@RequestBody @Validated SuscripcionResumenDTO request) {
+        SuscripcionResumen suscripcion = resumenAlertasService.suscribir(request);
+
+        ResponseDTO responseDTO = ResponseDTO.builder().build();
+        responseDTO.setMessage("Suscripción registrada");
+        responseDTO.setData(suscripcion);
+        return new ResponseEntity<>(responseDTO, HttpStatus.CREATED);
+    }
+
+    @DeleteMapping("/{idSuscripcion}")
+    public ResponseEntity<ResponseDTO> desuscribir(@PathVariable Long idSuscripcion) {
+        ResponseDTO responseDTO = ResponseDTO.builder().build();
+        if (!resumenAlertasService.desuscribir(idSuscripcion)) {
+            responseDTO.setMessage("No existe la suscripción " + idSuscripcion);
+            return new ResponseEntity<>(responseDTO, HttpStatus.NOT_FOUND);
+        }
+
+        responseDTO.setMessage("Suscripción desactivada");
+        return ResponseEntity.ok(responseDTO);
+    }
+}
@@ -0,0 +1,22 @@
+package pe.gob.bcrp.exception;
+
+/**
+ * El procesamiento falló después de guardar la alerta: el correo pudo haberse enviado y la
+ * alerta sigue en BD para el barrido de pendientes, así que la solicitud no debe repetirse.
+ */
+public class AlertaRegistradaException extends RuntimeException {
+
+    private final Long idAlerta;
+
+    public AlertaRegistradaException(String message, Long idAlerta, Throwable cause) {
+        super(message, cause);
+        this.idAlerta = idAlerta;
+    }
+
+    /**
+     * ID de la alerta guardada
+     */
+    public Long getIdAlerta() {
+        return idAlerta;
+    }
+}
@@ -0,0 +1,22 @@
+package pe.gob.bcrp.exception;
+
+/**
+ * El límite de envío de la cuenta SMTP está agotado. No es un fallo del correo: quien
+ * lo recibe debe reintentar más tarde en lugar de marcar la alerta con error.
+ */
+public class EnvioSaturadoException extends RuntimeException {
+
+    private final long esperaSugeridaMs;
+
+    public EnvioSaturadoException(String message, long esperaSugeridaMs) {
+        super(message);
+        this.esperaSugeridaMs = esperaSugeridaMs;
+    }
+
+    /**
+     * Tiempo estimado hasta que haya cupo de envío
+     */
+    public long getEsperaSugeridaMs() {
+        return esperaSugeridaMs;
+    }
+}
@@ -1,5 +1,6 @@
 package pe.gob.bcrp.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -91,6 +92,41 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
+    @ExceptionHandler(EnvioSaturadoException.class)
+    public ResponseEntity<Map<String, Object>> handleEnvioSaturadoException(
+            EnvioSaturadoException ex, WebRequest request) {
+
+        long segundos = Math.max(1, (ex.getEsperaSugeridaMs() + 999) / 1000);
+
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", "Too Many Requests");
+        errorResponse.put("message", ex.getMessage());
+        errorResponse.put("retryAfterSeconds", segundos);
+        errorResponse.put("timestamp", LocalDateTime.now());
+        errorResponse.put("status", 429);
+        errorResponse.put("path", request.getDescription(false).replace("uri=", ""));
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(segundos))
+                .body(errorResponse);
+    }
+
+    @ExceptionHandler(IdempotenciaException.class)
+    public ResponseEntity<Map<String, Object>> handleIdempotenciaException(
+            IdempotenciaException ex, WebRequest request) {
+
+        HttpStatus status = ex.isEnProceso() ? HttpStatus.CONFLICT : HttpStatus.UNPROCESSABLE_ENTITY;
+
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("error", status.getReasonPhrase());
+        errorResponse.put("message", ex.getMessage());
+        errorResponse.put("timestamp", LocalDateTime.now());
+        errorResponse.put("status", status.value());
+        errorResponse.put("path", request.getDescription(false).replace("uri=", ""));
+
+        return new ResponseEntity<>(errorResponse, status);
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<Map<String, Object>> handleIllegalArgumentException(
             IllegalArgumentException ex, WebRequest request) {
@@ -0,0 +1,22 @@
+package pe.gob.bcrp.exception;
+
+/**
+ * La Idempotency-Key no se puede usar para la solicitud: otra solicitud con la misma clave
+ * aún se está procesando, o la clave ya se usó con una solicitud distinta.
+ */
+public class IdempotenciaException extends RuntimeException {
+
+    private final boolean enProceso;
+
+    public IdempotenciaException(String message, boolean enProceso) {
+        super(message);
+        this.enProceso = enProceso;
+    }
+
+    /**
+     * true si la solicitud original aún no termina; el cliente puede reintentar más tarde
+     */
+    public boolean isEnProceso() {
+        return enProceso;
+    }
+}
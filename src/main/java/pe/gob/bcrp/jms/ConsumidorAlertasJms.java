@@ -0,0 +1,193 @@
+package pe.gob.bcrp.jms;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.jms.Connection;
+import jakarta.jms.ConnectionFactory;
+import jakarta.jms.JMSException;
+import jakarta.jms.Message;
+import jakarta.jms.MessageConsumer;
+import jakarta.jms.Session;
+import jakarta.jms.TextMessage;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import pe.gob.bcrp.model.dto.RequestSendEmail;
+import pe.gob.bcrp.model.dto.ResultadoLoteDTO;
+import pe.gob.bcrp.model.entity.TipoEvento;
+import pe.gob.bcrp.service.ITrazabilidadService;
+import pe.gob.bcrp.service.impl.AlertaService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingesta de alertas desde una cola JMS. Cada consumidor tiene su propia sesión en modo
+ * CLIENT_ACKNOWLEDGE y junta hasta 'lote' mensajes (o los que lleguen en 'espera-lote-ms')
+ * antes de registrarlos con AlertaService.procesarLote, igual que POST /correo/lote en modo
+ * asíncrono. Tras confirmarse la inserción un solo acknowledge confirma todos los mensajes
+ * del lote; si el registro falla la sesión se recupera y el broker los vuelve a entregar.
+ * <p>
+ * La entrega es al menos una vez: si el servicio cae entre la inserción y el acknowledge,
+ * el lote se vuelve a registrar.
+ */
+@Log4j2
+@Component
+@ConditionalOnProperty(name = "correo.jms.habilitado", havingValue = "true")
+public class ConsumidorAlertasJms implements SmartLifecycle {
+
+    private static final long ESPERA_MENSAJE_MS = 1000;
+
+    private final ConnectionFactory connectionFactory;
+    private final AlertaService alertaService;
+    private final ITrazabilidadService traceabilityService;
+    private final ObjectMapper objectMapper;
+    private final List<Thread> hilos = new ArrayList<>();
+
+    @Value("${correo.jms.cola:correo.alertas}")
+    private String cola;
+    @Value("${correo.jms.consumidores:4}")
+    private int consumidores;
+    @Value("${correo.jms.lote:100}")
+    private int lote;
+    @Value("${correo.jms.espera-lote-ms:50}")
+    private long esperaLoteMs;
+    @Value("${correo.jms.reintento-ms:5000}")
+    private long reintentoMs;
+
+    private volatile boolean activo;
+
+    public ConsumidorAlertasJms(ConnectionFactory connectionFactory, AlertaService alertaService,
+                                ITrazabilidadService traceabilityService, ObjectMapper objectMapper) {
+        this.connectionFactory = connectionFactory;
+        this.alertaService = alertaService;
+        this.traceabilityService = traceabilityService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public synchronized void start() {
+        activo = true;
+        for (int i = 0; i < consumidores; i++) {
+            hilos.add(Thread.ofPlatform().name("jms-alertas-" + i).start(this::consumir));
+        }
+        log.info("Ingesta JMS iniciada: cola {}, {} consumidores, lotes de hasta {} mensajes", cola, consumidores, lote);
+    }
+
+    /**
+     * Deja de recibir mensajes y espera que los lotes en curso terminen de registrarse
+     */
+    @Override
+    public synchronized void stop() {
+        activo = false;
+        for (Thread hilo : hilos) {
+            try {
+                hilo.join(ESPERA_MENSAJE_MS + TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        hilos.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return activo;
+    }
+
+    /**
+     * Ciclo de un consumidor; si se pierde la conexión con el broker se vuelve a abrir
+     */
+    private void consumir() {
+        while (activo) {
+            try (Connection conexion = connectionFactory.createConnection();
+                 Session sesion = conexion.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+                 MessageConsumer consumidor = sesion.createConsumer(sesion.createQueue(cola))) {
+                conexion.start();
+                recibirLotes(sesion, consumidor);
+            } catch (JMSException e) {
+                log.warn("Error en la conexión JMS de la cola {}, se reintentará: {}", cola, e.getMessage());
+                pausar(reintentoMs);
+            }
+        }
+    }
+
+    private void recibirLotes(Session sesion, MessageConsumer consumidor) throws JMSException {
+        List<Message> mensajes = new ArrayList<>(lote);
+        while (activo) {
+            Message primero = consumidor.receive(ESPERA_MENSAJE_MS);
+            if (primero == null) {
+                continue;
+            }
+            mensajes.add(primero);
+
+            long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaLoteMs);
+            while (mensajes.size() < lote) {
+                long restanteMs = TimeUnit.NANOSECONDS.toMillis(limite - System.nanoTime());
+                Message mensaje = restanteMs > 0 ? consumidor.receive(restanteMs) : consumidor.receiveNoWait();
+                if (mensaje == null) {
+                    break;
+                }
+                mensajes.add(mensaje);
+            }
+
+            registrar(sesion, mensajes);
+            mensajes.clear();
+        }
+    }
+
+    /**
+     * Registra las alertas del lote y confirma los mensajes. Los que no se pueden leer se
+     * confirman igual: volver a entregarlos no los haría válidos.
+     */
+    private void registrar(Session sesion, List<Message> mensajes) throws JMSException {
+        List<RequestSendEmail> requests = new ArrayList<>(mensajes.size());
+        for (Message mensaje : mensajes) {
+            try {
+                requests.add(leer(mensaje));
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                log.warn("Mensaje JMS {} descartado: {}", mensaje.getJMSMessageID(), e.getMessage());
+            }
+        }
+
+        try {
+            if (!requests.isEmpty()) {
+                String procesoId = UUID.randomUUID().toString();
+                traceabilityService.logSuccess(TipoEvento.PROCESO_INICIO.name(), procesoId,
+                        () -> String.format("Iniciando proceso de lote JMS con %d alertas", requests.size()));
+
+                List<ResultadoLoteDTO> resultados = alertaService.procesarLote(requests, procesoId, true);
+                long rechazadas = resultados.stream().filter(r -> "RECHAZADA".equals(r.getEstado())).count();
+                if (rechazadas > 0) {
+                    log.warn("Lote JMS {}: {} de {} alertas rechazadas", procesoId, rechazadas, requests.size());
+                }
+            }
+            // En CLIENT_ACKNOWLEDGE el acknowledge confirma todos los mensajes recibidos por la sesión
+            mensajes.get(mensajes.size() - 1).acknowledge();
+        } catch (RuntimeException e) {
+            log.error("Error al registrar un lote JMS de {} mensajes, se volverán a entregar", mensajes.size(), e);
+            sesion.recover();
+            pausar(reintentoMs);
+        }
+    }
+
+    private RequestSendEmail leer(Message mensaje) throws JMSException, JsonProcessingException {
+        if (!(mensaje instanceof TextMessage texto)) {
+            throw new IllegalArgumentException("Tipo de mensaje no soportado: " + mensaje.getClass().getSimpleName());
+        }
+        return objectMapper.readValue(texto.getText(), RequestSendEmail.class);
+    }
+
+    private static void pausar(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package pe.gob.bcrp.mail;
+
+import org.springframework.mail.MailSendException;
+
+import java.util.Map;
+
+/**
+ * No se pudo obtener una conexión con el relay SMTP. Si ocurrió antes del primer mensaje
+ * ninguno se envió y el lote completo puede enviarse por otro relay.
+ */
+public class ConexionSmtpException extends MailSendException {
+
+    private final boolean sinEnvios;
+
+    public ConexionSmtpException(Exception causa, Map<Object, Exception> failedMessages, boolean sinEnvios) {
+        super("Mail server connection failed", causa, failedMessages);
+        this.sinEnvios = sinEnvios;
+    }
+
+    public boolean isSinEnvios() {
+        return sinEnvios;
+    }
+}
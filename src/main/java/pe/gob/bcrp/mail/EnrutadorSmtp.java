@@ -0,0 +1,231 @@
+package pe.gob.bcrp.mail;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.log4j.Log4j2;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSenderFailedException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailPreparationException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMailMessage;
+import pe.gob.bcrp.exception.EnvioSaturadoException;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JavaMailSender que reparte los envíos entre varios relays SMTP, cada uno con su pool.
+ * Solo se eligen relays con el circuito cerrado (o en prueba), por peso o por menor
+ * cantidad de envíos en curso. Si un relay no da conexión o no tiene cupo, el mensaje
+ * pasa al siguiente; una vez iniciado el envío no se reenvía por otro relay para no
+ * duplicar correos.
+ */
+@Log4j2
+public class EnrutadorSmtp implements JavaMailSender, MeterBinder, AutoCloseable {
+
+    public enum Estrategia { PESO, MENOS_PENDIENTES }
+
+    private final List<RelaySmtp> relays;
+    private final Estrategia estrategia;
+
+    public EnrutadorSmtp(List<RelaySmtp> relays, Estrategia estrategia) {
+        if (relays.isEmpty()) {
+            throw new IllegalArgumentException("Se requiere al menos un relay SMTP");
+        }
+        this.relays = List.copyOf(relays);
+        this.estrategia = estrategia;
+    }
+
+    public List<RelaySmtp> getRelays() {
+        return relays;
+    }
+
+    public Optional<RelaySmtp> buscarRelay(String nombre) {
+        return relays.stream().filter(relay -> relay.getNombre().equals(nombre)).findFirst();
+    }
+
+    @Override
+    public MimeMessage createMimeMessage() {
+        return relays.get(0).getSender().createMimeMessage();
+    }
+
+    @Override
+    public MimeMessage createMimeMessage(InputStream contentStream) throws MailException {
+        return relays.get(0).getSender().createMimeMessage(contentStream);
+    }
+
+    @Override
+    public void send(SimpleMailMessage... simpleMessages) throws MailException {
+        MimeMessage[] mensajes = new MimeMessage[simpleMessages.length];
+        for (int i = 0; i < simpleMessages.length; i++) {
+            MimeMailMessage mensaje = new MimeMailMessage(createMimeMessage());
+            simpleMessages[i].copyTo(mensaje);
+            mensajes[i] = mensaje.getMimeMessage();
+        }
+        send(mensajes);
+    }
+
+    @Override
+    public void send(MimeMessage... mimeMessages) throws MailException {
+        List<RelaySmtp> descartados = new ArrayList<>(relays.size());
+        RuntimeException ultimoError = null;
+
+        RelaySmtp relay;
+        while ((relay = seleccionar(descartados)) != null) {
+            Boolean exito = null;
+            try {
+                relay.getSender().send(mimeMessages);
+                exito = true;
+                return;
+            } catch (EnvioSaturadoException e) {
+                // Cuota agotada en este relay; otro relay puede tener cupo
+                ultimoError = e;
+            } catch (ConexionSmtpException e) {
+                exito = false;
+                if (!e.isSinEnvios()) {
+                    throw e;
+                }
+                log.warn("Relay SMTP {} sin conexión, se intenta con otro relay: {}", relay.getNombre(), e.getMessage());
+                ultimoError = e;
+            } catch (MailParseException | MailPreparationException e) {
+                // Error del mensaje, no del relay
+                throw e;
+            } catch (MailSendException e) {
+                exito = !esFalloDelRelay(e);
+                throw e;
+            } catch (MailException e) {
+                exito = false;
+                throw e;
+            } finally {
+                relay.liberar(exito);
+            }
+            descartados.add(relay);
+        }
+
+        if (ultimoError != null) {
+            throw ultimoError;
+        }
+        long espera = relays.stream().mapToLong(RelaySmtp::esperaApertura).filter(n -> n > 0).min().orElse(0);
+        long esperaMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(espera));
+        throw new EnvioSaturadoException(String.format(
+                "No hay relays SMTP disponibles, reintente en %d ms", esperaMs), esperaMs);
+    }
+
+    /**
+     * Elige y reserva un relay entre los que admiten envíos y no se descartaron en este envío
+     */
+    private RelaySmtp seleccionar(List<RelaySmtp> descartados) {
+        while (true) {
+            RelaySmtp elegido;
+            synchronized (this) {
+                elegido = switch (estrategia) {
+                    case PESO -> porPeso(descartados);
+                    case MENOS_PENDIENTES -> porPendientes(descartados);
+                };
+            }
+            if (elegido == null || elegido.tomar()) {
+                return elegido;
+            }
+            // Otro hilo tomó la única prueba del circuito
+            descartados.add(elegido);
+        }
+    }
+
+    /**
+     * Round robin ponderado suave: reparte según el peso sin ráfagas hacia un mismo relay
+     */
+    private RelaySmtp porPeso(List<RelaySmtp> descartados) {
+        RelaySmtp elegido = null;
+        int total = 0;
+        for (RelaySmtp relay : relays) {
+            if (descartados.contains(relay) || !relay.admite()) {
+                continue;
+            }
+            relay.pesoActual += relay.getPeso();
+            total += relay.getPeso();
+            if (elegido == null || relay.pesoActual > elegido.pesoActual) {
+                elegido = relay;
+            }
+        }
+        if (elegido != null) {
+            elegido.pesoActual -= total;
+        }
+        return elegido;
+    }
+
+    private RelaySmtp porPendientes(List<RelaySmtp> descartados) {
+        RelaySmtp elegido = null;
+        double menorCarga = Double.MAX_VALUE;
+        for (RelaySmtp relay : relays) {
+            if (descartados.contains(relay) || !relay.admite()) {
+                continue;
+            }
+            double carga = (relay.getPendientes() + 1.0) / relay.getPeso();
+            if (carga < menorCarga) {
+                menorCarga = carga;
+                elegido = relay;
+            }
+        }
+        return elegido;
+    }
+
+    /**
+     * Un rechazo con respuesta SMTP indica que el relay está vivo; los errores de E/S y
+     * timeouts, no
+     */
+    static boolean esFalloDelRelay(MailSendException e) {
+        if (e.getFailedMessages().isEmpty()) {
+            return true;
+        }
+        for (Exception fallo : e.getFailedMessages().values()) {
+            if (!esRespuestaSmtp(fallo)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean esRespuestaSmtp(Exception fallo) {
+        if (fallo instanceof MessagingException me && me.getNextException() instanceof Exception siguiente
+                && !(fallo instanceof SMTPSendFailedException)) {
+            return esRespuestaSmtp(siguiente);
+        }
+        return fallo instanceof SMTPSendFailedException
+                || fallo instanceof SMTPAddressFailedException
+                || fallo instanceof SMTPSenderFailedException;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (RelaySmtp relay : relays) {
+            Tags etiquetas = Tags.of("relay", relay.getNombre());
+            relay.getSender().bindTo(registry, etiquetas);
+            Gauge.builder("correo.smtp.relay.pendientes", relay, RelaySmtp::getPendientes)
+                    .description("Envíos en curso por el relay")
+                    .tags(etiquetas)
+                    .register(registry);
+            Gauge.builder("correo.smtp.relay.disponible", relay,
+                            r -> r.isHabilitado() && r.getEstado() != RelaySmtp.EstadoCircuito.ABIERTO ? 1 : 0)
+                    .description("1 si el relay está en rotación, 0 si su circuito está abierto o fue deshabilitado")
+                    .tags(etiquetas)
+                    .register(registry);
+        }
+    }
+
+    @Override
+    public void close() {
+        relays.forEach(RelaySmtp::close);
+    }
+}
@@ -0,0 +1,206 @@
+package pe.gob.bcrp.mail;
+
+/**
+ * Formateador de tramas XML para el cuerpo del correo. En una sola pasada sobre la trama
+ * escapa los caracteres HTML e indenta los elementos, escribiendo directamente en el
+ * buffer de la plantilla. Las tramas que superan el tamaño máximo se cortan y terminan
+ * con una marca de truncado. Entradas que no son XML bien formado se muestran tal cual,
+ * solo escapadas.
+ */
+public final class FormateadorXml implements FragmentoHtml {
+
+    static final String NO_DISPONIBLE = "No disponible";
+    private static final String SANGRIA = "  ";
+
+    private enum Token { NINGUNO, APERTURA, CIERRE, TEXTO, OTRO }
+
+    private final String xml;
+    private final int tamanoMaximo;
+
+    /**
+     * @param xml trama a mostrar; null o en blanco se muestra como "No disponible"
+     * @param tamanoMaximo caracteres de la trama a procesar antes de truncar
+     */
+    public FormateadorXml(String xml, int tamanoMaximo) {
+        if (tamanoMaximo <= 0) {
+            throw new IllegalArgumentException("El tamaño máximo debe ser positivo");
+        }
+        this.xml = xml;
+        this.tamanoMaximo = tamanoMaximo;
+    }
+
+    @Override
+    public void escribirHtml(StringBuilder destino) {
+        formatear(destino, true);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder texto = new StringBuilder();
+        formatear(texto, false);
+        return texto.toString();
+    }
+
+    private void formatear(StringBuilder destino, boolean escapar) {
+        if (xml == null || xml.isBlank()) {
+            destino.append(NO_DISPONIBLE);
+            return;
+        }
+
+        int limite = Math.min(xml.length(), tamanoMaximo);
+        if (limite < xml.length() && Character.isHighSurrogate(xml.charAt(limite - 1))) {
+            limite--;
+        }
+        destino.ensureCapacity(destino.length() + limite + (limite >> 3));
+
+        int nivel = 0;
+        Token anterior = Token.NINGUNO;
+        int i = 0;
+        // Fin de la etiqueta ya reconocida al buscar el final del texto anterior
+        int etiquetaEn = -1;
+        int etiquetaFin = -1;
+        while (i < limite) {
+            int fin;
+            if (i == etiquetaEn) {
+                fin = etiquetaFin;
+            } else {
+                fin = xml.charAt(i) == '<' ? finDeEtiqueta(xml, i, limite) : -1;
+            }
+
+            if (fin < 0) {
+                // Texto hasta la siguiente etiqueta; un '<' que no abre una etiqueta completa es texto.
+                // El espacio de la indentación original se descarta.
+                fin = limite;
+                for (int j = xml.charAt(i) == '<' ? i + 1 : i; j < limite; j++) {
+                    if (xml.charAt(j) == '<' && (etiquetaFin = finDeEtiqueta(xml, j, limite)) >= 0) {
+                        etiquetaEn = j;
+                        fin = j;
+                        break;
+                    }
+                }
+                int inicio = saltarEspacios(xml, i, fin);
+                int ultimo = fin;
+                while (ultimo > inicio && Character.isWhitespace(xml.charAt(ultimo - 1))) {
+                    ultimo--;
+                }
+                if (inicio < ultimo) {
+                    if (anterior == Token.CIERRE || anterior == Token.OTRO) {
+                        nuevaLinea(destino, nivel);
+                    }
+                    escribir(destino, xml, inicio, ultimo, escapar);
+                    anterior = Token.TEXTO;
+                }
+                i = fin;
+                continue;
+            }
+
+            char siguiente = xml.charAt(i + 1);
+            if (siguiente == '/') {
+                nivel = Math.max(0, nivel - 1);
+                if (anterior != Token.TEXTO && anterior != Token.APERTURA && anterior != Token.NINGUNO) {
+                    nuevaLinea(destino, nivel);
+                }
+                escribir(destino, xml, i, fin, escapar);
+                anterior = Token.CIERRE;
+            } else if (siguiente == '?' || siguiente == '!') {
+                if (anterior != Token.NINGUNO) {
+                    nuevaLinea(destino, nivel);
+                }
+                escribir(destino, xml, i, fin, escapar);
+                anterior = Token.OTRO;
+            } else {
+                if (anterior != Token.NINGUNO) {
+                    nuevaLinea(destino, nivel);
+                }
+                escribir(destino, xml, i, fin, escapar);
+                if (xml.charAt(fin - 2) == '/') {
+                    anterior = Token.CIERRE;
+                } else {
+                    nivel++;
+                    anterior = Token.APERTURA;
+                }
+            }
+            i = fin;
+        }
+
+        if (limite < xml.length()) {
+            destino.append('\n').append("... [trama truncada: se muestran ")
+                    .append(limite).append(" de ").append(xml.length()).append(" caracteres]");
+        }
+    }
+
+    /**
+     * Retorna la posición siguiente al cierre de la etiqueta que empieza en inicio, o -1
+     * si no termina antes del límite. Respeta comentarios, CDATA y valores entre comillas.
+     */
+    private static int finDeEtiqueta(String xml, int inicio, int limite) {
+        if (xml.startsWith("<!--", inicio)) {
+            int fin = xml.indexOf("-->", inicio + 4);
+            return fin >= 0 && fin + 3 <= limite ? fin + 3 : -1;
+        }
+        if (xml.startsWith("<![CDATA[", inicio)) {
+            int fin = xml.indexOf("]]>", inicio + 9);
+            return fin >= 0 && fin + 3 <= limite ? fin + 3 : -1;
+        }
+
+        char comilla = 0;
+        for (int i = inicio + 1; i < limite; i++) {
+            char c = xml.charAt(i);
+            if (comilla != 0) {
+                if (c == comilla) {
+                    comilla = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                comilla = c;
+            } else if (c == '>') {
+                return i + 1;
+            } else if (c == '<') {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    private static int saltarEspacios(String xml, int desde, int limite) {
+        int i = desde;
+        while (i < limite && Character.isWhitespace(xml.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static void nuevaLinea(StringBuilder destino, int nivel) {
+        destino.append('\n');
+        for (int i = 0; i < nivel; i++) {
+            destino.append(SANGRIA);
+        }
+    }
+
+    /**
+     * Copia el rango escapando solo los caracteres necesarios; los tramos sin caracteres
+     * especiales se copian en bloque
+     */
+    private static void escribir(StringBuilder destino, String xml, int inicio, int fin, boolean escapar) {
+        if (!escapar) {
+            destino.append(xml, inicio, fin);
+            return;
+        }
+
+        int tramo = inicio;
+        for (int i = inicio; i < fin; i++) {
+            String entidad = switch (xml.charAt(i)) {
+                case '<' -> "&lt;";
+                case '>' -> "&gt;";
+                case '&' -> "&amp;";
+                case '"' -> "&quot;";
+                case '\'' -> "&#39;";
+                default -> null;
+            };
+            if (entidad != null) {
+                destino.append(xml, tramo, i).append(entidad);
+                tramo = i + 1;
+            }
+        }
+        destino.append(xml, tramo, fin);
+    }
+}
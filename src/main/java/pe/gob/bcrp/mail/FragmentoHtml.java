@@ -0,0 +1,14 @@
+package pe.gob.bcrp.mail;
+
+/**
+ * Valor de plantilla que sabe escribirse ya escapado como HTML. La plantilla compilada
+ * lo vuelca directamente en la salida en lugar de escapar su toString(); Thymeleaf, que
+ * siempre escapa con th:text, usa toString(), que debe retornar el texto sin escapar.
+ */
+public interface FragmentoHtml {
+
+    /**
+     * Escribe el contenido escapado como HTML al final del destino
+     */
+    void escribirHtml(StringBuilder destino);
+}
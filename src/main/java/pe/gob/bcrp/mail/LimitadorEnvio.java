@@ -0,0 +1,191 @@
+package pe.gob.bcrp.mail;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.log4j.Log4j2;
+import pe.gob.bcrp.exception.EnvioSaturadoException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Limitador de envíos de una cuenta SMTP con dos cubetas de tokens: una por minuto y otra
+ * por día, según las cuotas del proveedor. La tasa por minuto se adapta a las respuestas
+ * del servidor: cada 421/451 la reduce a la mitad y cada envío exitoso la recupera de a
+ * poco (AIMD). La cuota diaria es fija.
+ * <p>
+ * Cada cuota en 0 deja sin límite solo su periodo: con 0 por minuto se aplica únicamente
+ * la cuota diaria, y sin tasa por minuto las respuestas 421/451 solo se cuentan.
+ * <p>
+ * Un lote toma todos sus tokens de una vez aunque supere la capacidad de la cubeta; la
+ * deuda se descuenta de los envíos siguientes, así la tasa promedio se respeta.
+ */
+@Log4j2
+public class LimitadorEnvio implements MeterBinder {
+
+    private static final long NANOS_MINUTO = TimeUnit.MINUTES.toNanos(1);
+    private static final long NANOS_DIA = TimeUnit.DAYS.toNanos(1);
+    private static final double FACTOR_MINIMO = 0.05;
+    // Las respuestas 421/451 llegan en ráfagas; solo la primera de cada intervalo reduce la tasa
+    private static final long ENFRIAMIENTO_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final String cuenta;
+    private final double porMinuto;
+    private final double porDia;
+    private final long esperaMaximaNanos;
+    private final LongSupplier reloj;
+    private final LongAdder saturaciones = new LongAdder();
+    private final LongAdder limitaciones = new LongAdder();
+
+    private double tokensMinuto;
+    private double tokensDia;
+    private double factor = 1.0;
+    private long ultimaRecarga;
+    private long ultimaReduccion;
+
+    public LimitadorEnvio(String cuenta, int porMinuto, int porDia, long esperaMaximaMs) {
+        this(cuenta, porMinuto, porDia, esperaMaximaMs, System::nanoTime);
+    }
+
+    LimitadorEnvio(String cuenta, int porMinuto, int porDia, long esperaMaximaMs, LongSupplier reloj) {
+        this.cuenta = cuenta;
+        this.porMinuto = porMinuto;
+        this.porDia = porDia;
+        this.esperaMaximaNanos = TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+        this.reloj = reloj;
+        this.tokensMinuto = porMinuto;
+        this.tokensDia = porDia;
+        this.ultimaRecarga = reloj.getAsLong();
+        this.ultimaReduccion = ultimaRecarga - ENFRIAMIENTO_NANOS;
+    }
+
+    /**
+     * Toma los tokens de los mensajes a enviar esperando como máximo la espera configurada.
+     * Si no habrá cupo dentro de ese plazo lanza EnvioSaturadoException sin esperar.
+     */
+    public void adquirir(int mensajes) {
+        long limite = reloj.getAsLong() + esperaMaximaNanos;
+        while (true) {
+            long espera;
+            synchronized (this) {
+                espera = tomar(mensajes);
+            }
+            if (espera == 0) {
+                return;
+            }
+
+            long restante = limite - reloj.getAsLong();
+            if (espera > restante) {
+                saturaciones.increment();
+                long esperaMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(espera));
+                throw new EnvioSaturadoException(String.format(
+                        "Límite de envío de la cuenta %s alcanzado, reintente en %d ms", cuenta, esperaMs), esperaMs);
+            }
+
+            try {
+                TimeUnit.NANOSECONDS.sleep(espera);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EnvioSaturadoException("Interrumpido esperando cupo de envío", espera / 1_000_000);
+            }
+        }
+    }
+
+    /**
+     * Aumento aditivo: cada envío aceptado recupera 1/porMinuto de la tasa
+     */
+    public synchronized void registrarExito(int mensajes) {
+        if (porMinuto > 0 && factor < 1.0) {
+            factor = Math.min(1.0, factor + mensajes / porMinuto);
+        }
+    }
+
+    /**
+     * Reducción multiplicativa ante 421/451: la tasa baja a la mitad y la cubeta por minuto
+     * se vacía para pausar los envíos hasta que se recargue
+     */
+    public synchronized void registrarLimitacion() {
+        limitaciones.increment();
+        long ahora = reloj.getAsLong();
+        if (porMinuto <= 0 || ahora - ultimaReduccion < ENFRIAMIENTO_NANOS) {
+            return;
+        }
+        ultimaReduccion = ahora;
+        recargar(ahora);
+        factor = Math.max(FACTOR_MINIMO, factor / 2);
+        tokensMinuto = Math.min(tokensMinuto, 0);
+        log.warn("El servidor SMTP limitó los envíos de {}; tasa reducida a {} por minuto",
+                cuenta, Math.round(porMinuto * factor));
+    }
+
+    /**
+     * Retorna 0 si tomó los tokens, o los nanosegundos que faltan para poder tomarlos
+     */
+    private long tomar(int mensajes) {
+        recargar(reloj.getAsLong());
+
+        // Una cuota en 0 no exige tokens de su cubeta
+        double requeridosMinuto = porMinuto > 0 ? Math.min(mensajes, porMinuto * factor) : 0;
+        double requeridosDia = porDia > 0 ? Math.min(mensajes, porDia) : 0;
+        if (tokensMinuto >= requeridosMinuto && tokensDia >= requeridosDia) {
+            if (porMinuto > 0) {
+                tokensMinuto -= mensajes;
+            }
+            if (porDia > 0) {
+                tokensDia -= mensajes;
+            }
+            return 0;
+        }
+
+        long esperaMinuto = porMinuto > 0
+                ? faltante(requeridosMinuto - tokensMinuto, porMinuto * factor, NANOS_MINUTO) : 0;
+        long esperaDia = porDia > 0 ? faltante(requeridosDia - tokensDia, porDia, NANOS_DIA) : 0;
+        return Math.max(1, Math.max(esperaMinuto, esperaDia));
+    }
+
+    private void recargar(long ahora) {
+        long transcurrido = ahora - ultimaRecarga;
+        if (transcurrido <= 0) {
+            return;
+        }
+        ultimaRecarga = ahora;
+        double capacidadMinuto = porMinuto * factor;
+        tokensMinuto = Math.min(capacidadMinuto, tokensMinuto + capacidadMinuto * transcurrido / NANOS_MINUTO);
+        tokensDia = Math.min(porDia, tokensDia + porDia * transcurrido / NANOS_DIA);
+    }
+
+    private static long faltante(double tokens, double porPeriodo, long nanosPeriodo) {
+        return tokens <= 0 ? 0 : (long) Math.ceil(tokens * nanosPeriodo / porPeriodo);
+    }
+
+    synchronized double getFactor() {
+        return factor;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindTo(registry, Tags.empty());
+    }
+
+    public void bindTo(MeterRegistry registry, Tags etiquetas) {
+        Gauge.builder("correo.smtp.limite.tasa", this, limitador -> limitador.porMinuto * limitador.getFactor())
+                .description("Envíos por minuto permitidos actualmente")
+                .tag("cuenta", cuenta)
+                .tags(etiquetas)
+                .register(registry);
+        FunctionCounter.builder("correo.smtp.limite.saturaciones", saturaciones, LongAdder::sum)
+                .description("Envíos rechazados por falta de cupo")
+                .tag("cuenta", cuenta)
+                .tags(etiquetas)
+                .register(registry);
+        FunctionCounter.builder("correo.smtp.limite.respuestas", limitaciones, LongAdder::sum)
+                .description("Respuestas 421/451 del servidor SMTP")
+                .tag("cuenta", cuenta)
+                .tags(etiquetas)
+                .register(registry);
+    }
+}
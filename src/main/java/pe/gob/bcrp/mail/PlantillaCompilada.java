@@ -0,0 +1,64 @@
+package pe.gob.bcrp.mail;
+
+import org.unbescape.html.HtmlEscape;
+
+import java.util.Map;
+
+/**
+ * Plantilla HTML compilada en fragmentos estáticos intercalados con variables.
+ * Renderizar equivale a concatenar los fragmentos con el valor escapado de cada
+ * variable, igual que lo haría th:text, sin recorrer el DOM de Thymeleaf.
+ */
+public final class PlantillaCompilada {
+
+    private final String[] fragmentos;
+    private final String[] variables;
+    private final int longitudEstatica;
+    private final long version;
+
+    /**
+     * @param fragmentos texto estático; tiene un elemento más que variables
+     * @param variables nombre de la variable que va entre fragmentos[i] y fragmentos[i + 1]
+     * @param version marca de modificación del recurso del que se compiló
+     */
+    PlantillaCompilada(String[] fragmentos, String[] variables, long version) {
+        if (fragmentos.length != variables.length + 1) {
+            throw new IllegalArgumentException("Debe haber un fragmento más que variables");
+        }
+        this.fragmentos = fragmentos;
+        this.variables = variables;
+        this.version = version;
+
+        int longitud = 0;
+        for (String fragmento : fragmentos) {
+            longitud += fragmento.length();
+        }
+        this.longitudEstatica = longitud;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int getLongitudEstatica() {
+        return longitudEstatica;
+    }
+
+    /**
+     * Escribe la plantilla en el destino reemplazando cada variable por su valor escapado.
+     * Los valores FragmentoHtml se escriben a sí mismos, ya escapados, sin copia intermedia.
+     */
+    public void renderizar(Map<String, ?> valores, StringBuilder destino) {
+        destino.ensureCapacity(destino.length() + longitudEstatica);
+        for (int i = 0; i < variables.length; i++) {
+            destino.append(fragmentos[i]);
+            Object valor = valores.get(variables[i]);
+            if (valor instanceof FragmentoHtml fragmento) {
+                fragmento.escribirHtml(destino);
+            } else if (valor != null) {
+                destino.append(HtmlEscape.escapeHtml4Xml(valor.toString()));
+            }
+        }
+        destino.append(fragmentos[variables.length]);
+    }
+}
@@ -0,0 +1,205 @@
+package pe.gob.bcrp.mail;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.mail.Address;
+import jakarta.mail.AuthenticationFailedException;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSenderFailedException;
+import org.springframework.lang.Nullable;
+import org.springframework.mail.MailAuthenticationException;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * JavaMailSender que reutiliza conexiones SMTP autenticadas de un pool
+ * en lugar de abrir, negociar STARTTLS y autenticar en cada envío.
+ */
+public class PooledJavaMailSender extends JavaMailSenderImpl implements MeterBinder, AutoCloseable {
+
+    private static final String HEADER_MESSAGE_ID = "Message-ID";
+
+    private final SmtpTransportPool pool;
+    private ExecutorService ejecutorSmtp;
+    private LimitadorEnvio limitador;
+
+    public PooledJavaMailSender(int tamanoMaximo, long esperaMaximaMs, long inactividadMaximaMs,
+                                long validacionMs, int enviosMaximosPorConexion) {
+        this.pool = new SmtpTransportPool(this::connectTransport, tamanoMaximo, esperaMaximaMs,
+                inactividadMaximaMs, validacionMs, enviosMaximosPorConexion);
+    }
+
+    public SmtpTransportPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Ejecutor de hilos de plataforma para la E/S SMTP. SMTPTransport envía dentro de
+     * bloques synchronized, lo que en Java 21 fija (pin) el hilo portador de un hilo
+     * virtual; con este ejecutor el hilo virtual solo espera el resultado.
+     */
+    public void setEjecutorSmtp(ExecutorService ejecutorSmtp) {
+        this.ejecutorSmtp = ejecutorSmtp;
+    }
+
+    /**
+     * Limitador de la cuenta; sin limitador los envíos no se acotan
+     */
+    public void setLimitador(LimitadorEnvio limitador) {
+        this.limitador = limitador;
+    }
+
+    @Override
+    protected void doSend(MimeMessage[] mimeMessages, @Nullable Object[] originalMessages) throws MailException {
+        // Se espera el cupo antes de ocupar una conexión o un hilo del ejecutor SMTP
+        if (limitador != null) {
+            limitador.adquirir(mimeMessages.length);
+        }
+
+        if (ejecutorSmtp == null || !Thread.currentThread().isVirtual()) {
+            enviarConPool(mimeMessages, originalMessages);
+            return;
+        }
+
+        Future<?> envio = ejecutorSmtp.submit(() -> enviarConPool(mimeMessages, originalMessages));
+        try {
+            envio.get();
+        } catch (InterruptedException e) {
+            envio.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Interrumpido esperando el envío SMTP", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new MailSendException("Error en el envío SMTP", e.getCause());
+        }
+    }
+
+    private void enviarConPool(MimeMessage[] mimeMessages, @Nullable Object[] originalMessages) throws MailException {
+        Map<Object, Exception> failedMessages = new LinkedHashMap<>();
+        SmtpTransportPool.ConexionSmtp conexion = null;
+
+        try {
+            for (int i = 0; i < mimeMessages.length; i++) {
+                Object original = (originalMessages != null ? originalMessages[i] : mimeMessages[i]);
+
+                if (conexion == null) {
+                    try {
+                        conexion = pool.tomar();
+                    } catch (AuthenticationFailedException ex) {
+                        throw new MailAuthenticationException(ex);
+                    } catch (MessagingException ex) {
+                        registrarRespuesta(ex);
+                        // Sin conexión, el resto de mensajes también falla
+                        for (int j = i; j < mimeMessages.length; j++) {
+                            failedMessages.put(originalMessages != null ? originalMessages[j] : mimeMessages[j], ex);
+                        }
+                        throw new ConexionSmtpException(ex, failedMessages, i == 0);
+                    }
+                }
+
+                try {
+                    enviar(conexion, mimeMessages[i]);
+                    if (limitador != null) {
+                        limitador.registrarExito(1);
+                    }
+                } catch (Exception ex) {
+                    registrarRespuesta(ex);
+                    failedMessages.put(original, ex);
+                    // Un rechazo del servidor no invalida la conexión; un error de E/S sí
+                    if (!conexion.getTransporte().isConnected()) {
+                        pool.devolver(conexion, false);
+                        conexion = null;
+                    }
+                }
+            }
+        } finally {
+            if (conexion != null) {
+                pool.devolver(conexion, true);
+            }
+        }
+
+        if (!failedMessages.isEmpty()) {
+            throw new MailSendException(failedMessages);
+        }
+    }
+
+    /**
+     * Informa al limitador si el servidor respondió 421 o 451 (límite de envío o servicio saturado)
+     */
+    private void registrarRespuesta(Exception ex) {
+        if (limitador != null && esLimitacion(ex)) {
+            limitador.registrarLimitacion();
+        }
+    }
+
+    static boolean esLimitacion(Throwable error) {
+        for (Throwable causa = error; causa != null; causa = siguiente(causa)) {
+            int codigo = switch (causa) {
+                case SMTPSendFailedException e -> e.getReturnCode();
+                case SMTPAddressFailedException e -> e.getReturnCode();
+                case SMTPSenderFailedException e -> e.getReturnCode();
+                default -> 0;
+            };
+            if (codigo == 421 || codigo == 451) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Throwable siguiente(Throwable causa) {
+        if (causa instanceof MessagingException me && me.getNextException() != null && me.getNextException() != causa) {
+            return me.getNextException();
+        }
+        return causa.getCause() == causa ? null : causa.getCause();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindTo(registry, Tags.empty());
+    }
+
+    public void bindTo(MeterRegistry registry, Tags etiquetas) {
+        pool.bindTo(registry, etiquetas);
+        if (limitador != null) {
+            limitador.bindTo(registry, etiquetas);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (ejecutorSmtp != null) {
+            ejecutorSmtp.shutdown();
+        }
+        pool.close();
+    }
+
+    private void enviar(SmtpTransportPool.ConexionSmtp conexion, MimeMessage mimeMessage) throws MessagingException {
+        if (mimeMessage.getSentDate() == null) {
+            mimeMessage.setSentDate(new Date());
+        }
+        String messageId = mimeMessage.getMessageID();
+        mimeMessage.saveChanges();
+        if (messageId != null) {
+            // Se conserva el Message-ID explícito que saveChanges() habría regenerado
+            mimeMessage.setHeader(HEADER_MESSAGE_ID, messageId);
+        }
+        Address[] addresses = mimeMessage.getAllRecipients();
+        conexion.getTransporte().sendMessage(mimeMessage, (addresses != null ? addresses : new Address[0]));
+        conexion.registrarEnvio();
+    }
+}
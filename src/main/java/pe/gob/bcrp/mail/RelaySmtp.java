@@ -0,0 +1,156 @@
+package pe.gob.bcrp.mail;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Relay SMTP con su propio pool y un circuito que lo saca de la rotación tras varios
+ * fallos consecutivos (timeouts, conexiones rechazadas). Pasado el tiempo de apertura
+ * se deja pasar un solo envío de prueba: si funciona el relay vuelve a la rotación.
+ */
+@Log4j2
+public class RelaySmtp implements AutoCloseable {
+
+    public enum EstadoCircuito { CERRADO, ABIERTO, SEMIABIERTO }
+
+    private final String nombre;
+    private final PooledJavaMailSender sender;
+    private final int peso;
+    private final int fallosParaAbrir;
+    private final long aperturaNanos;
+    private final LongSupplier reloj;
+    private final AtomicInteger pendientes = new AtomicInteger();
+
+    private EstadoCircuito estado = EstadoCircuito.CERRADO;
+    private int fallosConsecutivos;
+    private long abiertoHasta;
+    private volatile boolean habilitado = true;
+
+    // Peso acumulado del round robin ponderado; lo maneja EnrutadorSmtp bajo su lock
+    int pesoActual;
+
+    public RelaySmtp(String nombre, PooledJavaMailSender sender, int peso, int fallosParaAbrir, long aperturaMs) {
+        this(nombre, sender, peso, fallosParaAbrir, aperturaMs, System::nanoTime);
+    }
+
+    RelaySmtp(String nombre, PooledJavaMailSender sender, int peso, int fallosParaAbrir, long aperturaMs,
+              LongSupplier reloj) {
+        this.nombre = nombre;
+        this.sender = sender;
+        this.peso = Math.max(1, peso);
+        this.fallosParaAbrir = Math.max(1, fallosParaAbrir);
+        this.aperturaNanos = TimeUnit.MILLISECONDS.toNanos(aperturaMs);
+        this.reloj = reloj;
+    }
+
+    public String getNombre() {
+        return nombre;
+    }
+
+    public PooledJavaMailSender getSender() {
+        return sender;
+    }
+
+    public int getPeso() {
+        return peso;
+    }
+
+    public int getPendientes() {
+        return pendientes.get();
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    /**
+     * Saca o devuelve el relay de la rotación manualmente, sin esperar al circuito
+     */
+    public void setHabilitado(boolean habilitado) {
+        this.habilitado = habilitado;
+    }
+
+    public synchronized EstadoCircuito getEstado() {
+        if (estado == EstadoCircuito.ABIERTO && reloj.getAsLong() >= abiertoHasta) {
+            return EstadoCircuito.SEMIABIERTO;
+        }
+        return estado;
+    }
+
+    /**
+     * Indica si el relay puede recibir un envío ahora
+     */
+    synchronized boolean admite() {
+        if (!habilitado) {
+            return false;
+        }
+        return switch (estado) {
+            case CERRADO -> true;
+            case ABIERTO -> reloj.getAsLong() >= abiertoHasta;
+            case SEMIABIERTO -> false;
+        };
+    }
+
+    /**
+     * Reserva el relay para un envío. Con el circuito abierto y vencido, el envío es la prueba
+     * y ningún otro pasa hasta conocer su resultado.
+     */
+    synchronized boolean tomar() {
+        if (!admite()) {
+            return false;
+        }
+        if (estado == EstadoCircuito.ABIERTO) {
+            estado = EstadoCircuito.SEMIABIERTO;
+        }
+        pendientes.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Nanosegundos hasta que el circuito deje pasar la prueba; 0 si ya admite envíos
+     */
+    synchronized long esperaApertura() {
+        return estado == EstadoCircuito.ABIERTO ? Math.max(0, abiertoHasta - reloj.getAsLong()) : 0;
+    }
+
+    /**
+     * Libera el relay; si el envío no llegó a probar el relay el circuito queda como estaba
+     */
+    synchronized void liberar(Boolean exito) {
+        pendientes.decrementAndGet();
+        if (exito == null) {
+            if (estado == EstadoCircuito.SEMIABIERTO) {
+                // La prueba no llegó al servidor (p. ej. sin cupo); se permite otra
+                estado = EstadoCircuito.ABIERTO;
+            }
+            return;
+        }
+
+        if (exito) {
+            if (estado != EstadoCircuito.CERRADO) {
+                log.info("Relay SMTP {} disponible nuevamente", nombre);
+            }
+            estado = EstadoCircuito.CERRADO;
+            fallosConsecutivos = 0;
+            return;
+        }
+
+        fallosConsecutivos++;
+        if (estado == EstadoCircuito.SEMIABIERTO || fallosConsecutivos >= fallosParaAbrir) {
+            if (estado != EstadoCircuito.ABIERTO) {
+                log.warn("Relay SMTP {} fuera de rotación por {} ms tras {} fallos consecutivos",
+                        nombre, TimeUnit.NANOSECONDS.toMillis(aperturaNanos), fallosConsecutivos);
+            }
+            estado = EstadoCircuito.ABIERTO;
+            abiertoHasta = reloj.getAsLong() + aperturaNanos;
+        }
+    }
+
+    @Override
+    public void close() {
+        sender.close();
+    }
+}
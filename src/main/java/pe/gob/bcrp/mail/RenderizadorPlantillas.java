@@ -0,0 +1,184 @@
+package pe.gob.bcrp.mail;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Renderiza las plantillas de correo a partir de su forma compilada.
+ *
+ * Cada plantilla se procesa una sola vez con Thymeleaf usando marcadores únicos como
+ * valor de sus variables; el resultado se corta en los marcadores y queda como
+ * fragmentos estáticos y variables. Solo se compilan plantillas cuyos atributos
+ * Thymeleaf son th:text="${variable}"; las demás se procesan con Thymeleaf en cada envío.
+ */
+@Log4j2
+@Component
+public class RenderizadorPlantillas {
+
+    private static final Pattern COMENTARIO = Pattern.compile("<!--.*?-->", Pattern.DOTALL);
+    private static final Pattern ATRIBUTO_TH = Pattern.compile("\\sth:([\\w-]+)\\s*=\\s*\"([^\"]*)\"");
+    private static final Pattern VARIABLE_SIMPLE = Pattern.compile("\\$\\{(\\w+)}");
+    private static final int CAPACIDAD_MAXIMA_BUFFER = 1 << 20;
+
+    private static final ThreadLocal<StringBuilder> BUFFER = ThreadLocal.withInitial(() -> new StringBuilder(16 * 1024));
+
+    private final TemplateEngine templateEngine;
+    private final ResourceLoader resourceLoader;
+    private final Map<String, Compilacion> compilaciones = new ConcurrentHashMap<>();
+
+    @Value("${spring.thymeleaf.prefix:classpath:/templates/}")
+    private String prefijo;
+    @Value("${spring.thymeleaf.suffix:.html}")
+    private String sufijo;
+    @Value("${correo.plantillas.verificacion-ms:5000}")
+    private long verificacionMs;
+
+    public RenderizadorPlantillas(TemplateEngine templateEngine, ResourceLoader resourceLoader) {
+        this.templateEngine = templateEngine;
+        this.resourceLoader = resourceLoader;
+    }
+
+    /**
+     * Resultado de compilar una plantilla; plantilla es null si no es compilable
+     */
+    private record Compilacion(PlantillaCompilada plantilla, long version, long verificadaEn) {
+    }
+
+    /**
+     * Renderiza la plantilla con las variables indicadas
+     */
+    public String renderizar(String nombrePlantilla, Map<String, ?> variables) {
+        PlantillaCompilada plantilla = obtener(nombrePlantilla);
+        if (plantilla == null) {
+            return templateEngine.process(nombrePlantilla, new Context(Locale.getDefault(), new HashMap<>(variables)));
+        }
+
+        StringBuilder buffer = BUFFER.get();
+        buffer.setLength(0);
+        plantilla.renderizar(variables, buffer);
+        String html = buffer.toString();
+
+        if (buffer.capacity() > CAPACIDAD_MAXIMA_BUFFER) {
+            // Evita retener buffers enormes en el hilo después de una trama muy grande
+            BUFFER.remove();
+        }
+        return html;
+    }
+
+    /**
+     * Descarta las compilaciones para que se regeneren en el siguiente uso
+     */
+    public void invalidar() {
+        compilaciones.clear();
+    }
+
+    private PlantillaCompilada obtener(String nombrePlantilla) {
+        Compilacion compilacion = compilaciones.get(nombrePlantilla);
+        long ahora = System.currentTimeMillis();
+
+        if (compilacion != null && (verificacionMs <= 0 || ahora - compilacion.verificadaEn() < verificacionMs)) {
+            return compilacion.plantilla();
+        }
+
+        return compilaciones.compute(nombrePlantilla, (nombre, actual) -> {
+            Resource recurso = resourceLoader.getResource(prefijo + nombre + sufijo);
+            long version = versionDe(recurso);
+            if (actual != null && actual.version() == version) {
+                return new Compilacion(actual.plantilla(), version, ahora);
+            }
+            if (actual != null) {
+                log.info("La plantilla {} cambió, se vuelve a compilar", nombre);
+                templateEngine.clearTemplateCacheFor(nombre);
+            }
+            return new Compilacion(compilar(nombre, recurso, version), version, ahora);
+        }).plantilla();
+    }
+
+    private PlantillaCompilada compilar(String nombrePlantilla, Resource recurso, long version) {
+        String fuente;
+        try {
+            fuente = recurso.getContentAsString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.warn("No se pudo leer la plantilla {}, se usará Thymeleaf directamente", nombrePlantilla, e);
+            return null;
+        }
+
+        Set<String> nombresVariables = extraerVariables(nombrePlantilla, fuente);
+        if (nombresVariables == null) {
+            return null;
+        }
+
+        // Un marcador alfanumérico no se altera al escaparse con th:text
+        String semilla = UUID.randomUUID().toString().replace("-", "");
+        Map<String, Object> marcadores = new HashMap<>();
+        Map<String, String> variablePorMarcador = new HashMap<>();
+        for (String variable : nombresVariables) {
+            String marcador = "TPL" + semilla + "V" + variablePorMarcador.size() + "X";
+            marcadores.put(variable, marcador);
+            variablePorMarcador.put(marcador, variable);
+        }
+
+        String salida = templateEngine.process(nombrePlantilla, new Context(Locale.getDefault(), marcadores));
+
+        List<String> fragmentos = new ArrayList<>();
+        List<String> variables = new ArrayList<>();
+        Matcher matcher = Pattern.compile("TPL" + semilla + "V\\d+X").matcher(salida);
+        int inicio = 0;
+        while (matcher.find()) {
+            fragmentos.add(salida.substring(inicio, matcher.start()));
+            variables.add(variablePorMarcador.get(matcher.group()));
+            inicio = matcher.end();
+        }
+        fragmentos.add(salida.substring(inicio));
+
+        log.info("Plantilla {} compilada: {} fragmentos estáticos, {} variables",
+                nombrePlantilla, fragmentos.size(), variables.size());
+        return new PlantillaCompilada(fragmentos.toArray(new String[0]), variables.toArray(new String[0]), version);
+    }
+
+    /**
+     * Retorna las variables usadas con th:text, o null si la plantilla usa otros atributos Thymeleaf
+     */
+    private Set<String> extraerVariables(String nombrePlantilla, String fuente) {
+        Set<String> variables = new LinkedHashSet<>();
+        Matcher atributo = ATRIBUTO_TH.matcher(COMENTARIO.matcher(fuente).replaceAll(""));
+
+        while (atributo.find()) {
+            Matcher variable = VARIABLE_SIMPLE.matcher(atributo.group(2));
+            if (!"text".equals(atributo.group(1)) || !variable.matches()) {
+                log.info("La plantilla {} usa th:{}=\"{}\" y no se compilará",
+                        nombrePlantilla, atributo.group(1), atributo.group(2));
+                return null;
+            }
+            variables.add(variable.group(1));
+        }
+        return variables;
+    }
+
+    private static long versionDe(Resource recurso) {
+        try {
+            return recurso.lastModified();
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+}
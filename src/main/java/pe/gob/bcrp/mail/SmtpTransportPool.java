@@ -0,0 +1,258 @@
+package pe.gob.bcrp.mail;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import lombok.extern.log4j.Log4j2;
+
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Pool de conexiones SMTP autenticadas que se reutilizan entre envíos.
+ * Las conexiones ociosas se validan con NOOP antes de reutilizarse y se cierran
+ * al superar el tiempo máximo de inactividad o el número máximo de envíos.
+ */
+@Log4j2
+public class SmtpTransportPool implements MeterBinder, AutoCloseable {
+
+    /**
+     * Abre y autentica una nueva conexión SMTP
+     */
+    @FunctionalInterface
+    public interface FabricaTransporte {
+        Transport conectar() throws MessagingException;
+    }
+
+    /**
+     * Conexión prestada por el pool
+     */
+    public static final class ConexionSmtp {
+        private final Transport transporte;
+        private long ultimoUso;
+        private int envios;
+
+        private ConexionSmtp(Transport transporte, long ultimoUso) {
+            this.transporte = transporte;
+            this.ultimoUso = ultimoUso;
+        }
+
+        public Transport getTransporte() {
+            return transporte;
+        }
+
+        public void registrarEnvio() {
+            envios++;
+        }
+    }
+
+    private final FabricaTransporte fabrica;
+    private final long esperaMaximaMs;
+    private final long inactividadMaximaNanos;
+    private final long validacionNanos;
+    private final int enviosMaximosPorConexion;
+    private final LongSupplier reloj;
+
+    private final Semaphore permisos;
+    private final BlockingDeque<ConexionSmtp> libres = new LinkedBlockingDeque<>();
+    private final AtomicInteger abiertas = new AtomicInteger();
+    private final AtomicInteger descartesPendientes = new AtomicInteger();
+    private final AtomicLong reconexiones = new AtomicLong();
+    private final ScheduledExecutorService limpiador;
+    private volatile Timer timerEspera;
+    private volatile boolean cerrado;
+
+    public SmtpTransportPool(FabricaTransporte fabrica, int tamanoMaximo, long esperaMaximaMs,
+                             long inactividadMaximaMs, long validacionMs, int enviosMaximosPorConexion) {
+        this(fabrica, tamanoMaximo, esperaMaximaMs, inactividadMaximaMs, validacionMs, enviosMaximosPorConexion,
+                System::nanoTime);
+    }
+
+    SmtpTransportPool(FabricaTransporte fabrica, int tamanoMaximo, long esperaMaximaMs, long inactividadMaximaMs,
+                      long validacionMs, int enviosMaximosPorConexion, LongSupplier reloj) {
+        this.fabrica = fabrica;
+        this.esperaMaximaMs = esperaMaximaMs;
+        this.inactividadMaximaNanos = TimeUnit.MILLISECONDS.toNanos(inactividadMaximaMs);
+        this.validacionNanos = TimeUnit.MILLISECONDS.toNanos(validacionMs);
+        this.enviosMaximosPorConexion = enviosMaximosPorConexion;
+        this.reloj = reloj;
+        this.permisos = new Semaphore(tamanoMaximo, true);
+
+        this.limpiador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "smtp-pool-limpiador");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        long periodo = Math.max(1000, inactividadMaximaMs / 2);
+        this.limpiador.scheduleWithFixedDelay(this::cerrarInactivas, periodo, periodo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Toma una conexión del pool, abriendo una nueva si no hay conexiones libres utilizables.
+     * Bloquea como máximo esperaMaximaMs cuando todas las conexiones están en uso.
+     */
+    public ConexionSmtp tomar() throws MessagingException {
+        if (cerrado) {
+            throw new MessagingException("El pool de conexiones SMTP está cerrado");
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            if (!permisos.tryAcquire(esperaMaximaMs, TimeUnit.MILLISECONDS)) {
+                throw new MessagingException(String.format(
+                        "No se obtuvo una conexión SMTP libre en %d ms", esperaMaximaMs));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MessagingException("Interrumpido esperando una conexión SMTP", e);
+        } finally {
+            Timer timer = timerEspera;
+            if (timer != null) {
+                timer.record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        try {
+            ConexionSmtp conexion;
+            // LIFO: se reutiliza primero la conexión usada más recientemente
+            while ((conexion = libres.pollFirst()) != null) {
+                if (esUtilizable(conexion)) {
+                    return conexion;
+                }
+                descartar(conexion);
+            }
+            return abrir();
+        } catch (MessagingException | RuntimeException e) {
+            permisos.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Devuelve la conexión al pool. Si se produjo un error de conexión se descarta.
+     */
+    public void devolver(ConexionSmtp conexion, boolean sana) {
+        try {
+            if (sana && !cerrado && conexion.envios < enviosMaximosPorConexion) {
+                conexion.ultimoUso = reloj.getAsLong();
+                libres.offerFirst(conexion);
+            } else {
+                descartar(conexion);
+            }
+        } finally {
+            permisos.release();
+        }
+    }
+
+    public int getConexionesAbiertas() {
+        return abiertas.get();
+    }
+
+    public int getConexionesLibres() {
+        return libres.size();
+    }
+
+    public long getReconexiones() {
+        return reconexiones.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        bindTo(registry, Tags.empty());
+    }
+
+    /**
+     * Registra las métricas del pool con las etiquetas indicadas (por ejemplo, el relay)
+     */
+    public void bindTo(MeterRegistry registry, Tags etiquetas) {
+        Gauge.builder("correo.smtp.pool.conexiones", this, SmtpTransportPool::getConexionesAbiertas)
+                .description("Conexiones SMTP abiertas")
+                .tags(etiquetas)
+                .register(registry);
+        Gauge.builder("correo.smtp.pool.conexiones.libres", this, SmtpTransportPool::getConexionesLibres)
+                .description("Conexiones SMTP libres en el pool")
+                .tags(etiquetas)
+                .register(registry);
+        FunctionCounter.builder("correo.smtp.pool.reconexiones", this, SmtpTransportPool::getReconexiones)
+                .description("Conexiones abiertas para reemplazar una conexión caída o expirada")
+                .tags(etiquetas)
+                .register(registry);
+        timerEspera = Timer.builder("correo.smtp.pool.espera")
+                .description("Tiempo de espera para obtener una conexión SMTP")
+                .tags(etiquetas)
+                .register(registry);
+    }
+
+    @Override
+    public void close() {
+        cerrado = true;
+        limpiador.shutdownNow();
+        ConexionSmtp conexion;
+        while ((conexion = libres.pollFirst()) != null) {
+            cerrarTransporte(conexion);
+        }
+    }
+
+    private boolean esUtilizable(ConexionSmtp conexion) {
+        long inactividad = reloj.getAsLong() - conexion.ultimoUso;
+        if (inactividad > inactividadMaximaNanos) {
+            return false;
+        }
+        if (inactividad > validacionNanos) {
+            // En SMTPTransport isConnected() envía NOOP al servidor
+            return conexion.transporte.isConnected();
+        }
+        return true;
+    }
+
+    private ConexionSmtp abrir() throws MessagingException {
+        Transport transporte = fabrica.conectar();
+        abiertas.incrementAndGet();
+        if (descartesPendientes.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            reconexiones.incrementAndGet();
+        }
+        return new ConexionSmtp(transporte, reloj.getAsLong());
+    }
+
+    private void descartar(ConexionSmtp conexion) {
+        descartesPendientes.incrementAndGet();
+        cerrarTransporte(conexion);
+    }
+
+    private void cerrarTransporte(ConexionSmtp conexion) {
+        abiertas.decrementAndGet();
+        try {
+            conexion.transporte.close();
+        } catch (MessagingException e) {
+            log.debug("Error al cerrar conexión SMTP", e);
+        }
+    }
+
+    /**
+     * Cierra las conexiones libres que superaron el tiempo máximo de inactividad
+     */
+    void cerrarInactivas() {
+        ConexionSmtp conexion;
+        // Las conexiones más antiguas quedan al final de la cola
+        while ((conexion = libres.pollLast()) != null) {
+            if (reloj.getAsLong() - conexion.ultimoUso <= inactividadMaximaNanos) {
+                libres.offerLast(conexion);
+                return;
+            }
+            log.debug("Cerrando conexión SMTP inactiva");
+            cerrarTransporte(conexion);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package pe.gob.bcrp.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+
+import java.time.LocalDateTime;
+
+/**
+ * Proyección de la alerta para consultas: no incluye la trama ni los destinatarios
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AlertaResumenDTO {
+    private Long idAlerta;
+    private String nomArchivo;
+    private String tipError;
+    private String camAfectada;
+    private EstadoAlerta estado;
+    private LocalDateTime fechaCreacion;
+    private LocalDateTime fechaEnvio;
+    private Integer numIntentos;
+    private String hashTrama;
+}
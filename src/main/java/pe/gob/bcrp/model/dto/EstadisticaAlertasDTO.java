@@ -0,0 +1,21 @@
+package pe.gob.bcrp.model.dto;
+
+import lombok.*;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+
+/**
+ * Alertas registradas por cámara, tipo de error y estado actual en las últimas ventanas
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EstadisticaAlertasDTO {
+    private String camaraAfectada;
+    private String tipoError;
+    private EstadoAlerta estado;
+    private long ultimos5Minutos;
+    private long ultimaHora;
+    private long ultimas24Horas;
+}
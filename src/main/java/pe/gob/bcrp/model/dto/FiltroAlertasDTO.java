@@ -0,0 +1,25 @@
+package pe.gob.bcrp.model.dto;
+
+import lombok.*;
+import org.springframework.format.annotation.DateTimeFormat;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filtros de GET /correo/alertas; el rango de fechas es [desde, hasta)
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FiltroAlertasDTO {
+    private EstadoAlerta estado;
+    private String camaraAfectada;
+    private String tipoError;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime desde;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime hasta;
+}
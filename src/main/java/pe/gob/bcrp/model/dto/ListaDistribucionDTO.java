@@ -0,0 +1,21 @@
+package pe.gob.bcrp.model.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ListaDistribucionDTO {
+    @NotBlank(message = "El código de la lista es requerido")
+    @Size(max = 100, message = "El código de la lista admite hasta 100 caracteres")
+    public String codigo;
+    @NotBlank(message = "Para(TO) es requerido")
+    public String to;
+    public String cc;
+    @NotBlank(message = "El usuario es requerido")
+    public String usuarioSistema;
+}
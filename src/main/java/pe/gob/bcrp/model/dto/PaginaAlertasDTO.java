@@ -0,0 +1,20 @@
+package pe.gob.bcrp.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Página de alertas; siguiente es el cursor para pedir la página que sigue (null si no hay más)
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PaginaAlertasDTO {
+    private List<AlertaResumenDTO> alertas;
+    private String siguiente;
+}
@@ -1,14 +1,18 @@
 package pe.gob.bcrp.model.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.NotBlank;
 import lombok.Data;
 
 @Data
 public class RequestSendEmail {
-    @NotBlank(message = "Para(TO) es requerido")
     public String to;
-    @NotBlank(message = "Copia(CC) es requerido")
     public String cc;
+    /**
+     * Código de una lista de distribución registrada; reemplaza a to y cc
+     */
+    public String listaDistribucion;
     @NotBlank(message = "Asunto es requerido")
     public String asunto;
     public String nombreArchivo;
@@ -19,4 +23,20 @@ public class RequestSendEmail {
     public String trama;
     @NotBlank(message = "El usuario es requerido")
     public String usuarioSistema;
-}
\ No newline at end of file
+
+    @JsonIgnore
+    @AssertTrue(message = "Para(TO) es requerido")
+    public boolean isParaInformado() {
+        return tieneListaDistribucion() || (to != null && !to.isBlank());
+    }
+
+    @JsonIgnore
+    @AssertTrue(message = "Copia(CC) es requerido")
+    public boolean isCopiaInformada() {
+        return tieneListaDistribucion() || (cc != null && !cc.isBlank());
+    }
+
+    private boolean tieneListaDistribucion() {
+        return listaDistribucion != null && !listaDistribucion.isBlank();
+    }
+}
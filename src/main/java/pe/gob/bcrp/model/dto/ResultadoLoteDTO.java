@@ -0,0 +1,17 @@
+package pe.gob.bcrp.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ResultadoLoteDTO {
+    private int indice;
+    private Long idAlerta;
+    private String estado;
+    private String mensaje;
+}
@@ -0,0 +1,17 @@
+package pe.gob.bcrp.model.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import pe.gob.bcrp.model.entity.FrecuenciaResumen;
+
+@Data
+public class SuscripcionResumenDTO {
+    @NotBlank(message = "Para(TO) es requerido")
+    public String to;
+    public String cc;
+    @NotNull(message = "La frecuencia es requerida")
+    public FrecuenciaResumen frecuencia;
+    @NotBlank(message = "El usuario es requerido")
+    public String usuarioSistema;
+}
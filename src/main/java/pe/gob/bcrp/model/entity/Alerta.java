@@ -1,5 +1,6 @@
 package pe.gob.bcrp.model.entity;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -12,11 +13,21 @@ import java.time.LocalDateTime;
 @Entity
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "MOM_MAE_ALERTA")
+@Table(name = "MOM_MAE_ALERTA", indexes = {
+        @Index(name = "IDX_ALERTA_REINTENTO", columnList = "estado, FEC_PROX_INTENTO"),
+        @Index(name = "IDX_ALERTA_FEC_REG", columnList = "FEC_REG, ID_ALERTA"),
+        @Index(name = "IDX_ALERTA_ESTADO_FEC_REG", columnList = "estado, FEC_REG, ID_ALERTA"),
+        @Index(name = "IDX_ALERTA_CAMARA_FEC_REG", columnList = "CAM_AFECTADA, FEC_REG, ID_ALERTA"),
+        @Index(name = "IDX_ALERTA_TIPO_FEC_REG", columnList = "TIP_ERROR, FEC_REG, ID_ALERTA"),
+        // La retención busca las tramas sin alertas que las referencien
+        @Index(name = "IDX_ALERTA_HASH_TRAMA", columnList = "HASH_TRAMA")
+})
 public class Alerta {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // BD con ID_ALERTA AUTO_INCREMENT: ejecutar antes db/alinear-secuencia-alerta.sql
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "alertaSeq")
+    @SequenceGenerator(name = "alertaSeq", sequenceName = "MOM_SEQ_ALERTA", allocationSize = 50)
     @Comment("Identificador de la cuenta")
     @Column(name = "ID_ALERTA")
     private Long idAlerta;
@@ -37,8 +48,15 @@ public class Alerta {
     @Comment("Camara afectada")
     private String camAfectada;
 
-    @Column(name = "trama", columnDefinition = "TEXT")
-    @Comment("Trama de error")
+    @Column(name = "HASH_TRAMA", length = 64)
+    @Comment("Hash de la trama de error en MOM_MAE_TRAMA")
+    private String hashTrama;
+
+    /**
+     * Trama de error; se guarda comprimida en MOM_MAE_TRAMA y se carga bajo demanda con TramaService
+     */
+    @Transient
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String trama;
 
     @Column(name = "FEC_REG")
@@ -49,6 +67,42 @@ public class Alerta {
     @Comment("Usuario de registro")
     private String usuarioCreacion;
 
+    @Column(name = "DES_PARA", length = 1000)
+    @Comment("Destinatarios (TO) del correo")
+    private String destinatarios;
+
+    @Column(name = "DES_COPIA", length = 1000)
+    @Comment("Destinatarios en copia (CC) del correo")
+    private String destinatariosCopia;
+
+    @Column(name = "COD_LISTA", length = 100)
+    @Comment("Lista de distribución de la que se tomaron los destinatarios")
+    private String codigoLista;
+
+    @Column(name = "DES_ASUNTO")
+    @Comment("Asunto del correo")
+    private String asunto;
+
+    @Column(name = "ID_PROCESO", length = 36)
+    @Comment("Identificador del proceso de trazabilidad")
+    private String idProceso;
+
+    @Column(name = "ID_DESPACHO", length = 36)
+    @Comment("Identificador del envío SMTP que notificó la alerta")
+    private String idDespacho;
+
+    @Column(name = "NUM_INTENTOS")
+    @Comment("Intentos de envío fallidos")
+    private Integer numIntentos = 0;
+
+    @Column(name = "FEC_PROX_INTENTO")
+    @Comment("Fecha a partir de la cual se reintenta el envío")
+    private LocalDateTime fechaProximoIntento;
+
+    @Column(name = "FEC_TOMA")
+    @Comment("Fecha en que un despachador tomó la alerta (estado PROCESADA)")
+    private LocalDateTime fechaToma;
+
     @Column(name = "estado")
     @Comment("Estado del envío")
     @Enumerated(EnumType.STRING)
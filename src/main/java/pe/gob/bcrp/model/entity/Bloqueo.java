@@ -0,0 +1,30 @@
+package pe.gob.bcrp.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Comment;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "MOM_MAE_BLOQUEO")
+public class Bloqueo {
+
+    @Id
+    @Column(name = "NOMBRE", length = 50)
+    @Comment("Tarea que se ejecuta en una sola instancia a la vez")
+    private String nombre;
+
+    @Column(name = "BLOQUEADO_HASTA", nullable = false)
+    @Comment("Vencimiento del bloqueo; pasada esta fecha otra instancia puede tomarlo")
+    private LocalDateTime bloqueadoHasta;
+
+    @Column(name = "BLOQUEADO_POR", length = 36)
+    @Comment("Ejecución que tiene el bloqueo")
+    private String bloqueadoPor;
+}
@@ -5,5 +5,6 @@ public enum EstadoAlerta {
     PROCESADA,
     ENVIADA,
     ERROR_ENVIO,
-    RESUELTA
+    RESUELTA,
+    DESCARTADA
 }
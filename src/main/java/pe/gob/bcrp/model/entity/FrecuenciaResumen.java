@@ -0,0 +1,6 @@
+package pe.gob.bcrp.model.entity;
+
+public enum FrecuenciaResumen {
+    HORARIA,
+    DIARIA
+}
@@ -0,0 +1,45 @@
+package pe.gob.bcrp.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Comment;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "MOM_MAE_IDEMPOTENCIA", indexes = {
+        @Index(name = "IDX_IDEMPOTENCIA_FEC_REG", columnList = "FEC_REG")
+})
+public class Idempotencia {
+
+    @Id
+    @Column(name = "CLAVE", length = 100)
+    @Comment("Idempotency-Key enviada por el cliente")
+    private String clave;
+
+    @Column(name = "HASH_SOLICITUD", length = 64, nullable = false)
+    @Comment("SHA-256 de la solicitud procesada con la clave")
+    private String hashSolicitud;
+
+    @Column(name = "ESTADO_HTTP")
+    @Comment("Código HTTP de la respuesta; vacío mientras la solicitud se procesa")
+    private Integer estadoHttp;
+
+    @Lob
+    @Column(name = "RESPUESTA", columnDefinition = "LONGTEXT")
+    @Comment("Cuerpo JSON de la respuesta")
+    private String respuesta;
+
+    @Column(name = "ID_ALERTA")
+    @Comment("Alerta registrada por la solicitud")
+    private Long idAlerta;
+
+    @Column(name = "FEC_REG", nullable = false)
+    @Comment("Fecha de reserva de la clave")
+    private LocalDateTime fechaCreacion;
+}
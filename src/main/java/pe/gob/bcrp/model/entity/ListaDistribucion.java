@@ -0,0 +1,52 @@
+package pe.gob.bcrp.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Comment;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "MOM_MAE_LISTA_DISTRIBUCION",
+        indexes = @Index(name = "IDX_LISTA_FEC_MOD", columnList = "FEC_MOD"))
+public class ListaDistribucion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Comment("Identificador de la lista")
+    @Column(name = "ID_LISTA")
+    private Long idLista;
+
+    @Column(name = "COD_LISTA", length = 100, nullable = false, unique = true)
+    @Comment("Código con el que los clientes referencian la lista")
+    private String codigo;
+
+    @Column(name = "DES_PARA", length = 1000, nullable = false)
+    @Comment("Destinatarios (TO) de la lista")
+    private String destinatarios;
+
+    @Column(name = "DES_COPIA", length = 1000)
+    @Comment("Destinatarios en copia (CC) de la lista")
+    private String destinatariosCopia;
+
+    @Column(name = "ACTIVO", nullable = false)
+    @Comment("Indica si la lista está activa")
+    private boolean activo = true;
+
+    @Column(name = "FEC_REG")
+    @Comment("Fecha de registro")
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "USU_REG", length = 50)
+    @Comment("Usuario de registro")
+    private String usuarioCreacion;
+
+    @Column(name = "FEC_MOD", nullable = false)
+    @Comment("Fecha de la última modificación, usada para refrescar el registro en memoria")
+    private LocalDateTime fechaModificacion;
+}
@@ -0,0 +1,11 @@
+package pe.gob.bcrp.model.entity;
+
+/**
+ * Clase de severidad de una alerta para el despacho, de mayor a menor prioridad
+ */
+public enum Severidad {
+    CRITICA,
+    ALTA,
+    NORMAL,
+    BAJA
+}
@@ -0,0 +1,48 @@
+package pe.gob.bcrp.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Comment;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "MOM_MAE_SUSCRIPCION_RESUMEN")
+public class SuscripcionResumen {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Comment("Identificador de la suscripción")
+    @Column(name = "ID_SUSCRIPCION")
+    private Long idSuscripcion;
+
+    @Column(name = "DES_PARA", length = 1000, nullable = false)
+    @Comment("Destinatarios (TO) del resumen")
+    private String destinatarios;
+
+    @Column(name = "DES_COPIA", length = 1000)
+    @Comment("Destinatarios en copia (CC) del resumen")
+    private String destinatariosCopia;
+
+    @Column(name = "FRECUENCIA", length = 20, nullable = false)
+    @Comment("Frecuencia del resumen")
+    @Enumerated(EnumType.STRING)
+    private FrecuenciaResumen frecuencia;
+
+    @Column(name = "ACTIVO", nullable = false)
+    @Comment("Indica si la suscripción está activa")
+    private boolean activo = true;
+
+    @Column(name = "FEC_REG")
+    @Comment("Fecha de registro")
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "USU_REG", length = 50)
+    @Comment("Usuario de registro")
+    private String usuarioCreacion;
+}
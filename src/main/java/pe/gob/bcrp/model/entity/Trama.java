@@ -0,0 +1,39 @@
+package pe.gob.bcrp.model.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Comment;
+
+import java.time.LocalDateTime;
+
+@Data
+@Entity
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "MOM_MAE_TRAMA")
+public class Trama {
+
+    @Id
+    @Column(name = "HASH_TRAMA", length = 64)
+    @Comment("SHA-256 del contenido de la trama")
+    private String hashTrama;
+
+    @Lob
+    @Column(name = "CONTENIDO", columnDefinition = "LONGBLOB", nullable = false)
+    @Comment("Trama comprimida en GZIP")
+    private byte[] contenido;
+
+    @Column(name = "TAM_ORIGINAL", nullable = false)
+    @Comment("Tamaño en bytes de la trama sin comprimir")
+    private int tamanoOriginal;
+
+    @Column(name = "FEC_REG")
+    @Comment("Fecha de registro")
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "FEC_USO")
+    @Comment("Fecha del último registro de una alerta con esta trama")
+    private LocalDateTime fechaUso;
+}
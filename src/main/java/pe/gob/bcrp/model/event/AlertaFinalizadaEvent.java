@@ -0,0 +1,22 @@
+package pe.gob.bcrp.model.event;
+
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+
+import java.time.LocalDateTime;
+
+/**
+ * Evento publicado con el resultado de cada intento de envío (ENVIADA, ERROR_ENVIO o DESCARTADA).
+ * estadoAnterior es PENDIENTE en el primer intento y ERROR_ENVIO en los reintentos. Una alerta
+ * en ERROR_ENVIO aún se reintentará: quien cuente alertas y no transiciones debe usar esFinal().
+ */
+public record AlertaFinalizadaEvent(Long idAlerta, String camaraAfectada, String tipoError,
+                                    String nombreArchivo, EstadoAlerta estado,
+                                    EstadoAlerta estadoAnterior, LocalDateTime fechaCreacion) {
+
+    /**
+     * Indica si la alerta ya no tendrá más intentos de envío
+     */
+    public boolean esFinal() {
+        return estado == EstadoAlerta.ENVIADA || estado == EstadoAlerta.DESCARTADA;
+    }
+}
@@ -0,0 +1,8 @@
+package pe.gob.bcrp.model.event;
+
+/**
+ * Evento publicado cuando una alerta queda registrada como PENDIENTE para su envío.
+ * El tipo de error define la cola de despacho de la alerta.
+ */
+public record AlertaRegistradaEvent(Long idAlerta, String tipoError) {
+}
@@ -0,0 +1,10 @@
+package pe.gob.bcrp.model.event;
+
+import java.util.List;
+
+/**
+ * Evento publicado cuando un lote de POST /correo/lote queda registrado como PENDIENTE.
+ * El despachador envía los correos del lote por una sola conexión SMTP.
+ */
+public record LoteRegistradoEvent(List<AlertaRegistradaEvent> alertas) {
+}
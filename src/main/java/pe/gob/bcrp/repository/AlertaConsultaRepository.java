@@ -0,0 +1,21 @@
+package pe.gob.bcrp.repository;
+
+import pe.gob.bcrp.model.dto.AlertaResumenDTO;
+import pe.gob.bcrp.model.dto.FiltroAlertasDTO;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Consultas de alertas con filtros opcionales, implementadas en AlertaConsultaRepositoryImpl
+ */
+public interface AlertaConsultaRepository {
+
+    /**
+     * Alertas que cumplen el filtro, de la más reciente a la más antigua, a partir de la
+     * posición (fechaCreacion, idAlerta) de la última alerta de la página anterior.
+     * Sin posición se parte de la más reciente.
+     */
+    List<AlertaResumenDTO> buscarPagina(FiltroAlertasDTO filtro, LocalDateTime fechaDespuesDe,
+                                        Long idDespuesDe, int limite);
+}
@@ -0,0 +1,70 @@
+package pe.gob.bcrp.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import pe.gob.bcrp.model.dto.AlertaResumenDTO;
+import pe.gob.bcrp.model.dto.FiltroAlertasDTO;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Arma la consulta solo con los filtros informados para que MySQL use el índice
+ * (filtro, FEC_REG, ID_ALERTA) que corresponde en lugar de condiciones "o nulo".
+ * La paginación es por posición (keyset): cada página es un rango del índice sin OFFSET.
+ */
+public class AlertaConsultaRepositoryImpl implements AlertaConsultaRepository {
+
+    private static final int TAMANO_LECTURA = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AlertaResumenDTO> buscarPagina(FiltroAlertasDTO filtro, LocalDateTime fechaDespuesDe,
+                                               Long idDespuesDe, int limite) {
+        StringBuilder jpql = new StringBuilder(512)
+                .append("SELECT new pe.gob.bcrp.model.dto.AlertaResumenDTO(a.idAlerta, a.nomArchivo, a.tipError, ")
+                .append("a.camAfectada, a.estado, a.fechaCreacion, a.fechaEnvio, a.numIntentos, a.hashTrama) ")
+                .append("FROM Alerta a WHERE 1 = 1");
+        Map<String, Object> parametros = new HashMap<>();
+
+        if (filtro.getEstado() != null) {
+            jpql.append(" AND a.estado = :estado");
+            parametros.put("estado", filtro.getEstado());
+        }
+        if (filtro.getCamaraAfectada() != null) {
+            jpql.append(" AND a.camAfectada = :camara");
+            parametros.put("camara", filtro.getCamaraAfectada());
+        }
+        if (filtro.getTipoError() != null) {
+            jpql.append(" AND a.tipError = :tipoError");
+            parametros.put("tipoError", filtro.getTipoError());
+        }
+        if (filtro.getDesde() != null) {
+            jpql.append(" AND a.fechaCreacion >= :desde");
+            parametros.put("desde", filtro.getDesde());
+        }
+        if (filtro.getHasta() != null) {
+            jpql.append(" AND a.fechaCreacion < :hasta");
+            parametros.put("hasta", filtro.getHasta());
+        }
+        if (fechaDespuesDe != null) {
+            jpql.append(" AND (a.fechaCreacion < :fechaCursor OR (a.fechaCreacion = :fechaCursor AND a.idAlerta < :idCursor))");
+            parametros.put("fechaCursor", fechaDespuesDe);
+            parametros.put("idCursor", idDespuesDe);
+        }
+        jpql.append(" ORDER BY a.fechaCreacion DESC, a.idAlerta DESC");
+
+        TypedQuery<AlertaResumenDTO> query = entityManager.createQuery(jpql.toString(), AlertaResumenDTO.class)
+                .setMaxResults(limite)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, Math.min(limite, TAMANO_LECTURA));
+        parametros.forEach(query::setParameter);
+        return query.getResultList();
+    }
+}
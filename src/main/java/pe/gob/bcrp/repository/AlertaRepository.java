@@ -1,9 +1,214 @@
 package pe.gob.bcrp.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import pe.gob.bcrp.model.entity.Alerta;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
-public interface AlertaRepository extends JpaRepository<Alerta, Long> {
+public interface AlertaRepository extends JpaRepository<Alerta, Long>, AlertaConsultaRepository {
+
+    interface ConteoEstado {
+        EstadoAlerta getEstado();
+
+        long getCantidad();
+    }
+
+    /**
+     * Alerta por encolar en el despacho; el tipo de error define su cola
+     */
+    interface AlertaEnCola {
+        Long getIdAlerta();
+
+        String getTipoError();
+    }
+
+    interface ConteoMinuto {
+        String getCamara();
+
+        String getTipoError();
+
+        EstadoAlerta getEstado();
+
+        int getAnio();
+
+        int getMes();
+
+        int getDia();
+
+        int getHora();
+
+        int getMinuto();
+
+        long getCantidad();
+    }
+
+    /**
+     * Cambia el estado de la alerta solo si aún se encuentra en el estado esperado.
+     * Retorna 1 si el cambio se aplicó, 0 si otro proceso ya la tomó.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Alerta a SET a.estado = :nuevoEstado WHERE a.idAlerta = :idAlerta AND a.estado = :estadoActual")
+    int cambiarEstado(@Param("idAlerta") Long idAlerta,
+                      @Param("estadoActual") EstadoAlerta estadoActual,
+                      @Param("nuevoEstado") EstadoAlerta nuevoEstado);
+
+    /**
+     * Registra el resultado del envío actualizando solo las columnas que cambian; la trama y los
+     * destinatarios no se vuelven a escribir. FEC_REG limita la búsqueda a la partición de la alerta.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Alerta a SET a.estado = :estado, a.fechaEnvio = :fechaEnvio, a.numIntentos = :numIntentos, " +
+            "a.fechaProximoIntento = :fechaProximoIntento, a.idDespacho = :idDespacho " +
+            "WHERE a.idAlerta = :idAlerta AND a.fechaCreacion = :fechaCreacion")
+    int actualizarResultado(@Param("idAlerta") Long idAlerta,
+                            @Param("fechaCreacion") LocalDateTime fechaCreacion,
+                            @Param("estado") EstadoAlerta estado,
+                            @Param("fechaEnvio") LocalDateTime fechaEnvio,
+                            @Param("numIntentos") Integer numIntentos,
+                            @Param("fechaProximoIntento") LocalDateTime fechaProximoIntento,
+                            @Param("idDespacho") String idDespacho);
+
+    /**
+     * Igual que actualizarResultado pero ubicando la alerta solo por su ID, para las filas cuyo
+     * FEC_REG no conserva la precisión de la entidad (columna DATETIME sin fracciones)
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Alerta a SET a.estado = :estado, a.fechaEnvio = :fechaEnvio, a.numIntentos = :numIntentos, " +
+            "a.fechaProximoIntento = :fechaProximoIntento, a.idDespacho = :idDespacho " +
+            "WHERE a.idAlerta = :idAlerta")
+    int actualizarResultadoPorId(@Param("idAlerta") Long idAlerta,
+                                 @Param("estado") EstadoAlerta estado,
+                                 @Param("fechaEnvio") LocalDateTime fechaEnvio,
+                                 @Param("numIntentos") Integer numIntentos,
+                                 @Param("fechaProximoIntento") LocalDateTime fechaProximoIntento,
+                                 @Param("idDespacho") String idDespacho);
+
+    /**
+     * Toma una alerta pendiente para enviarla (PENDIENTE -> PROCESADA) registrando la fecha de
+     * la toma. Retorna 0 si otro proceso ya la tomó.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Alerta a SET a.estado = pe.gob.bcrp.model.entity.EstadoAlerta.PROCESADA, a.fechaToma = :ahora " +
+            "WHERE a.idAlerta = :idAlerta AND a.estado = pe.gob.bcrp.model.entity.EstadoAlerta.PENDIENTE")
+    int tomar(@Param("idAlerta") Long idAlerta, @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Toma una alerta con error para reintentarla (ERROR_ENVIO -> PROCESADA) solo si su
+     * reintento ya venció. Retorna 0 si otro proceso ya la tomó o fue reprogramada.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Alerta a SET a.estado = pe.gob.bcrp.model.entity.EstadoAlerta.PROCESADA, a.fechaToma = :ahora " +
+            "WHERE a.idAlerta = :idAlerta AND a.estado = pe.gob.bcrp.model.entity.EstadoAlerta.ERROR_ENVIO " +
+            "AND a.fechaProximoIntento <= :ahora")
+    int tomarParaReintento(@Param("idAlerta") Long idAlerta, @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Devuelve a PENDIENTE las alertas tomadas antes de la fecha límite que no registraron
+     * resultado: el proceso que las tomó terminó (caída, redespliegue) a mitad del envío.
+     * Las tomadas por versiones anteriores no tienen fecha de toma y se juzgan por FEC_REG.
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Alerta a SET a.estado = pe.gob.bcrp.model.entity.EstadoAlerta.PENDIENTE, a.fechaToma = NULL " +
+            "WHERE a.estado = pe.gob.bcrp.model.entity.EstadoAlerta.PROCESADA AND a.fechaCreacion >= :desde " +
+            "AND (a.fechaToma < :fechaLimite OR (a.fechaToma IS NULL AND a.fechaCreacion < :fechaLimite))")
+    int liberarTomasVencidas(@Param("desde") LocalDateTime desde, @Param("fechaLimite") LocalDateTime fechaLimite);
+
+    /**
+     * Obtiene las alertas en un estado cuyo reintento venció, las más antiguas primero.
+     * Usa el índice IDX_ALERTA_REINTENTO (estado, FEC_PROX_INTENTO); el límite inferior de
+     * FEC_REG restringe la búsqueda a las particiones recientes.
+     */
+    @Query("SELECT a.idAlerta AS idAlerta, a.tipError AS tipoError FROM Alerta a " +
+            "WHERE a.estado = :estado AND a.fechaProximoIntento <= :ahora " +
+            "AND a.fechaCreacion >= :desde ORDER BY a.fechaProximoIntento")
+    List<AlertaEnCola> buscarParaReintento(@Param("estado") EstadoAlerta estado,
+                                           @Param("ahora") LocalDateTime ahora,
+                                           @Param("desde") LocalDateTime desde,
+                                           Pageable pageable);
+
+    /**
+     * Obtiene las alertas en un estado registradas entre las fechas indicadas
+     */
+    @Query("SELECT a.idAlerta AS idAlerta, a.tipError AS tipoError FROM Alerta a " +
+            "WHERE a.estado = :estado AND a.fechaCreacion >= :desde " +
+            "AND a.fechaCreacion < :fechaLimite ORDER BY a.idAlerta")
+    List<AlertaEnCola> buscarPorEstado(@Param("estado") EstadoAlerta estado,
+                                       @Param("desde") LocalDateTime desde,
+                                       @Param("fechaLimite") LocalDateTime fechaLimite,
+                                       Pageable pageable);
+
+    /**
+     * Alertas registradas antes de 'hasta' y a partir de la posición (fecha, id) indicada,
+     * en el orden del índice IDX_ALERTA_FEC_REG. Para el archivo de retención.
+     */
+    @Query("SELECT a FROM Alerta a WHERE a.fechaCreacion < :hasta AND (a.fechaCreacion > :fecha " +
+            "OR (a.fechaCreacion = :fecha AND a.idAlerta > :idAlerta)) ORDER BY a.fechaCreacion, a.idAlerta")
+    List<Alerta> buscarParaArchivo(@Param("hasta") LocalDateTime hasta,
+                                   @Param("fecha") LocalDateTime fecha,
+                                   @Param("idAlerta") Long idAlerta,
+                                   Pageable pageable);
+
+    /**
+     * IDs de las alertas registradas antes de la fecha indicada, las más antiguas primero
+     */
+    @Query("SELECT a.idAlerta FROM Alerta a WHERE a.fechaCreacion < :hasta ORDER BY a.fechaCreacion, a.idAlerta")
+    List<Long> buscarIdsAnterioresA(@Param("hasta") LocalDateTime hasta, Pageable pageable);
+
+    /**
+     * Cantidad de alertas registradas en el rango [desde, hasta)
+     */
+    @Query("SELECT COUNT(a) FROM Alerta a WHERE a.fechaCreacion >= :desde AND a.fechaCreacion < :hasta")
+    long contarEntre(@Param("desde") LocalDateTime desde, @Param("hasta") LocalDateTime hasta);
+
+    /**
+     * Fecha de registro de la alerta más antigua
+     */
+    @Query("SELECT MIN(a.fechaCreacion) FROM Alerta a")
+    LocalDateTime buscarFechaMasAntigua();
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Alerta a WHERE a.idAlerta IN :ids")
+    int eliminarPorIds(@Param("ids") List<Long> ids);
+
+    /**
+     * Lee la trama guardada en línea por versiones anteriores (columna trama de MOM_MAE_ALERTA)
+     */
+    @Query(value = "SELECT trama FROM MOM_MAE_ALERTA WHERE ID_ALERTA = :idAlerta", nativeQuery = true)
+    String buscarTramaEnLinea(@Param("idAlerta") Long idAlerta);
+
+    /**
+     * Cantidad de alertas registradas desde la fecha indicada por cámara, tipo de error,
+     * estado y minuto de registro. Usa el índice IDX_ALERTA_FEC_REG para el rango.
+     */
+    @Query("SELECT a.camAfectada AS camara, a.tipError AS tipoError, a.estado AS estado, " +
+            "year(a.fechaCreacion) AS anio, month(a.fechaCreacion) AS mes, day(a.fechaCreacion) AS dia, " +
+            "hour(a.fechaCreacion) AS hora, minute(a.fechaCreacion) AS minuto, COUNT(a) AS cantidad " +
+            "FROM Alerta a WHERE a.fechaCreacion >= :desde " +
+            "GROUP BY a.camAfectada, a.tipError, a.estado, year(a.fechaCreacion), month(a.fechaCreacion), " +
+            "day(a.fechaCreacion), hour(a.fechaCreacion), minute(a.fechaCreacion)")
+    List<ConteoMinuto> contarPorMinuto(@Param("desde") LocalDateTime desde);
+
+    /**
+     * Cantidad de alertas en los estados indicados; con estados en curso recorre solo la parte
+     * de IDX_ALERTA_ESTADO_FEC_REG que corresponde a la bandeja, no toda la tabla
+     */
+    @Query("SELECT a.estado AS estado, COUNT(a) AS cantidad FROM Alerta a WHERE a.estado IN :estados GROUP BY a.estado")
+    List<ConteoEstado> contarPorEstado(@Param("estados") Collection<EstadoAlerta> estados);
 }
@@ -0,0 +1,48 @@
+package pe.gob.bcrp.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import pe.gob.bcrp.model.entity.Bloqueo;
+
+import java.time.LocalDateTime;
+
+/**
+ * Bloqueos entre instancias para tareas programadas que no deben ejecutarse a la vez
+ */
+@Repository
+public interface BloqueoRepository extends JpaRepository<Bloqueo, String> {
+
+    /**
+     * Registra el bloqueo, libre, si aún no existe
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO MOM_MAE_BLOQUEO (NOMBRE, BLOQUEADO_HASTA) VALUES (:nombre, :libreDesde)",
+            nativeQuery = true)
+    int registrar(@Param("nombre") String nombre, @Param("libreDesde") LocalDateTime libreDesde);
+
+    /**
+     * Toma el bloqueo hasta la fecha indicada si está libre o vencido; retorna 0 si otra
+     * ejecución lo tiene
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Bloqueo b SET b.bloqueadoHasta = :hasta, b.bloqueadoPor = :ejecucion " +
+            "WHERE b.nombre = :nombre AND b.bloqueadoHasta <= :ahora")
+    int tomar(@Param("nombre") String nombre,
+              @Param("ejecucion") String ejecucion,
+              @Param("ahora") LocalDateTime ahora,
+              @Param("hasta") LocalDateTime hasta);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Bloqueo b SET b.bloqueadoHasta = :ahora, b.bloqueadoPor = NULL " +
+            "WHERE b.nombre = :nombre AND b.bloqueadoPor = :ejecucion")
+    int liberar(@Param("nombre") String nombre,
+                @Param("ejecucion") String ejecucion,
+                @Param("ahora") LocalDateTime ahora);
+}
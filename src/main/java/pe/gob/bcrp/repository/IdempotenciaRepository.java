@@ -0,0 +1,64 @@
+package pe.gob.bcrp.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import pe.gob.bcrp.model.entity.Idempotencia;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface IdempotenciaRepository extends JpaRepository<Idempotencia, String> {
+
+    /**
+     * Reserva la clave si no existe; retorna 0 si ya estaba registrada. La clave primaria
+     * garantiza que una sola solicitud la obtenga aunque lleguen a la vez a varias instancias.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO MOM_MAE_IDEMPOTENCIA (CLAVE, HASH_SOLICITUD, FEC_REG) " +
+            "VALUES (:clave, :hashSolicitud, :fecha)", nativeQuery = true)
+    int reservar(@Param("clave") String clave,
+                 @Param("hashSolicitud") String hashSolicitud,
+                 @Param("fecha") LocalDateTime fecha);
+
+    /**
+     * Retoma una reserva sin respuesta anterior a la fecha límite (la instancia que la tomó no
+     * terminó); retorna 0 si otra solicitud la retomó o ya se completó
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Idempotencia i SET i.fechaCreacion = :ahora " +
+            "WHERE i.clave = :clave AND i.estadoHttp IS NULL AND i.fechaCreacion < :fechaLimite")
+    int retomar(@Param("clave") String clave,
+                @Param("ahora") LocalDateTime ahora,
+                @Param("fechaLimite") LocalDateTime fechaLimite);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Idempotencia i SET i.estadoHttp = :estadoHttp, i.respuesta = :respuesta, i.idAlerta = :idAlerta " +
+            "WHERE i.clave = :clave")
+    int completar(@Param("clave") String clave,
+                  @Param("estadoHttp") int estadoHttp,
+                  @Param("respuesta") String respuesta,
+                  @Param("idAlerta") Long idAlerta);
+
+    /**
+     * Libera una reserva sin respuesta para que el cliente pueda reintentar con la misma clave
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Idempotencia i WHERE i.clave = :clave AND i.estadoHttp IS NULL")
+    int liberar(@Param("clave") String clave);
+
+    /**
+     * Elimina hasta 'lote' claves reservadas antes de la fecha límite
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM MOM_MAE_IDEMPOTENCIA WHERE FEC_REG < :fechaLimite LIMIT :lote", nativeQuery = true)
+    int eliminarVencidas(@Param("fechaLimite") LocalDateTime fechaLimite, @Param("lote") int lote);
+}
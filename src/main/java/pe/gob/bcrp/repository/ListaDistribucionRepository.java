@@ -0,0 +1,17 @@
+package pe.gob.bcrp.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import pe.gob.bcrp.model.entity.ListaDistribucion;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ListaDistribucionRepository extends JpaRepository<ListaDistribucion, Long> {
+
+    Optional<ListaDistribucion> findByCodigo(String codigo);
+
+    List<ListaDistribucion> findByFechaModificacionGreaterThanEqual(LocalDateTime fechaModificacion);
+}
@@ -0,0 +1,127 @@
+package pe.gob.bcrp.repository;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Particiones mensuales de MOM_MAE_ALERTA (ver db/particionar-alerta.sql). Solo aplica en
+ * MySQL y una vez que la tabla fue particionada; en otro caso listar() retorna una lista vacía.
+ */
+@Log4j2
+@Repository
+public class ParticionesAlertaRepository {
+
+    public static final String FUTURO = "pFUTURO";
+
+    private static final Pattern NOMBRE_MENSUAL = Pattern.compile("p(\\d{4})(\\d{2})");
+    private static final DateTimeFormatter FORMATO_NOMBRE = DateTimeFormatter.ofPattern("yyyyMM");
+
+    /**
+     * Partición con las alertas registradas en el mes indicado
+     */
+    public record Particion(String nombre, YearMonth mes) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile Boolean mysql;
+
+    public ParticionesAlertaRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Particiones mensuales en orden, sin incluir pFUTURO
+     */
+    public List<Particion> listar() {
+        if (!esMysql()) {
+            return List.of();
+        }
+
+        List<Map<String, Object>> filas = jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME FROM information_schema.PARTITIONS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND LOWER(TABLE_NAME) = 'mom_mae_alerta' " +
+                        "AND PARTITION_NAME IS NOT NULL ORDER BY PARTITION_ORDINAL_POSITION");
+
+        List<Particion> particiones = new ArrayList<>(filas.size());
+        for (Map<String, Object> fila : filas) {
+            String nombre = (String) fila.get("PARTITION_NAME");
+            Matcher matcher = NOMBRE_MENSUAL.matcher(nombre);
+            if (matcher.matches()) {
+                particiones.add(new Particion(nombre,
+                        YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)))));
+            } else if (!FUTURO.equals(nombre)) {
+                log.warn("Partición de MOM_MAE_ALERTA sin formato pAAAAMM, no se gestiona: {}", nombre);
+            }
+        }
+        return particiones;
+    }
+
+    /**
+     * Separa de pFUTURO las particiones de los meses siguientes a 'desde' hasta 'hasta' inclusive.
+     * pFUTURO se mantiene vacía, por lo que la reorganización no mueve filas.
+     */
+    public void crear(YearMonth desde, YearMonth hasta, int esperaBloqueoSegundos) {
+        if (desde.isAfter(hasta)) {
+            return;
+        }
+
+        StringBuilder ddl = new StringBuilder("ALTER TABLE MOM_MAE_ALERTA REORGANIZE PARTITION ")
+                .append(FUTURO).append(" INTO (");
+        for (YearMonth mes = desde; !mes.isAfter(hasta); mes = mes.plusMonths(1)) {
+            ddl.append("PARTITION ").append(nombre(mes))
+                    .append(" VALUES LESS THAN ('").append(mes.plusMonths(1).atDay(1)).append("'), ");
+        }
+        ddl.append("PARTITION ").append(FUTURO).append(" VALUES LESS THAN (MAXVALUE))");
+
+        ejecutarDdl(ddl.toString(), esperaBloqueoSegundos);
+    }
+
+    /**
+     * Elimina la partición y sus filas; es un cambio de metadatos que no recorre las filas
+     */
+    public void eliminar(Particion particion, int esperaBloqueoSegundos) {
+        ejecutarDdl("ALTER TABLE MOM_MAE_ALERTA DROP PARTITION " + particion.nombre(), esperaBloqueoSegundos);
+    }
+
+    public static String nombre(YearMonth mes) {
+        return "p" + mes.format(FORMATO_NOMBRE);
+    }
+
+    /**
+     * El DDL necesita un bloqueo exclusivo de metadatos; con una espera corta se desiste en lugar
+     * de quedar en cola detrás de una consulta larga y bloquear los INSERT que llegan después.
+     */
+    private void ejecutarDdl(String ddl, int esperaBloqueoSegundos) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) conexion -> {
+            try (var sentencia = conexion.createStatement()) {
+                sentencia.execute("SET SESSION lock_wait_timeout = " + esperaBloqueoSegundos);
+                try {
+                    sentencia.execute(ddl);
+                } finally {
+                    sentencia.execute("SET SESSION lock_wait_timeout = DEFAULT");
+                }
+            }
+            return null;
+        });
+    }
+
+    private boolean esMysql() {
+        Boolean resultado = mysql;
+        if (resultado == null) {
+            resultado = jdbcTemplate.execute((ConnectionCallback<Boolean>) conexion ->
+                    "MySQL".equalsIgnoreCase(conexion.getMetaData().getDatabaseProductName()));
+            mysql = resultado;
+        }
+        return Boolean.TRUE.equals(resultado);
+    }
+}
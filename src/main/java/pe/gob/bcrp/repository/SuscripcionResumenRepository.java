@@ -0,0 +1,14 @@
+package pe.gob.bcrp.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import pe.gob.bcrp.model.entity.FrecuenciaResumen;
+import pe.gob.bcrp.model.entity.SuscripcionResumen;
+
+import java.util.List;
+
+@Repository
+public interface SuscripcionResumenRepository extends JpaRepository<SuscripcionResumen, Long> {
+
+    List<SuscripcionResumen> findByFrecuenciaAndActivoTrue(FrecuenciaResumen frecuencia);
+}
@@ -0,0 +1,61 @@
+package pe.gob.bcrp.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import pe.gob.bcrp.model.entity.Trama;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TramaRepository extends JpaRepository<Trama, String> {
+
+    /**
+     * Inserta la trama solo si su hash no existe; retorna 0 si ya estaba registrada.
+     * Evita el SELECT previo que haría save() con un ID asignado.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO MOM_MAE_TRAMA (HASH_TRAMA, CONTENIDO, TAM_ORIGINAL, FEC_REG, FEC_USO) " +
+            "VALUES (:hash, :contenido, :tamanoOriginal, :fecha, :fecha)", nativeQuery = true)
+    int insertarSiNoExiste(@Param("hash") String hash,
+                           @Param("contenido") byte[] contenido,
+                           @Param("tamanoOriginal") int tamanoOriginal,
+                           @Param("fecha") LocalDateTime fecha);
+
+    /**
+     * Registra que una alerta nueva reutiliza la trama; INSERT IGNORE conserva la FEC_REG original
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Trama t SET t.fechaUso = :fecha WHERE t.hashTrama = :hash " +
+            "AND (t.fechaUso IS NULL OR t.fechaUso < :fecha)")
+    int registrarUso(@Param("hash") String hash, @Param("fecha") LocalDateTime fecha);
+
+    /**
+     * Hashes posteriores a 'desde', en orden, de las tramas sin alertas que no se usan desde
+     * antes de la fecha indicada. Las filas anteriores a FEC_USO se toman por su FEC_REG.
+     */
+    @Query("SELECT t.hashTrama FROM Trama t WHERE t.hashTrama > :desde " +
+            "AND COALESCE(t.fechaUso, t.fechaCreacion) < :hasta " +
+            "AND NOT EXISTS (SELECT a.idAlerta FROM Alerta a WHERE a.hashTrama = t.hashTrama) " +
+            "ORDER BY t.hashTrama")
+    List<String> buscarHuerfanas(@Param("desde") String desde, @Param("hasta") LocalDateTime hasta,
+                                 Pageable pageable);
+
+    /**
+     * Elimina las tramas indicadas que siguen sin alertas ni uso reciente; las condiciones se
+     * vuelven a evaluar por si una alerta nueva reutilizó la trama desde la búsqueda
+     */
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("DELETE FROM Trama t WHERE t.hashTrama IN :hashes " +
+            "AND COALESCE(t.fechaUso, t.fechaCreacion) < :hasta " +
+            "AND NOT EXISTS (SELECT a.idAlerta FROM Alerta a WHERE a.hashTrama = t.hashTrama)")
+    int eliminarHuerfanas(@Param("hashes") List<String> hashes, @Param("hasta") LocalDateTime hasta);
+}
@@ -5,8 +5,18 @@ import pe.gob.bcrp.model.dto.RequestSendEmail;
 import pe.gob.bcrp.model.entity.Alerta;
 
 import java.io.UnsupportedEncodingException;
+import java.util.List;
+import java.util.Map;
 
 public interface IEmailService {
+    public void validarDestinatarios(RequestSendEmail requestSendEmail) throws EmailValidationException;
+
     public boolean enviarAlertaCorreo(RequestSendEmail requestSendEmail, Alerta alerta, String procesoId)
             throws UnsupportedEncodingException, EmailValidationException;
+
+    public boolean enviarAlertasAgrupadas(RequestSendEmail requestSendEmail, List<Alerta> alertas, String procesoId);
+
+    public boolean enviarResumen(String to, String cc, String asunto, Map<String, Object> variables);
+
+    public boolean[] enviarAlertasCorreo(List<RequestSendEmail> requests, List<Alerta> alertas, String procesoId);
 }
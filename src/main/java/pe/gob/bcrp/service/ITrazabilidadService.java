@@ -0,0 +1,17 @@
+package pe.gob.bcrp.service;
+
+import java.util.function.Supplier;
+
+/**
+ * Trazabilidad del proceso de envío. Las variantes con Supplier construyen el mensaje
+ * solo cuando el evento se escribe, evitando formatear cargas grandes que se descartan.
+ */
+public interface ITrazabilidadService {
+    public void logSuccess(String tipoEvento, String procesoId, String mensaje);
+
+    public void logSuccess(String tipoEvento, String procesoId, Supplier<String> mensaje);
+
+    public void logError(String tipoEvento, String procesoId, String mensaje);
+
+    public void logError(String tipoEvento, String procesoId, Supplier<String> mensaje);
+}
@@ -0,0 +1,129 @@
+package pe.gob.bcrp.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+import pe.gob.bcrp.model.entity.FrecuenciaResumen;
+import pe.gob.bcrp.model.event.AlertaFinalizadaEvent;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Agregados incrementales para los resúmenes periódicos: cantidad y archivos de muestra
+ * por cámara, tipo de error y estado. Se actualizan con cada alerta finalizada y se
+ * reinician al tomar el resumen, sin consultar MOM_MAE_ALERTA.
+ * Los registros comparten el lock de lectura y el cambio de periodo toma el de escritura:
+ * un periodo tomado ya no recibe incrementos, así que ninguno se pierde entre dos resúmenes.
+ */
+@Component
+public class AgregadorResumen {
+
+    public record ClaveResumen(String camaraAfectada, String tipoError, EstadoAlerta estado) {
+    }
+
+    /**
+     * Contador de una clave con las primeras muestras de archivos
+     */
+    public static final class Contador {
+        private final LongAdder cantidad = new LongAdder();
+        private final AtomicInteger siguienteMuestra = new AtomicInteger();
+        private final AtomicReferenceArray<String> muestras;
+
+        private Contador(int maximoMuestras) {
+            this.muestras = new AtomicReferenceArray<>(maximoMuestras);
+        }
+
+        private void registrar(String nombreArchivo) {
+            cantidad.increment();
+            if (nombreArchivo != null && siguienteMuestra.get() < muestras.length()) {
+                int indice = siguienteMuestra.getAndIncrement();
+                if (indice < muestras.length()) {
+                    muestras.set(indice, nombreArchivo);
+                }
+            }
+        }
+
+        public long getCantidad() {
+            return cantidad.sum();
+        }
+
+        public List<String> getMuestras() {
+            List<String> resultado = new ArrayList<>(muestras.length());
+            for (int i = 0; i < muestras.length(); i++) {
+                String muestra = muestras.get(i);
+                if (muestra != null) {
+                    resultado.add(muestra);
+                }
+            }
+            return resultado;
+        }
+    }
+
+    /**
+     * Agregados acumulados desde el inicio del periodo
+     */
+    public record Periodo(LocalDateTime inicio, Map<ClaveResumen, Contador> contadores) {
+    }
+
+    private final Map<FrecuenciaResumen, AtomicReference<Periodo>> periodos = new EnumMap<>(FrecuenciaResumen.class);
+    private final ReadWriteLock cambioPeriodo = new ReentrantReadWriteLock();
+
+    @Value("${correo.resumen.muestras:5}")
+    private int maximoMuestras;
+
+    public AgregadorResumen() {
+        for (FrecuenciaResumen frecuencia : FrecuenciaResumen.values()) {
+            periodos.put(frecuencia, new AtomicReference<>(nuevoPeriodo()));
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAlertaFinalizada(AlertaFinalizadaEvent event) {
+        // Cada alerta se cuenta una vez, con su resultado final; los intentos fallidos no
+        if (!event.esFinal()) {
+            return;
+        }
+        ClaveResumen clave = new ClaveResumen(event.camaraAfectada(), event.tipoError(), event.estado());
+        cambioPeriodo.readLock().lock();
+        try {
+            for (AtomicReference<Periodo> periodo : periodos.values()) {
+                periodo.get().contadores()
+                        .computeIfAbsent(clave, k -> new Contador(maximoMuestras))
+                        .registrar(event.nombreArchivo());
+            }
+        } finally {
+            cambioPeriodo.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna los agregados del periodo en curso y abre uno nuevo; espera a que terminen
+     * los registros en curso para que el periodo retornado no cambie después
+     */
+    public Periodo tomar(FrecuenciaResumen frecuencia) {
+        Periodo nuevo = nuevoPeriodo();
+        cambioPeriodo.writeLock().lock();
+        try {
+            return periodos.get(frecuencia).getAndSet(nuevo);
+        } finally {
+            cambioPeriodo.writeLock().unlock();
+        }
+    }
+
+    private static Periodo nuevoPeriodo() {
+        return new Periodo(LocalDateTime.now(), new ConcurrentHashMap<>());
+    }
+}
@@ -0,0 +1,191 @@
+package pe.gob.bcrp.service.impl;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import pe.gob.bcrp.exception.EnvioSaturadoException;
+import pe.gob.bcrp.model.entity.Alerta;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+import pe.gob.bcrp.repository.AlertaRepository;
+import pe.gob.bcrp.service.IEmailService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Ventana de agrupación para tormentas de errores: las alertas con la misma cámara,
+ * tipo de error y destinatarios que llegan dentro de la ventana se notifican en un
+ * solo correo. Cada alerta se sigue guardando por separado y registra el ID del
+ * despacho que la notificó.
+ * <p>
+ * Las alertas esperan en la ventana en estado PROCESADA, así que la ventana debe ser menor
+ * que correo.despacho.toma-vencimiento-ms; si no, el barrido las devolvería a PENDIENTE
+ * y se enviarían dos veces. Se verifica al iniciar.
+ */
+@Log4j2
+@Service
+public class AgrupadorAlertas {
+
+    private final AlertaRepository alertaRepository;
+    private final AlertaService alertaService;
+    private final IEmailService emailService;
+    private final ColasDespacho despachoExecutor;
+    private final Map<ClaveAgrupacion, Grupo> grupos = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService temporizador = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread hilo = new Thread(r, "agrupador-alertas");
+        hilo.setDaemon(true);
+        return hilo;
+    });
+
+    private long ventanaMs;
+    @Value("${correo.agrupacion.maximo-por-grupo:500}")
+    private int maximoPorGrupo;
+
+    public AgrupadorAlertas(AlertaRepository alertaRepository, AlertaService alertaService,
+                            IEmailService emailService, ColasDespacho despachoExecutor,
+                            @Value("${correo.agrupacion.ventana-ms:0}") long ventanaMs,
+                            @Value("${correo.despacho.toma-vencimiento-ms:300000}") long tomaVencimientoMs) {
+        if (ventanaMs >= tomaVencimientoMs) {
+            throw new IllegalArgumentException(String.format(
+                    "correo.agrupacion.ventana-ms (%d) debe ser menor que correo.despacho.toma-vencimiento-ms (%d)",
+                    ventanaMs, tomaVencimientoMs));
+        }
+        this.alertaRepository = alertaRepository;
+        this.alertaService = alertaService;
+        this.emailService = emailService;
+        this.despachoExecutor = despachoExecutor;
+        this.ventanaMs = ventanaMs;
+    }
+
+    record ClaveAgrupacion(String camaraAfectada, String tipoError, String destinatarios, String destinatariosCopia) {
+    }
+
+    /**
+     * Alertas acumuladas para una clave mientras la ventana está abierta
+     */
+    private static final class Grupo {
+        private final List<Long> idsAlertas = new ArrayList<>();
+    }
+
+    /**
+     * Indica si la alerta debe esperar en la ventana; las notificaciones de éxito no se agrupan
+     */
+    public boolean esAgrupable(Alerta alerta) {
+        return ventanaMs > 0 && alerta.getTipError() != null && !alerta.getTipError().isEmpty();
+    }
+
+    /**
+     * Agrega una alerta ya tomada por el despachador (estado PROCESADA) a su grupo.
+     * La primera alerta de un grupo abre la ventana.
+     */
+    public void agregar(Alerta alerta) {
+        ClaveAgrupacion clave = new ClaveAgrupacion(alerta.getCamAfectada(), alerta.getTipError(),
+                normalizar(alerta.getDestinatarios()), normalizar(alerta.getDestinatariosCopia()));
+
+        Grupo[] lleno = new Grupo[1];
+        grupos.compute(clave, (k, actual) -> {
+            if (actual == null) {
+                Grupo nuevo = new Grupo();
+                // El temporizador cierra solo este grupo; si ya se envió por tamaño, no toca al siguiente
+                temporizador.schedule(() -> cerrarVentana(k, nuevo), ventanaMs, TimeUnit.MILLISECONDS);
+                actual = nuevo;
+            }
+            actual.idsAlertas.add(alerta.getIdAlerta());
+            if (actual.idsAlertas.size() >= maximoPorGrupo) {
+                // Se retira dentro de compute: ninguna otra alerta entra a un grupo ya lleno
+                lleno[0] = actual;
+                return null;
+            }
+            return actual;
+        });
+
+        if (lleno[0] != null) {
+            despachar(clave, lleno[0]);
+        }
+    }
+
+    /**
+     * Envía los grupos abiertos antes de detener el servicio
+     */
+    @PreDestroy
+    public void cerrar() {
+        temporizador.shutdownNow();
+        grupos.keySet().forEach(clave -> {
+            Grupo grupo = grupos.remove(clave);
+            if (grupo != null) {
+                despacharGrupo(grupo);
+            }
+        });
+    }
+
+    private void cerrarVentana(ClaveAgrupacion clave, Grupo grupo) {
+        // remove es atómico con compute: una alerta posterior abre un grupo nuevo
+        if (grupos.remove(clave, grupo)) {
+            despachar(clave, grupo);
+        }
+    }
+
+    private void despachar(ClaveAgrupacion clave, Grupo grupo) {
+        try {
+            despachoExecutor.ejecutar(clave.tipoError(), () -> despacharGrupo(grupo));
+        } catch (RejectedExecutionException e) {
+            despacharGrupo(grupo);
+        }
+    }
+
+    private void despacharGrupo(Grupo grupo) {
+        List<Alerta> alertas = alertaRepository.findAllById(grupo.idsAlertas);
+        if (alertas.isEmpty()) {
+            return;
+        }
+        alertas.sort(Comparator.comparing(Alerta::getIdAlerta));
+
+        Alerta primera = alertas.get(0);
+        String idDespacho = UUID.randomUUID().toString();
+        boolean correoEnviado;
+        try {
+            if (alertas.size() == 1) {
+                correoEnviado = emailService.enviarAlertaCorreo(alertaService.crearSolicitud(primera), primera,
+                        primera.getIdProceso());
+            } else {
+                log.info("Despacho {}: un correo para {} alertas de {} / {}", idDespacho, alertas.size(),
+                        primera.getCamAfectada(), primera.getTipError());
+                correoEnviado = emailService.enviarAlertasAgrupadas(alertaService.crearSolicitud(primera), alertas,
+                        primera.getIdProceso());
+            }
+        } catch (EnvioSaturadoException e) {
+            log.warn("Despacho {} de {} alertas devuelto a pendiente: {}", idDespacho, alertas.size(), e.getMessage());
+            alertas.forEach(alerta ->
+                    alertaRepository.cambiarEstado(alerta.getIdAlerta(), EstadoAlerta.PROCESADA, EstadoAlerta.PENDIENTE));
+            return;
+        } catch (Exception e) {
+            log.error("Error al enviar despacho {} de {} alertas", idDespacho, alertas.size(), e);
+            correoEnviado = false;
+        }
+
+        alertaService.finalizarEnvios(alertas, correoEnviado, idDespacho);
+    }
+
+    private static String normalizar(String direcciones) {
+        if (direcciones == null) {
+            return "";
+        }
+        return Arrays.stream(direcciones.split("[,;]"))
+                .map(direccion -> direccion.trim().toLowerCase(Locale.ROOT))
+                .filter(direccion -> !direccion.isEmpty())
+                .sorted()
+                .collect(Collectors.joining(","));
+    }
+}
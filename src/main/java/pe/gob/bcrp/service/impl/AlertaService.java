@@ -1,84 +1,426 @@
 package pe.gob.bcrp.service.impl;
 
-import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.AllArgsConstructor;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import pe.gob.bcrp.exception.AlertaRegistradaException;
 import pe.gob.bcrp.exception.EmailValidationException;
+import pe.gob.bcrp.exception.EnvioSaturadoException;
+import pe.gob.bcrp.model.dto.AlertaResumenDTO;
+import pe.gob.bcrp.model.dto.FiltroAlertasDTO;
+import pe.gob.bcrp.model.dto.PaginaAlertasDTO;
 import pe.gob.bcrp.model.dto.RequestSendEmail;
+import pe.gob.bcrp.model.dto.ResultadoLoteDTO;
 import pe.gob.bcrp.model.entity.Alerta;
 import pe.gob.bcrp.model.entity.EstadoAlerta;
 import pe.gob.bcrp.model.entity.TipoEvento;
+import pe.gob.bcrp.model.event.AlertaFinalizadaEvent;
+import pe.gob.bcrp.model.event.AlertaRegistradaEvent;
+import pe.gob.bcrp.model.event.LoteRegistradoEvent;
 import pe.gob.bcrp.repository.AlertaRepository;
 import pe.gob.bcrp.service.IEmailService;
-import pe.gob.bcrp.traceability.service.ITraceabilityService;
+import pe.gob.bcrp.service.ITrazabilidadService;
 
 import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Log4j2
 @Service
 @AllArgsConstructor
-@Transactional
 public class AlertaService {
 
     private AlertaRepository alertaRepository;
     private IEmailService emailService;
-    private ITraceabilityService traceabilityService;
+    private ITrazabilidadService traceabilityService;
+    private ApplicationEventPublisher eventPublisher;
+    private Validator validator;
+    private TramaService tramaService;
+    private RegistroListasDistribucion registroListas;
+    private MetricasEnvio metricasEnvio;
+    private PoliticaReintentos politicaReintentos;
+    private EstadisticasAlertas estadisticasAlertas;
+    private TransactionTemplate transactionTemplate;
 
     /**
-     * Procesa una nueva alerta: la guarda en BD y envía el correo
+     * Procesa una nueva alerta: la guarda en BD y envía el correo. El registro se confirma en
+     * su propia transacción y el envío SMTP se hace sin transacción ni conexión a BD tomada.
+     * Un fallo posterior al registro se lanza como AlertaRegistradaException.
      */
     public Alerta procesarAlerta(RequestSendEmail request, String procesoId) throws EmailValidationException {
+        Alerta alertaGuardada = null;
         try {
-            // 1. Crear y guardar la alerta en BD
-            Alerta alerta = crearAlerta(request);
-            Alerta alertaGuardada = alertaRepository.save(alerta);
+            registroListas.resolver(request);
 
+            // 1. Crear y guardar la alerta en BD. Se registra ya tomada (PROCESADA) para que
+            // el barrido de pendientes no la envíe mientras este hilo lo hace; si el envío no
+            // termina, el barrido la devuelve a PENDIENTE al vencer la toma.
+            long inicio = System.nanoTime();
+            alertaGuardada = transactionTemplate.execute(estado -> {
+                Alerta alerta = crearAlerta(request, procesoId);
+                alerta.setEstado(EstadoAlerta.PROCESADA);
+                // Si este proceso termina antes de registrar el resultado, el barrido la recupera
+                alerta.setFechaToma(alerta.getFechaCreacion());
+                return alertaRepository.save(alerta);
+            });
+            metricasEnvio.registrar(MetricasEnvio.Etapa.GUARDADO, inicio);
+
+            Long idAlerta = alertaGuardada.getIdAlerta();
             traceabilityService.logSuccess(TipoEvento.PROCESO_OK.name(), procesoId,
-                    String.format("Alerta guardada en BD con ID: %d", alertaGuardada.getIdAlerta()));
+                    () -> String.format("Alerta guardada en BD con ID: %d", idAlerta));
 
             // 2. Enviar correo
             boolean correoEnviado = enviarCorreoAlerta(request, alertaGuardada, procesoId);
 
             // 3. Actualizar estado según resultado del envío
-            if (correoEnviado) {
-                alertaGuardada.setFechaEnvio(LocalDateTime.now());
-                alertaGuardada.setEstado(EstadoAlerta.ENVIADA);
+            return finalizarEnvio(alertaGuardada, correoEnviado, procesoId);
 
-                traceabilityService.logSuccess(TipoEvento.PROCESO_OK.name(), procesoId,
-                        String.format("Se actualizo el estado para la alerta ID: %d", alertaGuardada.getIdAlerta()));
-            } else {
-                alertaGuardada.setEstado(EstadoAlerta.ERROR_ENVIO);
+        } catch (EmailValidationException e) {
+            anularRegistro(alertaGuardada);
+            traceabilityService.logError(TipoEvento.PROCESO_ERROR.name(), procesoId, () -> "Error de validación de emails: " + e.getMessage());
+            throw e;
+        } catch (EnvioSaturadoException e) {
+            // Se anula el registro: el cliente recibe la señal para reintentar más tarde
+            anularRegistro(alertaGuardada);
+            throw e;
+        } catch (Exception e) {
+            traceabilityService.logError(TipoEvento.PROCESO_ERROR.name(), procesoId, () -> "Error al procesar alerta: " + e.getMessage());
+            if (alertaGuardada != null) {
+                // El correo pudo haberse enviado: quien llama no debe permitir repetir la solicitud
+                throw new AlertaRegistradaException("Error interno al procesar la alerta", alertaGuardada.getIdAlerta(), e);
+            }
+            throw new RuntimeException("Error interno al procesar la alerta", e);
+        }
+    }
 
-                traceabilityService.logSuccess(TipoEvento.PROCESO_ERROR.name(), procesoId,
-                        String.format("Error al enviar correo para alerta ID: %d", alertaGuardada.getIdAlerta()));
+    /**
+     * Registra la alerta como PENDIENTE para que el despachador envíe el correo.
+     * Los destinatarios se validan antes de persistir para responder el error al cliente.
+     */
+    public Alerta registrarAlerta(RequestSendEmail request, String procesoId) throws EmailValidationException {
+        try {
+            // Las listas de distribución se validaron al registrarse
+            if (!registroListas.resolver(request)) {
+                emailService.validarDestinatarios(request);
             }
 
-            return alertaRepository.save(alertaGuardada);
+            long inicio = System.nanoTime();
+            Alerta alertaGuardada = transactionTemplate.execute(estado -> {
+                Alerta alerta = alertaRepository.save(crearAlerta(request, procesoId));
+                // El despacho se dispara al confirmar la transacción
+                eventPublisher.publishEvent(new AlertaRegistradaEvent(alerta.getIdAlerta(), alerta.getTipError()));
+                return alerta;
+            });
+            metricasEnvio.registrar(MetricasEnvio.Etapa.GUARDADO, inicio);
+
+            traceabilityService.logSuccess(TipoEvento.PROCESO_OK.name(), procesoId,
+                    () -> String.format("Alerta registrada como pendiente con ID: %d", alertaGuardada.getIdAlerta()));
+            return alertaGuardada;
 
         } catch (EmailValidationException e) {
-            traceabilityService.logError(TipoEvento.PROCESO_ERROR.name(), procesoId,"Error de validación de emails: " + e.getMessage());
+            traceabilityService.logError(TipoEvento.PROCESO_ERROR.name(), procesoId, () -> "Error de validación de emails: " + e.getMessage());
             throw e;
         } catch (Exception e) {
-            traceabilityService.logError(TipoEvento.PROCESO_ERROR.name(), procesoId,"Error al procesar alerta: " + e.getMessage());
-            throw new RuntimeException("Error interno al procesar la alerta", e);
+            traceabilityService.logError(TipoEvento.PROCESO_ERROR.name(), procesoId, () -> "Error al registrar alerta: " + e.getMessage());
+            throw new RuntimeException("Error interno al registrar la alerta", e);
         }
     }
 
+    /**
+     * Procesa un lote de alertas: valida cada elemento, guarda las válidas con inserciones
+     * JDBC en lote y envía sus correos por una sola conexión SMTP, fuera de la transacción.
+     * En modo asíncrono las alertas quedan PENDIENTE para el despachador.
+     */
+    public List<ResultadoLoteDTO> procesarLote(List<RequestSendEmail> requests, String procesoId, boolean asincrono) {
+        List<ResultadoLoteDTO> resultados = new ArrayList<>(requests.size());
+        List<ResultadoLoteDTO> resultadosValidos = new ArrayList<>();
+        List<RequestSendEmail> requestsValidos = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            RequestSendEmail request = requests.get(i);
+            ResultadoLoteDTO resultado = ResultadoLoteDTO.builder().indice(i).build();
+            resultados.add(resultado);
+
+            String error = validarElementoLote(request);
+            if (error != null) {
+                resultado.setEstado("RECHAZADA");
+                resultado.setMensaje(error);
+                continue;
+            }
+
+            resultadosValidos.add(resultado);
+            requestsValidos.add(request);
+        }
+
+        if (requestsValidos.isEmpty()) {
+            return resultados;
+        }
+
+        long inicio = System.nanoTime();
+        List<Alerta> alertasGuardadas = transactionTemplate.execute(estado -> {
+            List<Alerta> alertas = new ArrayList<>(requestsValidos.size());
+            for (RequestSendEmail request : requestsValidos) {
+                Alerta alerta = crearAlerta(request, procesoId);
+                if (!asincrono) {
+                    alerta.setEstado(EstadoAlerta.PROCESADA);
+                    alerta.setFechaToma(alerta.getFechaCreacion());
+                }
+                alertas.add(alerta);
+            }
+            List<Alerta> guardadas = alertaRepository.saveAll(alertas);
+            if (asincrono) {
+                // Un solo evento: el despachador envía el lote completo por una conexión SMTP
+                eventPublisher.publishEvent(new LoteRegistradoEvent(guardadas.stream()
+                        .map(alerta -> new AlertaRegistradaEvent(alerta.getIdAlerta(), alerta.getTipError()))
+                        .toList()));
+            }
+            return guardadas;
+        });
+        metricasEnvio.registrar(MetricasEnvio.Etapa.GUARDADO, inicio);
+
+        int guardadas = alertasGuardadas.size();
+        traceabilityService.logSuccess(TipoEvento.PROCESO_OK.name(), procesoId,
+                () -> String.format("Lote de %d alertas guardado en BD", guardadas));
+
+        if (!asincrono) {
+            boolean[] enviados = emailService.enviarAlertasCorreo(requestsValidos, alertasGuardadas, procesoId);
+            finalizarLote(alertasGuardadas, enviados, procesoId);
+        }
+
+        for (int i = 0; i < alertasGuardadas.size(); i++) {
+            Alerta alerta = alertasGuardadas.get(i);
+            ResultadoLoteDTO resultado = resultadosValidos.get(i);
+            resultado.setIdAlerta(alerta.getIdAlerta());
+            resultado.setEstado(alerta.getEstado().name());
+            resultado.setMensaje(switch (alerta.getEstado()) {
+                case ENVIADA -> "Se envió el mensaje correctamente";
+                case ERROR_ENVIO, DESCARTADA -> "Error al enviar correo";
+                default -> "Alerta registrada, el correo se enviará en breve";
+            });
+        }
+
+        return resultados;
+    }
+
+    /**
+     * Actualiza el estado de la alerta según el resultado del envío
+     */
+    public Alerta finalizarEnvio(Alerta alerta, boolean correoEnviado, String procesoId) {
+        long inicio = System.nanoTime();
+        transactionTemplate.executeWithoutResult(estado -> registrarResultado(alerta, correoEnviado, procesoId));
+        metricasEnvio.registrar(MetricasEnvio.Etapa.ACTUALIZACION, inicio);
+        return alerta;
+    }
+
+    /**
+     * Actualiza en una sola transacción el estado de las alertas de un lote enviado por una
+     * conexión; enviados tiene el resultado de cada alerta en el mismo orden
+     */
+    public List<Alerta> finalizarLote(List<Alerta> alertas, boolean[] enviados, String procesoId) {
+        long inicio = System.nanoTime();
+        transactionTemplate.executeWithoutResult(estado -> {
+            for (int i = 0; i < alertas.size(); i++) {
+                registrarResultado(alertas.get(i), enviados[i], procesoId);
+            }
+        });
+        metricasEnvio.registrar(MetricasEnvio.Etapa.ACTUALIZACION, inicio);
+        return alertas;
+    }
+
+    /**
+     * Actualiza el estado de las alertas notificadas en un mismo correo agrupado
+     */
+    public List<Alerta> finalizarEnvios(List<Alerta> alertas, boolean correoEnviado, String idDespacho) {
+        long inicio = System.nanoTime();
+        transactionTemplate.executeWithoutResult(estado -> {
+            for (Alerta alerta : alertas) {
+                alerta.setIdDespacho(idDespacho);
+                registrarResultado(alerta, correoEnviado, alerta.getIdProceso());
+            }
+        });
+        metricasEnvio.registrar(MetricasEnvio.Etapa.ACTUALIZACION, inicio);
+        return alertas;
+    }
+
+    /**
+     * Aplica el resultado del envío y lo guarda con un UPDATE de las columnas de estado. El
+     * evento se publica dentro de la transacción para que los listeners lo reciban al confirmarse,
+     * y solo si la fila se actualizó.
+     */
+    private void registrarResultado(Alerta alerta, boolean correoEnviado, String procesoId) {
+        AlertaFinalizadaEvent evento = aplicarResultado(alerta, correoEnviado, procesoId);
+        int actualizadas = alertaRepository.actualizarResultado(alerta.getIdAlerta(), alerta.getFechaCreacion(),
+                alerta.getEstado(), alerta.getFechaEnvio(), alerta.getNumIntentos(), alerta.getFechaProximoIntento(),
+                alerta.getIdDespacho());
+        if (actualizadas == 0) {
+            // FEC_REG sin fracciones de segundo (esquemas sin db/particionar-alerta.sql): no coincide la fecha
+            actualizadas = alertaRepository.actualizarResultadoPorId(alerta.getIdAlerta(), alerta.getEstado(),
+                    alerta.getFechaEnvio(), alerta.getNumIntentos(), alerta.getFechaProximoIntento(),
+                    alerta.getIdDespacho());
+        }
+        if (actualizadas == 0) {
+            // La fila ya no existe (anulada o eliminada por la retención): no hay transición que informar
+            log.warn("No se encontró la alerta ID: {} para registrar el resultado del envío", alerta.getIdAlerta());
+            return;
+        }
+        eventPublisher.publishEvent(evento);
+    }
+
+    /**
+     * Elimina una alerta registrada cuyo envío se rechazó antes de intentarse (destinatarios
+     * inválidos o sin cupo de envío); el cliente recibe el error y la vuelve a enviar
+     */
+    private void anularRegistro(Alerta alerta) {
+        if (alerta == null) {
+            return;
+        }
+        alertaRepository.eliminarPorIds(List.of(alerta.getIdAlerta()));
+        estadisticasAlertas.retirar(alerta);
+    }
+
+    private AlertaFinalizadaEvent aplicarResultado(Alerta alerta, boolean correoEnviado, String procesoId) {
+        int intentosPrevios = alerta.getNumIntentos() == null ? 0 : alerta.getNumIntentos();
+        EstadoAlerta estadoAnterior = intentosPrevios > 0 ? EstadoAlerta.ERROR_ENVIO : EstadoAlerta.PENDIENTE;
+
+        if (correoEnviado) {
+            alerta.setFechaEnvio(LocalDateTime.now());
+            alerta.setFechaProximoIntento(null);
+            alerta.setEstado(EstadoAlerta.ENVIADA);
+
+            traceabilityService.logSuccess(TipoEvento.PROCESO_OK.name(), procesoId,
+                    () -> String.format("Se actualizo el estado para la alerta ID: %d", alerta.getIdAlerta()));
+        } else {
+            int intentos = intentosPrevios + 1;
+            alerta.setNumIntentos(intentos);
+
+            if (politicaReintentos.permiteReintento(intentos)) {
+                alerta.setEstado(EstadoAlerta.ERROR_ENVIO);
+                alerta.setFechaProximoIntento(politicaReintentos.proximoIntento(intentos, LocalDateTime.now()));
+
+                traceabilityService.logSuccess(TipoEvento.PROCESO_ERROR.name(), procesoId,
+                        () -> String.format("Error al enviar correo para alerta ID: %d (intento %d), se reintentará el %s",
+                                alerta.getIdAlerta(), intentos, alerta.getFechaProximoIntento()));
+            } else {
+                alerta.setEstado(EstadoAlerta.DESCARTADA);
+                alerta.setFechaProximoIntento(null);
+
+                log.warn("Alerta ID: {} descartada tras {} intentos de envío fallidos", alerta.getIdAlerta(), intentos);
+                traceabilityService.logSuccess(TipoEvento.PROCESO_ERROR.name(), procesoId,
+                        () -> String.format("Alerta ID: %d descartada tras %d intentos de envío", alerta.getIdAlerta(), intentos));
+            }
+        }
+
+        return new AlertaFinalizadaEvent(alerta.getIdAlerta(), alerta.getCamAfectada(),
+                alerta.getTipError(), alerta.getNomArchivo(), alerta.getEstado(), estadoAnterior,
+                alerta.getFechaCreacion());
+    }
+
+    /**
+     * Valida un elemento del lote; retorna el mensaje de error o null si es válido
+     */
+    private String validarElementoLote(RequestSendEmail request) {
+        if (request == null) {
+            return "Elemento vacío";
+        }
+
+        var violaciones = validator.validate(request);
+        if (!violaciones.isEmpty()) {
+            return violaciones.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", "));
+        }
+
+        try {
+            if (!registroListas.resolver(request)) {
+                emailService.validarDestinatarios(request);
+            }
+            return null;
+        } catch (EmailValidationException e) {
+            return e.getMessage();
+        }
+    }
+
+    /**
+     * Consulta una página de alertas sin la trama. El cursor es el de la página anterior
+     * (null para la primera) y codifica la fecha e ID de su última alerta.
+     */
+    public PaginaAlertasDTO consultarAlertas(FiltroAlertasDTO filtro, String cursor, int tamano) {
+        LocalDateTime fechaCursor = null;
+        Long idCursor = null;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                fechaCursor = LocalDateTime.parse(partes[0]);
+                idCursor = Long.valueOf(partes[1]);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor de paginación inválido: " + cursor);
+            }
+        }
+
+        // Se lee una alerta de más para saber si hay otra página
+        List<AlertaResumenDTO> alertas = alertaRepository.buscarPagina(filtro, fechaCursor, idCursor, tamano + 1);
+        String siguiente = null;
+        if (alertas.size() > tamano) {
+            alertas = alertas.subList(0, tamano);
+            AlertaResumenDTO ultima = alertas.get(tamano - 1);
+            siguiente = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (ultima.getFechaCreacion() + "|" + ultima.getIdAlerta()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        return PaginaAlertasDTO.builder().alertas(alertas).siguiente(siguiente).build();
+    }
+
+    /**
+     * Reconstruye la solicitud de envío a partir de una alerta persistida
+     */
+    public RequestSendEmail crearSolicitud(Alerta alerta) {
+        tramaService.cargar(alerta);
+
+        RequestSendEmail request = new RequestSendEmail();
+        request.setTo(alerta.getDestinatarios());
+        request.setCc(alerta.getDestinatariosCopia());
+        request.setListaDistribucion(alerta.getCodigoLista());
+        request.setAsunto(alerta.getAsunto());
+        request.setNombreArchivo(alerta.getNomArchivo());
+        request.setTipoError(alerta.getTipError());
+        request.setCamaraAfectada(alerta.getCamAfectada());
+        request.setTrama(alerta.getTrama());
+        request.setUsuarioSistema(alerta.getUsuarioCreacion());
+
+        return request;
+    }
+
     /**
      * Crea una entidad Alerta a partir del DTO
      */
-    private Alerta crearAlerta(RequestSendEmail alertaDTO) {
+    private Alerta crearAlerta(RequestSendEmail alertaDTO, String procesoId) {
         Alerta alerta = new Alerta();
         alerta.setNomArchivo(alertaDTO.getNombreArchivo());
         alerta.setTipError(alertaDTO.getTipoError());
-        alerta.setFechaCreacion(LocalDateTime.now());
+        // Con la precisión de FEC_REG (DATETIME(6)): la fecha se usa luego para ubicar la fila
+        alerta.setFechaCreacion(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
         alerta.setCamAfectada(alertaDTO.getCamaraAfectada());
         alerta.setTrama(alertaDTO.getTrama());
+        alerta.setHashTrama(tramaService.guardar(alertaDTO.getTrama()));
         alerta.setUsuarioCreacion(alertaDTO.getUsuarioSistema());
+        alerta.setDestinatarios(alertaDTO.getTo());
+        alerta.setDestinatariosCopia(alertaDTO.getCc());
+        alerta.setCodigoLista(alertaDTO.getListaDistribucion());
+        alerta.setAsunto(alertaDTO.getAsunto());
+        alerta.setIdProceso(procesoId);
         alerta.setEstado(EstadoAlerta.PENDIENTE);
 
+        estadisticasAlertas.registrar(alerta);
         return alerta;
     }
 
@@ -91,17 +433,19 @@ public class AlertaService {
         } catch (EmailValidationException e) {
             log.error("Error de validación de emails para alerta ID: {}", alerta.getIdAlerta(), e);
             traceabilityService.logError(TipoEvento.PROCESO_ERROR.name(), procesoId,
-                    String.format("Error de validación para alerta ID: %d", alerta.getIdAlerta()));
+                    () -> String.format("Error de validación para alerta ID: %d", alerta.getIdAlerta()));
+            throw e;
+        } catch (EnvioSaturadoException e) {
             throw e;
         } catch (UnsupportedEncodingException e) {
             log.error("Error de codificación al enviar correo para alerta ID: {}", alerta.getIdAlerta(), e);
             traceabilityService.logError(TipoEvento.PROCESO_ERROR.name(), procesoId,
-                    String.format("Error de codificación para alerta ID: %d", alerta.getIdAlerta()));
+                    () -> String.format("Error de codificación para alerta ID: %d", alerta.getIdAlerta()));
             return false;
         } catch (Exception e) {
             log.error("Error al enviar correo para alerta ID: {}", alerta.getIdAlerta(), e);
             traceabilityService.logError(TipoEvento.PROCESO_ERROR.name(), procesoId,
-                    String.format("Error al enviar correo para alerta ID: %d", alerta.getIdAlerta()));
+                    () -> String.format("Error al enviar correo para alerta ID: %d", alerta.getIdAlerta()));
             return false;
         }
     }
@@ -0,0 +1,271 @@
+package pe.gob.bcrp.service.impl;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.log4j.Log4j2;
+import pe.gob.bcrp.config.SeveridadProperties;
+import pe.gob.bcrp.model.entity.Severidad;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool de despacho con una cola acotada por clase de severidad. Los trabajadores toman la
+ * siguiente tarea por turno ponderado (round robin ponderado suave): con todas las colas
+ * ocupadas, cada clase recibe una parte de los trabajadores proporcional a su peso, de modo
+ * que una acumulación de notificaciones de éxito no retrasa a las alertas críticas y ninguna
+ * clase queda sin atender. Una clase cuya tarea más antigua espera más que el envejecimiento
+ * configurado compite con el peso máximo hasta atenderla.
+ * <p>
+ * Métricas: correo.despacho.cola (tareas en espera) y correo.despacho.espera (tiempo en
+ * cola), etiquetadas por severidad.
+ */
+@Log4j2
+public class ColasDespacho implements Executor {
+
+    private static final Severidad[] SEVERIDADES = Severidad.values();
+    private static final long ESPERA_CIERRE_MS = 30000;
+
+    private record Tarea(Runnable accion, long encolada) {
+    }
+
+    private final SeveridadProperties propiedades;
+    private final int capacidadPorClase;
+    private final long envejecimientoNanos;
+    private final Map<Severidad, ArrayDeque<Tarea>> colas = new EnumMap<>(Severidad.class);
+    private final Map<Severidad, AtomicInteger> enEspera = new EnumMap<>(Severidad.class);
+    private final Map<Severidad, Timer> esperas = new EnumMap<>(Severidad.class);
+    private final int[] pesos = new int[SEVERIDADES.length];
+    private final int[] creditos = new int[SEVERIDADES.length];
+    private final int pesoMaximo;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition hayTareas = lock.newCondition();
+    private final List<Thread> trabajadores = new ArrayList<>();
+    private int pendientes;
+    private volatile boolean activo = true;
+
+    public ColasDespacho(int numeroTrabajadores, int capacidadPorClase, ThreadFactory threadFactory,
+                         SeveridadProperties propiedades, MeterRegistry meterRegistry) {
+        this.propiedades = propiedades;
+        this.capacidadPorClase = capacidadPorClase;
+        this.envejecimientoNanos = TimeUnit.MILLISECONDS.toNanos(propiedades.getEnvejecimientoMs());
+
+        for (Severidad severidad : SEVERIDADES) {
+            colas.put(severidad, new ArrayDeque<>());
+            AtomicInteger cantidad = new AtomicInteger();
+            enEspera.put(severidad, cantidad);
+            pesos[severidad.ordinal()] = Math.max(1, propiedades.getPesos().getOrDefault(severidad, 1));
+
+            String etiqueta = severidad.name().toLowerCase();
+            Gauge.builder("correo.despacho.cola", cantidad, AtomicInteger::get)
+                    .description("Tareas de despacho en espera por severidad")
+                    .tag("severidad", etiqueta)
+                    .register(meterRegistry);
+            esperas.put(severidad, Timer.builder("correo.despacho.espera")
+                    .description("Tiempo en cola de las tareas de despacho por severidad")
+                    .tag("severidad", etiqueta)
+                    .register(meterRegistry));
+        }
+
+        int maximo = 1;
+        for (int peso : pesos) {
+            maximo = Math.max(maximo, peso);
+        }
+        this.pesoMaximo = maximo;
+
+        for (int i = 0; i < numeroTrabajadores; i++) {
+            Thread trabajador = threadFactory.newThread(this::trabajar);
+            trabajadores.add(trabajador);
+            trabajador.start();
+        }
+    }
+
+    /**
+     * Clase de severidad de un tipo de error; sin tipo de error es una notificación de éxito
+     */
+    public Severidad clasificar(String tipoError) {
+        if (tipoError == null || tipoError.isBlank()) {
+            return propiedades.getExito();
+        }
+        return propiedades.getTipos().getOrDefault(tipoError, propiedades.getPorDefecto());
+    }
+
+    /**
+     * Encola la tarea en la clase del tipo de error indicado
+     *
+     * @throws RejectedExecutionException si la cola de la clase está llena o el pool se detuvo
+     */
+    public void ejecutar(String tipoError, Runnable accion) {
+        ejecutar(clasificar(tipoError), accion);
+    }
+
+    /**
+     * Encola la tarea en la clase indicada
+     *
+     * @throws RejectedExecutionException si la cola de la clase está llena o el pool se detuvo
+     */
+    public void ejecutar(Severidad severidad, Runnable accion) {
+        lock.lock();
+        try {
+            if (!activo) {
+                throw new RejectedExecutionException("El pool de despacho está detenido");
+            }
+            ArrayDeque<Tarea> cola = colas.get(severidad);
+            if (cola.size() >= capacidadPorClase) {
+                throw new RejectedExecutionException("Cola de despacho " + severidad + " llena");
+            }
+            cola.addLast(new Tarea(accion, System.nanoTime()));
+            enEspera.get(severidad).incrementAndGet();
+            pendientes++;
+            hayTareas.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Las tareas sin clase se atienden como NORMAL
+     */
+    @Override
+    public void execute(Runnable accion) {
+        ejecutar(Severidad.NORMAL, accion);
+    }
+
+    public void cerrar() {
+        cerrar(ESPERA_CIERRE_MS);
+    }
+
+    /**
+     * Deja de aceptar tareas y espera hasta el plazo indicado a que se terminen las encoladas
+     */
+    public void cerrar(long esperaMaximaMs) {
+        lock.lock();
+        try {
+            activo = false;
+            hayTareas.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        long limite = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(esperaMaximaMs);
+        for (Thread trabajador : trabajadores) {
+            long restante = TimeUnit.NANOSECONDS.toMillis(limite - System.nanoTime());
+            try {
+                if (restante > 0) {
+                    trabajador.join(restante);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        if (pendientes() > 0) {
+            log.warn("Pool de despacho detenido con {} tareas en cola; se retomarán en el barrido", pendientes());
+        }
+    }
+
+    /**
+     * Tareas en espera de la clase indicada
+     */
+    public int enEspera(Severidad severidad) {
+        return enEspera.get(severidad).get();
+    }
+
+    private int pendientes() {
+        lock.lock();
+        try {
+            return pendientes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void trabajar() {
+        while (true) {
+            Runnable accion;
+            try {
+                accion = tomar();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (accion == null) {
+                return;
+            }
+            try {
+                accion.run();
+            } catch (RuntimeException e) {
+                log.error("Error en tarea de despacho", e);
+            }
+        }
+    }
+
+    /**
+     * Retorna la siguiente tarea, o null si el pool se detuvo y no quedan tareas
+     */
+    private Runnable tomar() throws InterruptedException {
+        lock.lock();
+        try {
+            while (pendientes == 0) {
+                if (!activo) {
+                    return null;
+                }
+                hayTareas.await();
+            }
+
+            long ahora = System.nanoTime();
+            Severidad elegida = elegir(ahora);
+            ArrayDeque<Tarea> cola = colas.get(elegida);
+            Tarea tarea = cola.pollFirst();
+            if (cola.isEmpty()) {
+                // Una clase que vacía su cola no acumula crédito para la siguiente ráfaga
+                creditos[elegida.ordinal()] = 0;
+            }
+            enEspera.get(elegida).decrementAndGet();
+            pendientes--;
+            esperas.get(elegida).record(ahora - tarea.encolada(), TimeUnit.NANOSECONDS);
+            return tarea.accion();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Clase de la siguiente tarea por turno ponderado entre las colas con tareas. Una clase
+     * cuya primera tarea superó el envejecimiento compite con el peso máximo, así avanza
+     * aunque las clases más pesadas estén saturadas sin desplazarlas. Se invoca con el lock.
+     */
+    private Severidad elegir(long ahora) {
+        Severidad elegida = null;
+        int pesoTotal = 0;
+
+        for (Severidad severidad : SEVERIDADES) {
+            Tarea primera = colas.get(severidad).peekFirst();
+            if (primera == null) {
+                continue;
+            }
+
+            int i = severidad.ordinal();
+            int peso = ahora - primera.encolada() >= envejecimientoNanos ? pesoMaximo : pesos[i];
+            creditos[i] += peso;
+            pesoTotal += peso;
+            if (elegida == null || creditos[i] > creditos[elegida.ordinal()]) {
+                elegida = severidad;
+            }
+        }
+
+        creditos[elegida.ordinal()] -= pesoTotal;
+        return elegida;
+    }
+}
@@ -0,0 +1,250 @@
+package pe.gob.bcrp.service.impl;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pe.gob.bcrp.exception.EnvioSaturadoException;
+import pe.gob.bcrp.model.dto.RequestSendEmail;
+import pe.gob.bcrp.model.entity.Alerta;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+import pe.gob.bcrp.model.entity.Severidad;
+import pe.gob.bcrp.model.entity.TipoEvento;
+import pe.gob.bcrp.model.event.AlertaRegistradaEvent;
+import pe.gob.bcrp.model.event.LoteRegistradoEvent;
+import pe.gob.bcrp.repository.AlertaRepository;
+import pe.gob.bcrp.service.IEmailService;
+import pe.gob.bcrp.service.ITrazabilidadService;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Despachador de la bandeja de salida: envía los correos de las alertas PENDIENTE
+ * fuera del hilo HTTP y las lleva a ENVIADA o ERROR_ENVIO. Las alertas de error
+ * pasan por la ventana de agrupación si está habilitada.
+ */
+@Log4j2
+@Service
+public class DespachoAlertaService {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final AlertaRepository alertaRepository;
+    private final AlertaService alertaService;
+    private final IEmailService emailService;
+    private final ITrazabilidadService traceabilityService;
+    private final AgrupadorAlertas agrupadorAlertas;
+    private final ColasDespacho despachoExecutor;
+
+    @Value("${correo.despacho.barrido-gracia-ms:60000}")
+    private long graciaBarridoMs;
+    @Value("${correo.despacho.barrido-lote:100}")
+    private int loteBarrido;
+    @Value("${correo.despacho.barrido-ventana-horas:72}")
+    private long ventanaBarridoHoras;
+    @Value("${correo.despacho.toma-vencimiento-ms:300000}")
+    private long vencimientoTomaMs;
+
+    public DespachoAlertaService(AlertaRepository alertaRepository, AlertaService alertaService,
+                                 IEmailService emailService, ITrazabilidadService traceabilityService,
+                                 AgrupadorAlertas agrupadorAlertas,
+                                 ColasDespacho despachoExecutor) {
+        this.alertaRepository = alertaRepository;
+        this.alertaService = alertaService;
+        this.emailService = emailService;
+        this.traceabilityService = traceabilityService;
+        this.agrupadorAlertas = agrupadorAlertas;
+        this.despachoExecutor = despachoExecutor;
+    }
+
+    /**
+     * Encola el envío una vez confirmada la transacción que registró la alerta
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onAlertaRegistrada(AlertaRegistradaEvent event) {
+        encolar(event.idAlerta(), event.tipoError());
+    }
+
+    /**
+     * Encola el envío del lote completo una vez confirmada la transacción que lo registró.
+     * El lote va a la cola de su alerta más severa.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT)
+    public void onLoteRegistrado(LoteRegistradoEvent event) {
+        List<Long> idsAlertas = event.alertas().stream().map(AlertaRegistradaEvent::idAlerta).toList();
+        Severidad severidad = event.alertas().stream()
+                .map(alerta -> despachoExecutor.clasificar(alerta.tipoError()))
+                .min(Comparator.naturalOrder())
+                .orElse(null);
+        if (severidad == null) {
+            return;
+        }
+        try {
+            despachoExecutor.ejecutar(severidad, () -> despacharLote(idsAlertas));
+        } catch (RejectedExecutionException e) {
+            log.warn("Cola de despacho llena, el lote de {} alertas se enviará en el siguiente barrido",
+                    idsAlertas.size());
+        }
+    }
+
+    /**
+     * Envía la alerta a la cola de su severidad; si está llena la deja para el barrido
+     */
+    public void encolar(Long idAlerta, String tipoError) {
+        try {
+            despachoExecutor.ejecutar(tipoError, () -> despachar(idAlerta));
+        } catch (RejectedExecutionException e) {
+            log.warn("Cola de despacho llena, la alerta ID: {} se enviará en el siguiente barrido", idAlerta);
+        }
+    }
+
+    /**
+     * Toma la alerta (PENDIENTE -> PROCESADA), envía el correo y registra el resultado
+     */
+    public void despachar(Long idAlerta) {
+        if (alertaRepository.tomar(idAlerta, LocalDateTime.now()) == 0) {
+            log.debug("La alerta ID: {} ya fue tomada por otro despachador", idAlerta);
+            return;
+        }
+
+        enviarTomada(idAlerta, true);
+    }
+
+    /**
+     * Envía el correo de una alerta ya tomada (PROCESADA) y registra el resultado.
+     * Los reintentos no pasan por la ventana de agrupación para que cada uno termine
+     * dentro de su tarea.
+     */
+    public void enviarTomada(Long idAlerta, boolean agrupar) {
+        Alerta alerta = alertaRepository.findById(idAlerta).orElse(null);
+        if (alerta == null) {
+            return;
+        }
+
+        if (agrupar && agrupadorAlertas.esAgrupable(alerta)) {
+            agrupadorAlertas.agregar(alerta);
+            return;
+        }
+
+        String procesoId = alerta.getIdProceso();
+        boolean correoEnviado;
+        try {
+            RequestSendEmail request = alertaService.crearSolicitud(alerta);
+            correoEnviado = emailService.enviarAlertaCorreo(request, alerta, procesoId);
+        } catch (EnvioSaturadoException e) {
+            // Sin cupo de envío no es un error: la alerta vuelve a PENDIENTE para el barrido
+            alertaRepository.cambiarEstado(idAlerta, EstadoAlerta.PROCESADA, EstadoAlerta.PENDIENTE);
+            log.warn("Alerta ID: {} devuelta a pendiente: {}", idAlerta, e.getMessage());
+            return;
+        } catch (Exception e) {
+            log.error("Error al despachar correo para alerta ID: {}", idAlerta, e);
+            traceabilityService.logError(TipoEvento.PROCESO_ERROR.name(), procesoId,
+                    () -> String.format("Error al enviar correo para alerta ID: %d", idAlerta));
+            correoEnviado = false;
+        }
+
+        alerta.setIdDespacho(UUID.randomUUID().toString());
+        alertaService.finalizarEnvio(alerta, correoEnviado, procesoId);
+    }
+
+    /**
+     * Toma las alertas del lote y envía sus correos por una sola conexión SMTP. Las alertas
+     * agrupables pasan por la ventana de agrupación igual que en el despacho individual.
+     */
+    public void despacharLote(List<Long> idsAlertas) {
+        LocalDateTime ahora = LocalDateTime.now();
+        List<Long> tomadas = idsAlertas.stream()
+                .filter(idAlerta -> alertaRepository.tomar(idAlerta, ahora) == 1)
+                .toList();
+        if (tomadas.isEmpty()) {
+            return;
+        }
+
+        List<Alerta> alertas = new ArrayList<>(tomadas.size());
+        for (Alerta alerta : alertaRepository.findAllById(tomadas)) {
+            if (agrupadorAlertas.esAgrupable(alerta)) {
+                agrupadorAlertas.agregar(alerta);
+            } else {
+                alertas.add(alerta);
+            }
+        }
+        if (alertas.isEmpty()) {
+            return;
+        }
+        alertas.sort(Comparator.comparing(Alerta::getIdAlerta));
+
+        String procesoId = alertas.get(0).getIdProceso();
+        boolean[] enviados;
+        try {
+            List<RequestSendEmail> requests = alertas.stream().map(alertaService::crearSolicitud).toList();
+            enviados = emailService.enviarAlertasCorreo(requests, alertas, procesoId);
+        } catch (EnvioSaturadoException e) {
+            alertas.forEach(alerta ->
+                    alertaRepository.cambiarEstado(alerta.getIdAlerta(), EstadoAlerta.PROCESADA, EstadoAlerta.PENDIENTE));
+            log.warn("Lote de {} alertas devuelto a pendiente: {}", alertas.size(), e.getMessage());
+            return;
+        } catch (Exception e) {
+            log.error("Error al despachar lote de {} alertas", alertas.size(), e);
+            traceabilityService.logError(TipoEvento.PROCESO_ERROR.name(), procesoId,
+                    () -> String.format("Error al enviar lote de %d correos", alertas.size()));
+            enviados = new boolean[alertas.size()];
+        }
+
+        alertas.forEach(alerta -> alerta.setIdDespacho(UUID.randomUUID().toString()));
+        alertaService.finalizarLote(alertas, enviados, procesoId);
+    }
+
+    /**
+     * Recupera las alertas que quedaron pendientes (cola llena o reinicio del servicio) y las
+     * tomadas por un proceso que terminó sin registrar el resultado. Solo se barren las
+     * particiones recientes; las alertas más antiguas las recupera barrerPendientesAntiguas().
+     */
+    @Scheduled(fixedDelayString = "${correo.despacho.barrido-ms:30000}")
+    public void barrerPendientes() {
+        barrer(LocalDateTime.now().minusHours(ventanaBarridoHoras), false);
+    }
+
+    /**
+     * Barrido lento sin límite de fecha para las alertas que quedaron fuera de la ventana del
+     * barrido frecuente (p. ej. una caída del relay SMTP de varios días)
+     */
+    @Scheduled(initialDelayString = "${correo.despacho.barrido-completo-ms:3600000}",
+            fixedDelayString = "${correo.despacho.barrido-completo-ms:3600000}")
+    public void barrerPendientesAntiguas() {
+        barrer(INICIO, true);
+    }
+
+    private void barrer(LocalDateTime desde, boolean completo) {
+        LocalDateTime ahora = LocalDateTime.now();
+        int recuperadas = alertaRepository.liberarTomasVencidas(desde, ahora.minus(Duration.ofMillis(vencimientoTomaMs)));
+        if (recuperadas > 0) {
+            log.warn("Barrido de despacho: {} alertas tomadas sin resultado vuelven a pendiente", recuperadas);
+        }
+
+        LocalDateTime fechaLimite = completo
+                ? ahora.minusHours(ventanaBarridoHoras)
+                : ahora.minus(Duration.ofMillis(graciaBarridoMs));
+        List<AlertaRepository.AlertaEnCola> pendientes = alertaRepository.buscarPorEstado(EstadoAlerta.PENDIENTE,
+                desde, fechaLimite, PageRequest.of(0, loteBarrido));
+
+        // Las recuperadas se encolan de inmediato: su FEC_REG ya superó la gracia
+        if (!pendientes.isEmpty()) {
+            if (completo) {
+                log.warn("Barrido de despacho: {} alertas pendientes con más de {} horas", pendientes.size(),
+                        ventanaBarridoHoras);
+            } else {
+                log.info("Barrido de despacho: {} alertas pendientes", pendientes.size());
+            }
+            pendientes.forEach(alerta -> encolar(alerta.getIdAlerta(), alerta.getTipoError()));
+        }
+    }
+}
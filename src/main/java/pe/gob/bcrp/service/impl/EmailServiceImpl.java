@@ -5,22 +5,29 @@ import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
 import pe.gob.bcrp.exception.EmailValidationException;
+import pe.gob.bcrp.exception.EnvioSaturadoException;
+import pe.gob.bcrp.mail.FormateadorXml;
+import pe.gob.bcrp.mail.RenderizadorPlantillas;
 import pe.gob.bcrp.model.dto.RequestSendEmail;
 import pe.gob.bcrp.model.entity.Alerta;
 import pe.gob.bcrp.model.entity.TipoEvento;
 import pe.gob.bcrp.service.IEmailService;
-import pe.gob.bcrp.traceability.service.ITraceabilityService;
+import pe.gob.bcrp.service.ITrazabilidadService;
 import pe.gob.bcrp.util.EmailUtils;
 
 import java.io.UnsupportedEncodingException;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Log4j2
@@ -28,115 +35,300 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class EmailServiceImpl implements IEmailService {
     private final JavaMailSender javaMailSender;
-    private final TemplateEngine templateEngine;
-    private final ITraceabilityService traceabilityService;
+    private final RenderizadorPlantillas renderizadorPlantillas;
+    private final ITrazabilidadService traceabilityService;
+    private final RegistroListasDistribucion registroListas;
+    private final MetricasEnvio metricasEnvio;
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
 
     @Value("${spring.mail.from}")
     private String emailFrom;
+    @Value("${correo.plantillas.trama-tamano-maximo:1048576}")
+    private int tamanoMaximoTrama;
 
     /**
      * Envía correo de alerta usando plantilla HTML
      */
     public boolean enviarAlertaCorreo(RequestSendEmail requestSendEmail, Alerta alerta, String procesoId) throws UnsupportedEncodingException, EmailValidationException {
+        try {
+            validarDestinatarios(requestSendEmail);
+
+            if (requestSendEmail.getTo() == null || requestSendEmail.getTo().isEmpty()) {
+                traceabilityService.logSuccess(TipoEvento.PROCESO_WARN.name(), procesoId,
+                        () -> String.format("No se especificaron destinatarios TO para alerta ID: %d", alerta.getIdAlerta()));
+                return false;
+            }
+
+            MimeMessage message = construirMensaje(requestSendEmail, alerta);
+
+            // Enviar correo
+            enviar(message);
+
+            traceabilityService.logSuccess(TipoEvento.PROCESO_OK.name(), procesoId,
+                    () -> String.format("Correo enviado exitosamente para alerta ID: %d", alerta.getIdAlerta()));
+            return true;
+
+        } catch (MessagingException e) {
+            traceabilityService.logSuccess(TipoEvento.PROCESO_ERROR.name(), procesoId,
+                    () -> String.format("Error al procesar alerta: %d", alerta.getIdAlerta()));
+            return false;
+        }
+    }
+
+    /**
+     * Envía un único correo que agrupa varias alertas de la misma cámara y tipo de error
+     */
+    public boolean enviarAlertasAgrupadas(RequestSendEmail requestSendEmail, List<Alerta> alertas, String procesoId) {
         try {
             MimeMessage message = javaMailSender.createMimeMessage();
             MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+            configurarDestinatarios(helper, requestSendEmail);
+            helper.setSubject(String.format("%s - %s (%d archivos)",
+                    requestSendEmail.asunto, requestSendEmail.getTipoError(), alertas.size()));
 
-            List<EmailUtils.EmailValidationResult> emailValidationResultList = EmailUtils.parseAndValidateEmailAddresses(requestSendEmail.getTo());
+            List<Map<String, Object>> detalle = new ArrayList<>(alertas.size());
+            for (Alerta alerta : alertas) {
+                Map<String, Object> fila = new HashMap<>(4);
+                fila.put("nombreArchivo", alerta.getNomArchivo());
+                fila.put("fecha", alerta.getFechaCreacion().format(FORMATO_FECHA));
+                detalle.add(fila);
+            }
 
-            // Verificar si hay emails inválidos
-            List<EmailUtils.EmailValidationResult> invalidEmails = emailValidationResultList.stream()
-                    .filter(result -> !result.isValid())
-                    .toList();
+            Map<String, Object> context = new HashMap<>(8);
+            context.put("tipoError", requestSendEmail.getTipoError());
+            context.put("camaraAfectada", requestSendEmail.getCamaraAfectada());
+            context.put("cantidad", alertas.size());
+            context.put("fechaInicio", alertas.get(0).getFechaCreacion().format(FORMATO_FECHA));
+            context.put("fechaFin", alertas.get(alertas.size() - 1).getFechaCreacion().format(FORMATO_FECHA));
+            context.put("alertas", detalle);
+            helper.setText(renderizar("alerta-agrupada-email", context), true);
 
-            if (!invalidEmails.isEmpty()) {
-                throw new EmailValidationException(emailValidationResultList);
-            }
+            enviar(message);
+
+            traceabilityService.logSuccess(TipoEvento.PROCESO_OK.name(), procesoId,
+                    () -> String.format("Correo agrupado enviado exitosamente para %d alertas", alertas.size()));
+            return true;
+
+        } catch (MessagingException | UnsupportedEncodingException | MailException e) {
+            log.error("Error al enviar correo agrupado de {} alertas", alertas.size(), e);
+            traceabilityService.logSuccess(TipoEvento.PROCESO_ERROR.name(), procesoId,
+                    () -> String.format("Error al enviar correo agrupado de %d alertas", alertas.size()));
+            return false;
+        }
+    }
 
-            // También puedes validar CC si es necesario
-            if (requestSendEmail.getCc() != null && !requestSendEmail.getCc().isEmpty()) {
-                List<EmailUtils.EmailValidationResult> ccValidationResultList = EmailUtils.parseAndValidateEmailAddresses(requestSendEmail.getCc());
+    /**
+     * Envía el resumen periódico de alertas a una suscripción
+     */
+    public boolean enviarResumen(String to, String cc, String asunto, Map<String, Object> variables) {
+        try {
+            MimeMessage message = javaMailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+            configurarDestinatarios(helper, to, cc);
+            helper.setSubject(asunto);
+            helper.setText(renderizar("resumen-email", variables), true);
 
-                List<EmailUtils.EmailValidationResult> invalidCcEmails = ccValidationResultList.stream()
-                        .filter(result -> !result.isValid())
-                        .toList();
+            enviar(message);
+            return true;
 
-                if (!invalidCcEmails.isEmpty()) {
-                    throw new EmailValidationException("Emails inválidos en campo CC", ccValidationResultList);
-                }
-            }
+        } catch (EnvioSaturadoException e) {
+            log.warn("Resumen de alertas a {} no enviado: {}", to, e.getMessage());
+            return false;
+        } catch (MessagingException | UnsupportedEncodingException | MailException e) {
+            log.error("Error al enviar resumen de alertas a {}", to, e);
+            return false;
+        }
+    }
 
-            // Configurar destinatarios y remitente
-            if (requestSendEmail.getTo() != null && !requestSendEmail.getTo().isEmpty()) {
-                String[] toEmails = EmailUtils.parseEmailAddresses(requestSendEmail.getTo());
-                helper.setTo(toEmails);
-            } else {
-                traceabilityService.logSuccess(TipoEvento.PROCESO_WARN.name(), procesoId,
-                        String.format("No se especificaron destinatarios TO para alerta ID: %d", alerta.getIdAlerta()));
-                return false;
-            }
+    /**
+     * Envía los correos de un lote de alertas por una sola conexión SMTP.
+     * Retorna el resultado de cada envío en el mismo orden de las alertas.
+     */
+    public boolean[] enviarAlertasCorreo(List<RequestSendEmail> requests, List<Alerta> alertas, String procesoId) {
+        boolean[] resultados = new boolean[alertas.size()];
+        List<MimeMessage> mensajes = new ArrayList<>(alertas.size());
+        Map<MimeMessage, Integer> indices = new IdentityHashMap<>();
 
-            if (requestSendEmail.getCc() != null && !requestSendEmail.getCc().isEmpty()) {
-                String[] ccEmails = EmailUtils.parseEmailAddresses(requestSendEmail.getCc());
-                helper.setCc(ccEmails);
+        for (int i = 0; i < alertas.size(); i++) {
+            try {
+                MimeMessage message = construirMensaje(requests.get(i), alertas.get(i));
+                mensajes.add(message);
+                indices.put(message, i);
+                resultados[i] = true;
+            } catch (MessagingException | UnsupportedEncodingException e) {
+                log.error("Error al construir correo para alerta ID: {}", alertas.get(i).getIdAlerta(), e);
             }
+        }
 
-            helper.setFrom(emailFrom, "Soporte");
-            helper.setSubject(requestSendEmail.asunto + " - " + requestSendEmail.getTipoError());
+        if (mensajes.isEmpty()) {
+            return resultados;
+        }
 
-            // Generar contenido HTML usando Thymeleaf
-            Context context = crearContextoPlantilla(alerta);
+        try {
+            enviar(mensajes.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            // Solo fallaron los mensajes reportados por el servidor
+            e.getFailedMessages().keySet().forEach(fallido -> {
+                Integer indice = indices.get(fallido);
+                if (indice != null) {
+                    resultados[indice] = false;
+                }
+            });
+        } catch (MailException e) {
+            log.error("Error al enviar lote de {} correos", mensajes.size(), e);
+            indices.values().forEach(indice -> resultados[indice] = false);
+        }
 
-            String contenidoHtml;
-            if(alerta.getTipError().isEmpty()) {
-                contenidoHtml = templateEngine.process("success-email", context);
-            } else {
-                contenidoHtml = templateEngine.process("alerta-email", context);
+        traceabilityService.logSuccess(TipoEvento.PROCESO_OK.name(), procesoId,
+                () -> String.format("Lote de correos enviado: %d de %d exitosos", contarExitosos(resultados), alertas.size()));
+        return resultados;
+    }
+
+    /**
+     * Construye el mensaje MIME con destinatarios, asunto y contenido HTML de la alerta.
+     * Visible en el paquete para EmailServiceImplBenchmark.
+     */
+    MimeMessage construirMensaje(RequestSendEmail requestSendEmail, Alerta alerta) throws MessagingException, UnsupportedEncodingException {
+        MimeMessage message = javaMailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        configurarDestinatarios(helper, requestSendEmail);
+        helper.setSubject(requestSendEmail.asunto + " - " + requestSendEmail.getTipoError());
+
+        // Generar contenido HTML con la plantilla compilada
+        Map<String, Object> context = crearContextoPlantilla(alerta);
+
+        String contenidoHtml;
+        if(alerta.getTipError().isEmpty()) {
+            contenidoHtml = renderizar("success-email", context);
+        } else {
+            contenidoHtml = renderizar("alerta-email", context);
+        }
+        helper.setText(contenidoHtml, true);
+
+        return message;
+    }
+
+    /**
+     * Renderiza la plantilla registrando la duración de la etapa
+     */
+    private String renderizar(String plantilla, Map<String, Object> variables) {
+        long inicio = System.nanoTime();
+        try {
+            return renderizadorPlantillas.renderizar(plantilla, variables);
+        } finally {
+            metricasEnvio.registrar(MetricasEnvio.Etapa.RENDERIZADO, inicio);
+        }
+    }
+
+    /**
+     * Envía los mensajes por SMTP registrando la duración de la etapa, incluso si falla
+     */
+    private void enviar(MimeMessage... mensajes) {
+        long inicio = System.nanoTime();
+        try {
+            javaMailSender.send(mensajes);
+        } finally {
+            metricasEnvio.registrar(MetricasEnvio.Etapa.SMTP, inicio);
+        }
+    }
+
+    /**
+     * Configura destinatarios y remitente; las listas de distribución vigentes aportan sus
+     * direcciones ya resueltas
+     */
+    private void configurarDestinatarios(MimeMessageHelper helper, RequestSendEmail requestSendEmail) throws MessagingException, UnsupportedEncodingException {
+        RegistroListasDistribucion.ListaResuelta lista = registroListas.obtenerVigente(requestSendEmail).orElse(null);
+        if (lista == null) {
+            configurarDestinatarios(helper, requestSendEmail.getTo(), requestSendEmail.getCc());
+            return;
+        }
+
+        helper.setTo(lista.para());
+        if (lista.copia().length > 0) {
+            helper.setCc(lista.copia());
+        }
+        helper.setFrom(emailFrom, "Soporte");
+    }
+
+    /**
+     * Configura destinatarios y remitente
+     */
+    private void configurarDestinatarios(MimeMessageHelper helper, String to, String cc) throws MessagingException, UnsupportedEncodingException {
+        helper.setTo(EmailUtils.parsearDestinatarios(to).direcciones());
+
+        if (cc != null && !cc.isEmpty()) {
+            helper.setCc(EmailUtils.parsearDestinatarios(cc).direcciones());
+        }
+
+        helper.setFrom(emailFrom, "Soporte");
+    }
+
+    private static int contarExitosos(boolean[] resultados) {
+        int exitosos = 0;
+        for (boolean resultado : resultados) {
+            if (resultado) {
+                exitosos++;
             }
-            helper.setText(contenidoHtml, true);
+        }
+        return exitosos;
+    }
 
-            // Enviar correo
-            javaMailSender.send(message);
+    /**
+     * Valida los destinatarios TO y CC antes de registrar o enviar la alerta
+     */
+    public void validarDestinatarios(RequestSendEmail requestSendEmail) throws EmailValidationException {
+        if (registroListas.obtenerVigente(requestSendEmail).isPresent()) {
+            return;
+        }
 
-            traceabilityService.logSuccess(TipoEvento.PROCESO_OK.name(), procesoId,
-                    String.format("Correo enviado exitosamente para alerta ID: %d", alerta.getIdAlerta()));
-            return true;
+        long inicio = System.nanoTime();
+        try {
+            validarDirecciones(requestSendEmail);
+        } finally {
+            metricasEnvio.registrar(MetricasEnvio.Etapa.VALIDACION, inicio);
+        }
+    }
 
-        } catch (MessagingException e) {
-            traceabilityService.logSuccess(TipoEvento.PROCESO_ERROR.name(), procesoId,
-                    String.format("Error al procesar alerta: %d", alerta.getIdAlerta()));
-            return false;
+    private static void validarDirecciones(RequestSendEmail requestSendEmail) throws EmailValidationException {
+        EmailUtils.Destinatarios destinatarios = EmailUtils.parsearDestinatarios(requestSendEmail.getTo());
+
+        // Verificar si hay emails inválidos
+        if (!destinatarios.sonValidos()) {
+            throw new EmailValidationException(destinatarios.resultados());
+        }
+
+        // También puedes validar CC si es necesario
+        if (requestSendEmail.getCc() != null && !requestSendEmail.getCc().isEmpty()) {
+            EmailUtils.Destinatarios copias = EmailUtils.parsearDestinatarios(requestSendEmail.getCc());
+
+            if (!copias.sonValidos()) {
+                throw new EmailValidationException("Emails inválidos en campo CC", copias.resultados());
+            }
         }
     }
 
     /**
      * Crea el contexto con variables para la plantilla
      */
-    private Context crearContextoPlantilla(Alerta alerta) {
-        Context context = new Context();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+    Map<String, Object> crearContextoPlantilla(Alerta alerta) {
+        Map<String, Object> context = new HashMap<>(8);
 
-        context.setVariable("nombreArchivo", alerta.getNomArchivo());
-        context.setVariable("tipoError", alerta.getTipError());
-        context.setVariable("fecha", alerta.getFechaCreacion().format(formatter));
-        context.setVariable("camaraAfectada", alerta.getCamAfectada());
-        context.setVariable("trama", formatearXml(alerta.getTrama()));
-        context.setVariable("alertaId", alerta.getIdAlerta());
+        context.put("nombreArchivo", alerta.getNomArchivo());
+        context.put("tipoError", alerta.getTipError());
+        context.put("fecha", alerta.getFechaCreacion().format(FORMATO_FECHA));
+        context.put("camaraAfectada", alerta.getCamAfectada());
+        context.put("trama", formatearXml(alerta.getTrama()));
+        context.put("alertaId", alerta.getIdAlerta());
 
         return context;
     }
 
     /**
-     * Formatea el XML para mejor visualización
+     * Formatea el XML para mejor visualización; se escapa e indenta al renderizar la plantilla
      */
-    private String formatearXml(String xml) {
-        if (xml == null || xml.trim().isEmpty()) {
-            return "No disponible";
-        }
-
-        // Escapar caracteres HTML para mostrar correctamente en email
-        return xml.replace("<", "&lt;")
-                .replace(">", "&gt;")
-                .replace("&", "&amp;");
+    private FormateadorXml formatearXml(String xml) {
+        return new FormateadorXml(xml, tamanoMaximoTrama);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,170 @@
+package pe.gob.bcrp.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pe.gob.bcrp.model.dto.EstadisticaAlertasDTO;
+import pe.gob.bcrp.model.entity.Alerta;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+import pe.gob.bcrp.model.event.AlertaFinalizadaEvent;
+import pe.gob.bcrp.repository.AlertaRepository;
+import pe.gob.bcrp.util.ContadorRodante;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estadísticas en memoria de las alertas registradas en los últimos 5 minutos, 1 hora y
+ * 24 horas por cámara, tipo de error y estado actual. Cada alerta se cuenta en el minuto
+ * de su FEC_REG; al finalizar el envío pasa del estado anterior al nuevo. Al iniciar se
+ * reconstruyen con una sola consulta agrupada de las últimas 24 horas.
+ * <p>
+ * Los contadores son locales a la instancia: las alertas registradas o finalizadas por
+ * otras réplicas después del arranque no se reflejan aquí.
+ */
+@Log4j2
+@Component
+public class EstadisticasAlertas {
+
+    private static final String OTRO = "OTRO";
+
+    public record ClaveEstadistica(String camaraAfectada, String tipoError, EstadoAlerta estado) {
+    }
+
+    private final AlertaRepository alertaRepository;
+    private final Map<ClaveEstadistica, ContadorRodante> contadores = new ConcurrentHashMap<>();
+
+    @Value("${correo.estadisticas.franjas:4}")
+    private int franjas = 4;
+    @Value("${correo.estadisticas.maximo-claves:5000}")
+    private int maximoClaves = 5000;
+
+    public EstadisticasAlertas(AlertaRepository alertaRepository) {
+        this.alertaRepository = alertaRepository;
+    }
+
+    /**
+     * Reconstruye los contadores desde BD: una fila por clave y minuto de las últimas 24 horas
+     */
+    @PostConstruct
+    public void reconstruir() {
+        LocalDateTime ahora = LocalDateTime.now();
+        long minutoActual = minuto(ahora);
+        LocalDateTime desde = ahora.minusHours(ContadorRodante.HORAS);
+
+        long alertas = 0;
+        for (AlertaRepository.ConteoMinuto conteo : alertaRepository.contarPorMinuto(desde)) {
+            LocalDateTime fecha = LocalDateTime.of(conteo.getAnio(), conteo.getMes(), conteo.getDia(),
+                    conteo.getHora(), conteo.getMinuto());
+            // Las alertas tomadas por el despachador se cuentan como pendientes hasta finalizar
+            EstadoAlerta estado = conteo.getEstado() == EstadoAlerta.PROCESADA ? EstadoAlerta.PENDIENTE : conteo.getEstado();
+            contador(conteo.getCamara(), conteo.getTipoError(), estado)
+                    .sumar(minuto(fecha), minutoActual, (int) conteo.getCantidad());
+            alertas += conteo.getCantidad();
+        }
+        log.info("Estadísticas de alertas reconstruidas: {} alertas, {} claves", alertas, contadores.size());
+    }
+
+    /**
+     * Cuenta la alerta como pendiente cuando se confirma la transacción que la registra
+     */
+    public void registrar(Alerta alerta) {
+        String camara = alerta.getCamAfectada();
+        String tipoError = alerta.getTipError();
+        LocalDateTime fecha = alerta.getFechaCreacion();
+        Runnable registro = () -> contador(camara, tipoError, EstadoAlerta.PENDIENTE)
+                .sumar(minuto(fecha), minuto(LocalDateTime.now()), 1);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    registro.run();
+                }
+            });
+        } else {
+            registro.run();
+        }
+    }
+
+    /**
+     * Descuenta una alerta registrada que se eliminó sin llegar a enviarse
+     */
+    public void retirar(Alerta alerta) {
+        contador(alerta.getCamAfectada(), alerta.getTipError(), EstadoAlerta.PENDIENTE)
+                .sumar(minuto(alerta.getFechaCreacion()), minuto(LocalDateTime.now()), -1);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAlertaFinalizada(AlertaFinalizadaEvent event) {
+        if (event.fechaCreacion() == null || Objects.equals(event.estadoAnterior(), event.estado())) {
+            return;
+        }
+        long minuto = minuto(event.fechaCreacion());
+        long minutoActual = minuto(LocalDateTime.now());
+        contador(event.camaraAfectada(), event.tipoError(), event.estadoAnterior()).sumar(minuto, minutoActual, -1);
+        contador(event.camaraAfectada(), event.tipoError(), event.estado()).sumar(minuto, minutoActual, 1);
+    }
+
+    /**
+     * Estadísticas de las claves con actividad en las últimas 24 horas, opcionalmente
+     * filtradas por cámara y tipo de error
+     */
+    public List<EstadisticaAlertasDTO> consultar(String camaraAfectada, String tipoError) {
+        long minutoActual = minuto(LocalDateTime.now());
+        List<EstadisticaAlertasDTO> estadisticas = new ArrayList<>();
+
+        contadores.forEach((clave, contador) -> {
+            if ((camaraAfectada != null && !camaraAfectada.equals(clave.camaraAfectada()))
+                    || (tipoError != null && !tipoError.equals(clave.tipoError()))) {
+                return;
+            }
+            long ultimas24Horas = contador.contarHoras(minutoActual, ContadorRodante.HORAS);
+            if (ultimas24Horas == 0) {
+                return;
+            }
+            estadisticas.add(EstadisticaAlertasDTO.builder()
+                    .camaraAfectada(clave.camaraAfectada())
+                    .tipoError(clave.tipoError())
+                    .estado(clave.estado())
+                    .ultimos5Minutos(contador.contarMinutos(minutoActual, 5))
+                    .ultimaHora(contador.contarMinutos(minutoActual, ContadorRodante.MINUTOS))
+                    .ultimas24Horas(ultimas24Horas)
+                    .build());
+        });
+
+        estadisticas.sort(Comparator.comparingLong(EstadisticaAlertasDTO::getUltimos5Minutos)
+                .thenComparingLong(EstadisticaAlertasDTO::getUltimaHora)
+                .thenComparingLong(EstadisticaAlertasDTO::getUltimas24Horas)
+                .reversed());
+        return estadisticas;
+    }
+
+    private ContadorRodante contador(String camara, String tipoError, EstadoAlerta estado) {
+        ClaveEstadistica clave = new ClaveEstadistica(camara, tipoError, estado);
+        ContadorRodante contador = contadores.get(clave);
+        if (contador != null) {
+            return contador;
+        }
+        // Se acota la cantidad de claves; las nuevas por encima del máximo se agrupan
+        if (contadores.size() >= maximoClaves) {
+            clave = new ClaveEstadistica(OTRO, OTRO, estado);
+        }
+        return contadores.computeIfAbsent(clave, k -> new ContadorRodante(franjas));
+    }
+
+    private static long minuto(LocalDateTime fecha) {
+        return fecha.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+}
@@ -0,0 +1,132 @@
+package pe.gob.bcrp.service.impl;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+import pe.gob.bcrp.model.event.AlertaFinalizadaEvent;
+import pe.gob.bcrp.repository.AlertaRepository;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Métricas del flujo de envío expuestas por Actuator/Prometheus:
+ * <ul>
+ *   <li>correo.envio.etapa: timer por etapa (guardado, validacion, renderizado, smtp, actualizacion)</li>
+ *   <li>correo.alertas.estado: alertas en curso en BD (PENDIENTE, PROCESADA, ERROR_ENVIO), recalculado
+ *   periódicamente; los estados finales crecen sin límite y se miden con correo.alertas.finalizadas</li>
+ *   <li>correo.alertas.finalizadas: alertas finalizadas (ENVIADA o DESCARTADA) por tipo de error,
+ *   cámara y estado; cada alerta se cuenta una vez aunque tenga varios intentos</li>
+ * </ul>
+ * Los valores de tipo de error y cámara se acotan para no crear series sin límite; los que
+ * aparecen después de alcanzar el máximo se agrupan como OTRO.
+ */
+@Log4j2
+@Component
+public class MetricasEnvio implements MeterBinder {
+
+    public enum Etapa { GUARDADO, VALIDACION, RENDERIZADO, SMTP, ACTUALIZACION }
+
+    private static final String OTRO = "OTRO";
+    private static final String NINGUNO = "NINGUNO";
+    private static final Set<EstadoAlerta> EN_CURSO =
+            EnumSet.of(EstadoAlerta.PENDIENTE, EstadoAlerta.PROCESADA, EstadoAlerta.ERROR_ENVIO);
+
+    private final MeterRegistry meterRegistry;
+    private final AlertaRepository alertaRepository;
+    private final Map<Etapa, Timer> timers = new EnumMap<>(Etapa.class);
+    private final Map<EstadoAlerta, AtomicLong> alertasPorEstado = new EnumMap<>(EstadoAlerta.class);
+    private final Set<String> tiposError = ConcurrentHashMap.newKeySet();
+    private final Set<String> camaras = ConcurrentHashMap.newKeySet();
+
+    @Value("${correo.metricas.maximo-etiquetas:100}")
+    private int maximoEtiquetas = 100;
+
+    public MetricasEnvio(MeterRegistry meterRegistry, AlertaRepository alertaRepository) {
+        this.meterRegistry = meterRegistry;
+        this.alertaRepository = alertaRepository;
+
+        for (Etapa etapa : Etapa.values()) {
+            timers.put(etapa, Timer.builder("correo.envio.etapa")
+                    .description("Duración de cada etapa del envío de alertas")
+                    .tag("etapa", etapa.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        for (EstadoAlerta estado : EN_CURSO) {
+            alertasPorEstado.put(estado, new AtomicLong());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        alertasPorEstado.forEach((estado, cantidad) -> Gauge.builder("correo.alertas.estado", cantidad, AtomicLong::get)
+                .description("Alertas en curso en BD por estado")
+                .tag("estado", estado.name())
+                .register(registry));
+    }
+
+    /**
+     * Registra la duración de una etapa iniciada en el instante indicado (System.nanoTime())
+     */
+    public void registrar(Etapa etapa, long inicio) {
+        timers.get(etapa).record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Recalcula los conteos de los estados en curso con una sola consulta agrupada
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${correo.metricas.estados-ms:30000}")
+    public void actualizarEstados() {
+        Map<EstadoAlerta, Long> conteos = new EnumMap<>(EstadoAlerta.class);
+        for (AlertaRepository.ConteoEstado conteo : alertaRepository.contarPorEstado(EN_CURSO)) {
+            if (conteo.getEstado() != null) {
+                conteos.put(conteo.getEstado(), conteo.getCantidad());
+            }
+        }
+        alertasPorEstado.forEach((estado, cantidad) -> cantidad.set(conteos.getOrDefault(estado, 0L)));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAlertaFinalizada(AlertaFinalizadaEvent event) {
+        // Un intento fallido que se reintentará no finaliza la alerta
+        if (!event.esFinal()) {
+            return;
+        }
+        meterRegistry.counter("correo.alertas.finalizadas",
+                        "tipo_error", acotar(tiposError, event.tipoError()),
+                        "camara", acotar(camaras, event.camaraAfectada()),
+                        "estado", event.estado().name())
+                .increment();
+    }
+
+    private String acotar(Set<String> vistos, String valor) {
+        if (valor == null || valor.isBlank()) {
+            return NINGUNO;
+        }
+        if (vistos.contains(valor)) {
+            return valor;
+        }
+        // Con hilos concurrentes el máximo puede excederse en unos pocos valores
+        if (vistos.size() < maximoEtiquetas) {
+            if (vistos.add(valor) && vistos.size() == maximoEtiquetas) {
+                log.warn("Se alcanzó el máximo de {} valores de etiqueta; los nuevos se agruparán como {}",
+                        maximoEtiquetas, OTRO);
+            }
+            return valor;
+        }
+        return OTRO;
+    }
+}
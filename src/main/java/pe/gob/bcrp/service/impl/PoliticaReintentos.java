@@ -0,0 +1,45 @@
+package pe.gob.bcrp.service.impl;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Política de reintentos de envío: espera exponencial con jitter a partir del número
+ * de intentos fallidos, acotada por una espera máxima.
+ */
+@Component
+public class PoliticaReintentos {
+
+    @Value("${correo.reintento.intentos-maximos:5}")
+    private int intentosMaximos = 5;
+    @Value("${correo.reintento.espera-base-ms:60000}")
+    private long esperaBaseMs = 60_000;
+    @Value("${correo.reintento.espera-maxima-ms:3600000}")
+    private long esperaMaximaMs = 3_600_000;
+
+    /**
+     * Indica si una alerta con los intentos fallidos indicados se puede volver a enviar
+     */
+    public boolean permiteReintento(int intentosFallidos) {
+        return intentosFallidos < intentosMaximos;
+    }
+
+    /**
+     * Fecha del siguiente intento: base * 2^(intentos - 1), acotada, con la mitad de la
+     * espera aleatoria para que las alertas que fallaron juntas no se reintenten juntas
+     */
+    public LocalDateTime proximoIntento(int intentosFallidos, LocalDateTime desde) {
+        int exponente = Math.min(Math.max(intentosFallidos - 1, 0), 30);
+        long espera = Math.min(esperaBaseMs << exponente, esperaMaximaMs);
+        if (espera <= 0) {
+            espera = esperaMaximaMs;
+        }
+        long mitad = espera / 2;
+        long conJitter = mitad + ThreadLocalRandom.current().nextLong(espera - mitad + 1);
+        return desde.plus(conJitter, ChronoUnit.MILLIS);
+    }
+}
@@ -0,0 +1,230 @@
+package pe.gob.bcrp.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pe.gob.bcrp.exception.IdempotenciaException;
+import pe.gob.bcrp.model.dto.ResponseDTO;
+import pe.gob.bcrp.model.entity.Alerta;
+import pe.gob.bcrp.model.entity.Idempotencia;
+import pe.gob.bcrp.repository.IdempotenciaRepository;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro de las Idempotency-Key de POST /correo. La primera solicitud con una clave la
+ * reserva en MOM_MAE_IDEMPOTENCIA y, al terminar, guarda la respuesta; las repeticiones
+ * reciben esa misma respuesta sin registrar otra alerta ni enviar otro correo. Las claves
+ * completadas recientes se responden desde memoria y las que esta instancia está procesando
+ * se rechazan sin consultar la BD.
+ * <p>
+ * La caché guarda el JSON de la respuesta, no el ResponseDTO con la alerta: cada repetición
+ * recibe su propia copia y las respuestas grandes (con la trama) se leen de la BD.
+ */
+@Log4j2
+@Service
+public class RegistroIdempotencia {
+
+    public static final int LONGITUD_MAXIMA_CLAVE = 100;
+
+    /**
+     * Respuesta guardada de una solicitud ya procesada
+     */
+    public record Respuesta(int estadoHttp, ResponseDTO<?> cuerpo) {
+    }
+
+    private record Completada(String hashSolicitud, int estadoHttp, String cuerpo, LocalDateTime fecha) {
+    }
+
+    private final IdempotenciaRepository idempotenciaRepository;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Completada> completadas;
+    private final Map<String, String> enCurso = new ConcurrentHashMap<>();
+
+    @Value("${correo.idempotencia.vigencia-horas:24}")
+    private long vigenciaHoras = 24;
+    @Value("${correo.idempotencia.reserva-maxima-ms:120000}")
+    private long reservaMaximaMs = 120000;
+    @Value("${correo.idempotencia.lote-purga:1000}")
+    private int lotePurga = 1000;
+    @Value("${correo.idempotencia.cache-respuesta-maxima:16384}")
+    private int respuestaMaximaCache = 16384;
+
+    public RegistroIdempotencia(IdempotenciaRepository idempotenciaRepository, ObjectMapper objectMapper,
+                                @Value("${correo.idempotencia.cache-tamano:10000}") int tamanoCache) {
+        this.idempotenciaRepository = idempotenciaRepository;
+        this.objectMapper = objectMapper;
+        this.completadas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Completada> eldest) {
+                return size() > tamanoCache;
+            }
+        };
+    }
+
+    /**
+     * Reserva la clave para procesar la solicitud. Retorna la respuesta guardada si la clave ya
+     * se procesó con la misma solicitud, o null si la reserva es nueva: en ese caso el llamador
+     * procesa la solicitud y luego llama a completar() o liberar().
+     *
+     * @throws IdempotenciaException si la clave se está procesando o se usó con otra solicitud
+     */
+    public Respuesta reservar(String clave, Object solicitud) {
+        if (clave.isBlank() || clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            throw new IllegalArgumentException(
+                    String.format("Idempotency-Key debe tener entre 1 y %d caracteres", LONGITUD_MAXIMA_CLAVE));
+        }
+
+        String hashSolicitud = calcularHash(solicitud);
+        LocalDateTime ahora = LocalDateTime.now();
+
+        Completada completada = buscarEnCache(clave, ahora);
+        if (completada != null) {
+            if (!completada.hashSolicitud().equals(hashSolicitud)) {
+                throw new IdempotenciaException("La Idempotency-Key ya se usó con una solicitud distinta", false);
+            }
+            return leer(clave, completada.estadoHttp(), completada.cuerpo());
+        }
+        if (enCurso.putIfAbsent(clave, hashSolicitud) != null) {
+            throw new IdempotenciaException("La solicitud con esta Idempotency-Key aún se está procesando", true);
+        }
+
+        boolean reservada = false;
+        try {
+            if (idempotenciaRepository.reservar(clave, hashSolicitud, ahora) == 1) {
+                reservada = true;
+                return null;
+            }
+
+            Idempotencia registro = idempotenciaRepository.findById(clave).orElse(null);
+            if (registro == null) {
+                // Se purgó entre el INSERT y la lectura
+                reservada = idempotenciaRepository.reservar(clave, hashSolicitud, ahora) == 1;
+                if (reservada) {
+                    return null;
+                }
+                throw new IdempotenciaException("La solicitud con esta Idempotency-Key aún se está procesando", true);
+            }
+            if (!registro.getHashSolicitud().equals(hashSolicitud)) {
+                throw new IdempotenciaException("La Idempotency-Key ya se usó con una solicitud distinta", false);
+            }
+            if (registro.getEstadoHttp() == null) {
+                LocalDateTime fechaLimite = ahora.minus(Duration.ofMillis(reservaMaximaMs));
+                if (idempotenciaRepository.retomar(clave, ahora, fechaLimite) == 1) {
+                    log.warn("Reserva de Idempotency-Key {} sin respuesta desde {}, se retoma", clave,
+                            registro.getFechaCreacion());
+                    reservada = true;
+                    return null;
+                }
+                throw new IdempotenciaException("La solicitud con esta Idempotency-Key aún se está procesando", true);
+            }
+
+            Respuesta respuesta = leer(clave, registro.getEstadoHttp(), registro.getRespuesta());
+            recordar(clave, new Completada(hashSolicitud, registro.getEstadoHttp(), registro.getRespuesta(),
+                    registro.getFechaCreacion()));
+            return respuesta;
+
+        } finally {
+            if (!reservada) {
+                enCurso.remove(clave);
+            }
+        }
+    }
+
+    /**
+     * Guarda la respuesta de una solicitud reservada para las repeticiones
+     */
+    public void completar(String clave, int estadoHttp, ResponseDTO<?> cuerpo) {
+        try {
+            Long idAlerta = cuerpo != null && cuerpo.getData() instanceof Alerta alerta ? alerta.getIdAlerta() : null;
+            String json = objectMapper.writeValueAsString(cuerpo);
+            idempotenciaRepository.completar(clave, estadoHttp, json, idAlerta);
+            String hashSolicitud = enCurso.get(clave);
+            if (hashSolicitud != null) {
+                recordar(clave, new Completada(hashSolicitud, estadoHttp, json, LocalDateTime.now()));
+            }
+        } catch (JsonProcessingException e) {
+            log.error("No se pudo guardar la respuesta de la Idempotency-Key {}", clave, e);
+            idempotenciaRepository.liberar(clave);
+        } finally {
+            enCurso.remove(clave);
+        }
+    }
+
+    /**
+     * Libera la reserva de una solicitud que falló sin dejar efectos, para que el cliente
+     * pueda reintentar con la misma clave
+     */
+    public void liberar(String clave) {
+        try {
+            idempotenciaRepository.liberar(clave);
+        } finally {
+            enCurso.remove(clave);
+        }
+    }
+
+    /**
+     * Elimina en lotes las claves que superaron su vigencia
+     */
+    @Scheduled(fixedDelayString = "${correo.idempotencia.purga-ms:3600000}")
+    public void purgar() {
+        LocalDateTime fechaLimite = LocalDateTime.now().minusHours(vigenciaHoras);
+        long eliminadas = 0;
+        int lote;
+        while ((lote = idempotenciaRepository.eliminarVencidas(fechaLimite, lotePurga)) > 0) {
+            eliminadas += lote;
+        }
+        if (eliminadas > 0) {
+            log.info("Idempotencia: {} claves vencidas eliminadas", eliminadas);
+        }
+    }
+
+    private Respuesta leer(String clave, int estadoHttp, String cuerpo) {
+        try {
+            return new Respuesta(estadoHttp, objectMapper.readValue(cuerpo, ResponseDTO.class));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Respuesta guardada ilegible para la Idempotency-Key " + clave, e);
+        }
+    }
+
+    private Completada buscarEnCache(String clave, LocalDateTime ahora) {
+        synchronized (completadas) {
+            Completada completada = completadas.get(clave);
+            if (completada != null && completada.fecha().isBefore(ahora.minusHours(vigenciaHoras))) {
+                completadas.remove(clave);
+                return null;
+            }
+            return completada;
+        }
+    }
+
+    private void recordar(String clave, Completada completada) {
+        if (completada.cuerpo().length() > respuestaMaximaCache) {
+            return;
+        }
+        synchronized (completadas) {
+            completadas.put(clave, completada);
+        }
+    }
+
+    private String calcularHash(Object solicitud) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(solicitud);
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(json));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Solicitud no serializable", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
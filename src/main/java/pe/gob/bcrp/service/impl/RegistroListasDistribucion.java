@@ -0,0 +1,216 @@
+package pe.gob.bcrp.service.impl;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.mail.internet.InternetAddress;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pe.gob.bcrp.exception.EmailValidationException;
+import pe.gob.bcrp.model.dto.ListaDistribucionDTO;
+import pe.gob.bcrp.model.dto.RequestSendEmail;
+import pe.gob.bcrp.model.entity.ListaDistribucion;
+import pe.gob.bcrp.repository.ListaDistribucionRepository;
+import pe.gob.bcrp.util.EmailUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro en memoria de las listas de distribución. Cada lista se guarda con sus
+ * direcciones ya parseadas y validadas, de modo que una alerta que referencia una lista
+ * no vuelve a procesar los destinatarios. El registro se carga completo al iniciar y luego
+ * se refresca leyendo solo las listas modificadas desde la última lectura; los cambios
+ * hechos por esta instancia se aplican de inmediato.
+ * <p>
+ * FEC_MOD la asigna el reloj de la instancia que edita la lista, y la fila puede confirmarse
+ * después de que otra instancia ya leyó fechas posteriores. Por eso cada lectura retrocede un
+ * margen desde la última FEC_MOD vista; releer una lista no cambia el registro.
+ */
+@Log4j2
+@Service
+public class RegistroListasDistribucion {
+
+    private static final InternetAddress[] SIN_DIRECCIONES = new InternetAddress[0];
+
+    private final ListaDistribucionRepository listaRepository;
+    private final Map<String, ListaResuelta> listas = new ConcurrentHashMap<>();
+    private final long margenMs;
+    private volatile LocalDateTime ultimaModificacion;
+
+    public RegistroListasDistribucion(ListaDistribucionRepository listaRepository,
+                                      @Value("${correo.listas.margen-ms:60000}") long margenMs) {
+        this.listaRepository = listaRepository;
+        this.margenMs = margenMs;
+    }
+
+    /**
+     * Lista activa con sus destinatarios tal como se registraron y ya resueltos a direcciones
+     */
+    public record ListaResuelta(String codigo, String destinatarios, String destinatariosCopia,
+                                InternetAddress[] para, InternetAddress[] copia,
+                                LocalDateTime fechaModificacion) {
+
+        /**
+         * Indica si los destinatarios de la solicitud son los de esta lista
+         */
+        public boolean coincide(String to, String cc) {
+            return Objects.equals(destinatarios, to) && Objects.equals(destinatariosCopia, cc);
+        }
+    }
+
+    public Optional<ListaResuelta> obtener(String codigo) {
+        return codigo == null ? Optional.empty() : Optional.ofNullable(listas.get(codigo));
+    }
+
+    /**
+     * Retorna la lista de la solicitud si sus destinatarios siguen siendo los registrados
+     */
+    public Optional<ListaResuelta> obtenerVigente(RequestSendEmail request) {
+        return obtener(request.getListaDistribucion())
+                .filter(lista -> lista.coincide(request.getTo(), request.getCc()));
+    }
+
+    /**
+     * Completa los destinatarios de la solicitud con los de su lista de distribución.
+     * Retorna false si la solicitud no referencia una lista.
+     */
+    public boolean resolver(RequestSendEmail request) throws EmailValidationException {
+        String codigo = request.getListaDistribucion();
+        if (codigo == null || codigo.isBlank()) {
+            return false;
+        }
+
+        ListaResuelta lista = listas.get(codigo);
+        if (lista == null) {
+            throw new EmailValidationException("Lista de distribución no registrada: " + codigo,
+                    List.of(new EmailUtils.EmailValidationResult(codigo, false, "Lista de distribución no registrada")));
+        }
+
+        request.setTo(lista.destinatarios());
+        request.setCc(lista.destinatariosCopia());
+        return true;
+    }
+
+    /**
+     * Crea o actualiza la lista con el código indicado
+     */
+    public ListaDistribucion guardar(ListaDistribucionDTO dto) throws EmailValidationException {
+        validar(dto.getTo(), "Emails inválidos en la lista");
+        if (dto.getCc() != null && !dto.getCc().isEmpty()) {
+            validar(dto.getCc(), "Emails inválidos en campo CC de la lista");
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        ListaDistribucion lista = listaRepository.findByCodigo(dto.getCodigo()).orElseGet(() -> {
+            ListaDistribucion nueva = new ListaDistribucion();
+            nueva.setCodigo(dto.getCodigo());
+            nueva.setFechaCreacion(ahora);
+            nueva.setUsuarioCreacion(dto.getUsuarioSistema());
+            return nueva;
+        });
+        lista.setDestinatarios(dto.getTo());
+        lista.setDestinatariosCopia(dto.getCc());
+        lista.setActivo(true);
+        lista.setFechaModificacion(ahora);
+
+        ListaDistribucion guardada = listaRepository.save(lista);
+        aplicar(guardada);
+        return guardada;
+    }
+
+    /**
+     * Desactiva la lista; retorna false si no existe
+     */
+    public boolean desactivar(String codigo) {
+        return listaRepository.findByCodigo(codigo)
+                .map(lista -> {
+                    lista.setActivo(false);
+                    lista.setFechaModificacion(LocalDateTime.now());
+                    aplicar(listaRepository.save(lista));
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    /**
+     * Carga todas las listas antes de que la instancia reciba solicitudes; una alerta que
+     * referencia una lista no debe rechazarse por llegar antes del primer refresco
+     */
+    @PostConstruct
+    public void cargar() {
+        leer(listaRepository.findAll());
+        log.info("Registro de listas de distribución cargado: {} listas activas", listas.size());
+    }
+
+    /**
+     * Lee las listas modificadas desde la última lectura, menos el margen
+     */
+    @Scheduled(initialDelayString = "${correo.listas.refresco-ms:30000}",
+            fixedDelayString = "${correo.listas.refresco-ms:30000}")
+    public void refrescar() {
+        LocalDateTime desde = ultimaModificacion;
+        if (desde == null) {
+            cargar();
+            return;
+        }
+        leer(listaRepository.findByFechaModificacionGreaterThanEqual(desde.minus(Duration.ofMillis(margenMs))));
+    }
+
+    private void leer(List<ListaDistribucion> modificadas) {
+        LocalDateTime maxima = ultimaModificacion;
+        for (ListaDistribucion lista : modificadas) {
+            aplicar(lista);
+            if (maxima == null || lista.getFechaModificacion().isAfter(maxima)) {
+                maxima = lista.getFechaModificacion();
+            }
+        }
+        ultimaModificacion = maxima;
+    }
+
+    /**
+     * Aplica una lista leída de BD; una versión más antigua nunca reemplaza a una más reciente
+     */
+    private void aplicar(ListaDistribucion lista) {
+        LocalDateTime fecha = lista.getFechaModificacion();
+        listas.compute(lista.getCodigo(), (codigo, actual) -> {
+            if (actual != null && fecha != null && actual.fechaModificacion() != null
+                    && fecha.isBefore(actual.fechaModificacion())) {
+                return actual;
+            }
+            return lista.isActivo() ? resolver(lista) : null;
+        });
+    }
+
+    private static ListaResuelta resolver(ListaDistribucion lista) {
+        return new ListaResuelta(lista.getCodigo(), lista.getDestinatarios(), lista.getDestinatariosCopia(),
+                direcciones(lista.getCodigo(), lista.getDestinatarios()),
+                direcciones(lista.getCodigo(), lista.getDestinatariosCopia()),
+                lista.getFechaModificacion());
+    }
+
+    private static InternetAddress[] direcciones(String codigo, String emails) {
+        if (emails == null || emails.isEmpty()) {
+            return SIN_DIRECCIONES;
+        }
+
+        EmailUtils.Destinatarios destinatarios = EmailUtils.parsearDestinatarios(emails);
+        if (!destinatarios.sonValidos()) {
+            // Listas editadas directamente en BD: se usan solo las direcciones válidas
+            log.warn("La lista de distribución {} tiene direcciones inválidas: {}", codigo, emails);
+        }
+        return destinatarios.direcciones();
+    }
+
+    private static void validar(String emails, String mensaje) throws EmailValidationException {
+        EmailUtils.Destinatarios destinatarios = EmailUtils.parsearDestinatarios(emails);
+        if (!destinatarios.sonValidos()) {
+            throw new EmailValidationException(mensaje, destinatarios.resultados());
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package pe.gob.bcrp.service.impl;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+import pe.gob.bcrp.repository.AlertaRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Reintenta las alertas en ERROR_ENVIO cuyo siguiente intento ya venció. La espera entre
+ * intentos la define PoliticaReintentos; al agotar los intentos la alerta queda DESCARTADA.
+ * Los reintentos en curso se acotan para no desplazar a las alertas nuevas del pool de despacho.
+ */
+@Log4j2
+@Service
+public class ReintentoAlertaService {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final AlertaRepository alertaRepository;
+    private final DespachoAlertaService despachoAlertaService;
+    private final ColasDespacho despachoExecutor;
+    private final Semaphore reintentosEnCurso;
+
+    @Value("${correo.reintento.lote:100}")
+    private int lote;
+    @Value("${correo.reintento.ventana-horas:72}")
+    private long ventanaHoras;
+
+    public ReintentoAlertaService(AlertaRepository alertaRepository, DespachoAlertaService despachoAlertaService,
+                                  ColasDespacho despachoExecutor,
+                                  @Value("${correo.reintento.concurrencia:4}") int concurrencia) {
+        this.alertaRepository = alertaRepository;
+        this.despachoAlertaService = despachoAlertaService;
+        this.despachoExecutor = despachoExecutor;
+        this.reintentosEnCurso = new Semaphore(concurrencia);
+    }
+
+    /**
+     * Toma las alertas con reintento vencido, hasta los cupos libres, y las envía al pool de
+     * despacho. Solo se buscan en las particiones recientes.
+     */
+    @Scheduled(fixedDelayString = "${correo.reintento.barrido-ms:15000}")
+    public void reintentarVencidas() {
+        reintentar(LocalDateTime.now().minusHours(ventanaHoras), false);
+    }
+
+    /**
+     * Barrido lento sin límite de fecha para los reintentos de alertas registradas antes de la
+     * ventana, que el barrido frecuente ya no ve
+     */
+    @Scheduled(initialDelayString = "${correo.reintento.barrido-completo-ms:3600000}",
+            fixedDelayString = "${correo.reintento.barrido-completo-ms:3600000}")
+    public void reintentarAntiguas() {
+        reintentar(INICIO, true);
+    }
+
+    private void reintentar(LocalDateTime desde, boolean completo) {
+        int cupos = Math.min(lote, reintentosEnCurso.availablePermits());
+        if (cupos == 0) {
+            return;
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        List<AlertaRepository.AlertaEnCola> vencidas = alertaRepository.buscarParaReintento(EstadoAlerta.ERROR_ENVIO,
+                ahora, desde, PageRequest.of(0, cupos));
+
+        int encoladas = 0;
+        for (AlertaRepository.AlertaEnCola alerta : vencidas) {
+            Long idAlerta = alerta.getIdAlerta();
+            if (!reintentosEnCurso.tryAcquire()) {
+                break;
+            }
+            if (alertaRepository.tomarParaReintento(idAlerta, ahora) == 0) {
+                reintentosEnCurso.release();
+                continue;
+            }
+            if (!encolar(idAlerta, alerta.getTipoError())) {
+                break;
+            }
+            encoladas++;
+        }
+
+        if (encoladas > 0 && completo) {
+            log.warn("Reintento de envío: {} alertas con más de {} horas encoladas", encoladas, ventanaHoras);
+        } else if (encoladas > 0) {
+            log.info("Reintento de envío: {} alertas encoladas", encoladas);
+        }
+    }
+
+    private boolean encolar(Long idAlerta, String tipoError) {
+        try {
+            despachoExecutor.ejecutar(tipoError, () -> {
+                try {
+                    despachoAlertaService.enviarTomada(idAlerta, false);
+                } finally {
+                    reintentosEnCurso.release();
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Se devuelve a ERROR_ENVIO con su fecha vencida para el siguiente barrido
+            reintentosEnCurso.release();
+            alertaRepository.cambiarEstado(idAlerta, EstadoAlerta.PROCESADA, EstadoAlerta.ERROR_ENVIO);
+            log.warn("Cola de despacho llena, la alerta ID: {} se reintentará en el siguiente barrido", idAlerta);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package pe.gob.bcrp.service.impl;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pe.gob.bcrp.exception.EmailValidationException;
+import pe.gob.bcrp.model.dto.SuscripcionResumenDTO;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+import pe.gob.bcrp.model.entity.FrecuenciaResumen;
+import pe.gob.bcrp.model.entity.SuscripcionResumen;
+import pe.gob.bcrp.repository.SuscripcionResumenRepository;
+import pe.gob.bcrp.service.IEmailService;
+import pe.gob.bcrp.util.EmailUtils;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Envía los resúmenes horarios y diarios a las suscripciones activas
+ * a partir de los agregados incrementales de AgregadorResumen.
+ * <p>
+ * Los agregados son locales a la instancia: con varias réplicas cada una enviaría su propio
+ * resumen con solo las alertas que procesó. Los resúmenes se envían únicamente desde las
+ * instancias con correo.resumen.habilitado=true (una sola en despliegues con réplicas); en
+ * las demás cada periodo se descarta al vencer y sus alertas no aparecen en el resumen.
+ */
+@Log4j2
+@Service
+public class ResumenAlertasService {
+
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+
+    private final AgregadorResumen agregadorResumen;
+    private final SuscripcionResumenRepository suscripcionRepository;
+    private final IEmailService emailService;
+
+    @Value("${correo.resumen.habilitado:true}")
+    private boolean habilitado = true;
+
+    public ResumenAlertasService(AgregadorResumen agregadorResumen, SuscripcionResumenRepository suscripcionRepository,
+                                 IEmailService emailService) {
+        this.agregadorResumen = agregadorResumen;
+        this.suscripcionRepository = suscripcionRepository;
+        this.emailService = emailService;
+    }
+
+    /**
+     * Registra una suscripción a un resumen periódico; las direcciones se validan al
+     * suscribir para no descubrirlas inválidas recién al enviar el resumen
+     */
+    public SuscripcionResumen suscribir(SuscripcionResumenDTO dto) throws EmailValidationException {
+        validar(dto.getTo(), "Emails inválidos en la suscripción");
+        if (dto.getCc() != null && !dto.getCc().isEmpty()) {
+            validar(dto.getCc(), "Emails inválidos en campo CC de la suscripción");
+        }
+
+        SuscripcionResumen suscripcion = new SuscripcionResumen();
+        suscripcion.setDestinatarios(dto.getTo());
+        suscripcion.setDestinatariosCopia(dto.getCc());
+        suscripcion.setFrecuencia(dto.getFrecuencia());
+        suscripcion.setActivo(true);
+        suscripcion.setFechaCreacion(LocalDateTime.now());
+        suscripcion.setUsuarioCreacion(dto.getUsuarioSistema());
+        return suscripcionRepository.save(suscripcion);
+    }
+
+    /**
+     * Desactiva una suscripción; retorna false si no existe
+     */
+    public boolean desuscribir(Long idSuscripcion) {
+        return suscripcionRepository.findById(idSuscripcion)
+                .map(suscripcion -> {
+                    suscripcion.setActivo(false);
+                    suscripcionRepository.save(suscripcion);
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    @Scheduled(cron = "${correo.resumen.cron-horario:0 0 * * * *}")
+    public void enviarResumenHorario() {
+        enviarResumen(FrecuenciaResumen.HORARIA, "Resumen horario");
+    }
+
+    @Scheduled(cron = "${correo.resumen.cron-diario:0 0 7 * * *}")
+    public void enviarResumenDiario() {
+        enviarResumen(FrecuenciaResumen.DIARIA, "Resumen diario");
+    }
+
+    /**
+     * Toma los agregados del periodo y envía un correo a cada suscripción activa; en una
+     * instancia sin resúmenes habilitados solo reinicia el periodo
+     */
+    public void enviarResumen(FrecuenciaResumen frecuencia, String titulo) {
+        AgregadorResumen.Periodo periodo = agregadorResumen.tomar(frecuencia);
+        if (!habilitado) {
+            return;
+        }
+        List<SuscripcionResumen> suscripciones = suscripcionRepository.findByFrecuenciaAndActivoTrue(frecuencia);
+        if (suscripciones.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> contexto = crearContextoResumen(periodo, titulo);
+        String asunto = String.format("%s de alertas - %s", titulo, contexto.get("fechaFin"));
+
+        for (SuscripcionResumen suscripcion : suscripciones) {
+            if (!emailService.enviarResumen(suscripcion.getDestinatarios(), suscripcion.getDestinatariosCopia(),
+                    asunto, contexto)) {
+                log.warn("No se pudo enviar el {} a la suscripción ID: {}", titulo, suscripcion.getIdSuscripcion());
+            }
+        }
+    }
+
+    private Map<String, Object> crearContextoResumen(AgregadorResumen.Periodo periodo, String titulo) {
+        List<Map<String, Object>> filas = new ArrayList<>(periodo.contadores().size());
+        Map<EstadoAlerta, Long> totales = new EnumMap<>(EstadoAlerta.class);
+
+        periodo.contadores().entrySet().stream()
+                .sorted(Comparator.comparingLong(
+                        (Map.Entry<AgregadorResumen.ClaveResumen, AgregadorResumen.Contador> e) -> e.getValue().getCantidad())
+                        .reversed())
+                .forEach(entrada -> {
+                    AgregadorResumen.ClaveResumen clave = entrada.getKey();
+                    AgregadorResumen.Contador contador = entrada.getValue();
+
+                    Map<String, Object> fila = new HashMap<>(8);
+                    fila.put("camaraAfectada", clave.camaraAfectada());
+                    fila.put("tipoError", clave.tipoError() == null || clave.tipoError().isEmpty()
+                            ? "(operación exitosa)" : clave.tipoError());
+                    fila.put("estado", clave.estado().name());
+                    fila.put("cantidad", contador.getCantidad());
+                    fila.put("muestras", String.join(", ", contador.getMuestras()));
+                    filas.add(fila);
+
+                    totales.merge(clave.estado(), contador.getCantidad(), Long::sum);
+                });
+
+        List<Map<String, Object>> filasTotales = new ArrayList<>(totales.size());
+        totales.forEach((estado, cantidad) -> filasTotales.add(Map.of("estado", estado.name(), "cantidad", cantidad)));
+
+        Map<String, Object> contexto = new HashMap<>(8);
+        contexto.put("periodo", titulo);
+        contexto.put("fechaInicio", periodo.inicio().format(FORMATO_FECHA));
+        contexto.put("fechaFin", LocalDateTime.now().format(FORMATO_FECHA));
+        contexto.put("totales", filasTotales);
+        contexto.put("filas", filas);
+        return contexto;
+    }
+
+    private static void validar(String emails, String mensaje) throws EmailValidationException {
+        EmailUtils.Destinatarios destinatarios = EmailUtils.parsearDestinatarios(emails);
+        if (!destinatarios.sonValidos()) {
+            throw new EmailValidationException(mensaje, destinatarios.resultados());
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package pe.gob.bcrp.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import pe.gob.bcrp.model.entity.Alerta;
+import pe.gob.bcrp.repository.AlertaRepository;
+import pe.gob.bcrp.repository.BloqueoRepository;
+import pe.gob.bcrp.repository.ParticionesAlertaRepository;
+import pe.gob.bcrp.repository.ParticionesAlertaRepository.Particion;
+import pe.gob.bcrp.repository.TramaRepository;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Retención de MOM_MAE_ALERTA: las alertas de los meses que superan la retención se archivan
+ * en un NDJSON comprimido por mes y luego se eliminan de la BD.
+ * <p>
+ * Con la tabla particionada por mes (db/particionar-alerta.sql) se eliminan las particiones
+ * completas, un cambio de metadatos, y se crean por adelantado las de los meses siguientes.
+ * Sin particiones la eliminación se hace en lotes acotados, cada uno en su propia transacción,
+ * para no retener bloqueos.
+ * <p>
+ * Una sola instancia ejecuta la retención a la vez (bloqueo en MOM_MAE_BLOQUEO). Un mes solo
+ * se elimina si su archivo contiene tantas alertas como la BD, y un archivo existente nunca
+ * se reemplaza.
+ * <p>
+ * Después se eliminan de MOM_MAE_TRAMA, también en lotes, las tramas que ninguna alerta
+ * referencia y que no se usan desde antes del primer mes retenido (FEC_USO): una trama
+ * guardada para una alerta que aún no se inserta tiene un uso reciente y se conserva.
+ */
+@Log4j2
+@Service
+public class RetencionAlertasService {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final String BLOQUEO = "RETENCION_ALERTAS";
+
+    private final AlertaRepository alertaRepository;
+    private final ParticionesAlertaRepository particionesRepository;
+    private final BloqueoRepository bloqueoRepository;
+    private final TramaService tramaService;
+    private final TramaRepository tramaRepository;
+    private final ObjectMapper objectMapper;
+
+    @Value("${correo.retencion.meses:6}")
+    private int meses;
+    @Value("${correo.retencion.meses-adelantados:2}")
+    private int mesesAdelantados;
+    @Value("${correo.retencion.directorio:archivo}")
+    private String directorio;
+    @Value("${correo.retencion.lote:1000}")
+    private int lote;
+    @Value("${correo.retencion.pausa-ms:200}")
+    private long pausaMs;
+    @Value("${correo.retencion.espera-bloqueo-segundos:5}")
+    private int esperaBloqueoSegundos;
+    @Value("${correo.retencion.duracion-maxima-horas:6}")
+    private long duracionMaximaHoras;
+
+    public RetencionAlertasService(AlertaRepository alertaRepository, ParticionesAlertaRepository particionesRepository,
+                                   BloqueoRepository bloqueoRepository, TramaService tramaService,
+                                   TramaRepository tramaRepository, ObjectMapper objectMapper) {
+        this.alertaRepository = alertaRepository;
+        this.particionesRepository = particionesRepository;
+        this.bloqueoRepository = bloqueoRepository;
+        this.tramaService = tramaService;
+        this.tramaRepository = tramaRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Scheduled(cron = "${correo.retencion.cron:0 30 2 * * *}")
+    public void aplicarRetencion() {
+        YearMonth actual = YearMonth.now();
+        // Se conservan el mes en curso y los 'meses' anteriores
+        YearMonth primerMesRetenido = actual.minusMonths(meses);
+        String ejecucion = UUID.randomUUID().toString();
+
+        try {
+            // El bloqueo vence solo si la instancia que lo tomó cae sin liberarlo
+            LocalDateTime ahora = LocalDateTime.now();
+            bloqueoRepository.registrar(BLOQUEO, INICIO);
+            if (bloqueoRepository.tomar(BLOQUEO, ejecucion, ahora, ahora.plusHours(duracionMaximaHoras)) == 0) {
+                log.info("La retención de alertas se está ejecutando en otra instancia");
+                return;
+            }
+        } catch (DataAccessException e) {
+            log.error("No se pudo tomar el bloqueo de la retención de alertas: {}", e.getMessage(), e);
+            return;
+        }
+
+        try {
+            List<Particion> particiones = particionesRepository.listar();
+            if (particiones.isEmpty()) {
+                purgarPorLotes(primerMesRetenido);
+            } else {
+                crearParticiones(particiones, actual.plusMonths(mesesAdelantados));
+                eliminarParticiones(particiones, primerMesRetenido);
+            }
+            purgarTramas(inicio(primerMesRetenido));
+        } catch (IOException | DataAccessException e) {
+            log.error("Error en la retención de alertas: {}", e.getMessage(), e);
+        } finally {
+            bloqueoRepository.liberar(BLOQUEO, ejecucion, LocalDateTime.now());
+        }
+    }
+
+    /**
+     * Crea las particiones que faltan hasta el mes indicado para que los INSERT nunca caigan en pFUTURO
+     */
+    private void crearParticiones(List<Particion> particiones, YearMonth hasta) {
+        YearMonth ultimo = particiones.get(particiones.size() - 1).mes();
+        if (ultimo.isBefore(hasta)) {
+            particionesRepository.crear(ultimo.plusMonths(1), hasta, esperaBloqueoSegundos);
+            log.info("Particiones de MOM_MAE_ALERTA creadas de {} a {}",
+                    ParticionesAlertaRepository.nombre(ultimo.plusMonths(1)), ParticionesAlertaRepository.nombre(hasta));
+        }
+    }
+
+    private void eliminarParticiones(List<Particion> particiones, YearMonth primerMesRetenido) throws IOException {
+        LocalDateTime desde = INICIO;
+        for (Particion particion : particiones) {
+            if (!particion.mes().isBefore(primerMesRetenido)) {
+                return;
+            }
+            LocalDateTime hasta = inicio(particion.mes().plusMonths(1));
+            if (!archivarVerificado(particion.mes(), desde, hasta)) {
+                return;
+            }
+            particionesRepository.eliminar(particion, esperaBloqueoSegundos);
+            log.info("Partición {} de MOM_MAE_ALERTA archivada y eliminada", particion.nombre());
+            desde = hasta;
+        }
+    }
+
+    /**
+     * Archiva mes a mes las alertas anteriores al primer mes retenido y luego las elimina en lotes
+     */
+    private void purgarPorLotes(YearMonth primerMesRetenido) throws IOException {
+        LocalDateTime hasta = inicio(primerMesRetenido);
+        LocalDateTime masAntigua = alertaRepository.buscarFechaMasAntigua();
+        if (masAntigua == null || !masAntigua.isBefore(hasta)) {
+            return;
+        }
+
+        for (YearMonth mes = YearMonth.from(masAntigua); mes.isBefore(primerMesRetenido); mes = mes.plusMonths(1)) {
+            if (!archivarVerificado(mes, inicio(mes), inicio(mes.plusMonths(1)))) {
+                return;
+            }
+        }
+
+        long eliminadas = 0;
+        List<Long> ids;
+        while (!(ids = alertaRepository.buscarIdsAnterioresA(hasta, PageRequest.of(0, lote))).isEmpty()) {
+            eliminadas += alertaRepository.eliminarPorIds(ids);
+            if (!pausar()) {
+                break;
+            }
+        }
+        log.info("Retención de alertas: {} alertas anteriores a {} eliminadas", eliminadas, hasta.toLocalDate());
+    }
+
+    /**
+     * Elimina en lotes las tramas sin alertas que no se usan desde antes de la fecha indicada.
+     * Se recorren por hash para no volver a leer las que una alerta nueva reutilizó entre la
+     * búsqueda y la eliminación.
+     */
+    private void purgarTramas(LocalDateTime hasta) {
+        long eliminadas = 0;
+        String desde = "";
+        List<String> hashes;
+        while (!(hashes = tramaRepository.buscarHuerfanas(desde, hasta, PageRequest.of(0, lote))).isEmpty()) {
+            eliminadas += tramaRepository.eliminarHuerfanas(hashes, hasta);
+            desde = hashes.get(hashes.size() - 1);
+            if (!pausar()) {
+                break;
+            }
+        }
+        log.info("Retención de alertas: {} tramas sin alertas eliminadas", eliminadas);
+    }
+
+    /**
+     * Archiva el mes y verifica que el archivo tenga todas sus alertas; si no, el mes no debe eliminarse
+     */
+    private boolean archivarVerificado(YearMonth mes, LocalDateTime desde, LocalDateTime hasta) throws IOException {
+        long archivadas = archivar(mes, desde, hasta);
+        long registradas = alertaRepository.contarEntre(desde, hasta);
+        if (archivadas != registradas) {
+            log.error("El archivo de {} tiene {} alertas y la BD {}; el mes no se elimina", mes, archivadas, registradas);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Escribe las alertas del rango, con su trama, en MOM_MAE_ALERTA-AAAAMM.ndjson.gz y retorna
+     * cuántas contiene. El archivo se escribe con otro nombre y se publica al completarse sin
+     * reemplazar uno existente; si ya existe, el mes ya fue archivado en una ejecución anterior
+     * que no llegó a eliminarlo y se retorna la cantidad de alertas que contiene.
+     */
+    long archivar(YearMonth mes, LocalDateTime desde, LocalDateTime hasta) throws IOException {
+        Path carpeta = Path.of(directorio);
+        Path destino = carpeta.resolve("MOM_MAE_ALERTA-" + ParticionesAlertaRepository.nombre(mes).substring(1) + ".ndjson.gz");
+        if (Files.exists(destino)) {
+            log.info("El archivo {} ya existe, no se vuelve a generar", destino);
+            return contarLineas(destino);
+        }
+
+        Files.createDirectories(carpeta);
+        Path temporal = carpeta.resolve(destino.getFileName() + ".tmp");
+        long alertas = 0;
+
+        try (FileOutputStream archivo = new FileOutputStream(temporal.toFile());
+             GZIPOutputStream gzip = new GZIPOutputStream(new BufferedOutputStream(archivo, 64 * 1024));
+             Writer writer = new OutputStreamWriter(gzip, StandardCharsets.UTF_8)) {
+
+            LocalDateTime fecha = desde;
+            Long idAlerta = -1L;
+            List<Alerta> pagina;
+            while (!(pagina = alertaRepository.buscarParaArchivo(hasta, fecha, idAlerta, PageRequest.of(0, lote))).isEmpty()) {
+                Map<String, String> tramas = tramaService.leer(pagina.stream()
+                        .map(Alerta::getHashTrama).filter(Objects::nonNull).distinct().toList());
+                for (Alerta alerta : pagina) {
+                    if (alerta.getHashTrama() != null) {
+                        alerta.setTrama(tramas.get(alerta.getHashTrama()));
+                    } else {
+                        tramaService.cargar(alerta);
+                    }
+                    writer.write(objectMapper.writeValueAsString(alerta));
+                    writer.write('\n');
+                }
+                alertas += pagina.size();
+
+                Alerta ultima = pagina.get(pagina.size() - 1);
+                fecha = ultima.getFechaCreacion();
+                idAlerta = ultima.getIdAlerta();
+            }
+
+            writer.flush();
+            gzip.finish();
+            gzip.flush();
+            archivo.getFD().sync();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporal);
+            throw e;
+        }
+
+        try {
+            if (alertas == 0) {
+                return 0;
+            }
+            publicar(temporal, destino);
+        } catch (FileAlreadyExistsException e) {
+            log.warn("El archivo {} se publicó mientras se generaba, se conserva el existente", destino);
+            return contarLineas(destino);
+        } finally {
+            Files.deleteIfExists(temporal);
+        }
+        log.info("Archivadas {} alertas de {} en {}", alertas, mes, destino);
+        return alertas;
+    }
+
+    /**
+     * Publica el archivo temporal con el nombre final. El enlace falla si el destino existe;
+     * un renombrado atómico lo reemplazaría.
+     */
+    private static void publicar(Path temporal, Path destino) throws IOException {
+        try {
+            Files.createLink(destino, temporal);
+        } catch (UnsupportedOperationException e) {
+            // Sin enlaces duros: move sin REPLACE_EXISTING también falla si el destino existe
+            Files.move(temporal, destino);
+        }
+    }
+
+    private static long contarLineas(Path archivo) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(archivo)), StandardCharsets.UTF_8))) {
+            return reader.lines().count();
+        }
+    }
+
+    private boolean pausar() {
+        try {
+            Thread.sleep(pausaMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static LocalDateTime inicio(YearMonth mes) {
+        return mes.atDay(1).atStartOfDay();
+    }
+}
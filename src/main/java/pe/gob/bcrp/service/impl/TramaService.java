@@ -0,0 +1,219 @@
+package pe.gob.bcrp.service.impl;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import pe.gob.bcrp.model.entity.Alerta;
+import pe.gob.bcrp.model.entity.Trama;
+import pe.gob.bcrp.repository.AlertaRepository;
+import pe.gob.bcrp.repository.TramaRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Almacenamiento de tramas por contenido: cada trama distinta se guarda una sola vez,
+ * comprimida, bajo su SHA-256. Las alertas solo referencian el hash y la trama se carga
+ * cuando hace falta renderizar el correo.
+ * <p>
+ * Cada registro de una alerta actualiza FEC_USO de su trama (a lo más una vez por
+ * correo.trama.renovar-uso-ms si la trama está en caché): la retención solo elimina tramas
+ * sin alertas y sin uso desde antes del periodo retenido, así que nunca una recién reutilizada.
+ */
+@Log4j2
+@Service
+public class TramaService {
+
+    private final TramaRepository tramaRepository;
+    private final AlertaRepository alertaRepository;
+    // LRU acotado por cantidad y por caracteres: unas pocas tramas grandes no deben llenar el heap
+    private final Map<String, Entrada> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private final int tamanoCache;
+    private final long caracteresMaximos;
+    private long caracteresEnCache;
+
+    @Value("${correo.trama.renovar-uso-ms:3600000}")
+    private long renovarUsoMs = 3600000;
+
+    /**
+     * Trama en caché e instante (System.nanoTime()) en que esta instancia registró su uso en BD;
+     * SIN_USO si solo se leyó
+     */
+    private record Entrada(String trama, long usoRegistrado) {
+    }
+
+    private static final long SIN_USO = Long.MIN_VALUE;
+
+    public TramaService(TramaRepository tramaRepository, AlertaRepository alertaRepository,
+                        @Value("${correo.trama.cache-tamano:512}") int tamanoCache,
+                        @Value("${correo.trama.cache-caracteres:8388608}") long caracteresMaximos) {
+        this.tramaRepository = tramaRepository;
+        this.alertaRepository = alertaRepository;
+        this.tamanoCache = tamanoCache;
+        this.caracteresMaximos = caracteresMaximos;
+    }
+
+    /**
+     * Registra la trama si aún no existe y retorna su hash
+     */
+    public String guardar(String trama) {
+        if (trama == null) {
+            return null;
+        }
+
+        byte[] bytes = trama.getBytes(StandardCharsets.UTF_8);
+        String hash = calcularHash(bytes);
+        if (usoVigente(hash)) {
+            return hash;
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        if (tramaRepository.insertarSiNoExiste(hash, comprimir(bytes), bytes.length, ahora) == 0) {
+            tramaRepository.registrarUso(hash, ahora);
+        }
+        long usoRegistrado = System.nanoTime();
+
+        // Solo se recuerda cuando la fila quedó confirmada; un rollback no debe dejar hashes huérfanos
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recordar(hash, trama, usoRegistrado);
+                }
+            });
+        } else {
+            recordar(hash, trama, usoRegistrado);
+        }
+        return hash;
+    }
+
+    /**
+     * Obtiene el contenido de la trama a partir de su hash
+     */
+    public String obtener(String hash) {
+        if (hash == null) {
+            return null;
+        }
+
+        synchronized (cache) {
+            Entrada entrada = cache.get(hash);
+            if (entrada != null) {
+                return entrada.trama();
+            }
+        }
+
+        return tramaRepository.findById(hash)
+                .map(registro -> {
+                    String trama = new String(descomprimir(registro.getContenido()), StandardCharsets.UTF_8);
+                    recordar(hash, trama, SIN_USO);
+                    return trama;
+                })
+                .orElseGet(() -> {
+                    log.warn("No se encontró la trama con hash: {}", hash);
+                    return null;
+                });
+    }
+
+    /**
+     * Completa la trama de una alerta persistida. Las alertas anteriores al almacenamiento
+     * por hash se leen de la columna en línea.
+     */
+    public void cargar(Alerta alerta) {
+        if (alerta.getTrama() != null) {
+            return;
+        }
+        if (alerta.getHashTrama() != null) {
+            alerta.setTrama(obtener(alerta.getHashTrama()));
+        } else if (alerta.getIdAlerta() != null) {
+            alerta.setTrama(alertaRepository.buscarTramaEnLinea(alerta.getIdAlerta()));
+        }
+    }
+
+    /**
+     * Lee las tramas indicadas sin pasar por la caché, para no desplazar las tramas recientes
+     * en lecturas masivas de alertas antiguas
+     */
+    public Map<String, String> leer(Collection<String> hashes) {
+        Map<String, String> tramas = new HashMap<>(hashes.size() * 2);
+        for (Trama registro : tramaRepository.findAllById(hashes)) {
+            tramas.put(registro.getHashTrama(), new String(descomprimir(registro.getContenido()), StandardCharsets.UTF_8));
+        }
+        return tramas;
+    }
+
+    /**
+     * true si la trama está en caché y esta instancia registró su uso hace menos de renovarUsoMs
+     */
+    private boolean usoVigente(String hash) {
+        synchronized (cache) {
+            Entrada entrada = cache.get(hash);
+            return entrada != null && entrada.usoRegistrado() != SIN_USO
+                    && System.nanoTime() - entrada.usoRegistrado() < TimeUnit.MILLISECONDS.toNanos(renovarUsoMs);
+        }
+    }
+
+    private void recordar(String hash, String trama, long usoRegistrado) {
+        if (trama.length() > caracteresMaximos) {
+            return;
+        }
+        synchronized (cache) {
+            Entrada anterior = cache.put(hash, new Entrada(trama, usoRegistrado));
+            caracteresEnCache += trama.length() - (anterior == null ? 0 : anterior.trama().length());
+            // Desaloja las menos usadas hasta volver a los dos límites
+            Iterator<Entrada> antiguas = cache.values().iterator();
+            while (caracteresEnCache > caracteresMaximos || cache.size() > tamanoCache) {
+                caracteresEnCache -= antiguas.next().trama().length();
+                antiguas.remove();
+            }
+        }
+    }
+
+    long caracteresEnCache() {
+        synchronized (cache) {
+            return caracteresEnCache;
+        }
+    }
+
+    private static String calcularHash(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    private static byte[] comprimir(byte[] bytes) {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(Math.max(64, bytes.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al comprimir la trama", e);
+        }
+        return salida.toByteArray();
+    }
+
+    private static byte[] descomprimir(byte[] bytes) {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return gzip.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error al descomprimir la trama", e);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package pe.gob.bcrp.service.impl;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import pe.gob.bcrp.service.ITrazabilidadService;
+import pe.gob.bcrp.traceability.service.ITraceabilityService;
+import pe.gob.bcrp.util.BufferCircular;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Decorador asíncrono de ITraceabilityService: los eventos se encolan en un buffer
+ * circular sin bloqueos y un hilo de fondo los entrega al servicio de trazabilidad
+ * por lotes. Los mensajes se construyen recién al escribirse.
+ */
+@Log4j2
+@Service
+public class TrazabilidadBufferService implements ITrazabilidadService, MeterBinder {
+
+    /**
+     * Qué hacer cuando el buffer está lleno
+     */
+    public enum PoliticaDesborde {
+        /** Espera a que el consumidor libere espacio */
+        BLOQUEAR,
+        /** Descarta el evento */
+        DESCARTAR,
+        /** Conserva uno de cada N eventos (esperando espacio) y descarta el resto */
+        MUESTREAR
+    }
+
+    private record Evento(boolean exito, String tipoEvento, String procesoId, Supplier<String> mensaje) {
+    }
+
+    private final ITraceabilityService delegate;
+    private final BufferCircular<Evento> buffer;
+    private final LongAdder descartados = new LongAdder();
+    private final AtomicLong desbordes = new AtomicLong();
+    private final PoliticaDesborde politica;
+    private final int tamanoLote;
+    private final int muestreo;
+    private final long esperaConsumidorNanos;
+
+    private volatile boolean activo;
+    private Thread consumidor;
+
+    public TrazabilidadBufferService(ITraceabilityService delegate,
+                                     @Value("${correo.trazabilidad.capacidad:8192}") int capacidad,
+                                     @Value("${correo.trazabilidad.lote:256}") int tamanoLote,
+                                     @Value("${correo.trazabilidad.politica:BLOQUEAR}") PoliticaDesborde politica,
+                                     @Value("${correo.trazabilidad.muestreo:10}") int muestreo,
+                                     @Value("${correo.trazabilidad.espera-consumidor-ms:5}") long esperaConsumidorMs) {
+        this.delegate = delegate;
+        this.buffer = new BufferCircular<>(capacidad);
+        this.tamanoLote = tamanoLote;
+        this.politica = politica;
+        this.muestreo = Math.max(1, muestreo);
+        this.esperaConsumidorNanos = TimeUnit.MILLISECONDS.toNanos(esperaConsumidorMs);
+    }
+
+    @PostConstruct
+    public void iniciar() {
+        activo = true;
+        consumidor = new Thread(this::consumir, "trazabilidad-buffer");
+        consumidor.setDaemon(true);
+        consumidor.start();
+    }
+
+    /**
+     * Detiene el consumidor y entrega los eventos pendientes antes de cerrar el contexto
+     */
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        activo = false;
+        LockSupport.unpark(consumidor);
+        consumidor.join(TimeUnit.SECONDS.toMillis(30));
+        if (!consumidor.isAlive()) {
+            // Eventos encolados por productores que coincidieron con el cierre
+            while (drenar(Integer.MAX_VALUE) > 0) {
+                // continúa hasta vaciar el buffer
+            }
+        }
+        if (descartados.sum() > 0) {
+            log.warn("Se descartaron {} eventos de trazabilidad por buffer lleno", descartados.sum());
+        }
+    }
+
+    @Override
+    public void logSuccess(String tipoEvento, String procesoId, String mensaje) {
+        encolar(new Evento(true, tipoEvento, procesoId, () -> mensaje));
+    }
+
+    @Override
+    public void logSuccess(String tipoEvento, String procesoId, Supplier<String> mensaje) {
+        encolar(new Evento(true, tipoEvento, procesoId, mensaje));
+    }
+
+    @Override
+    public void logError(String tipoEvento, String procesoId, String mensaje) {
+        encolar(new Evento(false, tipoEvento, procesoId, () -> mensaje));
+    }
+
+    @Override
+    public void logError(String tipoEvento, String procesoId, Supplier<String> mensaje) {
+        encolar(new Evento(false, tipoEvento, procesoId, mensaje));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("correo.trazabilidad.buffer", buffer, BufferCircular::size)
+                .description("Eventos de trazabilidad pendientes de escribir")
+                .register(registry);
+        FunctionCounter.builder("correo.trazabilidad.descartados", descartados, LongAdder::sum)
+                .description("Eventos de trazabilidad descartados por buffer lleno")
+                .register(registry);
+    }
+
+    private void encolar(Evento evento) {
+        if (!activo) {
+            escribir(evento);
+            return;
+        }
+        if (buffer.offer(evento)) {
+            return;
+        }
+
+        switch (politica) {
+            case BLOQUEAR -> esperarEspacio(evento);
+            case DESCARTAR -> descartados.increment();
+            case MUESTREAR -> {
+                if (desbordes.incrementAndGet() % muestreo == 0) {
+                    esperarEspacio(evento);
+                } else {
+                    descartados.increment();
+                }
+            }
+        }
+    }
+
+    private void esperarEspacio(Evento evento) {
+        while (!buffer.offer(evento)) {
+            if (!activo) {
+                escribir(evento);
+                return;
+            }
+            LockSupport.unpark(consumidor);
+            LockSupport.parkNanos(50_000);
+        }
+    }
+
+    private void consumir() {
+        while (activo) {
+            if (drenar(tamanoLote) == 0) {
+                LockSupport.parkNanos(this, esperaConsumidorNanos);
+            }
+        }
+    }
+
+    private int drenar(int maximo) {
+        int escritos = 0;
+        Evento evento;
+        while (escritos < maximo && (evento = buffer.poll()) != null) {
+            escribir(evento);
+            escritos++;
+        }
+        return escritos;
+    }
+
+    private void escribir(Evento evento) {
+        try {
+            if (evento.exito()) {
+                delegate.logSuccess(evento.tipoEvento(), evento.procesoId(), evento.mensaje().get());
+            } else {
+                delegate.logError(evento.tipoEvento(), evento.procesoId(), evento.mensaje().get());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Error al escribir evento de trazabilidad {} del proceso {}",
+                    evento.tipoEvento(), evento.procesoId(), e);
+        }
+    }
+}
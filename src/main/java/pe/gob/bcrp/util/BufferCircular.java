@@ -0,0 +1,90 @@
+package pe.gob.bcrp.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Buffer circular acotado sin bloqueos para varios productores y un solo consumidor.
+ * Cada celda tiene un número de secuencia que indica si está libre para el productor
+ * de esa vuelta o publicada para el consumidor (algoritmo de D. Vyukov).
+ */
+public final class BufferCircular<E> {
+
+    private final int mascara;
+    private final AtomicReferenceArray<E> elementos;
+    private final AtomicLongArray secuencias;
+    private final AtomicLong posicionEscritura = new AtomicLong();
+    private final AtomicLong posicionLectura = new AtomicLong();
+
+    /**
+     * @param capacidad se redondea a la siguiente potencia de 2
+     */
+    public BufferCircular(int capacidad) {
+        if (capacidad < 2) {
+            throw new IllegalArgumentException("La capacidad debe ser al menos 2");
+        }
+        int tamano = Integer.highestOneBit(capacidad - 1) << 1;
+        this.mascara = tamano - 1;
+        this.elementos = new AtomicReferenceArray<>(tamano);
+        this.secuencias = new AtomicLongArray(tamano);
+        for (int i = 0; i < tamano; i++) {
+            secuencias.set(i, i);
+        }
+    }
+
+    /**
+     * Agrega un elemento; retorna false si el buffer está lleno
+     */
+    public boolean offer(E elemento) {
+        long posicion = posicionEscritura.get();
+        while (true) {
+            int indice = (int) (posicion & mascara);
+            long diferencia = secuencias.get(indice) - posicion;
+
+            if (diferencia == 0) {
+                if (posicionEscritura.compareAndSet(posicion, posicion + 1)) {
+                    elementos.lazySet(indice, elemento);
+                    // Publica la celda al consumidor
+                    secuencias.set(indice, posicion + 1);
+                    return true;
+                }
+                posicion = posicionEscritura.get();
+            } else if (diferencia < 0) {
+                return false;
+            } else {
+                posicion = posicionEscritura.get();
+            }
+        }
+    }
+
+    /**
+     * Retira el siguiente elemento o retorna null si está vacío. Solo lo invoca el consumidor.
+     */
+    public E poll() {
+        long posicion = posicionLectura.get();
+        int indice = (int) (posicion & mascara);
+        if (secuencias.get(indice) != posicion + 1) {
+            return null;
+        }
+
+        E elemento = elementos.get(indice);
+        elementos.lazySet(indice, null);
+        // Libera la celda para la siguiente vuelta de los productores
+        secuencias.set(indice, posicion + mascara + 1);
+        posicionLectura.lazySet(posicion + 1);
+        return elemento;
+    }
+
+    public int size() {
+        return (int) Math.max(0, posicionEscritura.get() - posicionLectura.get());
+    }
+
+    public int capacidad() {
+        return mascara + 1;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -0,0 +1,128 @@
+package pe.gob.bcrp.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contador de eventos por ventana deslizante sin bloqueos: un anillo de 60 minutos y otro
+ * de 24 horas. Cada celda empaqueta en un long el periodo al que pertenece (32 bits altos)
+ * y la cantidad (32 bits bajos), de modo que reiniciar una celda vencida y sumarle es un
+ * solo compareAndSet. Las celdas se reparten en franjas por hilo para que los hilos que
+ * registran la misma clave no compitan por la misma celda.
+ * <p>
+ * Los periodos se expresan en minutos desde la época; la ventana de horas tiene resolución
+ * de una hora.
+ */
+public final class ContadorRodante {
+
+    public static final int MINUTOS = 60;
+    public static final int HORAS = 24;
+
+    private static final long MASCARA_CANTIDAD = 0xFFFF_FFFFL;
+
+    private final int franjas;
+    private final AtomicLongArray minutos;
+    private final AtomicLongArray horas;
+
+    /**
+     * @param franjas se redondea a la siguiente potencia de 2
+     */
+    public ContadorRodante(int franjas) {
+        this.franjas = franjas <= 1 ? 1 : Integer.highestOneBit(franjas - 1) << 1;
+        this.minutos = new AtomicLongArray(this.franjas * MINUTOS);
+        this.horas = new AtomicLongArray(this.franjas * HORAS);
+    }
+
+    /**
+     * Suma la cantidad al minuto indicado si aún está dentro de las ventanas respecto del
+     * minuto actual. Una cantidad negativa solo descuenta de celdas de ese mismo periodo.
+     */
+    public void sumar(long minuto, long minutoActual, int cantidad) {
+        if (cantidad == 0 || minuto > minutoActual) {
+            return;
+        }
+        if (minutoActual - minuto < MINUTOS) {
+            acumular(minutos, MINUTOS, minuto, cantidad);
+        }
+        long hora = minuto / MINUTOS;
+        if (minutoActual / MINUTOS - hora < HORAS) {
+            acumular(horas, HORAS, hora, cantidad);
+        }
+    }
+
+    /**
+     * Eventos de los últimos n minutos (n <= 60), incluido el minuto actual
+     */
+    public long contarMinutos(long minutoActual, int n) {
+        return contar(minutos, minutoActual - Math.min(n, MINUTOS), minutoActual);
+    }
+
+    /**
+     * Eventos de las últimas n horas (n <= 24), incluida la hora en curso
+     */
+    public long contarHoras(long minutoActual, int n) {
+        long horaActual = minutoActual / MINUTOS;
+        return contar(horas, horaActual - Math.min(n, HORAS), horaActual);
+    }
+
+    private void acumular(AtomicLongArray celdas, int tamanoAnillo, long periodo, int cantidad) {
+        int propia = (int) (Thread.currentThread().threadId() & (franjas - 1));
+        int posicion = (int) (periodo % tamanoAnillo);
+
+        if (cantidad > 0) {
+            acumularEnCelda(celdas, propia * tamanoAnillo + posicion, periodo, cantidad);
+            return;
+        }
+
+        // El evento pudo sumarse en otra franja: se descuenta de la primera que tenga saldo
+        int restante = -cantidad;
+        for (int i = 0; i < franjas && restante > 0; i++) {
+            int franja = (propia + i) & (franjas - 1);
+            restante -= descontarEnCelda(celdas, franja * tamanoAnillo + posicion, periodo, restante);
+        }
+    }
+
+    private static void acumularEnCelda(AtomicLongArray celdas, int indice, long periodo, int cantidad) {
+        while (true) {
+            long actual = celdas.get(indice);
+            long periodoCelda = actual >>> 32;
+            long nuevo;
+            if (periodoCelda == periodo) {
+                nuevo = actual + cantidad;
+            } else if (periodoCelda < periodo) {
+                nuevo = (periodo << 32) | cantidad;
+            } else {
+                // La celda ya pertenece a un periodo más reciente: el evento quedó fuera de la ventana
+                return;
+            }
+            if (celdas.compareAndSet(indice, actual, nuevo)) {
+                return;
+            }
+        }
+    }
+
+    private static int descontarEnCelda(AtomicLongArray celdas, int indice, long periodo, int cantidad) {
+        while (true) {
+            long actual = celdas.get(indice);
+            long saldo = actual & MASCARA_CANTIDAD;
+            if (actual >>> 32 != periodo || saldo == 0) {
+                return 0;
+            }
+            int descontado = (int) Math.min(saldo, cantidad);
+            if (celdas.compareAndSet(indice, actual, actual - descontado)) {
+                return descontado;
+            }
+        }
+    }
+
+    private static long contar(AtomicLongArray celdas, long desdeExclusivo, long hasta) {
+        long total = 0;
+        for (int i = 0; i < celdas.length(); i++) {
+            long celda = celdas.get(i);
+            long periodo = celda >>> 32;
+            if (periodo > desdeExclusivo && periodo <= hasta) {
+                total += celda & MASCARA_CANTIDAD;
+            }
+        }
+        return total;
+    }
+}
@@ -1,10 +1,12 @@
 package pe.gob.bcrp.util;
 
+import jakarta.mail.internet.InternetAddress;
 import lombok.extern.log4j.Log4j2;
 
 import java.util.ArrayList;
-import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @Log4j2
 public class EmailUtils {
@@ -42,34 +44,103 @@ public class EmailUtils {
     }
 
     /**
-     * Parsea una cadena de direcciones de email separadas por comas o punto y coma
-     * y retorna los resultados de validación para cada email
-     * @param emails String con emails separados por , o ;
-     * @return Lista de EmailValidationResult con el resultado de cada email
+     * Resultado de recorrer una lista de destinatarios: la validación de cada elemento y las
+     * direcciones válidas listas para el mensaje
      */
-    public static List<EmailValidationResult> parseAndValidateEmailAddresses(String emails) {
-        List<EmailValidationResult> results = new ArrayList<>();
+    public record Destinatarios(List<EmailValidationResult> resultados, InternetAddress[] direcciones) {
 
-        if (emails == null || emails.trim().isEmpty()) {
-            results.add(new EmailValidationResult("", false, "No se proporcionaron emails"));
-            return results;
+        public boolean sonValidos() {
+            for (EmailValidationResult resultado : resultados) {
+                if (!resultado.isValid()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private record DireccionValidada(EmailValidationResult resultado, InternetAddress direccion) {
+    }
+
+    private static final int CAPACIDAD_CACHE = 1024;
+    private static final InternetAddress[] SIN_DIRECCIONES = new InternetAddress[0];
+
+    /**
+     * Direcciones ya validadas; las listas de destinatarios se repiten en casi todas las alertas.
+     * Solo se guardan direcciones válidas para que entradas basura no desplacen a las frecuentes.
+     */
+    private static final Map<String, DireccionValidada> VALIDADAS = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, DireccionValidada> eldest) {
+            return size() > CAPACIDAD_CACHE;
         }
+    };
 
-        // Separar por coma o punto y coma
-        String[] emailArray = emails.split("[,;]");
+    /**
+     * Recorre una sola vez la cadena de destinatarios separados por , o ; y retorna la
+     * validación de cada elemento junto con las direcciones válidas
+     * @param emails String con emails separados por , o ;
+     * @return Destinatarios con los resultados y las direcciones válidas
+     */
+    public static Destinatarios parsearDestinatarios(String emails) {
+        if (emails == null || emails.trim().isEmpty()) {
+            return new Destinatarios(List.of(new EmailValidationResult("", false, "No se proporcionaron emails")),
+                    SIN_DIRECCIONES);
+        }
 
-        for (String email : emailArray) {
-            String trimmedEmail = email.trim();
-            if (trimmedEmail.isEmpty()) {
-                results.add(new EmailValidationResult(trimmedEmail, false, "Email vacío"));
-                continue;
+        List<EmailValidationResult> resultados = new ArrayList<>(4);
+        List<InternetAddress> direcciones = new ArrayList<>(4);
+        // Elementos de longitud cero; como en String.split, los del final se descartan
+        int vaciosPendientes = 0;
+
+        int longitud = emails.length();
+        int inicio = 0;
+        while (inicio <= longitud) {
+            int fin = inicio;
+            while (fin < longitud && emails.charAt(fin) != ',' && emails.charAt(fin) != ';') {
+                fin++;
             }
 
-            EmailValidationResult result = validateEmail(trimmedEmail);
-            results.add(result);
+            if (fin == inicio) {
+                vaciosPendientes++;
+            } else {
+                for (; vaciosPendientes > 0; vaciosPendientes--) {
+                    resultados.add(new EmailValidationResult("", false, "Email vacío"));
+                }
+
+                int desde = inicio;
+                int hasta = fin;
+                while (desde < hasta && emails.charAt(desde) <= ' ') {
+                    desde++;
+                }
+                while (hasta > desde && emails.charAt(hasta - 1) <= ' ') {
+                    hasta--;
+                }
+
+                if (desde == hasta) {
+                    resultados.add(new EmailValidationResult("", false, "Email vacío"));
+                } else {
+                    DireccionValidada validada = validar(emails.substring(desde, hasta));
+                    resultados.add(validada.resultado());
+                    if (validada.direccion() != null) {
+                        direcciones.add(validada.direccion());
+                    }
+                }
+            }
+            inicio = fin + 1;
         }
 
-        return results;
+        return new Destinatarios(resultados, direcciones.toArray(SIN_DIRECCIONES));
+    }
+
+    /**
+     * Parsea una cadena de direcciones de email separadas por comas o punto y coma
+     * y retorna los resultados de validación para cada email
+     * @param emails String con emails separados por , o ;
+     * @return Lista de EmailValidationResult con el resultado de cada email
+     */
+    public static List<EmailValidationResult> parseAndValidateEmailAddresses(String emails) {
+        return parsearDestinatarios(emails).resultados();
     }
 
     /**
@@ -82,10 +153,12 @@ public class EmailUtils {
             return new String[0];
         }
 
-        return Arrays.stream(emails.split("[,;]"))
-                .map(String::trim)
-                .filter(email -> !email.isEmpty() && validateEmail(email).isValid())
-                .toArray(String[]::new);
+        InternetAddress[] direcciones = parsearDestinatarios(emails).direcciones();
+        String[] resultado = new String[direcciones.length];
+        for (int i = 0; i < direcciones.length; i++) {
+            resultado[i] = direcciones[i].getAddress();
+        }
+        return resultado;
     }
 
     /**
@@ -98,86 +171,98 @@ public class EmailUtils {
             return new EmailValidationResult(email, false, "Email vacío o nulo");
         }
 
-        email = email.trim();
+        return validar(email.trim()).resultado();
+    }
 
-        // Verificar si el email contiene @
-        if (!email.contains("@")) {
-            String message = "Email sin símbolo '@'";
-            log.warn("{}: {}", message, email);
-            return new EmailValidationResult(email, false, message);
+    private static DireccionValidada validar(String email) {
+        synchronized (VALIDADAS) {
+            DireccionValidada validada = VALIDADAS.get(email);
+            if (validada != null) {
+                return validada;
+            }
         }
 
-        // Verificar si el email termina solo con @ (incompleto)
-        if (email.endsWith("@")) {
-            String message = "Email incompleto (termina en '@')";
+        String message = buscarError(email);
+        if (message != null) {
             log.warn("{}: {}", message, email);
-            return new EmailValidationResult(email, false, message);
+            return new DireccionValidada(new EmailValidationResult(email, false, message), null);
         }
 
-        // Verificar si el email empieza con @ (formato inválido)
-        if (email.startsWith("@")) {
-            String message = "Email con formato inválido (empieza con '@')";
-            log.warn("{}: {}", message, email);
-            return new EmailValidationResult(email, false, message);
+        // La dirección ya cumple un formato más estricto que el de InternetAddress, no se vuelve a parsear
+        InternetAddress direccion = new InternetAddress();
+        direccion.setAddress(email);
+        DireccionValidada validada = new DireccionValidada(new EmailValidationResult(email, true, "Email válido"), direccion);
+        synchronized (VALIDADAS) {
+            VALIDADAS.put(email, validada);
         }
+        return validada;
+    }
 
-        // Contar cuántos @ tiene (debe ser exactamente 1)
-        long atCount = email.chars().filter(ch -> ch == '@').count();
-        if (atCount != 1) {
-            String message = "Email con múltiples '@' o sin '@'";
-            log.warn("{}: {}", message, email);
-            return new EmailValidationResult(email, false, message);
+    /**
+     * Aplica las reglas de validación en un recorrido de la dirección y retorna el mensaje
+     * de la primera que falla, en el mismo orden de siempre, o null si es válida. La última
+     * regla equivale a la expresión
+     * ^[a-zA-Z0-9]([a-zA-Z0-9._%-]*[a-zA-Z0-9])?@[a-zA-Z0-9]([a-zA-Z0-9.-]*[a-zA-Z0-9])?\.[a-zA-Z]{2,}$
+     */
+    private static String buscarError(String email) {
+        int longitud = email.length();
+        int arroba = -1;
+        int arrobas = 0;
+        int ultimoPunto = -1;
+        for (int i = 0; i < longitud; i++) {
+            char c = email.charAt(i);
+            if (c == '@') {
+                arrobas++;
+                if (arroba < 0) {
+                    arroba = i;
+                }
+            } else if (c == '.') {
+                ultimoPunto = i;
+            }
         }
 
-        // Dividir por @ para validar partes
-        String[] parts = email.split("@");
-        if (parts.length != 2) {
-            String message = "Email con estructura inválida";
-            log.warn("{}: {}", message, email);
-            return new EmailValidationResult(email, false, message);
+        if (arrobas == 0) {
+            return "Email sin símbolo '@'";
         }
-
-        String localPart = parts[0];
-        String domainPart = parts[1];
-
-        // Validar parte local (antes del @)
-        if (localPart.isEmpty()) {
-            String message = "Email sin parte local (antes del '@')";
-            log.warn("{}: {}", message, email);
-            return new EmailValidationResult(email, false, message);
+        if (email.charAt(longitud - 1) == '@') {
+            return "Email incompleto (termina en '@')";
         }
-
-        // Validar parte del dominio (después del @)
-        if (domainPart.isEmpty()) {
-            String message = "Email sin dominio (después del '@')";
-            log.warn("{}: {}", message, email);
-            return new EmailValidationResult(email, false, message);
+        if (arroba == 0) {
+            return "Email con formato inválido (empieza con '@')";
         }
-
-        // Verificar que el dominio tenga al menos un punto
-        if (!domainPart.contains(".")) {
-            String message = "Email con dominio sin punto";
-            log.warn("{}: {}", message, email);
-            return new EmailValidationResult(email, false, message);
+        if (arrobas != 1) {
+            return "Email con múltiples '@' o sin '@'";
         }
-
-        // Verificar que no termine en punto
-        if (domainPart.endsWith(".")) {
-            String message = "Email con dominio que termina en punto";
-            log.warn("{}: {}", message, email);
-            return new EmailValidationResult(email, false, message);
+        if (ultimoPunto < arroba) {
+            return "Email con dominio sin punto";
+        }
+        if (ultimoPunto == longitud - 1) {
+            return "Email con dominio que termina en punto";
         }
 
-        // Expresión regular más completa para validación final
-        String emailPattern = "^[a-zA-Z0-9]([a-zA-Z0-9._%-]*[a-zA-Z0-9])?@[a-zA-Z0-9]([a-zA-Z0-9.-]*[a-zA-Z0-9])?\\.[a-zA-Z]{2,}$";
-        boolean isValidByRegex = email.matches(emailPattern);
-
-        if (!isValidByRegex) {
-            String message = "Email con formato inválido según validación regex";
-            log.warn("{}: {}", message, email);
-            return new EmailValidationResult(email, false, message);
+        boolean valido = esExtremo(email.charAt(0)) && esExtremo(email.charAt(arroba - 1))
+                && esExtremo(email.charAt(arroba + 1)) && esExtremo(email.charAt(ultimoPunto - 1))
+                && longitud - ultimoPunto - 1 >= 2;
+        for (int i = 1; valido && i < arroba - 1; i++) {
+            char c = email.charAt(i);
+            valido = esExtremo(c) || c == '.' || c == '_' || c == '%' || c == '-';
+        }
+        for (int i = arroba + 2; valido && i < ultimoPunto - 1; i++) {
+            char c = email.charAt(i);
+            valido = esExtremo(c) || c == '.' || c == '-';
+        }
+        for (int i = ultimoPunto + 1; valido && i < longitud; i++) {
+            char c = email.charAt(i);
+            valido = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
         }
 
-        return new EmailValidationResult(email, true, "Email válido");
+        return valido ? null : "Email con formato inválido según validación regex";
+    }
+
+    /**
+     * Caracter admitido al inicio y al final de la parte local y del dominio
+     */
+    private static boolean esExtremo(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
     }
-}
\ No newline at end of file
+}
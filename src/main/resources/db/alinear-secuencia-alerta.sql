@@ -0,0 +1,21 @@
+-- Alineación de MOM_SEQ_ALERTA con los IDs existentes de MOM_MAE_ALERTA (MySQL 8)
+--
+-- Se ejecuta una sola vez al migrar una BD en la que ID_ALERTA era AUTO_INCREMENT, antes de
+-- iniciar la versión que genera los IDs con MOM_SEQ_ALERTA. Con ddl-auto=update Hibernate
+-- crea la tabla con next_val = 1 y los INSERT chocarían con las alertas existentes.
+--
+-- El optimizador pooled (allocationSize = 50 en Alerta) lee next_val, lo incrementa en 50 y
+-- asigna los IDs de next_val - 49 a next_val: next_val debe superar en 50 el mayor ID.
+-- Si se cambia allocationSize, ajustar el 50 de abajo.
+
+CREATE TABLE IF NOT EXISTS MOM_SEQ_ALERTA (next_val BIGINT);
+
+INSERT INTO MOM_SEQ_ALERTA (next_val)
+SELECT 1 FROM DUAL WHERE NOT EXISTS (SELECT 1 FROM MOM_SEQ_ALERTA);
+
+-- GREATEST: nunca retrocede una secuencia que ya está en uso
+UPDATE MOM_SEQ_ALERTA
+SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(ID_ALERTA), 0) + 50 FROM MOM_MAE_ALERTA));
+
+-- Verificación: next_val - 49 debe ser mayor que el mayor ID_ALERTA
+-- SELECT s.next_val, (SELECT MAX(ID_ALERTA) FROM MOM_MAE_ALERTA) FROM MOM_SEQ_ALERTA s;
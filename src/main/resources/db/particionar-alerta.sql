@@ -0,0 +1,29 @@
+-- Particionado mensual de MOM_MAE_ALERTA por FEC_REG (MySQL 8)
+--
+-- Se ejecuta una sola vez, en una ventana de mantenimiento: el ALTER copia la tabla completa.
+-- Las particiones se llaman pAAAAMM y contienen las alertas registradas en ese mes; la
+-- primera (p202609 en este ejemplo) reúne todo el histórico anterior. pFUTURO queda vacía:
+-- RetencionAlertasService crea por adelantado las particiones de los meses siguientes,
+-- archiva las que superan la retención (correo.retencion.meses) y las elimina.
+--
+-- Ajustar los meses al momento de la ejecución.
+
+-- MySQL exige que la columna de particionado sea parte de toda clave única
+UPDATE MOM_MAE_ALERTA SET FEC_REG = COALESCE(FEC_ENVIO, '2000-01-01') WHERE FEC_REG IS NULL;
+
+ALTER TABLE MOM_MAE_ALERTA
+    MODIFY FEC_REG DATETIME(6) NOT NULL,
+    DROP PRIMARY KEY,
+    ADD PRIMARY KEY (ID_ALERTA, FEC_REG);
+
+ALTER TABLE MOM_MAE_ALERTA
+    PARTITION BY RANGE COLUMNS (FEC_REG) (
+        PARTITION p202609 VALUES LESS THAN ('2026-10-01'),
+        PARTITION p202610 VALUES LESS THAN ('2026-11-01'),
+        PARTITION p202611 VALUES LESS THAN ('2026-12-01'),
+        PARTITION p202612 VALUES LESS THAN ('2027-01-01'),
+        PARTITION pFUTURO VALUES LESS THAN (MAXVALUE)
+    );
+
+-- Verificación: las consultas con rango de FEC_REG solo deben leer las particiones del rango
+-- EXPLAIN SELECT COUNT(*) FROM MOM_MAE_ALERTA WHERE FEC_REG >= NOW() - INTERVAL 1 DAY;
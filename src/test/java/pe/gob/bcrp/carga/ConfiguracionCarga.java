@@ -0,0 +1,47 @@
+package pe.gob.bcrp.carga;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import pe.gob.bcrp.traceability.service.ITraceabilityService;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Beans que reemplazan dependencias externas durante la prueba de carga. Es una
+ * TestConfiguration para que el escaneo de componentes de otras pruebas no la incluya.
+ */
+@TestConfiguration(proxyBeanMethods = false)
+public class ConfiguracionCarga {
+
+    @Bean
+    public MedidorEtapas medidorEtapas() {
+        return new MedidorEtapas();
+    }
+
+    /**
+     * Trazabilidad simulada con la latencia configurada por evento
+     */
+    @Bean
+    @Primary
+    public ITraceabilityService trazabilidadSimulada(@Value("${carga.trazabilidad.latencia-ms:0}") long latenciaMs) {
+        return new ITraceabilityService() {
+            @Override
+            public void logSuccess(String tipoEvento, String procesoId, String mensaje) {
+                esperar();
+            }
+
+            @Override
+            public void logError(String tipoEvento, String procesoId, String mensaje) {
+                esperar();
+            }
+
+            private void esperar() {
+                if (latenciaMs > 0) {
+                    LockSupport.parkNanos(latenciaMs * 1_000_000);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,86 @@
+package pe.gob.bcrp.carga;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mide el tiempo acumulado en cada etapa del envío (BD, renderizado, SMTP y trazabilidad)
+ * interceptando los beans que la implementan. Solo se registra en la prueba de carga.
+ */
+@Aspect
+public class MedidorEtapas {
+
+    private final Map<String, Etapa> etapas = new ConcurrentHashMap<>();
+
+    public static final class Etapa {
+        private final LongAdder llamadas = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maximoNanos = new LongAccumulator(Math::max, 0);
+
+        void registrar(long nanos) {
+            llamadas.increment();
+            totalNanos.add(nanos);
+            maximoNanos.accumulate(nanos);
+        }
+
+        public long llamadas() {
+            return llamadas.sum();
+        }
+
+        public double totalMs() {
+            return totalNanos.sum() / 1_000_000.0;
+        }
+
+        public double promedioMs() {
+            long n = llamadas.sum();
+            return n == 0 ? 0 : totalMs() / n;
+        }
+
+        public double maximoMs() {
+            return maximoNanos.get() / 1_000_000.0;
+        }
+    }
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object medirBaseDatos(ProceedingJoinPoint punto) throws Throwable {
+        return medir("bd", punto);
+    }
+
+    @Around("execution(* pe.gob.bcrp.mail.RenderizadorPlantillas.renderizar(..))")
+    public Object medirRenderizado(ProceedingJoinPoint punto) throws Throwable {
+        return medir("renderizado", punto);
+    }
+
+    @Around("execution(* org.springframework.mail.javamail.JavaMailSender+.send(..))")
+    public Object medirSmtp(ProceedingJoinPoint punto) throws Throwable {
+        return medir("smtp", punto);
+    }
+
+    @Around("execution(* pe.gob.bcrp.service.ITrazabilidadService+.log*(..))")
+    public Object medirTrazabilidad(ProceedingJoinPoint punto) throws Throwable {
+        return medir("trazabilidad", punto);
+    }
+
+    public Map<String, Etapa> getEtapas() {
+        return etapas;
+    }
+
+    public void reiniciar() {
+        etapas.clear();
+    }
+
+    private Object medir(String etapa, ProceedingJoinPoint punto) throws Throwable {
+        long inicio = System.nanoTime();
+        try {
+            return punto.proceed();
+        } finally {
+            etapas.computeIfAbsent(etapa, nombre -> new Etapa()).registrar(System.nanoTime() - inicio);
+        }
+    }
+}
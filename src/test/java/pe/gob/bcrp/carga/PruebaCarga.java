@@ -0,0 +1,114 @@
+package pe.gob.bcrp.carga;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import pe.gob.bcrp.MomMsCorreoApplication;
+import pe.gob.bcrp.controller.EmailControllerThroughputBenchmark;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Prueba de carga de extremo a extremo de POST /correo sin dependencias externas: levanta
+ * el servicio con el perfil "carga" (H2 en memoria y SmtpSimulado), genera carga
+ * concurrente y reporta throughput, percentiles de latencia y el tiempo por etapa.
+ *
+ * Se ejecuta con {@code mvn -P carga verify} y se configura con propiedades del sistema:
+ * <pre>
+ *   carga.clientes=50            clientes HTTP concurrentes
+ *   carga.segundos=30            duración de la medición
+ *   carga.calentamiento=10       segundos de calentamiento, no se reportan
+ *   carga.smtp.latencia-ms=20    latencia del relay por mensaje
+ *   carga.smtp.tasa-fallos=0.0   fracción de mensajes rechazados por el relay
+ *   carga.trazabilidad.latencia-ms=0
+ *   carga.asincrono=true         valor de correo.despacho.asincrono
+ *   carga.agrupacion.ventana-ms=0  ventana de agrupación; la carga repite cámara y tipo de error
+ *   carga.hilos-virtuales=false  valor de spring.threads.virtual.enabled
+ * </pre>
+ */
+public class PruebaCarga {
+
+    public static void main(String[] args) throws Exception {
+        int clientes = Integer.getInteger("carga.clientes", 50);
+        int segundos = Integer.getInteger("carga.segundos", 30);
+        int calentamiento = Integer.getInteger("carga.calentamiento", 10);
+        long latenciaSmtp = Long.getLong("carga.smtp.latencia-ms", 20);
+        double tasaFallos = Double.parseDouble(System.getProperty("carga.smtp.tasa-fallos", "0"));
+        long latenciaTrazabilidad = Long.getLong("carga.trazabilidad.latencia-ms", 0);
+        boolean asincrono = Boolean.parseBoolean(System.getProperty("carga.asincrono", "true"));
+        long ventanaAgrupacion = Long.getLong("carga.agrupacion.ventana-ms", 0);
+        boolean hilosVirtuales = Boolean.getBoolean("carga.hilos-virtuales");
+
+        // El reinicio de devtools levantaría el contexto en otro hilo y cargador de clases
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        try (SmtpSimulado smtp = new SmtpSimulado(latenciaSmtp, tasaFallos);
+             ConfigurableApplicationContext contexto = new SpringApplicationBuilder(MomMsCorreoApplication.class, ConfiguracionCarga.class)
+                     .profiles("carga")
+                     .run(argumentos(args, Map.of(
+                             "server.port", "0",
+                             "spring.mail.port", String.valueOf(smtp.getPuerto()),
+                             "carga.trazabilidad.latencia-ms", String.valueOf(latenciaTrazabilidad),
+                             "correo.despacho.asincrono", String.valueOf(asincrono),
+                             "correo.agrupacion.ventana-ms", String.valueOf(ventanaAgrupacion),
+                             "spring.threads.virtual.enabled", String.valueOf(hilosVirtuales))))) {
+
+            URI uri = URI.create("http://localhost:" + contexto.getEnvironment().getProperty("local.server.port") + "/correo");
+            MedidorEtapas medidor = contexto.getBean(MedidorEtapas.class);
+
+            if (calentamiento > 0) {
+                EmailControllerThroughputBenchmark.ejecutar(uri, clientes, Duration.ZERO, Duration.ofSeconds(calentamiento));
+                esperarDespacho(smtp);
+            }
+            medidor.reiniciar();
+            long enviadosAntes = smtp.getAceptados() + smtp.getRechazados();
+
+            EmailControllerThroughputBenchmark.Resultado resultado = EmailControllerThroughputBenchmark.ejecutar(
+                    uri, clientes, Duration.ZERO, Duration.ofSeconds(segundos));
+            long inicioDrenado = System.nanoTime();
+            esperarDespacho(smtp);
+            double drenadoMs = (System.nanoTime() - inicioDrenado) / 1_000_000.0;
+
+            System.out.println();
+            System.out.printf("Prueba de carga: asincrono=%s hilosVirtuales=%s agrupacion=%dms smtp.latencia=%dms "
+                            + "smtp.fallos=%.2f trazabilidad.latencia=%dms%n",
+                    asincrono, hilosVirtuales, ventanaAgrupacion, latenciaSmtp, tasaFallos, latenciaTrazabilidad);
+            System.out.println("HTTP  " + resultado);
+            System.out.printf("SMTP  mensajes=%d aceptados=%d rechazados=%d conexiones=%d drenado=%.0fms%n",
+                    smtp.getAceptados() + smtp.getRechazados() - enviadosAntes, smtp.getAceptados(),
+                    smtp.getRechazados(), smtp.getConexiones(), drenadoMs);
+            System.out.printf("%-14s %10s %12s %12s %12s%n", "etapa", "llamadas", "total ms", "prom ms", "max ms");
+            new TreeMap<>(medidor.getEtapas()).forEach((nombre, etapa) ->
+                    System.out.printf("%-14s %10d %12.1f %12.3f %12.1f%n",
+                            nombre, etapa.llamadas(), etapa.totalMs(), etapa.promedioMs(), etapa.maximoMs()));
+        }
+    }
+
+    /**
+     * Las propiedades van como argumentos de línea de comandos para que prevalezcan sobre application.properties
+     */
+    private static String[] argumentos(String[] args, Map<String, String> propiedades) {
+        String[] resultado = Arrays.copyOf(args, args.length + propiedades.size());
+        int i = args.length;
+        for (Map.Entry<String, String> propiedad : propiedades.entrySet()) {
+            resultado[i++] = "--" + propiedad.getKey() + "=" + propiedad.getValue();
+        }
+        return resultado;
+    }
+
+    /**
+     * Espera a que el despachador deje de enviar (modo asíncrono) antes de tomar las métricas
+     */
+    private static void esperarDespacho(SmtpSimulado smtp) throws InterruptedException {
+        long anterior = -1;
+        long actual = smtp.getAceptados() + smtp.getRechazados();
+        for (int i = 0; i < 120 && actual != anterior; i++) {
+            Thread.sleep(500);
+            anterior = actual;
+            actual = smtp.getAceptados() + smtp.getRechazados();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package pe.gob.bcrp.carga;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servidor SMTP mínimo para pruebas de carga: acepta cualquier remitente y destinatario,
+ * descarta el contenido y responde al final de DATA tras la latencia configurada. Una
+ * fracción de los mensajes se rechaza con 451 para simular fallas transitorias del relay.
+ */
+public final class SmtpSimulado implements AutoCloseable {
+
+    private final ServerSocket servidor;
+    private final long latenciaMs;
+    private final double tasaFallos;
+    private final ExecutorService sesiones = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicLong conexiones = new AtomicLong();
+    private final AtomicLong aceptados = new AtomicLong();
+    private final AtomicLong rechazados = new AtomicLong();
+
+    /**
+     * @param latenciaMs espera antes de confirmar cada mensaje
+     * @param tasaFallos fracción de mensajes rechazados, entre 0 y 1
+     */
+    public SmtpSimulado(long latenciaMs, double tasaFallos) throws IOException {
+        this.servidor = new ServerSocket(0, 200, InetAddress.getLoopbackAddress());
+        this.latenciaMs = latenciaMs;
+        this.tasaFallos = tasaFallos;
+
+        Thread aceptador = new Thread(this::aceptar, "smtp-simulado");
+        aceptador.setDaemon(true);
+        aceptador.start();
+    }
+
+    public int getPuerto() {
+        return servidor.getLocalPort();
+    }
+
+    public long getConexiones() {
+        return conexiones.get();
+    }
+
+    public long getAceptados() {
+        return aceptados.get();
+    }
+
+    public long getRechazados() {
+        return rechazados.get();
+    }
+
+    private void aceptar() {
+        while (!servidor.isClosed()) {
+            try {
+                Socket socket = servidor.accept();
+                conexiones.incrementAndGet();
+                sesiones.execute(() -> atender(socket));
+            } catch (IOException e) {
+                // servidor cerrado
+            }
+        }
+    }
+
+    private void atender(Socket socket) {
+        try (socket;
+             BufferedReader entrada = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.ISO_8859_1));
+             OutputStream salida = socket.getOutputStream()) {
+
+            responder(salida, "220 smtp-simulado ESMTP");
+            String linea;
+            while ((linea = entrada.readLine()) != null) {
+                String comando = linea.length() < 4 ? linea.toUpperCase(Locale.ROOT)
+                        : linea.substring(0, 4).toUpperCase(Locale.ROOT);
+                switch (comando) {
+                    case "EHLO" -> responder(salida, "250-smtp-simulado\r\n250-8BITMIME\r\n250 SIZE 52428800");
+                    case "HELO", "MAIL", "RCPT", "RSET", "NOOP" -> responder(salida, "250 OK");
+                    case "DATA" -> {
+                        responder(salida, "354 Fin con <CRLF>.<CRLF>");
+                        while ((linea = entrada.readLine()) != null && !linea.equals(".")) {
+                            // el contenido se descarta
+                        }
+                        if (latenciaMs > 0) {
+                            Thread.sleep(latenciaMs);
+                        }
+                        if (ThreadLocalRandom.current().nextDouble() < tasaFallos) {
+                            rechazados.incrementAndGet();
+                            responder(salida, "451 4.3.0 Falla simulada");
+                        } else {
+                            aceptados.incrementAndGet();
+                            responder(salida, "250 2.0.0 OK");
+                        }
+                    }
+                    case "QUIT" -> {
+                        responder(salida, "221 Adios");
+                        return;
+                    }
+                    default -> responder(salida, "502 Comando no implementado");
+                }
+            }
+        } catch (IOException e) {
+            // el cliente cerró la conexión
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void responder(OutputStream salida, String respuesta) throws IOException {
+        salida.write((respuesta + "\r\n").getBytes(StandardCharsets.ISO_8859_1));
+        salida.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        servidor.close();
+        sesiones.shutdownNow();
+    }
+}
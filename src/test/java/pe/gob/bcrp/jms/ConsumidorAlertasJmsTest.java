@@ -0,0 +1,139 @@
+package pe.gob.bcrp.jms;
+
+import org.apache.activemq.artemis.api.core.SimpleString;
+import org.apache.activemq.artemis.core.server.Queue;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.autoconfigure.jms.JmsAutoConfiguration;
+import org.springframework.boot.autoconfigure.jms.artemis.ArtemisAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.jms.core.JmsTemplate;
+import pe.gob.bcrp.model.dto.RequestSendEmail;
+import pe.gob.bcrp.service.ITrazabilidadService;
+import pe.gob.bcrp.service.impl.AlertaService;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@SpringBootTest(classes = ConsumidorAlertasJms.class, properties = {
+        "correo.jms.habilitado=true",
+        "correo.jms.consumidores=2",
+        "correo.jms.lote=50",
+        "correo.jms.reintento-ms=100",
+        "spring.artemis.mode=embedded",
+        "spring.artemis.embedded.queues=correo.alertas"
+})
+@ImportAutoConfiguration({ArtemisAutoConfiguration.class, JmsAutoConfiguration.class, JacksonAutoConfiguration.class})
+@DisplayName("ConsumidorAlertasJms Tests")
+class ConsumidorAlertasJmsTest {
+
+    private static final String COLA = "correo.alertas";
+
+    @MockBean
+    private AlertaService alertaService;
+    @MockBean
+    private ITrazabilidadService traceabilityService;
+
+    @Autowired
+    private JmsTemplate jmsTemplate;
+    @Autowired
+    private EmbeddedActiveMQ broker;
+
+    private final List<Integer> lotes = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean fallarPrimerLote = new AtomicBoolean();
+
+    @BeforeEach
+    void configurar() {
+        when(alertaService.procesarLote(anyList(), anyString(), eq(true))).thenAnswer(invocacion -> {
+            if (fallarPrimerLote.compareAndSet(true, false)) {
+                throw new IllegalStateException("BD no disponible");
+            }
+            List<RequestSendEmail> requests = invocacion.getArgument(0);
+            lotes.add(requests.size());
+            return List.of();
+        });
+    }
+
+    private void publicar(int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            jmsTemplate.convertAndSend(COLA, """
+                    {"to":"destino@bcrp.gob.pe","asunto":"Alerta %d","nombreArchivo":"archivo-%d.xml",
+                     "tipoError":"TIMEOUT","camaraAfectada":"CCE","trama":"<trama/>","usuarioSistema":"prueba"}
+                    """.formatted(i, i));
+        }
+    }
+
+    private long confirmados() throws Exception {
+        Queue cola = broker.getActiveMQServer().locateQueue(SimpleString.toSimpleString(COLA));
+        return cola.getMessagesAcknowledged();
+    }
+
+    private static void esperar(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 15_000;
+        while (!condicion.getAsBoolean() && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+        }
+    }
+
+    private int registradas() {
+        return lotes.stream().mapToInt(Integer::intValue).sum();
+    }
+
+    @Test
+    @DisplayName("Registra los mensajes en lotes y los confirma después de registrarlos")
+    void testLotesYConfirmacion() throws Exception {
+        long confirmadosAntes = confirmados();
+        publicar(300);
+        jmsTemplate.convertAndSend(COLA, "no es json");
+
+        esperar(() -> registradas() == 300);
+        esperar(() -> {
+            try {
+                return confirmados() - confirmadosAntes == 301;
+            } catch (Exception e) {
+                return false;
+            }
+        });
+
+        assertThat(registradas()).isEqualTo(300);
+        assertThat(lotes).allSatisfy(tamano -> assertThat(tamano).isLessThanOrEqualTo(50));
+        assertThat(lotes.size()).isLessThan(300);
+        // El mensaje inválido también se confirma
+        assertThat(confirmados() - confirmadosAntes).isEqualTo(301);
+    }
+
+    @Test
+    @DisplayName("Si el registro falla el lote se vuelve a entregar sin perder mensajes")
+    void testReentregaTrasError() throws Exception {
+        fallarPrimerLote.set(true);
+        long confirmadosAntes = confirmados();
+        publicar(40);
+
+        esperar(() -> registradas() == 40);
+
+        assertThat(fallarPrimerLote).isFalse();
+        assertThat(registradas()).isEqualTo(40);
+        esperar(() -> {
+            try {
+                return confirmados() - confirmadosAntes == 40;
+            } catch (Exception e) {
+                return false;
+            }
+        });
+        assertThat(confirmados() - confirmadosAntes).isEqualTo(40);
+    }
+}
@@ -0,0 +1,137 @@
+package pe.gob.bcrp.mail;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import pe.gob.bcrp.exception.EnvioSaturadoException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("EnrutadorSmtp Tests")
+class EnrutadorSmtpTest {
+
+    private final AtomicLong reloj = new AtomicLong();
+    private final List<RelaySmtp> relays = new ArrayList<>();
+
+    /**
+     * Relay que no abre conexiones: cuenta los envíos y lanza el error configurado
+     */
+    private static class SenderSimulado extends PooledJavaMailSender {
+        final AtomicInteger envios = new AtomicInteger();
+        volatile RuntimeException error;
+
+        SenderSimulado() {
+            super(1, 10, 60000, 5000, 100);
+        }
+
+        @Override
+        protected void doSend(MimeMessage[] mimeMessages, Object[] originalMessages) {
+            envios.incrementAndGet();
+            if (error != null) {
+                throw error;
+            }
+        }
+    }
+
+    private SenderSimulado relay(String nombre, int peso) {
+        SenderSimulado sender = new SenderSimulado();
+        relays.add(new RelaySmtp(nombre, sender, peso, 2, 30000, reloj::get));
+        return sender;
+    }
+
+    private static ConexionSmtpException sinConexion() {
+        return new ConexionSmtpException(new MessagingException("Connection refused"), Map.of(), true);
+    }
+
+    @AfterEach
+    void cerrar() {
+        relays.forEach(RelaySmtp::close);
+    }
+
+    @Test
+    @DisplayName("Reparte los envíos según el peso de cada relay")
+    void testRepartoPorPeso() {
+        SenderSimulado a = relay("a", 3);
+        SenderSimulado b = relay("b", 1);
+        EnrutadorSmtp enrutador = new EnrutadorSmtp(relays, EnrutadorSmtp.Estrategia.PESO);
+
+        for (int i = 0; i < 40; i++) {
+            enrutador.send(enrutador.createMimeMessage());
+        }
+
+        assertThat(a.envios).hasValue(30);
+        assertThat(b.envios).hasValue(10);
+    }
+
+    @Test
+    @DisplayName("Sin conexión el mensaje pasa a otro relay y el circuito saca al relay caído")
+    void testConmutacionYCircuito() {
+        SenderSimulado a = relay("a", 1);
+        SenderSimulado b = relay("b", 1);
+        a.error = sinConexion();
+        EnrutadorSmtp enrutador = new EnrutadorSmtp(relays, EnrutadorSmtp.Estrategia.PESO);
+
+        for (int i = 0; i < 10; i++) {
+            enrutador.send(enrutador.createMimeMessage());
+        }
+
+        // Dos fallos abren el circuito; desde entonces todo va por b
+        assertThat(a.envios).hasValue(2);
+        assertThat(b.envios).hasValue(10);
+        assertThat(relays.get(0).getEstado()).isEqualTo(RelaySmtp.EstadoCircuito.ABIERTO);
+
+        // Vencida la apertura pasa un envío de prueba; si funciona, el relay vuelve a la rotación
+        a.error = null;
+        reloj.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        for (int i = 0; i < 4; i++) {
+            enrutador.send(enrutador.createMimeMessage());
+        }
+        assertThat(relays.get(0).getEstado()).isEqualTo(RelaySmtp.EstadoCircuito.CERRADO);
+        assertThat(a.envios.get()).isGreaterThan(3);
+    }
+
+    @Test
+    @DisplayName("Un rechazo del destinatario no cuenta como fallo del relay")
+    void testRechazoNoAbreCircuito() throws Exception {
+        SenderSimulado a = relay("a", 1);
+        MimeMessage mensaje = new SenderSimulado().createMimeMessage();
+        a.error = new MailSendException(Map.of(mensaje,
+                new SMTPAddressFailedException(new InternetAddress("x@y.com"), "RCPT", 550, "No such user")));
+        EnrutadorSmtp enrutador = new EnrutadorSmtp(relays, EnrutadorSmtp.Estrategia.MENOS_PENDIENTES);
+
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> enrutador.send(mensaje)).isInstanceOf(MailSendException.class);
+        }
+        assertThat(relays.get(0).getEstado()).isEqualTo(RelaySmtp.EstadoCircuito.CERRADO);
+    }
+
+    @Test
+    @DisplayName("Sin relays disponibles se indica saturación con la espera hasta la siguiente prueba")
+    void testSinRelaysDisponibles() {
+        SenderSimulado a = relay("a", 1);
+        a.error = sinConexion();
+        EnrutadorSmtp enrutador = new EnrutadorSmtp(relays, EnrutadorSmtp.Estrategia.MENOS_PENDIENTES);
+
+        assertThatThrownBy(() -> enrutador.send(enrutador.createMimeMessage())).isInstanceOf(ConexionSmtpException.class);
+        assertThatThrownBy(() -> enrutador.send(enrutador.createMimeMessage())).isInstanceOf(ConexionSmtpException.class);
+
+        reloj.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThatThrownBy(() -> enrutador.send(enrutador.createMimeMessage()))
+                .isInstanceOf(EnvioSaturadoException.class)
+                .satisfies(e -> assertThat(((EnvioSaturadoException) e).getEsperaSugeridaMs()).isEqualTo(20000));
+        assertThat(a.envios).hasValue(2);
+    }
+}
@@ -0,0 +1,72 @@
+package pe.gob.bcrp.mail;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.unbescape.html.HtmlEscape;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el formateo anterior de la trama (tres String.replace y el escape de th:text)
+ * con FormateadorXml escribiendo directamente en el buffer de la plantilla.
+ *
+ * Se ejecuta con {@code mvn -P benchmark verify -Djmh.benchmarks=FormateadorXmlBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormateadorXmlBenchmark {
+
+    @Param({"1024", "102400", "5242880"})
+    private int tamano;
+
+    private String trama;
+    private StringBuilder destino;
+
+    @Setup
+    public void preparar() {
+        StringBuilder xml = new StringBuilder(tamano + 256)
+                .append("<?xml version=\"1.0\" encoding=\"UTF-8\"?><lote id=\"1\">");
+        for (int i = 0; xml.length() < tamano; i++) {
+            xml.append("<registro n=\"").append(i).append("\"><cuenta>00").append(i)
+                    .append("</cuenta><glosa>Pago &amp; abono 'ref'</glosa><monto>1500.00</monto></registro>");
+        }
+        trama = xml.append("</lote>").toString();
+        destino = new StringBuilder(trama.length() * 2);
+    }
+
+    @Benchmark
+    public String anterior() {
+        String formateado = trama.replace("<", "&lt;")
+                .replace(">", "&gt;")
+                .replace("&", "&amp;");
+        destino.setLength(0);
+        destino.append(HtmlEscape.escapeHtml4Xml(formateado));
+        return destino.toString();
+    }
+
+    @Benchmark
+    public String streaming() {
+        destino.setLength(0);
+        new FormateadorXml(trama, Integer.MAX_VALUE).escribirHtml(destino);
+        return destino.toString();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(FormateadorXmlBenchmark.class.getSimpleName()).build()).run();
+    }
+}
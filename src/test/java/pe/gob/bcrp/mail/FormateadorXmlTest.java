@@ -0,0 +1,54 @@
+package pe.gob.bcrp.mail;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("FormateadorXml Tests")
+class FormateadorXmlTest {
+
+    private static String html(String xml, int tamanoMaximo) {
+        StringBuilder destino = new StringBuilder();
+        new FormateadorXml(xml, tamanoMaximo).escribirHtml(destino);
+        return destino.toString();
+    }
+
+    @Test
+    @DisplayName("Escapa una sola vez e indenta los elementos")
+    void testEscapaEIndenta() {
+        String xml = "<?xml version=\"1.0\"?><error><codigo>E&amp;1</codigo><vacio/></error>";
+
+        assertThat(html(xml, 1000)).isEqualTo(
+                "&lt;?xml version=&quot;1.0&quot;?&gt;\n"
+                        + "&lt;error&gt;\n"
+                        + "  &lt;codigo&gt;E&amp;amp;1&lt;/codigo&gt;\n"
+                        + "  &lt;vacio/&gt;\n"
+                        + "&lt;/error&gt;");
+    }
+
+    @Test
+    @DisplayName("El texto sin escapar coincide con el HTML una vez desescapado")
+    void testTextoPlanoParaThymeleaf() {
+        String xml = "<a>\n    <b c='>'>x</b>\n</a>";
+
+        assertThat(new FormateadorXml(xml, 1000).toString()).isEqualTo("<a>\n  <b c='>'>x</b>\n</a>");
+    }
+
+    @Test
+    @DisplayName("Trunca las tramas que superan el tamaño máximo")
+    void testTrunca() {
+        String salida = html("<a><b>123456789</b></a>", 10);
+
+        assertThat(salida).startsWith("&lt;a&gt;\n  &lt;b&gt;123")
+                .endsWith("[trama truncada: se muestran 10 de 23 caracteres]");
+    }
+
+    @Test
+    @DisplayName("Trama vacía o texto que no es XML")
+    void testEntradasNoXml() {
+        assertThat(html(null, 10)).isEqualTo("No disponible");
+        assertThat(html("  ", 10)).isEqualTo("No disponible");
+        assertThat(html("1 < 2 & 3", 100)).isEqualTo("1 &lt; 2 &amp; 3");
+    }
+}
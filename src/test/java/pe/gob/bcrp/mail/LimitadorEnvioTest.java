@@ -0,0 +1,112 @@
+package pe.gob.bcrp.mail;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import pe.gob.bcrp.exception.EnvioSaturadoException;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("LimitadorEnvio Tests")
+class LimitadorEnvioTest {
+
+    private final AtomicLong reloj = new AtomicLong();
+
+    // Sin espera: cuando no hay cupo el limitador rechaza de inmediato
+    private LimitadorEnvio limitador(int porMinuto, int porDia) {
+        return new LimitadorEnvio("prueba", porMinuto, porDia, 0, reloj::get);
+    }
+
+    private void avanzar(long segundos) {
+        reloj.addAndGet(TimeUnit.SECONDS.toNanos(segundos));
+    }
+
+    @Test
+    @DisplayName("Permite la ráfaga de la cubeta y luego indica cuánto esperar")
+    void testRafagaYSaturacion() {
+        LimitadorEnvio limitador = limitador(60, 1000);
+        for (int i = 0; i < 60; i++) {
+            limitador.adquirir(1);
+        }
+
+        assertThatThrownBy(() -> limitador.adquirir(1))
+                .isInstanceOf(EnvioSaturadoException.class)
+                .satisfies(e -> assertThat(((EnvioSaturadoException) e).getEsperaSugeridaMs()).isEqualTo(1000));
+
+        avanzar(1);
+        limitador.adquirir(1);
+    }
+
+    @Test
+    @DisplayName("Una respuesta 421/451 pausa los envíos y reduce la tasa a la mitad")
+    void testReduccionYRecuperacion() {
+        LimitadorEnvio limitador = limitador(60, 1000);
+        limitador.registrarLimitacion();
+        assertThat(limitador.getFactor()).isEqualTo(0.5);
+        assertThatThrownBy(() -> limitador.adquirir(1)).isInstanceOf(EnvioSaturadoException.class);
+
+        // A 30 por minuto se recarga un token cada 2 segundos
+        avanzar(1);
+        assertThatThrownBy(() -> limitador.adquirir(1)).isInstanceOf(EnvioSaturadoException.class);
+        avanzar(1);
+        limitador.adquirir(1);
+
+        // Las respuestas dentro del enfriamiento no vuelven a reducir
+        limitador.registrarLimitacion();
+        assertThat(limitador.getFactor()).isEqualTo(0.5);
+
+        limitador.registrarExito(30);
+        assertThat(limitador.getFactor()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Un lote mayor que la cubeta se acepta y su deuda retrasa los envíos siguientes")
+    void testLoteConDeuda() {
+        LimitadorEnvio limitador = limitador(60, 1000);
+        limitador.adquirir(120);
+
+        avanzar(60);
+        assertThatThrownBy(() -> limitador.adquirir(1)).isInstanceOf(EnvioSaturadoException.class);
+        avanzar(1);
+        limitador.adquirir(1);
+    }
+
+    @Test
+    @DisplayName("La cuota diaria no se adapta y limita aunque haya cupo por minuto")
+    void testCuotaDiaria() {
+        LimitadorEnvio limitador = limitador(60, 2);
+        limitador.adquirir(2);
+
+        assertThatThrownBy(() -> limitador.adquirir(1))
+                .isInstanceOf(EnvioSaturadoException.class)
+                .satisfies(e -> assertThat(((EnvioSaturadoException) e).getEsperaSugeridaMs())
+                        .isEqualTo(TimeUnit.HOURS.toMillis(12)));
+    }
+
+    @Test
+    @DisplayName("Con 0 por minuto solo se aplica la cuota diaria")
+    void testSinLimitePorMinuto() {
+        LimitadorEnvio limitador = limitador(0, 100);
+        limitador.adquirir(100);
+        assertThatThrownBy(() -> limitador.adquirir(1)).isInstanceOf(EnvioSaturadoException.class);
+
+        // Sin tasa por minuto las respuestas 421/451 no la reducen
+        limitador.registrarLimitacion();
+        assertThat(limitador.getFactor()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Con 0 por día solo se aplica la cuota por minuto")
+    void testSinLimitePorDia() {
+        LimitadorEnvio limitador = limitador(60, 0);
+        for (int minuto = 0; minuto < 100; minuto++) {
+            limitador.adquirir(60);
+            avanzar(60);
+        }
+        limitador.adquirir(60);
+        assertThatThrownBy(() -> limitador.adquirir(1)).isInstanceOf(EnvioSaturadoException.class);
+    }
+}
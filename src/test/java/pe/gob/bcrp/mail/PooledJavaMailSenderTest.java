@@ -0,0 +1,177 @@
+package pe.gob.bcrp.mail;
+
+import jakarta.mail.Address;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.InternetAddress;
+import jakarta.mail.internet.MimeMessage;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("PooledJavaMailSender Tests")
+class PooledJavaMailSenderTest {
+
+    private final Session session = Session.getInstance(new Properties());
+    private final List<Transport> abiertos = new ArrayList<>();
+    private final SenderSimulado sender = new SenderSimulado();
+
+    /**
+     * Entrega transportes simulados en lugar de conectarse a un relay
+     */
+    private final class SenderSimulado extends PooledJavaMailSender {
+        private SenderSimulado() {
+            super(2, 100, 60_000, 5_000, 100);
+        }
+
+        @Override
+        protected Transport connectTransport() {
+            Transport transporte = mock(Transport.class);
+            when(transporte.isConnected()).thenReturn(true);
+            abiertos.add(transporte);
+            return transporte;
+        }
+    }
+
+    @AfterEach
+    void cerrar() {
+        sender.close();
+    }
+
+    private MimeMessage mensaje(String asunto) throws MessagingException {
+        MimeMessage mensaje = new MimeMessage(session);
+        mensaje.setFrom("alertas@bcrp.gob.pe");
+        mensaje.setRecipients(MimeMessage.RecipientType.TO, "destino@bcrp.gob.pe");
+        mensaje.setSubject(asunto);
+        mensaje.setText("contenido");
+        return mensaje;
+    }
+
+    private static SMTPSendFailedException rechazo(int codigo) {
+        return new SMTPSendFailedException("DATA", codigo, codigo + " rechazado", null,
+                new Address[0], new Address[0], new Address[0]);
+    }
+
+    @Test
+    @DisplayName("Los mensajes de un envío comparten una conexión que vuelve al pool")
+    void testEnvioPorUnaConexion() throws MessagingException {
+        sender.send(mensaje("uno"), mensaje("dos"));
+        sender.send(mensaje("tres"));
+
+        assertThat(abiertos).hasSize(1);
+        verify(abiertos.get(0), times(3)).sendMessage(any(), any());
+        assertThat(sender.getPool().getConexionesLibres()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Un error de E/S descarta la conexión y el resto del envío sigue por una nueva")
+    void testConexionCaida() throws MessagingException {
+        MimeMessage primero = mensaje("uno");
+        MimeMessage segundo = mensaje("dos");
+
+        // El primer transporte se cae al enviar el primer mensaje
+        sender.getPool().devolver(sender.getPool().tomar(), true);
+        Transport caido = abiertos.get(0);
+        AtomicBoolean conectado = new AtomicBoolean(true);
+        when(caido.isConnected()).thenAnswer(invocacion -> conectado.get());
+        doAnswer(invocacion -> {
+            conectado.set(false);
+            throw new MessagingException("Connection reset");
+        }).when(caido).sendMessage(any(), any());
+
+        assertThatThrownBy(() -> sender.send(primero, segundo))
+                .isInstanceOf(MailSendException.class)
+                .satisfies(e -> assertThat(((MailSendException) e).getFailedMessages()).containsOnlyKeys(primero));
+
+        assertThat(abiertos).hasSize(2);
+        verify(caido).close();
+        verify(abiertos.get(1)).sendMessage(any(), any());
+        assertThat(sender.getPool().getReconexiones()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Un rechazo del servidor no descarta la conexión")
+    void testRechazoConservaConexion() throws MessagingException {
+        MimeMessage rechazado = mensaje("uno");
+        sender.getPool().devolver(sender.getPool().tomar(), true);
+        doThrow(rechazo(550)).when(abiertos.get(0)).sendMessage(any(), any());
+
+        assertThatThrownBy(() -> sender.send(rechazado)).isInstanceOf(MailSendException.class);
+
+        assertThat(abiertos).hasSize(1);
+        assertThat(sender.getPool().getConexionesLibres()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Las respuestas 421 y 451 se reconocen como limitación aunque vengan anidadas")
+    void testDeteccionDeLimitacion() throws Exception {
+        assertThat(PooledJavaMailSender.esLimitacion(rechazo(421))).isTrue();
+        assertThat(PooledJavaMailSender.esLimitacion(rechazo(550))).isFalse();
+        assertThat(PooledJavaMailSender.esLimitacion(new MessagingException("Error de envío",
+                new SMTPAddressFailedException(new InternetAddress("a@bcrp.gob.pe"), "RCPT TO", 451, "451 intente luego"))))
+                .isTrue();
+        assertThat(PooledJavaMailSender.esLimitacion(new MailSendException("Error", rechazo(451)))).isTrue();
+        assertThat(PooledJavaMailSender.esLimitacion(new MessagingException("Connection reset"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("Una respuesta 421 reduce la tasa del limitador de la cuenta")
+    void testLimitacionInformada() throws MessagingException {
+        LimitadorEnvio limitador = new LimitadorEnvio("prueba", 60, 0, 0);
+        sender.setLimitador(limitador);
+        sender.getPool().devolver(sender.getPool().tomar(), true);
+        doThrow(rechazo(421)).when(abiertos.get(0)).sendMessage(any(), any());
+
+        assertThatThrownBy(() -> sender.send(mensaje("uno"))).isInstanceOf(MailSendException.class);
+
+        assertThat(limitador.getFactor()).isEqualTo(0.5);
+    }
+
+    @Test
+    @DisplayName("Desde un hilo virtual la E/S SMTP se hace en el ejecutor de hilos de plataforma")
+    void testEjecutorParaHilosVirtuales() throws Exception {
+        ExecutorService ejecutor = Executors.newSingleThreadExecutor(r -> new Thread(r, "smtp-prueba"));
+        sender.setEjecutorSmtp(ejecutor);
+        List<String> hilos = new ArrayList<>();
+        sender.getPool().devolver(sender.getPool().tomar(), true);
+        doAnswer(invocacion -> {
+            hilos.add(Thread.currentThread().getName());
+            return null;
+        }).when(abiertos.get(0)).sendMessage(any(), any());
+
+        Thread virtual = Thread.ofVirtual().name("virtual").start(() -> sender.send(mensajeSinExcepcion()));
+        virtual.join();
+        sender.send(mensaje("plataforma"));
+
+        assertThat(hilos).containsExactly("smtp-prueba", Thread.currentThread().getName());
+    }
+
+    private MimeMessage mensajeSinExcepcion() {
+        try {
+            return mensaje("virtual");
+        } catch (MessagingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
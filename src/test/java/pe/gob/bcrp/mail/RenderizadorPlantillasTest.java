@@ -0,0 +1,71 @@
+package pe.gob.bcrp.mail;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("RenderizadorPlantillas Tests")
+class RenderizadorPlantillasTest {
+
+    private TemplateEngine templateEngine;
+    private RenderizadorPlantillas renderizador;
+
+    @BeforeEach
+    void setUp() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        renderizador = new RenderizadorPlantillas(templateEngine, new DefaultResourceLoader());
+        ReflectionTestUtils.setField(renderizador, "prefijo", "classpath:/templates/");
+        ReflectionTestUtils.setField(renderizador, "sufijo", ".html");
+        ReflectionTestUtils.setField(renderizador, "verificacionMs", 0L);
+    }
+
+    @Test
+    @DisplayName("La plantilla compilada produce la misma salida que Thymeleaf")
+    void testRenderizadoIgualAThymeleaf() {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("nombreArchivo", "archivo <1> & \"2\".xml");
+        variables.put("tipoError", "ERROR_VALIDACION");
+        variables.put("fecha", "18/07/2025 10:30:00");
+        variables.put("camaraAfectada", "CAM-'001'");
+        variables.put("trama", "<trama><id>1</id></trama>");
+        variables.put("alertaId", 12345L);
+
+        for (String plantilla : new String[]{"alerta-email", "success-email"}) {
+            String esperado = templateEngine.process(plantilla, new Context(Locale.getDefault(), variables));
+
+            assertThat(renderizador.renderizar(plantilla, variables)).isEqualTo(esperado);
+        }
+    }
+
+    @Test
+    @DisplayName("Las variables nulas se renderizan vacías como en th:text")
+    void testVariablesNulas() {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("tipoError", "ERROR");
+
+        String esperado = templateEngine.process("alerta-email", new Context(Locale.getDefault(), variables));
+
+        assertThat(renderizador.renderizar("alerta-email", variables)).isEqualTo(esperado);
+    }
+}
@@ -0,0 +1,219 @@
+package pe.gob.bcrp.mail;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("SmtpTransportPool Tests")
+class SmtpTransportPoolTest {
+
+    private static final long INACTIVIDAD_MS = 60_000;
+    private static final long VALIDACION_MS = 5_000;
+
+    private final AtomicLong reloj = new AtomicLong();
+    private final List<Transport> abiertos = new ArrayList<>();
+    private SmtpTransportPool pool;
+
+    @AfterEach
+    void cerrar() {
+        pool.close();
+    }
+
+    private SmtpTransportPool crear(int tamanoMaximo, long esperaMaximaMs, int enviosMaximos) {
+        pool = new SmtpTransportPool(() -> {
+            Transport transporte = mock(Transport.class);
+            when(transporte.isConnected()).thenReturn(true);
+            abiertos.add(transporte);
+            return transporte;
+        }, tamanoMaximo, esperaMaximaMs, INACTIVIDAD_MS, VALIDACION_MS, enviosMaximos, reloj::get);
+        return pool;
+    }
+
+    private void avanzar(long ms) {
+        reloj.addAndGet(TimeUnit.MILLISECONDS.toNanos(ms));
+    }
+
+    @Test
+    @DisplayName("Las conexiones devueltas se reutilizan empezando por la usada más recientemente")
+    void testPrestamoLifo() throws MessagingException {
+        crear(2, 100, 100);
+        SmtpTransportPool.ConexionSmtp primera = pool.tomar();
+        SmtpTransportPool.ConexionSmtp segunda = pool.tomar();
+        assertThat(pool.getConexionesAbiertas()).isEqualTo(2);
+
+        pool.devolver(primera, true);
+        pool.devolver(segunda, true);
+        assertThat(pool.getConexionesLibres()).isEqualTo(2);
+
+        assertThat(pool.tomar()).isSameAs(segunda);
+        assertThat(pool.tomar()).isSameAs(primera);
+        assertThat(abiertos).hasSize(2);
+        assertThat(pool.getReconexiones()).isZero();
+    }
+
+    @Test
+    @DisplayName("Con todas las conexiones en uso se espera como máximo el tiempo configurado")
+    void testEsperaMaxima() throws MessagingException {
+        crear(1, 50, 100);
+        SmtpTransportPool.ConexionSmtp conexion = pool.tomar();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        pool.bindTo(meterRegistry);
+
+        long inicio = System.nanoTime();
+        assertThatThrownBy(pool::tomar)
+                .isInstanceOf(MessagingException.class)
+                .hasMessage("No se obtuvo una conexión SMTP libre en 50 ms");
+        assertThat(System.nanoTime() - inicio).isGreaterThanOrEqualTo(TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(meterRegistry.get("correo.smtp.pool.espera").timer().count()).isEqualTo(1);
+
+        pool.devolver(conexion, true);
+        assertThat(pool.tomar()).isSameAs(conexion);
+    }
+
+    @Test
+    @DisplayName("Los hilos en espera reciben la conexión en orden de llegada")
+    void testEsperaEquitativa() throws Exception {
+        crear(1, 5_000, 100);
+        SmtpTransportPool.ConexionSmtp conexion = pool.tomar();
+        List<String> atendidos = new CopyOnWriteArrayList<>();
+
+        Thread primero = esperar("primero", atendidos);
+        Thread segundo = esperar("segundo", atendidos);
+        pool.devolver(conexion, true);
+        primero.join(5_000);
+        segundo.join(5_000);
+
+        assertThat(atendidos).containsExactly("primero", "segundo");
+    }
+
+    // Inicia un hilo que toma y devuelve una conexión; retorna cuando ya está esperando
+    private Thread esperar(String nombre, List<String> atendidos) throws InterruptedException {
+        Thread hilo = Thread.ofPlatform().name(nombre).start(() -> {
+            try {
+                SmtpTransportPool.ConexionSmtp conexion = pool.tomar();
+                atendidos.add(nombre);
+                pool.devolver(conexion, true);
+            } catch (MessagingException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (hilo.getState() != Thread.State.TIMED_WAITING) {
+            Thread.sleep(1);
+        }
+        return hilo;
+    }
+
+    @Test
+    @DisplayName("Una conexión ociosa más allá de la validación se verifica con NOOP y se reemplaza si cayó")
+    void testValidacionNoop() throws MessagingException {
+        crear(1, 100, 100);
+        SmtpTransportPool.ConexionSmtp conexion = pool.tomar();
+        Transport transporte = conexion.getTransporte();
+        pool.devolver(conexion, true);
+
+        // Dentro de la ventana de validación no se consulta al servidor
+        avanzar(VALIDACION_MS - 1);
+        assertThat(pool.tomar()).isSameAs(conexion);
+        verify(transporte, never()).isConnected();
+        pool.devolver(conexion, true);
+
+        avanzar(VALIDACION_MS + 1);
+        when(transporte.isConnected()).thenReturn(false);
+        SmtpTransportPool.ConexionSmtp nueva = pool.tomar();
+
+        assertThat(nueva).isNotSameAs(conexion);
+        verify(transporte).close();
+        assertThat(pool.getConexionesAbiertas()).isEqualTo(1);
+        assertThat(pool.getReconexiones()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Las conexiones inactivas más allá del máximo se cierran sin reutilizarse")
+    void testCierreDeInactivas() throws MessagingException {
+        crear(2, 100, 100);
+        SmtpTransportPool.ConexionSmtp antigua = pool.tomar();
+        SmtpTransportPool.ConexionSmtp reciente = pool.tomar();
+        pool.devolver(antigua, true);
+        avanzar(INACTIVIDAD_MS / 2);
+        pool.devolver(reciente, true);
+
+        avanzar(INACTIVIDAD_MS / 2 + 1);
+        pool.cerrarInactivas();
+
+        assertThat(pool.getConexionesLibres()).isEqualTo(1);
+        assertThat(pool.getConexionesAbiertas()).isEqualTo(1);
+        verify(antigua.getTransporte()).close();
+        verify(reciente.getTransporte(), never()).close();
+
+        // Al tomarla vencida se descarta sin NOOP y se abre otra
+        avanzar(INACTIVIDAD_MS);
+        assertThat(pool.tomar()).isNotSameAs(reciente);
+        verify(reciente.getTransporte(), never()).isConnected();
+        verify(reciente.getTransporte()).close();
+    }
+
+    @Test
+    @DisplayName("Una conexión con error o con el máximo de envíos se cierra al devolverse")
+    void testDescarteAlDevolver() throws MessagingException {
+        crear(1, 100, 2);
+        SmtpTransportPool.ConexionSmtp rota = pool.tomar();
+        pool.devolver(rota, false);
+
+        verify(rota.getTransporte()).close();
+        assertThat(pool.getConexionesAbiertas()).isZero();
+
+        SmtpTransportPool.ConexionSmtp gastada = pool.tomar();
+        assertThat(pool.getReconexiones()).isEqualTo(1);
+        gastada.registrarEnvio();
+        gastada.registrarEnvio();
+        pool.devolver(gastada, true);
+
+        verify(gastada.getTransporte()).close();
+        assertThat(pool.getConexionesLibres()).isZero();
+    }
+
+    @Test
+    @DisplayName("Si no se puede conectar el permiso se libera para el siguiente intento")
+    void testFalloAlConectar() throws MessagingException {
+        pool = new SmtpTransportPool(() -> {
+            throw new MessagingException("Connection refused");
+        }, 1, 50, INACTIVIDAD_MS, VALIDACION_MS, 100, reloj::get);
+
+        assertThatThrownBy(pool::tomar).hasMessage("Connection refused");
+        assertThatThrownBy(pool::tomar).hasMessage("Connection refused");
+        assertThat(pool.getConexionesAbiertas()).isZero();
+    }
+
+    @Test
+    @DisplayName("Cerrado el pool no presta conexiones y las devueltas se cierran")
+    void testCierre() throws MessagingException {
+        crear(2, 100, 100);
+        SmtpTransportPool.ConexionSmtp libre = pool.tomar();
+        SmtpTransportPool.ConexionSmtp enUso = pool.tomar();
+        pool.devolver(libre, true);
+
+        pool.close();
+        verify(libre.getTransporte()).close();
+        assertThatThrownBy(pool::tomar).hasMessage("El pool de conexiones SMTP está cerrado");
+
+        pool.devolver(enUso, true);
+        verify(enUso.getTransporte()).close();
+        assertThat(pool.getConexionesAbiertas()).isZero();
+    }
+}
@@ -0,0 +1,87 @@
+package pe.gob.bcrp.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import pe.gob.bcrp.model.dto.AlertaResumenDTO;
+import pe.gob.bcrp.model.dto.FiltroAlertasDTO;
+import pe.gob.bcrp.model.entity.Alerta;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@DisplayName("AlertaRepository Tests")
+class AlertaRepositoryTest {
+
+    private static final LocalDateTime INICIO = LocalDateTime.of(2024, 3, 1, 8, 0);
+
+    @Autowired
+    private AlertaRepository alertaRepository;
+
+    @BeforeEach
+    void registrarAlertas() {
+        List<Alerta> alertas = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            Alerta alerta = new Alerta();
+            alerta.setNomArchivo("archivo-" + i);
+            alerta.setTipError(i % 2 == 0 ? "TIMEOUT" : "FORMATO");
+            alerta.setCamAfectada("CCE");
+            // Varias alertas comparten fecha para que el desempate por ID sea necesario
+            alerta.setFechaCreacion(INICIO.plusMinutes(i / 3));
+            alerta.setEstado(i % 5 == 0 ? EstadoAlerta.ERROR_ENVIO : EstadoAlerta.ENVIADA);
+            alertas.add(alerta);
+        }
+        alertaRepository.saveAll(alertas);
+    }
+
+    private List<AlertaResumenDTO> recorrer(FiltroAlertasDTO filtro, int tamano) {
+        List<AlertaResumenDTO> todas = new ArrayList<>();
+        List<AlertaResumenDTO> pagina = alertaRepository.buscarPagina(filtro, null, null, tamano);
+        while (!pagina.isEmpty()) {
+            todas.addAll(pagina);
+            AlertaResumenDTO ultima = pagina.get(pagina.size() - 1);
+            pagina = alertaRepository.buscarPagina(filtro, ultima.getFechaCreacion(), ultima.getIdAlerta(), tamano);
+        }
+        return todas;
+    }
+
+    @Test
+    @DisplayName("Las páginas recorren todas las alertas sin repetir ni saltar, de la más reciente a la más antigua")
+    void testPaginacionPorPosicion() {
+        List<AlertaResumenDTO> alertas = recorrer(new FiltroAlertasDTO(), 4);
+
+        assertThat(alertas).hasSize(25);
+        assertThat(alertas).extracting(AlertaResumenDTO::getIdAlerta).doesNotHaveDuplicates();
+        for (int i = 1; i < alertas.size(); i++) {
+            AlertaResumenDTO anterior = alertas.get(i - 1);
+            AlertaResumenDTO actual = alertas.get(i);
+            assertThat(actual.getFechaCreacion()).isBeforeOrEqualTo(anterior.getFechaCreacion());
+            if (actual.getFechaCreacion().equals(anterior.getFechaCreacion())) {
+                assertThat(actual.getIdAlerta()).isLessThan(anterior.getIdAlerta());
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Aplica los filtros de estado, tipo de error y rango de fechas")
+    void testFiltros() {
+        FiltroAlertasDTO filtro = FiltroAlertasDTO.builder()
+                .estado(EstadoAlerta.ERROR_ENVIO)
+                .tipoError("TIMEOUT")
+                .desde(INICIO.plusMinutes(1))
+                .hasta(INICIO.plusMinutes(8))
+                .build();
+
+        // i = 10 y 20 son ERROR_ENVIO con TIMEOUT; i = 0 queda fuera del rango
+        assertThat(recorrer(filtro, 1))
+                .extracting(AlertaResumenDTO::getNomArchivo)
+                .containsExactly("archivo-20", "archivo-10");
+    }
+}
@@ -0,0 +1,87 @@
+package pe.gob.bcrp.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+import pe.gob.bcrp.model.entity.FrecuenciaResumen;
+import pe.gob.bcrp.model.event.AlertaFinalizadaEvent;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("AgregadorResumen Tests")
+class AgregadorResumenTest {
+
+    private AgregadorResumen agregador;
+
+    @BeforeEach
+    void configurar() {
+        agregador = new AgregadorResumen();
+        ReflectionTestUtils.setField(agregador, "maximoMuestras", 2);
+    }
+
+    private static AlertaFinalizadaEvent evento(String camara, String tipoError, EstadoAlerta estado, String archivo) {
+        return new AlertaFinalizadaEvent(1L, camara, tipoError, archivo, estado,
+                EstadoAlerta.PENDIENTE, LocalDateTime.now());
+    }
+
+    private static long total(AgregadorResumen.Periodo periodo) {
+        return periodo.contadores().values().stream().mapToLong(AgregadorResumen.Contador::getCantidad).sum();
+    }
+
+    @Test
+    @DisplayName("Agrupa por cámara, tipo de error y estado con las primeras muestras y sin los intentos no finales")
+    void testAgregacion() {
+        agregador.onAlertaFinalizada(evento("CCE", "TIMEOUT", EstadoAlerta.DESCARTADA, "a.xml"));
+        agregador.onAlertaFinalizada(evento("CCE", "TIMEOUT", EstadoAlerta.DESCARTADA, "b.xml"));
+        agregador.onAlertaFinalizada(evento("CCE", "TIMEOUT", EstadoAlerta.DESCARTADA, "c.xml"));
+        agregador.onAlertaFinalizada(evento("CCE", "TIMEOUT", EstadoAlerta.ENVIADA, "d.xml"));
+        agregador.onAlertaFinalizada(evento("CCE", "TIMEOUT", EstadoAlerta.ERROR_ENVIO, "e.xml"));
+
+        AgregadorResumen.Periodo horario = agregador.tomar(FrecuenciaResumen.HORARIA);
+        assertThat(horario.contadores()).hasSize(2);
+        AgregadorResumen.Contador descartadas = horario.contadores()
+                .get(new AgregadorResumen.ClaveResumen("CCE", "TIMEOUT", EstadoAlerta.DESCARTADA));
+        assertThat(descartadas.getCantidad()).isEqualTo(3);
+        assertThat(descartadas.getMuestras()).containsExactly("a.xml", "b.xml");
+
+        // Tomar un resumen reinicia solo su frecuencia
+        assertThat(agregador.tomar(FrecuenciaResumen.HORARIA).contadores()).isEmpty();
+        assertThat(total(agregador.tomar(FrecuenciaResumen.DIARIA))).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Tomar el resumen durante registros concurrentes no pierde ni repite alertas")
+    void testTomarConcurrente() throws InterruptedException {
+        int productores = 4;
+        int porProductor = 20_000;
+        List<Thread> hilos = new ArrayList<>();
+        for (int p = 0; p < productores; p++) {
+            String camara = "CAM-" + p;
+            hilos.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < porProductor; i++) {
+                    agregador.onAlertaFinalizada(evento(camara, "TIMEOUT", EstadoAlerta.ENVIADA, null));
+                }
+            }));
+        }
+
+        // Lo que se lee al tomar el periodo es lo que se envía: un incremento posterior se perdería
+        long leidos = 0;
+        while (hilos.stream().anyMatch(Thread::isAlive)) {
+            leidos += total(agregador.tomar(FrecuenciaResumen.HORARIA));
+            Thread.yield();
+        }
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+        leidos += total(agregador.tomar(FrecuenciaResumen.HORARIA));
+
+        assertThat(leidos).isEqualTo((long) productores * porProductor);
+        assertThat(total(agregador.tomar(FrecuenciaResumen.DIARIA))).isEqualTo((long) productores * porProductor);
+    }
+}
@@ -0,0 +1,137 @@
+package pe.gob.bcrp.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import pe.gob.bcrp.model.entity.Alerta;
+import pe.gob.bcrp.repository.AlertaRepository;
+import pe.gob.bcrp.service.IEmailService;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("AgrupadorAlertas Tests")
+class AgrupadorAlertasTest {
+
+    private final AlertaRepository alertaRepository = mock(AlertaRepository.class);
+    private final AlertaService alertaService = mock(AlertaService.class);
+    private final IEmailService emailService = mock(IEmailService.class);
+    private final ColasDespacho colasDespacho = mock(ColasDespacho.class);
+    private AgrupadorAlertas agrupador;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void configurar() {
+        agrupador = new AgrupadorAlertas(alertaRepository, alertaService, emailService, colasDespacho,
+                0, 300_000);
+        // El despacho se ejecuta en el mismo hilo que cierra la ventana
+        doAnswer(invocacion -> {
+            invocacion.<Runnable>getArgument(1).run();
+            return null;
+        }).when(colasDespacho).ejecutar(anyString(), any(Runnable.class));
+        when(alertaRepository.findAllById(any())).thenAnswer(invocacion ->
+                StreamSupport.stream(invocacion.<Iterable<Long>>getArgument(0).spliterator(), false)
+                        .map(AgrupadorAlertasTest::alerta)
+                        .collect(Collectors.toList()));
+        when(emailService.enviarAlertasAgrupadas(any(), anyList(), any())).thenReturn(true);
+    }
+
+    @AfterEach
+    void cerrar() {
+        agrupador.cerrar();
+    }
+
+    private void configurar(long ventanaMs, int maximoPorGrupo) {
+        ReflectionTestUtils.setField(agrupador, "ventanaMs", ventanaMs);
+        ReflectionTestUtils.setField(agrupador, "maximoPorGrupo", maximoPorGrupo);
+    }
+
+    private static Alerta alerta(Long idAlerta) {
+        Alerta alerta = new Alerta();
+        alerta.setIdAlerta(idAlerta);
+        alerta.setCamAfectada("CAMARA-1");
+        alerta.setTipError("ERROR_CONEXION");
+        alerta.setDestinatarios("soporte@bcrp.gob.pe");
+        return alerta;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<Alerta>> despachos(int cantidad, long esperaMs) {
+        ArgumentCaptor<List<Alerta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(alertaService, timeout(esperaMs).times(cantidad)).finalizarEnvios(captor.capture(), anyBoolean(), anyString());
+        return captor.getAllValues();
+    }
+
+    @Test
+    @DisplayName("Al vencer la ventana se envía un solo correo con todas las alertas del grupo")
+    void testVencimientoVentana() {
+        configurar(100, 500);
+
+        agrupador.agregar(alerta(1L));
+        agrupador.agregar(alerta(2L));
+        agrupador.agregar(alerta(3L));
+        verify(alertaService, never()).finalizarEnvios(anyList(), anyBoolean(), anyString());
+
+        List<List<Alerta>> despachos = despachos(1, 2000);
+        assertThat(despachos.get(0)).extracting(Alerta::getIdAlerta).containsExactly(1L, 2L, 3L);
+        verify(emailService).enviarAlertasAgrupadas(any(), anyList(), any());
+    }
+
+    @Test
+    @DisplayName("Un grupo que alcanza el máximo se envía sin esperar la ventana")
+    void testMaximoPorGrupo() {
+        configurar(60_000, 2);
+
+        agrupador.agregar(alerta(1L));
+        agrupador.agregar(alerta(2L));
+        agrupador.agregar(alerta(3L));
+
+        List<List<Alerta>> despachos = despachos(1, 1000);
+        assertThat(despachos.get(0)).extracting(Alerta::getIdAlerta).containsExactly(1L, 2L);
+    }
+
+    @Test
+    @DisplayName("El temporizador de un grupo ya enviado por tamaño no cierra el grupo siguiente")
+    void testTemporizadorObsoleto() throws InterruptedException {
+        configurar(300, 2);
+
+        agrupador.agregar(alerta(1L));
+        agrupador.agregar(alerta(2L));
+        Thread.sleep(150);
+        agrupador.agregar(alerta(3L));
+
+        // Vence el temporizador del primer grupo; el segundo sigue abierto hasta su propia ventana
+        Thread.sleep(250);
+        verify(alertaService, times(1)).finalizarEnvios(anyList(), anyBoolean(), anyString());
+
+        List<List<Alerta>> despachos = despachos(2, 2000);
+        assertThat(despachos.get(1)).extracting(Alerta::getIdAlerta).containsExactly(3L);
+    }
+
+    @Test
+    @DisplayName("Una ventana que no es menor que el vencimiento de la toma impide iniciar")
+    void testVentanaMayorQueVencimientoToma() {
+        assertThatThrownBy(() -> new AgrupadorAlertas(alertaRepository, alertaService, emailService, colasDespacho,
+                300_000, 300_000))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("correo.agrupacion.ventana-ms (300000)");
+    }
+}
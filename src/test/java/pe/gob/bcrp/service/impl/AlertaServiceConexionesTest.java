@@ -0,0 +1,151 @@
+package pe.gob.bcrp.service.impl;
+
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import pe.gob.bcrp.DataJpaTestMySql;
+import pe.gob.bcrp.model.dto.RequestSendEmail;
+import pe.gob.bcrp.model.entity.Alerta;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+import pe.gob.bcrp.repository.AlertaRepository;
+import pe.gob.bcrp.service.IEmailService;
+import pe.gob.bcrp.service.ITrazabilidadService;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Mide cuánto tiempo se retiene cada conexión del pool mientras se procesa una alerta con
+ * un relay SMTP lento
+ */
+@DataJpaTestMySql
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({AlertaService.class, TramaService.class, PoliticaReintentos.class, AlertaServiceConexionesTest.Configuracion.class})
+@DisplayName("AlertaService - conexiones a BD")
+class AlertaServiceConexionesTest {
+
+    private static final long LATENCIA_SMTP_MS = 500;
+
+    private static final List<Long> retenciones = new CopyOnWriteArrayList<>();
+
+    @TestConfiguration
+    static class Configuracion {
+
+        /**
+         * Registra, por cada conexión entregada, los milisegundos hasta que se devuelve al pool
+         */
+        @Bean
+        static BeanPostProcessor medidorConexiones() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (!(bean instanceof DataSource dataSource)) {
+                        return bean;
+                    }
+                    return new DelegatingDataSource(dataSource) {
+                        @Override
+                        public Connection getConnection() throws SQLException {
+                            return medir(super.getConnection());
+                        }
+                    };
+                }
+            };
+        }
+
+        private static Connection medir(Connection conexion) {
+            long inicio = System.nanoTime();
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, metodo, argumentos) -> {
+                        if (metodo.getName().equals("close")) {
+                            retenciones.add((System.nanoTime() - inicio) / 1_000_000);
+                        }
+                        try {
+                            return metodo.invoke(conexion, argumentos);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+
+    @MockBean
+    private IEmailService emailService;
+    @MockBean
+    private ITrazabilidadService traceabilityService;
+    @MockBean
+    private RegistroListasDistribucion registroListas;
+    @MockBean
+    private MetricasEnvio metricasEnvio;
+    @MockBean
+    private EstadisticasAlertas estadisticasAlertas;
+    @MockBean
+    private Validator validator;
+
+    @Autowired
+    private AlertaService alertaService;
+    @Autowired
+    private AlertaRepository alertaRepository;
+
+    @BeforeEach
+    void configurar() throws Exception {
+        when(emailService.enviarAlertaCorreo(any(), any(), anyString())).thenAnswer(invocacion -> {
+            Thread.sleep(LATENCIA_SMTP_MS);
+            return true;
+        });
+        retenciones.clear();
+    }
+
+    private static RequestSendEmail solicitud() {
+        RequestSendEmail request = new RequestSendEmail();
+        request.setTo("destino@bcrp.gob.pe");
+        request.setAsunto("Alerta de prueba");
+        request.setNombreArchivo("archivo.xml");
+        request.setTipoError("TIMEOUT");
+        request.setCamaraAfectada("CCE");
+        request.setTrama("<trama>contenido</trama>");
+        request.setUsuarioSistema("prueba");
+        return request;
+    }
+
+    @Test
+    @DisplayName("Ninguna conexión se retiene durante el envío SMTP")
+    void testConexionNoEsperaAlSmtp() throws Exception {
+        Alerta alerta = alertaService.procesarAlerta(solicitud(), "proceso-1");
+
+        assertThat(alerta.getEstado()).isEqualTo(EstadoAlerta.ENVIADA);
+        assertThat(retenciones).isNotEmpty();
+        assertThat(retenciones).allSatisfy(ms -> assertThat(ms).isLessThan(LATENCIA_SMTP_MS / 2));
+    }
+
+    @Test
+    @DisplayName("El resultado del envío se guarda sin reescribir el resto de la alerta")
+    void testActualizacionDeEstado() throws Exception {
+        Alerta alerta = alertaService.procesarAlerta(solicitud(), "proceso-2");
+
+        Alerta guardada = alertaRepository.findById(alerta.getIdAlerta()).orElseThrow();
+        assertThat(guardada.getEstado()).isEqualTo(EstadoAlerta.ENVIADA);
+        assertThat(guardada.getFechaEnvio()).isNotNull();
+        assertThat(guardada.getAsunto()).isEqualTo("Alerta de prueba");
+        assertThat(guardada.getHashTrama()).isNotNull();
+    }
+}
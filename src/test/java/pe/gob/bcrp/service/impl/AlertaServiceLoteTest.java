@@ -0,0 +1,135 @@
+package pe.gob.bcrp.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import pe.gob.bcrp.DataJpaTestMySql;
+import pe.gob.bcrp.exception.EmailValidationException;
+import pe.gob.bcrp.model.dto.RequestSendEmail;
+import pe.gob.bcrp.model.dto.ResultadoLoteDTO;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+import pe.gob.bcrp.model.event.AlertaRegistradaEvent;
+import pe.gob.bcrp.model.event.LoteRegistradoEvent;
+import pe.gob.bcrp.repository.AlertaRepository;
+import pe.gob.bcrp.service.IEmailService;
+import pe.gob.bcrp.service.ITrazabilidadService;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTestMySql
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@RecordApplicationEvents
+@Import({AlertaService.class, TramaService.class, PoliticaReintentos.class, AgregadorResumen.class,
+        MetricasEnvio.class, AlertaServiceLoteTest.Configuracion.class})
+@DisplayName("AlertaService - lotes")
+class AlertaServiceLoteTest {
+
+    @TestConfiguration
+    static class Configuracion {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockBean
+    private IEmailService emailService;
+    @MockBean
+    private ITrazabilidadService traceabilityService;
+    @MockBean
+    private RegistroListasDistribucion registroListas;
+    @MockBean
+    private EstadisticasAlertas estadisticasAlertas;
+    @MockBean
+    private Validator validator;
+
+    @Autowired
+    private AlertaService alertaService;
+    @Autowired
+    private AlertaRepository alertaRepository;
+    @Autowired
+    private ApplicationEvents eventos;
+
+    @BeforeEach
+    void configurar() throws Exception {
+        alertaRepository.deleteAll();
+        doThrow(new EmailValidationException("Emails inválidos en campo TO", List.of()))
+                .when(emailService).validarDestinatarios(argThat(request -> "invalido".equals(request.getTo())));
+    }
+
+    private static RequestSendEmail solicitud(String to) {
+        RequestSendEmail request = new RequestSendEmail();
+        request.setTo(to);
+        request.setAsunto("Alerta de prueba");
+        request.setNombreArchivo("archivo.xml");
+        request.setTipoError("TIMEOUT");
+        request.setCamaraAfectada("CCE");
+        request.setTrama("<trama/>");
+        request.setUsuarioSistema("prueba");
+        return request;
+    }
+
+    @Test
+    @DisplayName("Los elementos inválidos se rechazan uno a uno y el resto se registra en un solo evento de lote")
+    void testLoteAsincrono() {
+        List<RequestSendEmail> requests = Arrays.asList(solicitud("a@bcrp.gob.pe"), null,
+                solicitud("invalido"), solicitud("b@bcrp.gob.pe"));
+
+        List<ResultadoLoteDTO> resultados = alertaService.procesarLote(requests, "proceso-lote", true);
+
+        assertThat(resultados).extracting(ResultadoLoteDTO::getIndice).containsExactly(0, 1, 2, 3);
+        assertThat(resultados).extracting(ResultadoLoteDTO::getEstado)
+                .containsExactly("PENDIENTE", "RECHAZADA", "RECHAZADA", "PENDIENTE");
+        assertThat(resultados.get(1).getMensaje()).isEqualTo("Elemento vacío");
+        assertThat(resultados.get(2).getMensaje()).isEqualTo("Emails inválidos en campo TO");
+        assertThat(resultados.get(1).getIdAlerta()).isNull();
+
+        assertThat(alertaRepository.count()).isEqualTo(2);
+        assertThat(eventos.stream(AlertaRegistradaEvent.class)).isEmpty();
+        assertThat(eventos.stream(LoteRegistradoEvent.class)).singleElement()
+                .satisfies(evento -> assertThat(evento.alertas()).extracting(AlertaRegistradaEvent::idAlerta)
+                        .containsExactly(resultados.get(0).getIdAlerta(), resultados.get(3).getIdAlerta()));
+        verify(emailService, never()).enviarAlertasCorreo(anyList(), anyList(), anyString());
+    }
+
+    @Test
+    @DisplayName("El lote síncrono se envía en una llamada y cada alerta registra su propio resultado")
+    void testLoteSincrono() {
+        when(emailService.enviarAlertasCorreo(anyList(), anyList(), anyString())).thenReturn(new boolean[]{true, false});
+
+        List<ResultadoLoteDTO> resultados = alertaService.procesarLote(
+                List.of(solicitud("a@bcrp.gob.pe"), solicitud("invalido"), solicitud("b@bcrp.gob.pe")),
+                "proceso-lote", false);
+
+        assertThat(resultados.get(0).getEstado()).isEqualTo("ENVIADA");
+        assertThat(resultados.get(1).getEstado()).isEqualTo("RECHAZADA");
+        assertThat(resultados.get(2).getEstado()).isNotIn("ENVIADA", "PROCESADA", "RECHAZADA");
+        assertThat(alertaRepository.findById(resultados.get(0).getIdAlerta()).orElseThrow().getEstado())
+                .isEqualTo(EstadoAlerta.ENVIADA);
+        assertThat(alertaRepository.findById(resultados.get(2).getIdAlerta()).orElseThrow().getEstado().name())
+                .isEqualTo(resultados.get(2).getEstado());
+        assertThat(eventos.stream(LoteRegistradoEvent.class)).isEmpty();
+    }
+}
@@ -0,0 +1,135 @@
+package pe.gob.bcrp.service.impl;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import pe.gob.bcrp.DataJpaTestMySql;
+import pe.gob.bcrp.model.dto.RequestSendEmail;
+import pe.gob.bcrp.model.entity.Alerta;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+import pe.gob.bcrp.model.entity.FrecuenciaResumen;
+import pe.gob.bcrp.repository.AlertaRepository;
+import pe.gob.bcrp.service.IEmailService;
+import pe.gob.bcrp.service.ITrazabilidadService;
+
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Los reintentos de una alerta no deben contarla varias veces en resúmenes ni métricas
+ */
+@DataJpaTestMySql
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({AlertaService.class, TramaService.class, PoliticaReintentos.class, AgregadorResumen.class,
+        MetricasEnvio.class, AlertaServiceReintentosTest.Configuracion.class})
+@DisplayName("AlertaService - reintentos")
+class AlertaServiceReintentosTest {
+
+    @TestConfiguration
+    static class Configuracion {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @MockBean
+    private IEmailService emailService;
+    @MockBean
+    private ITrazabilidadService traceabilityService;
+    @MockBean
+    private RegistroListasDistribucion registroListas;
+    @MockBean
+    private EstadisticasAlertas estadisticasAlertas;
+    @MockBean
+    private Validator validator;
+
+    @Autowired
+    private AlertaService alertaService;
+    @Autowired
+    private AlertaRepository alertaRepository;
+    @Autowired
+    private AgregadorResumen agregadorResumen;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void reiniciar() {
+        agregadorResumen.tomar(FrecuenciaResumen.HORARIA);
+        meterRegistry.clear();
+    }
+
+    private static RequestSendEmail solicitud() {
+        RequestSendEmail request = new RequestSendEmail();
+        request.setTo("destino@bcrp.gob.pe");
+        request.setAsunto("Alerta de prueba");
+        request.setNombreArchivo("archivo.xml");
+        request.setTipoError("TIMEOUT");
+        request.setCamaraAfectada("CCE");
+        request.setTrama("<trama/>");
+        request.setUsuarioSistema("prueba");
+        return request;
+    }
+
+    @Test
+    @DisplayName("Dos intentos fallidos y un envío exitoso cuentan una sola alerta ENVIADA")
+    void testReintentosCuentanUnaVez() throws Exception {
+        RequestSendEmail request = solicitud();
+        when(emailService.enviarAlertaCorreo(any(), any(), anyString())).thenReturn(false);
+
+        // Primer intento fallido en el registro, segundo en un reintento, tercero exitoso
+        Alerta alerta = alertaService.procesarAlerta(request, "proceso-1");
+        assertThat(alerta.getEstado()).isEqualTo(EstadoAlerta.ERROR_ENVIO);
+        alertaService.finalizarEnvio(alertaRepository.findById(alerta.getIdAlerta()).orElseThrow(), false, "proceso-1");
+        Alerta enviada = alertaService.finalizarEnvio(
+                alertaRepository.findById(alerta.getIdAlerta()).orElseThrow(), true, "proceso-1");
+
+        assertThat(enviada.getEstado()).isEqualTo(EstadoAlerta.ENVIADA);
+        assertThat(enviada.getNumIntentos()).isEqualTo(2);
+
+        Map<AgregadorResumen.ClaveResumen, AgregadorResumen.Contador> contadores =
+                agregadorResumen.tomar(FrecuenciaResumen.HORARIA).contadores();
+        assertThat(contadores).hasSize(1);
+        assertThat(contadores.get(new AgregadorResumen.ClaveResumen("CCE", "TIMEOUT", EstadoAlerta.ENVIADA))
+                .getCantidad()).isEqualTo(1);
+
+        assertThat(meterRegistry.find("correo.alertas.finalizadas").counters()).hasSize(1);
+        assertThat(meterRegistry.get("correo.alertas.finalizadas").tag("estado", "ENVIADA").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("El resultado se registra aunque FEC_REG se haya guardado sin fracciones de segundo")
+    void testFechaRegistroSinFracciones() throws Exception {
+        when(emailService.enviarAlertaCorreo(any(), any(), anyString())).thenReturn(false);
+        Alerta alerta = alertaService.procesarAlerta(solicitud(), "proceso-2");
+
+        // Columna DATETIME sin fracciones: la fecha en BD ya no coincide con la de la entidad
+        jdbcTemplate.update("UPDATE MOM_MAE_ALERTA SET FEC_REG = ? WHERE ID_ALERTA = ?",
+                alerta.getFechaCreacion().truncatedTo(ChronoUnit.SECONDS).minusSeconds(1), alerta.getIdAlerta());
+        alertaService.finalizarEnvio(alerta, true, "proceso-2");
+
+        assertThat(alertaRepository.findById(alerta.getIdAlerta()).orElseThrow().getEstado())
+                .isEqualTo(EstadoAlerta.ENVIADA);
+        assertThat(meterRegistry.get("correo.alertas.finalizadas").tag("estado", "ENVIADA").counter().count())
+                .isEqualTo(1);
+    }
+}
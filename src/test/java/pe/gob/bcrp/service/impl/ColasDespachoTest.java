@@ -0,0 +1,125 @@
+package pe.gob.bcrp.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import pe.gob.bcrp.config.SeveridadProperties;
+import pe.gob.bcrp.model.entity.Severidad;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DisplayName("ColasDespacho Tests")
+class ColasDespachoTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Severidad> atendidas = new CopyOnWriteArrayList<>();
+    private ColasDespacho colas;
+
+    @AfterEach
+    void cerrar() {
+        colas.cerrar(5000);
+    }
+
+    // Un solo trabajador, ocupado hasta liberar el latch, para llenar las colas antes de atender
+    private CountDownLatch crear(SeveridadProperties propiedades, int capacidad) throws InterruptedException {
+        colas = new ColasDespacho(1, capacidad, Thread.ofPlatform().factory(), propiedades, meterRegistry);
+        CountDownLatch ocupado = new CountDownLatch(1);
+        CountDownLatch liberar = new CountDownLatch(1);
+        colas.ejecutar(Severidad.NORMAL, () -> {
+            ocupado.countDown();
+            try {
+                liberar.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        ocupado.await();
+        return liberar;
+    }
+
+    private void encolar(Severidad severidad, int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            colas.ejecutar(severidad, () -> atendidas.add(severidad));
+        }
+    }
+
+    private void esperarAtendidas(int cantidad) throws InterruptedException {
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (atendidas.size() < cantidad && System.nanoTime() < limite) {
+            Thread.sleep(5);
+        }
+        assertThat(atendidas).hasSize(cantidad);
+    }
+
+    @Test
+    @DisplayName("Con todas las colas ocupadas cada clase se atiende en proporción a su peso")
+    void testRepartoPonderado() throws InterruptedException {
+        CountDownLatch liberar = crear(new SeveridadProperties(), 100);
+        for (Severidad severidad : Severidad.values()) {
+            encolar(severidad, 30);
+        }
+        assertThat(meterRegistry.get("correo.despacho.cola").tag("severidad", "baja").gauge().value()).isEqualTo(30);
+
+        liberar.countDown();
+        esperarAtendidas(120);
+
+        // Pesos 8/4/2/1: en cada turno de 15 tareas
+        List<Severidad> turno = atendidas.subList(0, 15);
+        assertThat(turno).filteredOn(s -> s == Severidad.CRITICA).hasSize(8);
+        assertThat(turno).filteredOn(s -> s == Severidad.ALTA).hasSize(4);
+        assertThat(turno).filteredOn(s -> s == Severidad.NORMAL).hasSize(2);
+        assertThat(turno).filteredOn(s -> s == Severidad.BAJA).hasSize(1);
+        assertThat(atendidas.get(0)).isEqualTo(Severidad.CRITICA);
+        assertThat(meterRegistry.get("correo.despacho.espera").tag("severidad", "critica").timer().count())
+                .isEqualTo(30);
+    }
+
+    @Test
+    @DisplayName("Una tarea envejecida compite con el peso máximo y no espera a que se vacíen las demás")
+    void testEnvejecimiento() throws InterruptedException {
+        SeveridadProperties propiedades = new SeveridadProperties();
+        propiedades.setEnvejecimientoMs(50);
+        CountDownLatch liberar = crear(propiedades, 100);
+
+        encolar(Severidad.BAJA, 1);
+        Thread.sleep(80);
+        encolar(Severidad.CRITICA, 20);
+
+        liberar.countDown();
+        esperarAtendidas(21);
+
+        assertThat(atendidas.indexOf(Severidad.BAJA)).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Clasifica por tipo de error y rechaza cuando la cola de la clase está llena")
+    void testClasificacionYCapacidad() throws InterruptedException {
+        SeveridadProperties propiedades = new SeveridadProperties();
+        propiedades.setTipos(Map.of("ERROR_CONEXION", Severidad.CRITICA));
+        CountDownLatch liberar = crear(propiedades, 2);
+
+        assertThat(colas.clasificar("ERROR_CONEXION")).isEqualTo(Severidad.CRITICA);
+        assertThat(colas.clasificar("ERROR_FORMATO")).isEqualTo(Severidad.NORMAL);
+        assertThat(colas.clasificar("")).isEqualTo(Severidad.BAJA);
+        assertThat(colas.clasificar(null)).isEqualTo(Severidad.BAJA);
+
+        encolar(Severidad.BAJA, 2);
+        assertThatThrownBy(() -> colas.ejecutar("", () -> { }))
+                .isInstanceOf(RejectedExecutionException.class);
+        // La cola llena de una clase no bloquea a las demás
+        colas.ejecutar("ERROR_CONEXION", () -> atendidas.add(Severidad.CRITICA));
+
+        liberar.countDown();
+        esperarAtendidas(3);
+        assertThat(atendidas.get(0)).isEqualTo(Severidad.CRITICA);
+    }
+}
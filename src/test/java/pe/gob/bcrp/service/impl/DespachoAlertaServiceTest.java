@@ -0,0 +1,128 @@
+package pe.gob.bcrp.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import pe.gob.bcrp.model.entity.Alerta;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+import pe.gob.bcrp.repository.AlertaRepository;
+import pe.gob.bcrp.service.IEmailService;
+import pe.gob.bcrp.service.ITrazabilidadService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+@Import(DespachoAlertaService.class)
+@DisplayName("DespachoAlertaService Tests")
+class DespachoAlertaServiceTest {
+
+    @MockBean
+    private AlertaService alertaService;
+    @MockBean
+    private IEmailService emailService;
+    @MockBean
+    private ITrazabilidadService traceabilityService;
+    @MockBean
+    private AgrupadorAlertas agrupadorAlertas;
+    @MockBean
+    private ColasDespacho colasDespacho;
+
+    @Autowired
+    private DespachoAlertaService despachoAlertaService;
+    @Autowired
+    private AlertaRepository alertaRepository;
+
+    @Test
+    @DisplayName("Una alerta tomada por un proceso que cae antes del resultado vuelve a pendiente al vencer la toma")
+    void testRecuperaTomaVencida() throws Exception {
+        Alerta alerta = new Alerta();
+        alerta.setNomArchivo("archivo.xml");
+        alerta.setTipError("TIMEOUT");
+        alerta.setCamAfectada("CCE");
+        alerta.setFechaCreacion(LocalDateTime.now().minusMinutes(10));
+        alerta.setEstado(EstadoAlerta.PENDIENTE);
+        Long idAlerta = alertaRepository.saveAndFlush(alerta).getIdAlerta();
+
+        // El proceso termina a mitad del envío: la alerta queda PROCESADA sin resultado
+        when(emailService.enviarAlertaCorreo(any(), any(), any())).thenThrow(new Error("caída del proceso"));
+        assertThatThrownBy(() -> despachoAlertaService.despachar(idAlerta)).isInstanceOf(Error.class);
+
+        Alerta tomada = alertaRepository.findById(idAlerta).orElseThrow();
+        assertThat(tomada.getEstado()).isEqualTo(EstadoAlerta.PROCESADA);
+        assertThat(tomada.getFechaToma()).isNotNull();
+
+        // Mientras la toma está vigente el barrido no la toca
+        despachoAlertaService.barrerPendientes();
+        assertThat(alertaRepository.findById(idAlerta).orElseThrow().getEstado()).isEqualTo(EstadoAlerta.PROCESADA);
+        verify(colasDespacho, never()).ejecutar(anyString(), any());
+
+        ReflectionTestUtils.setField(despachoAlertaService, "vencimientoTomaMs", 0L);
+        despachoAlertaService.barrerPendientes();
+
+        Alerta recuperada = alertaRepository.findById(idAlerta).orElseThrow();
+        assertThat(recuperada.getEstado()).isEqualTo(EstadoAlerta.PENDIENTE);
+        assertThat(recuperada.getFechaToma()).isNull();
+        verify(colasDespacho).ejecutar(eq("TIMEOUT"), any());
+    }
+
+    @Test
+    @DisplayName("Las alertas pendientes fuera de la ventana del barrido frecuente las recupera el barrido completo")
+    void testBarridoCompletoRecuperaAntiguas() {
+        Alerta alerta = new Alerta();
+        alerta.setNomArchivo("archivo.xml");
+        alerta.setFechaCreacion(LocalDateTime.now().minusDays(5));
+        alerta.setEstado(EstadoAlerta.PENDIENTE);
+        alertaRepository.saveAndFlush(alerta);
+
+        despachoAlertaService.barrerPendientes();
+        verify(colasDespacho, never()).ejecutar(nullable(String.class), any());
+
+        despachoAlertaService.barrerPendientesAntiguas();
+        verify(colasDespacho).ejecutar(nullable(String.class), any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Un lote registrado se toma completo y se envía en una sola llamada por una conexión")
+    void testDespachoLote() throws Exception {
+        List<Long> idsAlertas = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Alerta alerta = new Alerta();
+            alerta.setNomArchivo("archivo-" + i + ".xml");
+            alerta.setTipError("");
+            alerta.setFechaCreacion(LocalDateTime.now());
+            alerta.setEstado(EstadoAlerta.PENDIENTE);
+            idsAlertas.add(alertaRepository.saveAndFlush(alerta).getIdAlerta());
+        }
+        // Otro despachador ya tomó la última alerta
+        alertaRepository.tomar(idsAlertas.get(2), LocalDateTime.now());
+        when(emailService.enviarAlertasCorreo(anyList(), anyList(), nullable(String.class)))
+                .thenReturn(new boolean[]{true, false});
+
+        despachoAlertaService.despacharLote(idsAlertas);
+
+        ArgumentCaptor<List<Alerta>> enviadas = ArgumentCaptor.forClass(List.class);
+        verify(emailService).enviarAlertasCorreo(anyList(), enviadas.capture(), nullable(String.class));
+        assertThat(enviadas.getValue()).extracting(Alerta::getIdAlerta).containsExactly(idsAlertas.get(0), idsAlertas.get(1));
+        verify(emailService, never()).enviarAlertaCorreo(any(), any(), any());
+        verify(alertaService).finalizarLote(eq(enviadas.getValue()), eq(new boolean[]{true, false}), nullable(String.class));
+    }
+}
@@ -0,0 +1,160 @@
+package pe.gob.bcrp.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import pe.gob.bcrp.mail.RenderizadorPlantillas;
+import pe.gob.bcrp.model.dto.RequestSendEmail;
+import pe.gob.bcrp.model.entity.Alerta;
+import pe.gob.bcrp.service.ITrazabilidadService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Costo por mensaje del camino de envío sin SMTP: contexto de la plantilla, renderizado
+ * (plantilla compilada y Thymeleaf directo) y armado del MimeMessage con MimeMessageHelper.
+ * Con el perfil benchmark se reporta además la asignación por operación (-prof gc).
+ *
+ * Se ejecuta con {@code mvn -P benchmark verify -Djmh.benchmarks=EmailServiceImplBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailServiceImplBenchmark {
+
+    private static final OutputStream DESCARTE = OutputStream.nullOutputStream();
+
+    @Param({"alerta-email", "success-email"})
+    private String plantilla;
+
+    private EmailServiceImpl emailService;
+    private RenderizadorPlantillas renderizador;
+    private SpringTemplateEngine templateEngine;
+    private RequestSendEmail request;
+    private Alerta alerta;
+    private Map<String, Object> contexto;
+
+    @Setup
+    public void preparar() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        renderizador = new RenderizadorPlantillas(templateEngine, new DefaultResourceLoader());
+        ReflectionTestUtils.setField(renderizador, "prefijo", "classpath:/templates/");
+        ReflectionTestUtils.setField(renderizador, "sufijo", ".html");
+        ReflectionTestUtils.setField(renderizador, "verificacionMs", 0L);
+
+        // El registro de listas no se consulta cuando la solicitud no referencia una lista y las
+        // métricas solo usan el repositorio al recalcular los estados
+        emailService = new EmailServiceImpl(new JavaMailSenderImpl(), renderizador, new TrazabilidadNula(),
+                new RegistroListasDistribucion(null, 0), new MetricasEnvio(new SimpleMeterRegistry(), null));
+        ReflectionTestUtils.setField(emailService, "emailFrom", "alertas@bcrp.gob.pe");
+        ReflectionTestUtils.setField(emailService, "tamanoMaximoTrama", 1 << 20);
+
+        request = new RequestSendEmail();
+        request.setTo("operaciones@bcrp.gob.pe; monitoreo@bcrp.gob.pe, jefatura@bcrp.gob.pe");
+        request.setCc("soporte@bcrp.gob.pe");
+        request.setAsunto("Alerta de carga");
+        request.setCamaraAfectada("CAM-001");
+        request.setNombreArchivo("archivo_20250718.xml");
+        request.setTipoError("success-email".equals(plantilla) ? "" : "ERROR_VALIDACION");
+
+        alerta = new Alerta();
+        alerta.setIdAlerta(12345L);
+        alerta.setNomArchivo(request.getNombreArchivo());
+        alerta.setTipError(request.getTipoError());
+        alerta.setCamAfectada(request.getCamaraAfectada());
+        alerta.setFechaCreacion(LocalDateTime.of(2025, 7, 18, 10, 30));
+        alerta.setTrama("<?xml version=\"1.0\" encoding=\"UTF-8\"?><error><codigo>E-101</codigo>"
+                + "<detalle>Monto &amp; cuenta no coinciden</detalle><registro n=\"15\"/></error>");
+
+        contexto = emailService.crearContextoPlantilla(alerta);
+        // Compila la plantilla fuera de la medición
+        renderizador.renderizar(plantilla, contexto);
+    }
+
+    @Benchmark
+    public Map<String, Object> crearContexto() {
+        return emailService.crearContextoPlantilla(alerta);
+    }
+
+    @Benchmark
+    public String renderizarCompilada() {
+        return renderizador.renderizar(plantilla, emailService.crearContextoPlantilla(alerta));
+    }
+
+    @Benchmark
+    public String renderizarThymeleaf() {
+        return templateEngine.process(plantilla, new Context(Locale.getDefault(), contexto));
+    }
+
+    @Benchmark
+    public MimeMessage construirMensaje() throws MessagingException, UnsupportedEncodingException {
+        return emailService.construirMensaje(request, alerta);
+    }
+
+    @Benchmark
+    public MimeMessage serializarMensaje() throws MessagingException, IOException {
+        MimeMessage mensaje = emailService.construirMensaje(request, alerta);
+        mensaje.saveChanges();
+        mensaje.writeTo(DESCARTE);
+        return mensaje;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(EmailServiceImplBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    private static final class TrazabilidadNula implements ITrazabilidadService {
+        @Override
+        public void logSuccess(String tipoEvento, String procesoId, String mensaje) {
+        }
+
+        @Override
+        public void logSuccess(String tipoEvento, String procesoId, Supplier<String> mensaje) {
+        }
+
+        @Override
+        public void logError(String tipoEvento, String procesoId, String mensaje) {
+        }
+
+        @Override
+        public void logError(String tipoEvento, String procesoId, Supplier<String> mensaje) {
+        }
+    }
+}
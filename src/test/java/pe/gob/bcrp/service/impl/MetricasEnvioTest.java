@@ -0,0 +1,110 @@
+package pe.gob.bcrp.service.impl;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+import pe.gob.bcrp.model.event.AlertaFinalizadaEvent;
+import pe.gob.bcrp.repository.AlertaRepository;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("MetricasEnvio Tests")
+class MetricasEnvioTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AlertaRepository alertaRepository = mock(AlertaRepository.class);
+    private MetricasEnvio metricas;
+
+    @BeforeEach
+    void configurar() {
+        metricas = new MetricasEnvio(meterRegistry, alertaRepository);
+        metricas.bindTo(meterRegistry);
+    }
+
+    private static AlertaFinalizadaEvent evento(String tipoError, String camara, EstadoAlerta estado) {
+        return new AlertaFinalizadaEvent(1L, camara, tipoError, "archivo.xml", estado,
+                EstadoAlerta.PENDIENTE, LocalDateTime.now());
+    }
+
+    private static AlertaRepository.ConteoEstado conteo(EstadoAlerta estado, long cantidad) {
+        return new AlertaRepository.ConteoEstado() {
+            @Override
+            public EstadoAlerta getEstado() {
+                return estado;
+            }
+
+            @Override
+            public long getCantidad() {
+                return cantidad;
+            }
+        };
+    }
+
+    @Test
+    @DisplayName("Cada etapa registra su duración en su propio timer")
+    void testTimersPorEtapa() {
+        metricas.registrar(MetricasEnvio.Etapa.SMTP, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(50));
+        metricas.registrar(MetricasEnvio.Etapa.SMTP, System.nanoTime());
+
+        Timer smtp = meterRegistry.get("correo.envio.etapa").tag("etapa", "smtp").timer();
+        assertThat(smtp.count()).isEqualTo(2);
+        assertThat(smtp.max(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(50);
+        assertThat(meterRegistry.get("correo.envio.etapa").tag("etapa", "guardado").timer().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Los valores de etiqueta después del máximo se agrupan como OTRO y los intentos no finales no cuentan")
+    void testEtiquetasAcotadas() {
+        ReflectionTestUtils.setField(metricas, "maximoEtiquetas", 2);
+
+        metricas.onAlertaFinalizada(evento("TIMEOUT", "CCE", EstadoAlerta.ENVIADA));
+        metricas.onAlertaFinalizada(evento("FORMATO", "CCE", EstadoAlerta.ENVIADA));
+        metricas.onAlertaFinalizada(evento("CONEXION", "CCE", EstadoAlerta.DESCARTADA));
+        metricas.onAlertaFinalizada(evento("TIMEOUT", "CCE", EstadoAlerta.ENVIADA));
+        metricas.onAlertaFinalizada(evento("", null, EstadoAlerta.ENVIADA));
+        metricas.onAlertaFinalizada(evento("TIMEOUT", "CCE", EstadoAlerta.ERROR_ENVIO));
+
+        assertThat(meterRegistry.get("correo.alertas.finalizadas").tag("tipo_error", "TIMEOUT").counter().count())
+                .isEqualTo(2);
+        assertThat(meterRegistry.get("correo.alertas.finalizadas").tag("tipo_error", "OTRO")
+                .tag("estado", "DESCARTADA").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("correo.alertas.finalizadas").tag("tipo_error", "NINGUNO")
+                .tag("camara", "NINGUNO").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.find("correo.alertas.finalizadas").tag("tipo_error", "CONEXION").counter()).isNull();
+        assertThat(meterRegistry.find("correo.alertas.finalizadas").tag("estado", "ERROR_ENVIO").counter()).isNull();
+    }
+
+    @Test
+    @DisplayName("Los gauges de estado cubren solo los estados en curso y se reinician cuando el estado ya no tiene alertas")
+    void testGaugesDeEstado() {
+        when(alertaRepository.contarPorEstado(any())).thenReturn(List.of(
+                conteo(EstadoAlerta.PENDIENTE, 3), conteo(EstadoAlerta.ERROR_ENVIO, 1)));
+        metricas.actualizarEstados();
+
+        // Los estados finales no se cuentan: la consulta solo recorre la bandeja
+        verify(alertaRepository).contarPorEstado(
+                EnumSet.of(EstadoAlerta.PENDIENTE, EstadoAlerta.PROCESADA, EstadoAlerta.ERROR_ENVIO));
+        assertThat(meterRegistry.get("correo.alertas.estado").tag("estado", "PENDIENTE").gauge().value()).isEqualTo(3);
+        assertThat(meterRegistry.get("correo.alertas.estado").tag("estado", "ERROR_ENVIO").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("correo.alertas.estado").tag("estado", "PROCESADA").gauge().value()).isZero();
+        assertThat(meterRegistry.find("correo.alertas.estado").tag("estado", "ENVIADA").gauge()).isNull();
+
+        when(alertaRepository.contarPorEstado(any())).thenReturn(List.of(conteo(EstadoAlerta.ERROR_ENVIO, 2)));
+        metricas.actualizarEstados();
+        assertThat(meterRegistry.get("correo.alertas.estado").tag("estado", "PENDIENTE").gauge().value()).isZero();
+        assertThat(meterRegistry.get("correo.alertas.estado").tag("estado", "ERROR_ENVIO").gauge().value()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,44 @@
+package pe.gob.bcrp.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("PoliticaReintentos Tests")
+class PoliticaReintentosTest {
+
+    private final PoliticaReintentos politica = new PoliticaReintentos();
+    private final LocalDateTime ahora = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private Duration espera(int intentos) {
+        return Duration.between(ahora, politica.proximoIntento(intentos, ahora));
+    }
+
+    @Test
+    @DisplayName("La espera se duplica con cada intento, con jitter entre la mitad y el total")
+    void testEsperaExponencial() {
+        for (int i = 0; i < 100; i++) {
+            assertThat(espera(1)).isBetween(Duration.ofSeconds(30), Duration.ofSeconds(60));
+            assertThat(espera(3)).isBetween(Duration.ofMinutes(2), Duration.ofMinutes(4));
+        }
+    }
+
+    @Test
+    @DisplayName("La espera no supera el máximo aunque los intentos sean muchos")
+    void testEsperaAcotada() {
+        for (int intentos : new int[]{7, 40, Integer.MAX_VALUE}) {
+            assertThat(espera(intentos)).isBetween(Duration.ofMinutes(30), Duration.ofHours(1));
+        }
+    }
+
+    @Test
+    @DisplayName("Se descarta al alcanzar los intentos máximos")
+    void testIntentosMaximos() {
+        assertThat(politica.permiteReintento(4)).isTrue();
+        assertThat(politica.permiteReintento(5)).isFalse();
+    }
+}
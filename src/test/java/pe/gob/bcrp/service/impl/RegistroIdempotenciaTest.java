@@ -0,0 +1,127 @@
+package pe.gob.bcrp.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import pe.gob.bcrp.DataJpaTestMySql;
+import pe.gob.bcrp.exception.IdempotenciaException;
+import pe.gob.bcrp.model.dto.RequestSendEmail;
+import pe.gob.bcrp.model.dto.ResponseDTO;
+import pe.gob.bcrp.repository.IdempotenciaRepository;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTestMySql
+@Import(RegistroIdempotencia.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@DisplayName("RegistroIdempotencia Tests")
+class RegistroIdempotenciaTest {
+
+    @Autowired
+    private RegistroIdempotencia registro;
+    @Autowired
+    private IdempotenciaRepository idempotenciaRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @DisplayName("La repetición de una clave completada retorna la respuesta guardada desde memoria")
+    void repeticionDesdeMemoria() {
+        assertThat(registro.reservar("clave-1", solicitud("A"))).isNull();
+        registro.completar("clave-1", 202, ResponseDTO.builder().message("Alerta registrada").build());
+
+        // Sin la fila en BD, la respuesta solo puede venir de la caché
+        idempotenciaRepository.deleteAll();
+        idempotenciaRepository.flush();
+
+        RegistroIdempotencia.Respuesta respuesta = registro.reservar("clave-1", solicitud("A"));
+        assertThat(respuesta.estadoHttp()).isEqualTo(202);
+        assertThat(respuesta.cuerpo().getMessage()).isEqualTo("Alerta registrada");
+    }
+
+    @Test
+    @DisplayName("La respuesta guardada en BD se repite aunque no esté en memoria")
+    void repeticionDesdeBaseDeDatos() {
+        idempotenciaRepository.reservar("clave-2", "x", LocalDateTime.now());
+        assertThatThrownBy(() -> registro.reservar("clave-2", solicitud("A")))
+                .isInstanceOf(IdempotenciaException.class)
+                .matches(e -> !((IdempotenciaException) e).isEnProceso());
+
+        registro.reservar("clave-3", solicitud("B"));
+        registro.completar("clave-3", 200, ResponseDTO.builder().message("Enviado").build());
+        RegistroIdempotencia otraInstancia = new RegistroIdempotencia(idempotenciaRepository,
+                objectMapper, 10);
+
+        RegistroIdempotencia.Respuesta respuesta = otraInstancia.reservar("clave-3", solicitud("B"));
+        assertThat(respuesta.estadoHttp()).isEqualTo(200);
+        assertThat(respuesta.cuerpo().getMessage()).isEqualTo("Enviado");
+    }
+
+    @Test
+    @DisplayName("Una clave en proceso se rechaza como conflicto y una solicitud distinta como no procesable")
+    void clavesEnConflicto() {
+        assertThat(registro.reservar("clave-4", solicitud("A"))).isNull();
+
+        assertThatThrownBy(() -> registro.reservar("clave-4", solicitud("A")))
+                .isInstanceOf(IdempotenciaException.class)
+                .matches(e -> ((IdempotenciaException) e).isEnProceso());
+
+        registro.completar("clave-4", 202, ResponseDTO.builder().message("ok").build());
+        assertThatThrownBy(() -> registro.reservar("clave-4", solicitud("B")))
+                .isInstanceOf(IdempotenciaException.class)
+                .matches(e -> !((IdempotenciaException) e).isEnProceso());
+    }
+
+    @Test
+    @DisplayName("Liberar una reserva permite reintentar con la misma clave")
+    void liberarPermiteReintentar() {
+        assertThat(registro.reservar("clave-5", solicitud("A"))).isNull();
+        registro.liberar("clave-5");
+
+        assertThat(idempotenciaRepository.findById("clave-5")).isEmpty();
+        assertThat(registro.reservar("clave-5", solicitud("A"))).isNull();
+    }
+
+    @Test
+    @DisplayName("La caché guarda el JSON: cada repetición recibe una copia y las respuestas grandes no se retienen")
+    void cacheGuardaJson() {
+        ResponseDTO<Object> cuerpo = ResponseDTO.builder().message("Alerta registrada").build();
+        registro.reservar("clave-6", solicitud("A"));
+        registro.completar("clave-6", 202, cuerpo);
+        cuerpo.setMessage("modificado después de responder");
+
+        RegistroIdempotencia.Respuesta primera = registro.reservar("clave-6", solicitud("A"));
+        primera.cuerpo().setMessage("modificado por el llamador");
+        assertThat(registro.reservar("clave-6", solicitud("A")).cuerpo().getMessage()).isEqualTo("Alerta registrada");
+
+        ReflectionTestUtils.setField(registro, "respuestaMaximaCache", 100);
+        registro.reservar("clave-7", solicitud("B"));
+        registro.completar("clave-7", 202, ResponseDTO.builder().message("x".repeat(200)).build());
+        idempotenciaRepository.deleteAll();
+        idempotenciaRepository.flush();
+        ReflectionTestUtils.setField(registro, "respuestaMaximaCache", 16384);
+
+        // Sin la fila en BD solo la respuesta pequeña sigue en memoria
+        assertThat(registro.reservar("clave-6", solicitud("A"))).isNotNull();
+        assertThat(registro.reservar("clave-7", solicitud("B"))).isNull();
+    }
+
+    private static RequestSendEmail solicitud(String asunto) {
+        RequestSendEmail request = new RequestSendEmail();
+        request.setTo("destino@bcrp.gob.pe");
+        request.setCc("copia@bcrp.gob.pe");
+        request.setAsunto(asunto);
+        request.setCamaraAfectada("CCE");
+        request.setTrama("<trama/>");
+        request.setUsuarioSistema("usuario");
+        return request;
+    }
+}
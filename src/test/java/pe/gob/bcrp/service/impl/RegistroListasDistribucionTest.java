@@ -0,0 +1,100 @@
+package pe.gob.bcrp.service.impl;
+
+import jakarta.mail.internet.InternetAddress;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import pe.gob.bcrp.model.entity.ListaDistribucion;
+import pe.gob.bcrp.repository.ListaDistribucionRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@DisplayName("RegistroListasDistribucion Tests")
+class RegistroListasDistribucionTest {
+
+    @Autowired
+    private ListaDistribucionRepository listaRepository;
+
+    private final LocalDateTime ahora = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @BeforeEach
+    void limpiar() {
+        listaRepository.deleteAll();
+    }
+
+    private ListaDistribucion registrar(String codigo, String destinatarios, LocalDateTime fechaModificacion) {
+        ListaDistribucion lista = listaRepository.findByCodigo(codigo).orElseGet(ListaDistribucion::new);
+        lista.setCodigo(codigo);
+        lista.setDestinatarios(destinatarios);
+        lista.setActivo(true);
+        lista.setFechaCreacion(fechaModificacion);
+        lista.setFechaModificacion(fechaModificacion);
+        return listaRepository.saveAndFlush(lista);
+    }
+
+    @Test
+    @DisplayName("La carga inicial deja todas las listas activas resueltas antes de atender")
+    void testCargaInicial() {
+        registrar("SOPORTE", "a@bcrp.gob.pe, b@bcrp.gob.pe", ahora);
+        ListaDistribucion inactiva = registrar("ANTIGUA", "c@bcrp.gob.pe", ahora);
+        inactiva.setActivo(false);
+        listaRepository.saveAndFlush(inactiva);
+
+        RegistroListasDistribucion registro = new RegistroListasDistribucion(listaRepository, 60_000);
+        registro.cargar();
+
+        assertThat(registro.obtener("SOPORTE")).hasValueSatisfying(lista ->
+                assertThat(lista.para()).extracting(InternetAddress::getAddress)
+                        .containsExactly("a@bcrp.gob.pe", "b@bcrp.gob.pe"));
+        assertThat(registro.obtener("ANTIGUA")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Una lista confirmada tarde con FEC_MOD anterior a la última leída entra por el margen")
+    void testMargenDeRelojes() {
+        registrar("SOPORTE", "a@bcrp.gob.pe", ahora);
+        RegistroListasDistribucion conMargen = new RegistroListasDistribucion(listaRepository, 60_000);
+        RegistroListasDistribucion sinMargen = new RegistroListasDistribucion(listaRepository, 0);
+        conMargen.cargar();
+        sinMargen.cargar();
+
+        // Otra instancia con el reloj 10 segundos atrasado registra una lista
+        registrar("OPERACIONES", "o@bcrp.gob.pe", ahora.minusSeconds(10));
+        conMargen.refrescar();
+        sinMargen.refrescar();
+
+        assertThat(conMargen.obtener("OPERACIONES")).isPresent();
+        assertThat(sinMargen.obtener("OPERACIONES")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("El refresco aplica ediciones y desactivaciones sin volver a versiones anteriores")
+    void testRefresco() {
+        registrar("SOPORTE", "a@bcrp.gob.pe", ahora);
+        RegistroListasDistribucion registro = new RegistroListasDistribucion(listaRepository, 60_000);
+        registro.cargar();
+
+        registrar("SOPORTE", "nuevo@bcrp.gob.pe", ahora.plusSeconds(1));
+        registro.refrescar();
+        assertThat(registro.obtener("SOPORTE")).hasValueSatisfying(lista ->
+                assertThat(lista.destinatarios()).isEqualTo("nuevo@bcrp.gob.pe"));
+
+        // Releer dentro del margen una fila que no cambió deja el registro igual
+        registro.refrescar();
+        assertThat(registro.obtener("SOPORTE")).hasValueSatisfying(lista ->
+                assertThat(lista.destinatarios()).isEqualTo("nuevo@bcrp.gob.pe"));
+
+        ListaDistribucion lista = listaRepository.findByCodigo("SOPORTE").orElseThrow();
+        lista.setActivo(false);
+        lista.setFechaModificacion(ahora.plusSeconds(2));
+        listaRepository.saveAndFlush(lista);
+        registro.refrescar();
+        assertThat(registro.obtener("SOPORTE")).isEmpty();
+    }
+}
@@ -0,0 +1,148 @@
+package pe.gob.bcrp.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+import pe.gob.bcrp.exception.EmailValidationException;
+import pe.gob.bcrp.model.dto.SuscripcionResumenDTO;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+import pe.gob.bcrp.model.entity.FrecuenciaResumen;
+import pe.gob.bcrp.model.entity.SuscripcionResumen;
+import pe.gob.bcrp.model.event.AlertaFinalizadaEvent;
+import pe.gob.bcrp.repository.SuscripcionResumenRepository;
+import pe.gob.bcrp.service.IEmailService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@DisplayName("ResumenAlertasService Tests")
+class ResumenAlertasServiceTest {
+
+    private final SuscripcionResumenRepository suscripcionRepository = mock(SuscripcionResumenRepository.class);
+    private final IEmailService emailService = mock(IEmailService.class);
+    private AgregadorResumen agregador;
+    private ResumenAlertasService servicio;
+
+    @BeforeEach
+    void configurar() {
+        agregador = new AgregadorResumen();
+        ReflectionTestUtils.setField(agregador, "maximoMuestras", 2);
+        servicio = new ResumenAlertasService(agregador, suscripcionRepository, emailService);
+    }
+
+    private void finalizar(String tipoError, EstadoAlerta estado, String archivo) {
+        agregador.onAlertaFinalizada(new AlertaFinalizadaEvent(1L, "CCE", tipoError, archivo, estado,
+                EstadoAlerta.PENDIENTE, LocalDateTime.now()));
+    }
+
+    private static SuscripcionResumenDTO suscripcion(String to, String cc) {
+        SuscripcionResumenDTO dto = new SuscripcionResumenDTO();
+        dto.setTo(to);
+        dto.setCc(cc);
+        dto.setFrecuencia(FrecuenciaResumen.DIARIA);
+        dto.setUsuarioSistema("prueba");
+        return dto;
+    }
+
+    @Test
+    @DisplayName("El resumen ordena las filas por cantidad, totaliza por estado y se renderiza con la plantilla")
+    @SuppressWarnings("unchecked")
+    void testRenderizadoResumen() {
+        SuscripcionResumen activa = new SuscripcionResumen();
+        activa.setDestinatarios("soporte@bcrp.gob.pe");
+        when(suscripcionRepository.findByFrecuenciaAndActivoTrue(FrecuenciaResumen.HORARIA)).thenReturn(List.of(activa));
+        when(emailService.enviarResumen(anyString(), any(), anyString(), any())).thenReturn(true);
+
+        finalizar("TIMEOUT", EstadoAlerta.DESCARTADA, "a.xml");
+        finalizar("TIMEOUT", EstadoAlerta.DESCARTADA, "b.xml");
+        finalizar("TIMEOUT", EstadoAlerta.DESCARTADA, "c.xml");
+        finalizar("", EstadoAlerta.ENVIADA, "d.xml");
+
+        servicio.enviarResumen(FrecuenciaResumen.HORARIA, "Resumen horario");
+
+        ArgumentCaptor<Map<String, Object>> contexto = ArgumentCaptor.forClass(Map.class);
+        verify(emailService).enviarResumen(eq("soporte@bcrp.gob.pe"), eq(null),
+                startsWith("Resumen horario de alertas - "), contexto.capture());
+        List<Map<String, Object>> filas = (List<Map<String, Object>>) contexto.getValue().get("filas");
+        assertThat(filas).extracting(fila -> fila.get("tipoError"))
+                .containsExactly("TIMEOUT", "(operación exitosa)");
+        assertThat(filas.get(0)).containsEntry("cantidad", 3L).containsEntry("muestras", "a.xml, b.xml");
+        assertThat((List<Map<String, Object>>) contexto.getValue().get("totales"))
+                .containsExactlyInAnyOrder(Map.of("estado", "DESCARTADA", "cantidad", 3L),
+                        Map.of("estado", "ENVIADA", "cantidad", 1L));
+
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding("UTF-8");
+        TemplateEngine templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+
+        String html = templateEngine.process("resumen-email", new Context(Locale.getDefault(), contexto.getValue()));
+        assertThat(html).contains("Resumen horario", "<td>TIMEOUT</td>", "<td>a.xml, b.xml</td>",
+                "<td>(operación exitosa)</td>").doesNotContain("No se registraron alertas");
+    }
+
+    @Test
+    @DisplayName("Sin suscripciones activas el periodo se reinicia sin enviar correos")
+    void testSinSuscripciones() {
+        finalizar("TIMEOUT", EstadoAlerta.DESCARTADA, "a.xml");
+
+        servicio.enviarResumen(FrecuenciaResumen.HORARIA, "Resumen horario");
+
+        verify(emailService, never()).enviarResumen(anyString(), any(), anyString(), any());
+        assertThat(agregador.tomar(FrecuenciaResumen.HORARIA).contadores()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Una instancia sin resúmenes habilitados reinicia el periodo sin consultar suscripciones")
+    void testResumenDeshabilitado() {
+        ReflectionTestUtils.setField(servicio, "habilitado", false);
+        finalizar("TIMEOUT", EstadoAlerta.DESCARTADA, "a.xml");
+
+        servicio.enviarResumen(FrecuenciaResumen.DIARIA, "Resumen diario");
+
+        verify(suscripcionRepository, never()).findByFrecuenciaAndActivoTrue(any());
+        verify(emailService, never()).enviarResumen(anyString(), any(), anyString(), any());
+        assertThat(agregador.tomar(FrecuenciaResumen.DIARIA).contadores()).isEmpty();
+    }
+
+    @Test
+    @DisplayName("La suscripción rechaza direcciones inválidas en TO y CC")
+    void testSuscripcionValidaDirecciones() {
+        when(suscripcionRepository.save(any())).thenAnswer(invocacion -> invocacion.getArgument(0));
+
+        assertThatThrownBy(() -> servicio.suscribir(suscripcion("soporte@bcrp.gob.pe, no-es-correo", null)))
+                .isInstanceOf(EmailValidationException.class)
+                .hasMessage("Emails inválidos en la suscripción");
+        assertThatThrownBy(() -> servicio.suscribir(suscripcion("soporte@bcrp.gob.pe", "copia@")))
+                .isInstanceOf(EmailValidationException.class)
+                .hasMessage("Emails inválidos en campo CC de la suscripción");
+        verify(suscripcionRepository, never()).save(any());
+
+        SuscripcionResumen guardada = servicio.suscribir(suscripcion("soporte@bcrp.gob.pe", ""));
+        assertThat(guardada.getDestinatarios()).isEqualTo("soporte@bcrp.gob.pe");
+        assertThat(guardada.isActivo()).isTrue();
+    }
+}
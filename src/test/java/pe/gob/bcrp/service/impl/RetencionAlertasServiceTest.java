@@ -0,0 +1,192 @@
+package pe.gob.bcrp.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import pe.gob.bcrp.DataJpaTestMySql;
+import pe.gob.bcrp.model.entity.Alerta;
+import pe.gob.bcrp.model.entity.Bloqueo;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+import pe.gob.bcrp.repository.AlertaRepository;
+import pe.gob.bcrp.repository.BloqueoRepository;
+import pe.gob.bcrp.repository.ParticionesAlertaRepository;
+import pe.gob.bcrp.repository.TramaRepository;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTestMySql
+@Import({RetencionAlertasService.class, TramaService.class, ParticionesAlertaRepository.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@DisplayName("RetencionAlertasService Tests")
+class RetencionAlertasServiceTest {
+
+    @Autowired
+    private RetencionAlertasService retencionService;
+    @Autowired
+    private AlertaRepository alertaRepository;
+    @Autowired
+    private TramaService tramaService;
+    @Autowired
+    private BloqueoRepository bloqueoRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private TramaRepository tramaRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @TempDir
+    private Path directorio;
+
+    private final YearMonth actual = YearMonth.now();
+
+    @BeforeEach
+    void configurar() {
+        ReflectionTestUtils.setField(retencionService, "directorio", directorio.toString());
+        ReflectionTestUtils.setField(retencionService, "meses", 6);
+        ReflectionTestUtils.setField(retencionService, "lote", 3);
+        ReflectionTestUtils.setField(retencionService, "pausaMs", 0L);
+
+        List<Alerta> alertas = new ArrayList<>();
+        // 5 alertas hace 8 meses, 4 hace 7 meses y 2 en el mes en curso
+        for (int i = 0; i < 11; i++) {
+            YearMonth mes = i < 5 ? actual.minusMonths(8) : i < 9 ? actual.minusMonths(7) : actual;
+            Alerta alerta = new Alerta();
+            alerta.setNomArchivo("archivo-" + i);
+            alerta.setCamAfectada("CCE");
+            alerta.setHashTrama(tramaService.guardar("<trama>" + i % 2 + "</trama>"));
+            alerta.setFechaCreacion(mes.atDay(1).atTime(10, i));
+            alerta.setEstado(EstadoAlerta.ENVIADA);
+            alertas.add(alerta);
+        }
+        alertaRepository.saveAll(alertas);
+    }
+
+    private List<JsonNode> leer(Path archivo) throws IOException {
+        List<JsonNode> lineas = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(archivo)), StandardCharsets.UTF_8))) {
+            String linea;
+            while ((linea = reader.readLine()) != null) {
+                lineas.add(objectMapper.readTree(linea));
+            }
+        }
+        return lineas;
+    }
+
+    @Test
+    @DisplayName("Archiva por mes las alertas fuera de la retención y las elimina en lotes")
+    void testArchivaYElimina() throws IOException {
+        retencionService.aplicarRetencion();
+
+        List<JsonNode> mesAntiguo = leer(directorio.resolve(
+                "MOM_MAE_ALERTA-" + ParticionesAlertaRepository.nombre(actual.minusMonths(8)).substring(1) + ".ndjson.gz"));
+        List<JsonNode> mesSiguiente = leer(directorio.resolve(
+                "MOM_MAE_ALERTA-" + ParticionesAlertaRepository.nombre(actual.minusMonths(7)).substring(1) + ".ndjson.gz"));
+
+        assertThat(mesAntiguo).hasSize(5);
+        assertThat(mesAntiguo.get(1).get("trama").asText()).isEqualTo("<trama>1</trama>");
+        assertThat(mesSiguiente).hasSize(4);
+        assertThat(alertaRepository.count()).isEqualTo(2);
+        assertThat(alertaRepository.buscarFechaMasAntigua()).isAfterOrEqualTo(actual.atDay(1).atStartOfDay());
+    }
+
+    @Test
+    @DisplayName("Un mes ya archivado no se vuelve a escribir")
+    void testNoSobrescribeArchivo() throws IOException {
+        YearMonth mes = actual.minusMonths(8);
+        LocalDateTime desde = mes.atDay(1).atStartOfDay();
+
+        assertThat(retencionService.archivar(mes, desde, desde.plusMonths(1))).isEqualTo(5);
+        Path archivo = Files.list(directorio).findFirst().orElseThrow();
+        var modificado = Files.getLastModifiedTime(archivo);
+
+        // Retorna las alertas del archivo existente sin reescribirlo
+        assertThat(retencionService.archivar(mes, desde, desde.plusMonths(1))).isEqualTo(5);
+        assertThat(Files.list(directorio)).hasSize(1);
+        assertThat(Files.getLastModifiedTime(archivo)).isEqualTo(modificado);
+    }
+
+    @Test
+    @DisplayName("Un archivo existente incompleto no se reemplaza y el mes no se elimina")
+    void testArchivoIncompletoNoElimina() throws IOException {
+        Path incompleto = directorio.resolve(
+                "MOM_MAE_ALERTA-" + ParticionesAlertaRepository.nombre(actual.minusMonths(8)).substring(1) + ".ndjson.gz");
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(incompleto)),
+                StandardCharsets.UTF_8)) {
+            writer.write("{}\n{}\n");
+        }
+
+        retencionService.aplicarRetencion();
+
+        assertThat(leer(incompleto)).hasSize(2);
+        assertThat(alertaRepository.count()).isEqualTo(11);
+    }
+
+    @Test
+    @DisplayName("No se ejecuta mientras otra instancia tiene el bloqueo")
+    void testBloqueoEntreInstancias() {
+        bloqueoRepository.save(new Bloqueo("RETENCION_ALERTAS", LocalDateTime.now().plusHours(1), "otra-instancia"));
+
+        retencionService.aplicarRetencion();
+
+        assertThat(alertaRepository.count()).isEqualTo(11);
+        assertThat(directorio.toFile().list()).isEmpty();
+
+        // Vencido el bloqueo de la otra instancia, se toma y se libera al terminar
+        bloqueoRepository.save(new Bloqueo("RETENCION_ALERTAS", LocalDateTime.now().minusMinutes(1), "otra-instancia"));
+        retencionService.aplicarRetencion();
+
+        assertThat(alertaRepository.count()).isEqualTo(2);
+        assertThat(bloqueoRepository.findById("RETENCION_ALERTAS").orElseThrow().getBloqueadoPor()).isNull();
+    }
+
+    @Test
+    @DisplayName("Elimina las tramas sin alertas y sin uso reciente y conserva las demás")
+    void testPurgaTramasSinAlertas() {
+        Alerta antigua = new Alerta();
+        antigua.setNomArchivo("archivo-antiguo");
+        antigua.setCamAfectada("CCE");
+        antigua.setHashTrama(tramaService.guardar("<trama>antigua</trama>"));
+        antigua.setFechaCreacion(actual.minusMonths(8).atDay(2).atStartOfDay());
+        antigua.setEstado(EstadoAlerta.ENVIADA);
+        alertaRepository.save(antigua);
+        // Guardada para una alerta que aún no se inserta
+        String enCurso = tramaService.guardar("<trama>en curso</trama>");
+
+        // La trama 1 también es antigua, pero la sigue referenciando una alerta del mes en curso
+        LocalDateTime haceOchoMeses = actual.minusMonths(8).atDay(1).atStartOfDay();
+        jdbcTemplate.update("UPDATE MOM_MAE_TRAMA SET FEC_REG = ?, FEC_USO = ? WHERE HASH_TRAMA IN (?, ?)",
+                haceOchoMeses, haceOchoMeses, antigua.getHashTrama(), tramaService.guardar("<trama>1</trama>"));
+
+        retencionService.aplicarRetencion();
+
+        assertThat(tramaRepository.existsById(antigua.getHashTrama())).isFalse();
+        assertThat(tramaRepository.existsById(enCurso)).isTrue();
+        assertThat(tramaRepository.findAll()).hasSize(3);
+    }
+}
@@ -0,0 +1,111 @@
+package pe.gob.bcrp.service.impl;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import pe.gob.bcrp.DataJpaTestMySql;
+import pe.gob.bcrp.model.entity.Alerta;
+import pe.gob.bcrp.model.entity.EstadoAlerta;
+import pe.gob.bcrp.model.entity.Trama;
+import pe.gob.bcrp.repository.AlertaRepository;
+import pe.gob.bcrp.repository.TramaRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTestMySql
+@Import(TramaService.class)
+// Sin transacción de prueba: la caché solo recuerda tramas de transacciones confirmadas
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("TramaService Tests")
+class TramaServiceTest {
+
+    @Autowired
+    private TramaService tramaService;
+    @Autowired
+    private TramaRepository tramaRepository;
+    @Autowired
+    private AlertaRepository alertaRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void limpiar() {
+        alertaRepository.deleteAll();
+        tramaRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("La trama se guarda comprimida y se recupera idéntica")
+    void testCompresion() {
+        String trama = "<Mensaje><Cámara>CCE</Cámara><Detalle>año ñandú</Detalle></Mensaje>\n".repeat(200);
+
+        String hash = tramaService.guardar(trama);
+
+        Trama registro = tramaRepository.findById(hash).orElseThrow();
+        assertThat(registro.getTamanoOriginal()).isEqualTo(trama.getBytes(StandardCharsets.UTF_8).length);
+        assertThat(registro.getContenido().length).isLessThan(registro.getTamanoOriginal() / 10);
+        // leer no pasa por la caché: la trama sale de descomprimir la fila
+        assertThat(tramaService.leer(List.of(hash))).isEqualTo(Map.of(hash, trama));
+    }
+
+    @Test
+    @DisplayName("Una trama repetida reutiliza la fila existente")
+    void testDeduplicacion() {
+        String hash = tramaService.guardar("<Mensaje>duplicado</Mensaje>");
+        assertThat(tramaService.guardar("<Mensaje>duplicado</Mensaje>")).isEqualTo(hash);
+        assertThat(tramaService.guardar("<Mensaje>otro</Mensaje>")).isNotEqualTo(hash);
+
+        assertThat(tramaRepository.count()).isEqualTo(2);
+        // Otra instancia que no la tiene en caché tampoco duplica la fila
+        assertThat(tramaRepository.insertarSiNoExiste(hash, new byte[]{1}, 1, LocalDateTime.now())).isZero();
+        assertThat(tramaRepository.count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Las alertas anteriores al almacenamiento por hash leen la trama en línea")
+    void testTramaEnLinea() {
+        jdbcTemplate.execute("ALTER TABLE MOM_MAE_ALERTA ADD COLUMN IF NOT EXISTS trama VARCHAR(4000)");
+        Alerta alerta = new Alerta();
+        alerta.setNomArchivo("archivo-antiguo");
+        alerta.setEstado(EstadoAlerta.ENVIADA);
+        alerta.setFechaCreacion(LocalDateTime.now());
+        alerta = alertaRepository.save(alerta);
+        jdbcTemplate.update("UPDATE MOM_MAE_ALERTA SET trama = ? WHERE ID_ALERTA = ?",
+                "<Mensaje>en línea</Mensaje>", alerta.getIdAlerta());
+
+        Alerta leida = alertaRepository.findById(alerta.getIdAlerta()).orElseThrow();
+        assertThat(leida.getHashTrama()).isNull();
+        tramaService.cargar(leida);
+        assertThat(leida.getTrama()).isEqualTo("<Mensaje>en línea</Mensaje>");
+    }
+
+    @Test
+    @DisplayName("La caché se acota por caracteres y no guarda tramas mayores al límite")
+    void testCacheAcotadaPorCaracteres() {
+        TramaService tramaService = new TramaService(tramaRepository, alertaRepository, 512, 100);
+        String primera = "a".repeat(40);
+        String segunda = "b".repeat(40);
+        String tercera = "c".repeat(40);
+        String hashPrimera = tramaService.guardar(primera);
+        tramaService.guardar(segunda);
+        tramaService.guardar(tercera);
+        assertThat(tramaService.caracteresEnCache()).isEqualTo(80);
+
+        tramaService.guardar("d".repeat(150));
+        assertThat(tramaService.caracteresEnCache()).isEqualTo(80);
+
+        // La desalojada se sigue leyendo de la base
+        assertThat(tramaService.obtener(hashPrimera)).isEqualTo(primera);
+        assertThat(tramaService.caracteresEnCache()).isEqualTo(80);
+    }
+}
@@ -0,0 +1,180 @@
+package pe.gob.bcrp.service.impl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import pe.gob.bcrp.service.impl.TrazabilidadBufferService.PoliticaDesborde;
+import pe.gob.bcrp.traceability.service.ITraceabilityService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("TrazabilidadBufferService Tests")
+class TrazabilidadBufferServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final DelegadoRetenido delegado = new DelegadoRetenido();
+    private TrazabilidadBufferService servicio;
+
+    /**
+     * Registra los eventos escritos; el primero queda retenido hasta liberar el latch para
+     * mantener ocupado al consumidor mientras se llena el buffer
+     */
+    private static final class DelegadoRetenido implements ITraceabilityService {
+        private final List<String> escritos = new CopyOnWriteArrayList<>();
+        private final CountDownLatch retenido = new CountDownLatch(1);
+        private final CountDownLatch liberar = new CountDownLatch(1);
+
+        @Override
+        public void logSuccess(String tipoEvento, String procesoId, String mensaje) {
+            escribir(mensaje);
+        }
+
+        @Override
+        public void logError(String tipoEvento, String procesoId, String mensaje) {
+            escribir(mensaje);
+        }
+
+        private void escribir(String mensaje) {
+            if (retenido.getCount() > 0) {
+                retenido.countDown();
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            escritos.add(mensaje);
+        }
+    }
+
+    @AfterEach
+    void cerrar() throws InterruptedException {
+        delegado.liberar.countDown();
+        servicio.detener();
+    }
+
+    private void crear(int capacidad, int tamanoLote, PoliticaDesborde politica, int muestreo) {
+        servicio = new TrazabilidadBufferService(delegado, capacidad, tamanoLote, politica, muestreo, 1);
+        servicio.bindTo(meterRegistry);
+        servicio.iniciar();
+    }
+
+    // Deja al consumidor retenido en el primer evento y llena el buffer
+    private void ocuparYLlenar(int capacidad) throws InterruptedException {
+        servicio.logSuccess("PRUEBA", "p", "retenido");
+        assertThat(delegado.retenido.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < capacidad; i++) {
+            servicio.logSuccess("PRUEBA", "p", "lleno-" + i);
+        }
+    }
+
+    private double descartados() {
+        return meterRegistry.get("correo.trazabilidad.descartados").functionCounter().count();
+    }
+
+    @Test
+    @DisplayName("BLOQUEAR entrega todos los eventos de varios productores en el orden de cada uno")
+    void testBloquearSinPerdidas() throws Exception {
+        crear(4, 2, PoliticaDesborde.BLOQUEAR, 10);
+        delegado.liberar.countDown();
+
+        int productores = 4;
+        int porProductor = 2000;
+        List<Thread> hilos = new ArrayList<>();
+        for (int p = 0; p < productores; p++) {
+            int productor = p;
+            hilos.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < porProductor; i++) {
+                    servicio.logError("PRUEBA", "p" + productor, productor + ":" + i);
+                }
+            }));
+        }
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+        servicio.detener();
+
+        assertThat(delegado.escritos).hasSize(productores * porProductor);
+        Map<String, Integer> ultimos = new HashMap<>();
+        for (String escrito : delegado.escritos) {
+            String[] partes = escrito.split(":");
+            int secuencia = Integer.parseInt(partes[1]);
+            assertThat(secuencia).isEqualTo(ultimos.getOrDefault(partes[0], -1) + 1);
+            ultimos.put(partes[0], secuencia);
+        }
+        assertThat(descartados()).isZero();
+    }
+
+    @Test
+    @DisplayName("DESCARTAR cuenta los eventos que no caben y entrega el resto")
+    void testDescartar() throws InterruptedException {
+        crear(4, 256, PoliticaDesborde.DESCARTAR, 10);
+        ocuparYLlenar(4);
+        for (int i = 0; i < 6; i++) {
+            servicio.logSuccess("PRUEBA", "p", "desborde-" + i);
+        }
+        assertThat(descartados()).isEqualTo(6);
+
+        delegado.liberar.countDown();
+        servicio.detener();
+        assertThat(delegado.escritos).containsExactly("retenido", "lleno-0", "lleno-1", "lleno-2", "lleno-3");
+    }
+
+    @Test
+    @DisplayName("MUESTREAR conserva uno de cada N desbordes esperando espacio y descarta el resto")
+    void testMuestrear() throws InterruptedException {
+        crear(4, 256, PoliticaDesborde.MUESTREAR, 3);
+        ocuparYLlenar(4);
+
+        // El tercer desborde espera espacio: se produce en otro hilo hasta liberar al consumidor
+        Thread productor = Thread.ofPlatform().start(() -> {
+            for (int i = 1; i <= 3; i++) {
+                servicio.logSuccess("PRUEBA", "p", "desborde-" + i);
+            }
+        });
+        long limite = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (descartados() < 2 && System.nanoTime() < limite) {
+            Thread.sleep(5);
+        }
+        assertThat(descartados()).isEqualTo(2);
+        assertThat(productor.isAlive()).isTrue();
+
+        delegado.liberar.countDown();
+        productor.join(5000);
+        servicio.detener();
+
+        assertThat(descartados()).isEqualTo(2);
+        assertThat(delegado.escritos).hasSize(6).endsWith("desborde-3")
+                .doesNotContain("desborde-1", "desborde-2");
+    }
+
+    @Test
+    @DisplayName("Al detenerse entrega los eventos pendientes y escribe directo los posteriores")
+    void testDrenadoAlDetener() throws InterruptedException {
+        crear(8, 1, PoliticaDesborde.BLOQUEAR, 10);
+        ocuparYLlenar(8);
+
+        Thread cierre = Thread.ofPlatform().start(() -> {
+            try {
+                servicio.detener();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        delegado.liberar.countDown();
+        cierre.join(5000);
+
+        assertThat(delegado.escritos).hasSize(9).startsWith("retenido", "lleno-0").endsWith("lleno-7");
+        servicio.logSuccess("PRUEBA", "p", "posterior");
+        assertThat(delegado.escritos).hasSize(10).endsWith("posterior");
+    }
+}
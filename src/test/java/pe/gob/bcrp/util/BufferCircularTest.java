@@ -0,0 +1,100 @@
+package pe.gob.bcrp.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("BufferCircular Tests")
+class BufferCircularTest {
+
+    @Test
+    @DisplayName("La capacidad se redondea a potencia de 2 y el buffer rechaza cuando está lleno")
+    void testCapacidadYLleno() {
+        BufferCircular<Integer> buffer = new BufferCircular<>(3);
+        assertThat(buffer.capacidad()).isEqualTo(4);
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+
+        assertThat(buffer.poll()).isZero();
+        assertThat(buffer.offer(4)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Conserva el orden al dar varias vueltas sobre las mismas celdas")
+    void testVueltas() {
+        BufferCircular<Integer> buffer = new BufferCircular<>(4);
+        int siguiente = 0;
+        int esperado = 0;
+        for (int vuelta = 0; vuelta < 10; vuelta++) {
+            for (int i = 0; i < 3; i++) {
+                assertThat(buffer.offer(siguiente++)).isTrue();
+            }
+            for (int i = 0; i < 3; i++) {
+                assertThat(buffer.poll()).isEqualTo(esperado++);
+            }
+        }
+        assertThat(buffer.poll()).isNull();
+        assertThat(buffer.isEmpty()).isTrue();
+    }
+
+    @Test
+    @DisplayName("Con varios productores no se pierde ningún elemento y cada productor conserva su orden")
+    void testVariosProductores() throws Exception {
+        int productores = 4;
+        int porProductor = 20_000;
+        BufferCircular<long[]> buffer = new BufferCircular<>(256);
+        ExecutorService ejecutor = Executors.newFixedThreadPool(productores);
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int p = 0; p < productores; p++) {
+                int productor = p;
+                tareas.add(ejecutor.submit(() -> {
+                    for (long i = 0; i < porProductor; i++) {
+                        long[] elemento = {productor, i};
+                        while (!buffer.offer(elemento)) {
+                            Thread.yield();
+                        }
+                    }
+                }));
+            }
+
+            long[] ultimos = new long[productores];
+            Arrays.fill(ultimos, -1);
+            int recibidos = 0;
+            while (recibidos < productores * porProductor) {
+                long[] elemento = buffer.poll();
+                if (elemento == null) {
+                    Thread.yield();
+                    continue;
+                }
+                int productor = (int) elemento[0];
+                if (elemento[1] != ultimos[productor] + 1) {
+                    break;
+                }
+                ultimos[productor] = elemento[1];
+                recibidos++;
+            }
+            assertThat(recibidos).isEqualTo(productores * porProductor);
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+
+            assertThat(ultimos).containsOnly(porProductor - 1L);
+            assertThat(buffer.poll()).isNull();
+        } finally {
+            ejecutor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package pe.gob.bcrp.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("ContadorRodante Tests")
+class ContadorRodanteTest {
+
+    // Inicio de una hora: 10:00 de un día cualquiera expresado en minutos desde la época
+    private static final long BASE = 29_000_000L / 60 * 60;
+
+    @Test
+    @DisplayName("Cuenta por ventanas de minutos y horas")
+    void testVentanas() {
+        ContadorRodante contador = new ContadorRodante(4);
+        contador.sumar(BASE, BASE + 90, 1);       // hace 90 minutos
+        contador.sumar(BASE + 70, BASE + 90, 2);  // hace 20 minutos
+        contador.sumar(BASE + 88, BASE + 90, 3);  // hace 2 minutos
+
+        assertThat(contador.contarMinutos(BASE + 90, 5)).isEqualTo(3);
+        assertThat(contador.contarMinutos(BASE + 90, ContadorRodante.MINUTOS)).isEqualTo(5);
+        assertThat(contador.contarHoras(BASE + 90, ContadorRodante.HORAS)).isEqualTo(6);
+    }
+
+    @Test
+    @DisplayName("Las celdas vencidas se reinician al reutilizarse")
+    void testReutilizacionDeCeldas() {
+        ContadorRodante contador = new ContadorRodante(1);
+        contador.sumar(BASE, BASE, 5);
+        contador.sumar(BASE + ContadorRodante.MINUTOS, BASE + ContadorRodante.MINUTOS, 1);
+
+        assertThat(contador.contarMinutos(BASE + ContadorRodante.MINUTOS, ContadorRodante.MINUTOS)).isEqualTo(1);
+        assertThat(contador.contarHoras(BASE + 25 * ContadorRodante.MINUTOS, ContadorRodante.HORAS)).isZero();
+        // Un evento fuera de la ventana no se registra
+        contador.sumar(BASE, BASE + 2 * ContadorRodante.MINUTOS, 1);
+        assertThat(contador.contarMinutos(BASE + 2 * ContadorRodante.MINUTOS, ContadorRodante.MINUTOS)).isZero();
+    }
+
+    @Test
+    @DisplayName("Un descuento alcanza lo sumado en otra franja")
+    void testDescuentoEntreFranjas() throws InterruptedException {
+        ContadorRodante contador = new ContadorRodante(8);
+        List<Thread> hilos = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            hilos.add(Thread.ofPlatform().start(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    contador.sumar(BASE + 1, BASE + 1, 1);
+                }
+            }));
+        }
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+        assertThat(contador.contarMinutos(BASE + 1, 5)).isEqualTo(8000);
+
+        contador.sumar(BASE + 1, BASE + 1, -7999);
+        assertThat(contador.contarMinutos(BASE + 1, 5)).isEqualTo(1);
+        assertThat(contador.contarHoras(BASE + 1, 1)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,83 @@
+package pe.gob.bcrp.util;
+
+import jakarta.mail.internet.AddressException;
+import jakarta.mail.internet.InternetAddress;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Compara el trabajo por mensaje sobre una lista de destinatarios: antes se validaba con
+ * parseAndValidateEmailAddresses y se volvía a partir y validar con parseEmailAddresses
+ * (que MimeMessageHelper convierte en InternetAddress); ahora basta parsearDestinatarios.
+ *
+ * Se ejecuta con {@code mvn -P benchmark verify -Djmh.benchmarks=EmailUtilsBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailUtilsBenchmark {
+
+    @Param({"1", "5", "20"})
+    private int destinatarios;
+
+    private String lista;
+
+    @Setup
+    public void preparar() {
+        lista = IntStream.range(0, destinatarios)
+                .mapToObj(i -> "operador." + i + "@bcrp.gob.pe")
+                .collect(Collectors.joining("; "));
+    }
+
+    @Benchmark
+    public void anterior(Blackhole blackhole) throws AddressException {
+        List<EmailUtilsAnterior.EmailValidationResult> resultados = EmailUtilsAnterior.parseAndValidateEmailAddresses(lista);
+        blackhole.consume(resultados);
+
+        String[] direcciones = EmailUtilsAnterior.parseEmailAddresses(lista);
+        InternetAddress[] convertidas = new InternetAddress[direcciones.length];
+        for (int i = 0; i < direcciones.length; i++) {
+            convertidas[i] = new InternetAddress(direcciones[i]);
+        }
+        blackhole.consume(convertidas);
+    }
+
+    @Benchmark
+    public EmailUtils.Destinatarios unaPasada() {
+        return EmailUtils.parsearDestinatarios(lista);
+    }
+
+    @Benchmark
+    public List<EmailUtils.EmailValidationResult> parseAndValidate() {
+        return EmailUtils.parseAndValidateEmailAddresses(lista);
+    }
+
+    @Benchmark
+    public EmailUtils.EmailValidationResult validateEmail() {
+        return EmailUtils.validateEmail("operador.0@bcrp.gob.pe");
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(EmailUtilsBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,50 @@
+package pe.gob.bcrp.util;
+
+import jakarta.mail.internet.InternetAddress;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DisplayName("EmailUtils Tests")
+class EmailUtilsTest {
+
+    private static final List<String> LISTAS = List.of(
+            "operaciones@bcrp.gob.pe",
+            " a@b.co ; c.d_e%f-g@sub.dominio.pe,x@y.com ",
+            "a@b.com;", "a@b.com; ", ";a@b.com", "a@b.com,,c@d.com", ",,,", "  ,,",
+            "sin-arroba.pe", "termina@", "@empieza.com", "dos@@arrobas.com", "a@b@c.com",
+            "a@sinpunto", "a@dominio.", "-a@b.com", "a-@b.com", "a@-b.com", "a@b-.com",
+            "a@.com", "a@b.c", "a@b.c0m", "a b@c.com", "ñ@b.com", "a@b.com ", "a..b@c.com");
+
+    @Test
+    @DisplayName("Valida igual que la implementación anterior")
+    void testMismosResultadosQueAntes() {
+        for (String lista : LISTAS) {
+            List<String> esperado = EmailUtilsAnterior.parseAndValidateEmailAddresses(lista).stream()
+                    .map(EmailUtilsAnterior.EmailValidationResult::toString)
+                    .toList();
+            List<String> obtenido = EmailUtils.parseAndValidateEmailAddresses(lista).stream()
+                    .map(EmailUtils.EmailValidationResult::toString)
+                    .toList();
+
+            assertThat(obtenido).as(lista).isEqualTo(esperado);
+            assertThat(EmailUtils.parseEmailAddresses(lista)).as(lista)
+                    .containsExactly(EmailUtilsAnterior.parseEmailAddresses(lista));
+        }
+    }
+
+    @Test
+    @DisplayName("Retorna las direcciones válidas listas para el mensaje")
+    void testDireccionesValidas() {
+        EmailUtils.Destinatarios destinatarios = EmailUtils.parsearDestinatarios("a@b.com; malo; c@d.pe");
+
+        assertThat(destinatarios.sonValidos()).isFalse();
+        assertThat(Arrays.stream(destinatarios.direcciones()).map(InternetAddress::getAddress))
+                .containsExactly("a@b.com", "c@d.pe");
+        assertThat(EmailUtils.parsearDestinatarios("a@b.com").sonValidos()).isTrue();
+    }
+}